@@ -3,13 +3,17 @@
  */
 package ForagingModel.agent;
 
+import java.io.Serializable;
+
 import ForagingModel.schedule.Schedulable;
 
 /**
   *
  */
-public abstract class Agent implements Schedulable
+public abstract class Agent implements Schedulable, Serializable
 {
+	private static final long serialVersionUID = -5734250177868082930L;
+
 	public enum AgentType { Forager, SexForager }
 	
 	public enum Sex { Female, Male, Unknown }
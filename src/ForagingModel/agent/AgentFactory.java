@@ -8,7 +8,9 @@ import ForagingModel.agent.movement.MovementBehavior;
 import ForagingModel.agent.movement.MovementFactory;
 import ForagingModel.core.ModelEnvironment;
 import ForagingModel.core.NdPoint;
+import ForagingModel.core.NumberGenerator;
 import ForagingModel.core.Parameters;
+import ForagingModel.core.SimulationContext;
 import ForagingModel.predator.PredatorManager;
 import ForagingModel.schedule.SchedulePriority;
 import ForagingModel.schedule.Scheduler;
@@ -25,25 +27,46 @@ public class AgentFactory
 			PredatorManager predatorManager, 
 			ScentManager scentManager, ScentHistory allFemales,
 			NdPoint startingLocation, Scheduler scheduler)
+	{
+		return createAndPlaceForager(space, sex, resource, predatorManager, scentManager, allFemales, 
+				startingLocation, scheduler, SimulationContext.current());
+	}
+	
+	public static Forager createAndPlaceForager(LocationManager space, 
+			Sex sex, ResourceAssemblage resource, 
+			PredatorManager predatorManager, 
+			ScentManager scentManager, ScentHistory allFemales,
+			NdPoint startingLocation, Scheduler scheduler, SimulationContext context)
 	{
 		Parameters params = Parameters.get();
 		double consumptionRate = params.getConsumptionRate();
 		double consumptionSpatialScale = params.getConsumptionSpatialScale();
 		double averageConsumption = resource.calculateAvgConsumptionRate(consumptionRate, consumptionSpatialScale);
-		int numIntervals = params.getNumIntervals();
+		int numIntervals = context.getNumIntervals();
 		int numBurnInIntervals = params.getNumBurnInIntervals();
 		int lifespan = params.getForagerLifespan();
-		double intervalSize = params.getIntervalSize();
+		double intervalSize = context.getIntervalSize();
 
 		Recorder recorder = AgentFactory.createRecorder(numIntervals, numBurnInIntervals, resource.getNumPercentileBins(), 
 										 intervalSize, predatorManager); // need 1 per forager
-		Forager forager = createForager(space, sex, lifespan, resource, 
-				MovementFactory.createMovement(resource, predatorManager, 
-						scentManager, allFemales,
-						averageConsumption, space, startingLocation, 
-						scheduler, recorder), 
-				recorder, 
-				averageConsumption, consumptionRate, consumptionSpatialScale);
+		
+		// the forager's movement and memory draw from its own stream, so they don't depend on other foragers' draws
+		NumberGenerator simulationGenerator = ModelEnvironment.swapNumberGenerator(ModelEnvironment.getNumberGenerator().split());
+		Forager forager;
+		try
+		{
+			forager = createForager(space, sex, lifespan, resource, 
+					MovementFactory.createMovement(resource, predatorManager, 
+							scentManager, allFemales,
+							averageConsumption, space, startingLocation, 
+							scheduler, recorder, context), 
+					recorder, 
+					averageConsumption, consumptionRate, consumptionSpatialScale);
+		}
+		finally
+		{
+			ModelEnvironment.swapNumberGenerator(simulationGenerator);
+		}
 		
 		space.moveTo(forager, startingLocation);
 		if (null != scentManager)
@@ -60,6 +83,15 @@ public class AgentFactory
 			Sex sex, ResourceAssemblage resource, 
 			PredatorManager predatorManager, ScentManager scentManager, ScentHistory allFemales,
 			Scheduler scheduler)
+	{
+		return createAndPlaceForagers(numForagers, space, sex, resource, predatorManager, scentManager, allFemales, 
+				scheduler, SimulationContext.current());
+	}
+	
+	public static List<Forager> createAndPlaceForagers(int numForagers, LocationManager space, 
+			Sex sex, ResourceAssemblage resource, 
+			PredatorManager predatorManager, ScentManager scentManager, ScentHistory allFemales,
+			Scheduler scheduler, SimulationContext context)
 	{
 		List<Forager> foragers = new ArrayList<Forager>(numForagers);
 		
@@ -68,7 +100,7 @@ public class AgentFactory
 			NdPoint startingLocation = Parameters.get().getStartingLocation();
 			foragers.add(createAndPlaceForager(space, sex, resource, predatorManager, 
 					scentManager, allFemales,
-					startingLocation, scheduler));
+					startingLocation, scheduler, context));
 		}
 		return foragers;
 	}
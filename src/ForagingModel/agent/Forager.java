@@ -3,6 +3,8 @@
  */
 package ForagingModel.agent;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import ForagingModel.agent.movement.BehaviorState;
 import ForagingModel.agent.movement.MovementBehavior;
 import ForagingModel.core.ForagingModelException;
@@ -17,7 +19,9 @@ import ForagingModel.space.ResourceAssemblage;
  */
 public class Forager extends Agent implements MovingAgent
 {
-	private static int currentAvailableId = 0;
+	private static final long serialVersionUID = 4988977268672713016L;
+
+	private static final AtomicInteger currentAvailableId = new AtomicInteger();
 	private int id;
 	private Sex sex;
 	private int lifespan;
@@ -47,7 +51,7 @@ public class Forager extends Agent implements MovingAgent
 		this.averageConsumption = averageConsumption;
 		this.consumptionRate = consumptionRate;
 		this.consumptionSpatialScale = consumptionSpatialScale;
-		this.id = currentAvailableId++;
+		this.id = currentAvailableId.getAndIncrement();
 		this.isAlive = true;
 		init();
 	}
@@ -1,5 +1,6 @@
 package ForagingModel.agent;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -20,8 +21,10 @@ import ForagingModel.predator.Predator;
 import ForagingModel.predator.PredatorManager;
 import ForagingModel.space.SpaceUtils;
 
-public class Recorder implements Reporter 
+public class Recorder implements Reporter, Serializable 
 {
+	private static final long serialVersionUID = -981458094167356433L;
+
 	private final static Logger logger = LoggerFactory.getLogger(Recorder.class);
 
 	private final int MAX_REPEATED_STEPS = 10;
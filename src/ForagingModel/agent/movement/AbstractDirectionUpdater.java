@@ -1,7 +1,11 @@
 package ForagingModel.agent.movement;
 
-public abstract class AbstractDirectionUpdater 
+import java.io.Serializable;
+
+public abstract class AbstractDirectionUpdater implements Serializable 
 {
+	private static final long serialVersionUID = -4199052041939932164L;
+
 	private double intervalSize;
 	private double currentTime;
 	private boolean shouldUpdateNow;
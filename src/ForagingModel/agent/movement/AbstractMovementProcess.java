@@ -1,5 +1,6 @@
 package ForagingModel.agent.movement;
 
+import java.io.Serializable;
 import java.util.Set;
 
 import org.apache.commons.math3.util.FastMath;
@@ -13,8 +14,10 @@ import ForagingModel.core.NumberGenerator;
 import ForagingModel.core.Velocity;
 import ForagingModel.space.SpaceUtils;
 
-public abstract class AbstractMovementProcess 
+public abstract class AbstractMovementProcess implements Serializable 
 {
+	private static final long serialVersionUID = -5919956970787407088L;
+
 	private final static Logger logger = LoggerFactory.getLogger(AbstractMovementProcess.class);
 
 	private double minDimensionX;
@@ -26,6 +29,8 @@ public abstract class AbstractMovementProcess
 	protected Velocity currentVelocity;
 	protected double dt; // time step
 	protected double cornerFactor;
+	// the forager's own stream, as the process is made while it is the current one
+	protected NumberGenerator generator;
 
 	protected enum Bounds {None, Top, Bottom, Left, Right, TopLeft, TopRight, BottomLeft, BottomRight}
 
@@ -37,6 +42,7 @@ public abstract class AbstractMovementProcess
 		this.maxDimensionY = maxDimensionY;
 		this.dt = intervalSize;
 		cornerFactor = 2;
+		generator = ModelEnvironment.getNumberGenerator();
 	}
 	
 	public Velocity getEscapeVelocity(NdPoint currentLocation,	Set<NdPoint> predators) 
@@ -267,7 +273,6 @@ public abstract class AbstractMovementProcess
 	protected Angle getNewRandomAngle(Bounds outsideBounds)
 	{
 		AngleBounds bounds = getNewAngleBounds(outsideBounds);
-		NumberGenerator generator = ModelEnvironment.getNumberGenerator();
 		
 		Angle angle;
 		if (bounds.overlapsZero())
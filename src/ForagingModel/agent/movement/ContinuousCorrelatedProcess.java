@@ -4,17 +4,16 @@ import java.util.Set;
 
 import ForagingModel.agent.Recorder;
 import ForagingModel.core.Angle;
-import ForagingModel.core.ModelEnvironment;
 import ForagingModel.core.NdPoint;
-import ForagingModel.core.NumberGenerator;
 import ForagingModel.core.Velocity;
 
 public class ContinuousCorrelatedProcess extends AbstractMovementProcess implements MovementProcess 
 {
+	private static final long serialVersionUID = -9046079260411112660L;
+
 	protected double tau;
 	protected Velocity mu;
 	protected DirectionUpdater directionUpdater;
-	private NumberGenerator generator;
 	private Recorder recorder;
 
 	protected ContinuousCorrelatedProcess(double speed, double tau, DirectionUpdater directionUpdater, Velocity initialVelocity, 
@@ -27,7 +26,6 @@ public class ContinuousCorrelatedProcess extends AbstractMovementProcess impleme
 		this.currentVelocity = initialVelocity;
 		this.directionUpdater = directionUpdater;
 		this.recorder = recorder;
-		generator = ModelEnvironment.getNumberGenerator();
 	}
 
 	@Override
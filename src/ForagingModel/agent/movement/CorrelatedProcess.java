@@ -3,14 +3,12 @@ package ForagingModel.agent.movement;
 import java.util.Set;
 
 import ForagingModel.core.Angle;
-import ForagingModel.core.ModelEnvironment;
 import ForagingModel.core.NdPoint;
-import ForagingModel.core.NumberGenerator;
 import ForagingModel.core.Velocity;
 
 public class CorrelatedProcess extends AbstractMovementProcess implements MovementProcess 
 {
-	protected NumberGenerator generator = ModelEnvironment.getNumberGenerator();
+	private static final long serialVersionUID = 4549437186550960784L;
 
 	protected double persistence;
 	protected Angle angle;
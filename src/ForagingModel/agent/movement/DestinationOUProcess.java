@@ -6,6 +6,8 @@ import ForagingModel.core.NdPoint;
 
 public class DestinationOUProcess extends OUProcess implements DestinationProcess 
 {
+	private static final long serialVersionUID = -4627371379151241739L;
+
 	private Velocity mu0 = Velocity.create(0, 0);
 	private NdPoint destination;
 	private double arrivalRadius;
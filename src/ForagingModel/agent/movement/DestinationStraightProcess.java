@@ -1,12 +1,13 @@
 package ForagingModel.agent.movement;
 
-import ForagingModel.core.ModelEnvironment;
 import ForagingModel.core.Velocity;
 import ForagingModel.space.SpaceUtils;
 import ForagingModel.core.NdPoint;
 
 public class DestinationStraightProcess extends StraightProcess implements DestinationProcess 
 {
+	private static final long serialVersionUID = 1038106165525497750L;
+
 	private NdPoint destination;
 	private double arrivalRadius;
  
@@ -28,7 +29,7 @@ public class DestinationStraightProcess extends StraightProcess implements Desti
 		else
 		{
 			Velocity newVelocity = Velocity.createPolar(speed, 
-														ModelEnvironment.getNumberGenerator().nextDoubleFromTo(0, 2*Math.PI));
+														generator.nextDoubleFromTo(0, 2*Math.PI));
 			NdPoint newLocation = newVelocity.move(currentLocation, dt);
 			Bounds outsideBounds = checkBounds(newLocation, speed);
 			
@@ -13,6 +13,8 @@ import ForagingModel.space.MemoryAssemblage;
 
 public class DirectionalContinuousCorrelatedProcess extends ContinuousCorrelatedProcess implements MovementProcess, Notifiable 
 {
+	private static final long serialVersionUID = -3089666901029273569L;
+
 	private final static Logger logger = LoggerFactory.getLogger(DirectionalContinuousCorrelatedProcess.class);
 
 	private MemoryAssemblage memory;
@@ -8,6 +8,8 @@ import ForagingModel.space.MemoryAssemblage;
 
 public class DirectionalCorrelatedProcess extends CorrelatedProcess 
 {
+	private static final long serialVersionUID = -3661299644809747503L;
+
 	private MemoryAssemblage memory;
 	private boolean memorySetsCorrelation;
 	private DirectionProbabalistic currentDirection;
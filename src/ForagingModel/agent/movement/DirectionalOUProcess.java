@@ -8,6 +8,8 @@ import ForagingModel.space.MemoryAssemblage;
 
 public class DirectionalOUProcess extends OUProcess 
 {
+	private static final long serialVersionUID = 6307576228261996391L;
+
 	private MemoryAssemblage memory;
 	private DirectionProbabalistic currentDirection;
 
@@ -1,5 +1,6 @@
 package ForagingModel.agent.movement;
 
+import java.io.Serializable;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -9,8 +10,10 @@ import ForagingModel.core.Velocity;
 import ForagingModel.predator.PredatorEncounterBehavior;
 import ForagingModel.predator.PredatorManager;
 
-public class KineticMovement implements MovementBehavior
+public class KineticMovement implements MovementBehavior, Serializable
 {
+	private static final long serialVersionUID = 4195960988589094787L;
+
 	private MovementProcess searching;
 	private MovementProcess feeding;
 	private BehaviorSwitchingRule switchingRule;
@@ -1,7 +1,11 @@
 package ForagingModel.agent.movement;
 
-public class LearnedValueSwitching implements BehaviorSwitchingRule 
+import java.io.Serializable;
+
+public class LearnedValueSwitching implements BehaviorSwitchingRule, Serializable 
 {
+	private static final long serialVersionUID = 6015108986778474573L;
+
 	private double averageConsumptionRate;
 	private double learningRate;
 	
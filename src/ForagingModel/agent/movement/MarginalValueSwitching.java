@@ -1,7 +1,11 @@
 package ForagingModel.agent.movement;
 
-public class MarginalValueSwitching implements BehaviorSwitchingRule 
+import java.io.Serializable;
+
+public class MarginalValueSwitching implements BehaviorSwitchingRule, Serializable 
 {
+	private static final long serialVersionUID = -6399811749342574624L;
+
 	private double landscapeAverageConsumtionRate;
 	
 	protected MarginalValueSwitching(double landscapeAverageConsumtionRate)
@@ -1,5 +1,6 @@
 package ForagingModel.agent.movement;
 
+import java.io.Serializable;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -11,8 +12,10 @@ import ForagingModel.predator.PredatorManager;
 import ForagingModel.space.LocationManager;
 import ForagingModel.space.MemoryAssemblage;
 
-public class MemoryDestinationMovement implements MovementBehavior, MemoryMovementBehavior 
+public class MemoryDestinationMovement implements MovementBehavior, MemoryMovementBehavior, Serializable 
 {
+	private static final long serialVersionUID = -5273080946137776871L;
+
 	private DestinationProcess searching;
 	private MovementProcess feeding;
 	private BehaviorSwitchingRule switchingRule;
@@ -1,11 +1,15 @@
 package ForagingModel.agent.movement;
 
+import java.io.Serializable;
+
 import ForagingModel.core.NdPoint;
 import ForagingModel.core.Velocity;
 import ForagingModel.space.MemoryAssemblage;
 
-public class MemoryDirectionalMovement implements MovementBehavior, MemoryMovementBehavior 
+public class MemoryDirectionalMovement implements MovementBehavior, MemoryMovementBehavior, Serializable 
 {
+	private static final long serialVersionUID = 6942387294661371221L;
+
 	private MovementBehavior underlyingMovement;
 	private MemoryAssemblage memory;
 	
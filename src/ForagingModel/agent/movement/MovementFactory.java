@@ -4,6 +4,7 @@ import ForagingModel.agent.Recorder;
 import ForagingModel.core.ModelEnvironment;
 import ForagingModel.core.NdPoint;
 import ForagingModel.core.Parameters;
+import ForagingModel.core.SimulationContext;
 import ForagingModel.core.Velocity;
 import ForagingModel.predator.PredatorEncounterBehavior;
 import ForagingModel.predator.PredatorManager;
@@ -24,6 +25,15 @@ public class MovementFactory
 			PredatorManager predatorManager, ScentManager scentManager, ScentHistory femalesHistory,
 			double averageConsumption, LocationManager locationManager, NdPoint startingLocation, 
 			Scheduler scheduler, Recorder recorder)
+	{
+		return createMovement(resources, predatorManager, scentManager, femalesHistory, averageConsumption, 
+				locationManager, startingLocation, scheduler, recorder, SimulationContext.current());
+	}
+
+	public static MovementBehavior createMovement(ResourceAssemblage resources, 
+			PredatorManager predatorManager, ScentManager scentManager, ScentHistory femalesHistory,
+			double averageConsumption, LocationManager locationManager, NdPoint startingLocation, 
+			Scheduler scheduler, Recorder recorder, SimulationContext context)
 	{
 		// based on parameter values
 		Parameters params = Parameters.get();
@@ -34,18 +44,18 @@ public class MovementFactory
 		{
 		case MemoryDestination:
 			memory = SpaceFactory.createMemoryAssemblage(resources, 
-					predatorManager, scentManager, femalesHistory, scheduler);
+					predatorManager, scentManager, femalesHistory, scheduler, context);
 			
 			switch(params.getMovementProcess())
 			{
 			case Straight:
-				movement = createStraightMemoryDestinationMovement(memory, averageConsumption, locationManager, predatorManager, startingLocation, recorder);
+				movement = createStraightMemoryDestinationMovement(memory, averageConsumption, locationManager, predatorManager, startingLocation, recorder, context);
 				break;
 			case OU:
-				movement = createOUMemoryDestinationMovement(memory, averageConsumption, locationManager, predatorManager, startingLocation, recorder);
+				movement = createOUMemoryDestinationMovement(memory, averageConsumption, locationManager, predatorManager, startingLocation, recorder, context);
 				break;
 			case Mixed:
-				movement = createMixedMemoryDestinationMovement(memory, averageConsumption, locationManager, predatorManager, startingLocation, recorder);
+				movement = createMixedMemoryDestinationMovement(memory, averageConsumption, locationManager, predatorManager, startingLocation, recorder, context);
 				break;
 			default:
 				throw new IllegalArgumentException("Unrecognized movement process " + params.getMovementProcess());
@@ -53,7 +63,7 @@ public class MovementFactory
 			break;
 		case MemoryDirectional:
 			memory = SpaceFactory.createMemoryAssemblage(resources, 
-					predatorManager, scentManager, femalesHistory, scheduler);
+					predatorManager, scentManager, femalesHistory, scheduler, context);
 			
 			MemoryAssemblage avoidanceMemory = null;
 			if (memory instanceof AggregateMemory)
@@ -72,13 +82,13 @@ public class MovementFactory
 			switch(params.getMovementProcess())
 			{
 			case Correlated:
-				movement = createCorrelatedMemoryDirectionalMovement(memory, avoidanceMemory, averageConsumption, locationManager, predatorManager, startingLocation, recorder);
+				movement = createCorrelatedMemoryDirectionalMovement(memory, avoidanceMemory, averageConsumption, locationManager, predatorManager, startingLocation, recorder, context);
 				break;
 			case ContinuousCorrelated:
-				movement = createContinuousCorrelatedMemoryDirectionalMovement(memory, avoidanceMemory, averageConsumption, locationManager, predatorManager, startingLocation, recorder, scheduler);
+				movement = createContinuousCorrelatedMemoryDirectionalMovement(memory, avoidanceMemory, averageConsumption, locationManager, predatorManager, startingLocation, recorder, scheduler, context);
 				break;
 			case OU:
-				movement = createOUMemoryDirectionalMovement(memory, avoidanceMemory, averageConsumption, locationManager, predatorManager, startingLocation, recorder);
+				movement = createOUMemoryDirectionalMovement(memory, avoidanceMemory, averageConsumption, locationManager, predatorManager, startingLocation, recorder, context);
 				break;
 			case Straight:
 			case Mixed:
@@ -95,14 +105,14 @@ public class MovementFactory
 			if (params.getScentTracking())
 			{
 				MemoryAssemblage scent = SpaceFactory.createScentHistory(scentManager, 
-						femalesHistory, scheduler);
+						femalesHistory, scheduler, context);
 				switch(params.getMovementProcess())
 				{
 				case ContinuousCorrelated:
 					searching = createDirectionalContinuousCorrelatedProcess(params.getForagerSpeedSearch(), params.getForagerTauSearch(),
-							scent, recorder, scheduler);
+							scent, recorder, scheduler, context);
 					feeding = createDirectionalContinuousCorrelatedProcess(params.getForagerSpeedFeeding(), params.getForagerTauFeeding(),
-							scent, recorder, scheduler);					
+							scent, recorder, scheduler, context);					
 					break;
 				case Correlated:
 				case OU:
@@ -119,24 +129,24 @@ public class MovementFactory
 				switch(params.getMovementProcess())
 				{
 				case Straight:
-					searching = createStraightProcess(params.getForagerSpeedSearch());
-					feeding = createStraightProcess(params.getForagerSpeedFeeding());
+					searching = createStraightProcess(params.getForagerSpeedSearch(), context);
+					feeding = createStraightProcess(params.getForagerSpeedFeeding(), context);
 					break;
 				case OU:
-					searching = createOUProcess(params.getForagerSpeedSearch(), params.getForagerTauSearch());
-					feeding = createOUProcess(params.getForagerSpeedFeeding(), params.getForagerTauFeeding());
+					searching = createOUProcess(params.getForagerSpeedSearch(), params.getForagerTauSearch(), context);
+					feeding = createOUProcess(params.getForagerSpeedFeeding(), params.getForagerTauFeeding(), context);
 					break;
 				case Mixed:
-					searching = createStraightProcess(params.getForagerSpeedSearch());
-					feeding = createOUProcess(params.getForagerSpeedFeeding(), params.getForagerTauFeeding());
+					searching = createStraightProcess(params.getForagerSpeedSearch(), context);
+					feeding = createOUProcess(params.getForagerSpeedFeeding(), params.getForagerTauFeeding(), context);
 					break;
 				case Correlated:
-					searching = createCorrelatedProcess(params.getForagerSpeedSearch(), params.getForagerAnglePersistanceSearch());
-					feeding = createCorrelatedProcess(params.getForagerSpeedFeeding(), params.getForagerAnglePersistanceFeeding());
+					searching = createCorrelatedProcess(params.getForagerSpeedSearch(), params.getForagerAnglePersistanceSearch(), context);
+					feeding = createCorrelatedProcess(params.getForagerSpeedFeeding(), params.getForagerAnglePersistanceFeeding(), context);
 					break;
 				case ContinuousCorrelated:
-					searching = createContinuousCorrelatedProcess(params.getForagerSpeedSearch(), params.getForagerTauSearch(), recorder, scheduler);
-					feeding = createContinuousCorrelatedProcess(params.getForagerSpeedFeeding(), params.getForagerTauFeeding(), recorder, scheduler);
+					searching = createContinuousCorrelatedProcess(params.getForagerSpeedSearch(), params.getForagerTauSearch(), recorder, scheduler, context);
+					feeding = createContinuousCorrelatedProcess(params.getForagerSpeedFeeding(), params.getForagerTauFeeding(), recorder, scheduler, context);
 					break;
 				default:
 					throw new IllegalArgumentException("Unrecognized movement process " + params.getMovementProcess());
@@ -150,12 +160,12 @@ public class MovementFactory
 			if (params.getScentTracking())
 			{
 				MemoryAssemblage scent = SpaceFactory.createScentHistory(scentManager, 
-						femalesHistory, scheduler);
+						femalesHistory, scheduler, context);
 				switch(params.getMovementProcess())
 				{
 				case ContinuousCorrelated:
 					movement = createSingleStateMovement(
-							createDirectionalContinuousCorrelatedProcess(params.getForagerSpeedSearch(), params.getForagerTauSearch(), scent, recorder, scheduler), 
+							createDirectionalContinuousCorrelatedProcess(params.getForagerSpeedSearch(), params.getForagerTauSearch(), scent, recorder, scheduler, context), 
 							recorder, predatorManager);
 					break;
 				case Correlated:
@@ -172,21 +182,21 @@ public class MovementFactory
 				switch(params.getMovementProcess())
 				{
 				case Straight:
-					movement = createSingleStateMovement(createStraightProcess(params.getForagerSpeedSearch()), 
+					movement = createSingleStateMovement(createStraightProcess(params.getForagerSpeedSearch(), context), 
 							recorder, predatorManager);
 					break;
 				case OU:
-					movement = createSingleStateMovement(createOUProcess(params.getForagerSpeedSearch(), params.getForagerTauSearch()), 
+					movement = createSingleStateMovement(createOUProcess(params.getForagerSpeedSearch(), params.getForagerTauSearch(), context), 
 							recorder, predatorManager);
 					break;
 				case Mixed:
 					throw new IllegalStateException("Cannot have a mixed movement process for single state movement.");
 				case Correlated:
-					movement = createSingleStateMovement(createCorrelatedProcess(params.getForagerSpeedSearch(), params.getForagerAnglePersistanceSearch()), 
+					movement = createSingleStateMovement(createCorrelatedProcess(params.getForagerSpeedSearch(), params.getForagerAnglePersistanceSearch(), context), 
 							recorder, predatorManager);
 					break;
 				case ContinuousCorrelated:
-					movement = createSingleStateMovement(createContinuousCorrelatedProcess(params.getForagerSpeedSearch(), params.getForagerTauSearch(), recorder, scheduler), 
+					movement = createSingleStateMovement(createContinuousCorrelatedProcess(params.getForagerSpeedSearch(), params.getForagerTauSearch(), recorder, scheduler, context), 
 							recorder, predatorManager);
 					break;
 				default:
@@ -227,50 +237,50 @@ public class MovementFactory
 	}
 	
 	protected static MovementBehavior createStraightMemoryDestinationMovement(MemoryAssemblage memory, double averageConsumtion, 
-			LocationManager locationManager, PredatorManager predatorManager, NdPoint startingLocation, Recorder recorder)
+			LocationManager locationManager, PredatorManager predatorManager, NdPoint startingLocation, Recorder recorder, SimulationContext context)
 	{
 		Parameters params = Parameters.get();
 		DestinationProcess searchingBehavior = createDestinationStraightProcess(params.getForagerSpeedSearch(), params.getMemoryArrivalRadius(),
 				createInitialVelocity(params.getForagerSpeedSearch()), 
-				params.getMinDimension(), params.getMinDimension(), params.getMaxDimensionX(), params.getMaxDimensionY(), params.getIntervalSize());
-		MovementProcess feedingBehavior = createStraightProcess(params.getForagerSpeedFeeding());
+				context.getMinDimensionX(), context.getMinDimensionY(), context.getMaxDimensionX(), context.getMaxDimensionY(), context.getIntervalSize());
+		MovementProcess feedingBehavior = createStraightProcess(params.getForagerSpeedFeeding(), context);
 		BehaviorSwitchingRule switchingRule = createBehaviorSwitchingRule(averageConsumtion);
 		return createMemoryMovement(searchingBehavior, feedingBehavior, switchingRule, recorder, memory, 
 				locationManager, predatorManager, startingLocation);
 	}
 
 	protected static MovementBehavior createOUMemoryDestinationMovement(MemoryAssemblage memory, double averageConsumtion, 
-			LocationManager locationManager, PredatorManager predatorManager, NdPoint startingLocation, Recorder recorder)
+			LocationManager locationManager, PredatorManager predatorManager, NdPoint startingLocation, Recorder recorder, SimulationContext context)
 	{
 		Parameters params = Parameters.get();
 		DestinationProcess searchingBehavior = createDestinationOUProcess(params.getForagerSpeedSearch(), params.getForagerTauSearch(), 
 				params.getMemoryArrivalRadius(), createInitialVelocity(params.getForagerSpeedSearch()), 
-				params.getMinDimension(), params.getMinDimension(), params.getMaxDimensionX(), params.getMaxDimensionY(), params.getIntervalSize());
-		MovementProcess feedingBehavior = createOUProcess(params.getForagerSpeedFeeding(), params.getForagerTauFeeding());
+				context.getMinDimensionX(), context.getMinDimensionY(), context.getMaxDimensionX(), context.getMaxDimensionY(), context.getIntervalSize());
+		MovementProcess feedingBehavior = createOUProcess(params.getForagerSpeedFeeding(), params.getForagerTauFeeding(), context);
 		BehaviorSwitchingRule switchingRule = createBehaviorSwitchingRule(averageConsumtion);
 		return createMemoryMovement(searchingBehavior, feedingBehavior, switchingRule, recorder, memory, 
 				locationManager, predatorManager, startingLocation);
 	}
 
 	protected static MovementBehavior createMixedMemoryDestinationMovement(MemoryAssemblage memory, double averageConsumtion, 
-			LocationManager locationManager, PredatorManager predatorManager, NdPoint startingLocation, Recorder recorder)
+			LocationManager locationManager, PredatorManager predatorManager, NdPoint startingLocation, Recorder recorder, SimulationContext context)
 	{
 		Parameters params = Parameters.get();
 		DestinationProcess searchingBehavior = createDestinationStraightProcess(params.getForagerSpeedSearch(), params.getMemoryArrivalRadius(),
 				createInitialVelocity(params.getForagerSpeedSearch()), 
-				params.getMinDimension(), params.getMinDimension(), params.getMaxDimensionX(), params.getMaxDimensionY(), params.getIntervalSize());
-		MovementProcess feedingBehavior = createOUProcess(params.getForagerSpeedFeeding(), params.getForagerTauFeeding());
+				context.getMinDimensionX(), context.getMinDimensionY(), context.getMaxDimensionX(), context.getMaxDimensionY(), context.getIntervalSize());
+		MovementProcess feedingBehavior = createOUProcess(params.getForagerSpeedFeeding(), params.getForagerTauFeeding(), context);
 		BehaviorSwitchingRule switchingRule = createBehaviorSwitchingRule(averageConsumtion);
 		return createMemoryMovement(searchingBehavior, feedingBehavior, switchingRule, recorder, memory, 
 				locationManager, predatorManager, startingLocation);
 	}
 
-	protected static MovementProcess createStraightProcess(double speed)
+	protected static MovementProcess createStraightProcess(double speed, SimulationContext context)
 	{		
 		return createStraightProcess(speed, createInitialVelocity(speed), 
-				Parameters.get().getMinDimension(), Parameters.get().getMinDimension(), 
-				Parameters.get().getMaxDimensionX(), Parameters.get().getMaxDimensionY(), 
-				Parameters.get().getIntervalSize());
+				context.getMinDimensionX(), context.getMinDimensionY(), 
+				context.getMaxDimensionX(), context.getMaxDimensionY(), 
+				context.getIntervalSize());
 	}
 	
 	protected static MovementProcess createStraightProcess(double speed, Velocity initialVelocity, 
@@ -285,12 +295,12 @@ public class MovementFactory
 		return new DestinationStraightProcess(speed, arrivalRadius, initialVelocity, minDimensionX, minDimensionY, maxDimensionX, maxDimensionY, intervalSize);
 	}
 	
-	protected static MovementProcess createOUProcess(double speed, double tau)
+	protected static MovementProcess createOUProcess(double speed, double tau, SimulationContext context)
 	{		
 		return createOUProcess(speed, tau, createInitialVelocity(speed), 
-				Parameters.get().getMinDimension(), Parameters.get().getMinDimension(), 
-				Parameters.get().getMaxDimensionX(), Parameters.get().getMaxDimensionY(), 
-				Parameters.get().getIntervalSize());
+				context.getMinDimensionX(), context.getMinDimensionY(), 
+				context.getMaxDimensionX(), context.getMaxDimensionY(), 
+				context.getIntervalSize());
 	}
 
 	protected static MovementProcess createOUProcess(double speed, double tau, Velocity initialVelocity, 
@@ -360,11 +370,16 @@ public class MovementFactory
 	}
 
 	protected static MovementProcess createCorrelatedProcess(double speed, double persistence) 
+	{
+		return createCorrelatedProcess(speed, persistence, SimulationContext.current());
+	}
+	
+	protected static MovementProcess createCorrelatedProcess(double speed, double persistence, SimulationContext context) 
 	{
 		return createCorrelatedProcess(speed, persistence, createInitialVelocity(speed), 
-				Parameters.get().getMinDimension(), Parameters.get().getMinDimension(), 
-				Parameters.get().getMaxDimensionX(), Parameters.get().getMaxDimensionY(), 
-				Parameters.get().getIntervalSize());
+				context.getMinDimensionX(), context.getMinDimensionY(), 
+				context.getMaxDimensionX(), context.getMaxDimensionY(), 
+				context.getIntervalSize());
 	}
 	
 	protected static MovementProcess createCorrelatedProcess(double speed, double persistence, Velocity initialVelocity, 
@@ -375,11 +390,17 @@ public class MovementFactory
 
 	protected static MovementProcess createDirectionalCorrelatedProcess(double speed, double persistence, 
 			MemoryAssemblage memory) 
+	{
+		return createDirectionalCorrelatedProcess(speed, persistence, memory, SimulationContext.current());
+	}
+	
+	protected static MovementProcess createDirectionalCorrelatedProcess(double speed, double persistence, 
+			MemoryAssemblage memory, SimulationContext context) 
 	{
 		return createDirectionalCorrelatedProcess(speed, persistence, memory, Parameters.get().getIsMemorySetCorrelation(), createInitialVelocity(speed), 
-				Parameters.get().getMinDimension(), Parameters.get().getMinDimension(), 
-				Parameters.get().getMaxDimensionX(), Parameters.get().getMaxDimensionY(), 
-				Parameters.get().getIntervalSize());
+				context.getMinDimensionX(), context.getMinDimensionY(), 
+				context.getMaxDimensionX(), context.getMaxDimensionY(), 
+				context.getIntervalSize());
 	}
 	
 	protected static MovementProcess createDirectionalCorrelatedProcess(double speed, double persistence, 
@@ -390,12 +411,13 @@ public class MovementFactory
 				minDimensionX, minDimensionY, maxDimensionX, maxDimensionY, intervalSize);
 	}
 	
-	protected static MovementProcess createContinuousCorrelatedProcess(double speed, double tau, Recorder recorder, Scheduler scheduler) 
+	protected static MovementProcess createContinuousCorrelatedProcess(double speed, double tau, Recorder recorder, Scheduler scheduler, 
+			SimulationContext context) 
 	{
 		return createContinuousCorrelatedProcess(speed, tau, createInitialVelocity(speed), 
-				Parameters.get().getMinDimension(), Parameters.get().getMinDimension(), 
-				Parameters.get().getMaxDimensionX(), Parameters.get().getMaxDimensionY(), 
-				Parameters.get().getIntervalSize(), recorder, scheduler);
+				context.getMinDimensionX(), context.getMinDimensionY(), 
+				context.getMaxDimensionX(), context.getMaxDimensionY(), 
+				context.getIntervalSize(), recorder, scheduler);
 	}
 	
 	protected static MovementProcess createContinuousCorrelatedProcess(double speed, double tau, Velocity initialVelocity, 
@@ -410,14 +432,14 @@ public class MovementFactory
 	}
 
 	protected static MovementProcess createDirectionalContinuousCorrelatedProcess(double speed, double tau, 
-			MemoryAssemblage memory, Recorder recorder, Scheduler scheduler) 
+			MemoryAssemblage memory, Recorder recorder, Scheduler scheduler, SimulationContext context) 
 	{
 		DirectionUpdater updater = createDirectionUpdater();
 		DirectionalContinuousCorrelatedProcess movement = createDirectionalContinuousCorrelatedProcess(speed, tau, memory, 
 				updater, createInitialVelocity(speed), 
-				Parameters.get().getMinDimension(), Parameters.get().getMinDimension(), 
-				Parameters.get().getMaxDimensionX(), Parameters.get().getMaxDimensionY(), 
-				Parameters.get().getIntervalSize(),
+				context.getMinDimensionX(), context.getMinDimensionY(), 
+				context.getMaxDimensionX(), context.getMaxDimensionY(), 
+				context.getIntervalSize(),
 				recorder);
 		scheduler.register(movement);
 		scheduler.register(updater);
@@ -434,25 +456,25 @@ public class MovementFactory
 	}
 	
 	protected static MovementBehavior createCorrelatedMemoryDirectionalMovement(MemoryAssemblage memorySearch, MemoryAssemblage memoryFeeding, double averageConsumtion, 
-			LocationManager locationManager, PredatorManager predatorManager, NdPoint startingLocation, Recorder recorder)
+			LocationManager locationManager, PredatorManager predatorManager, NdPoint startingLocation, Recorder recorder, SimulationContext context)
 	{
 		Parameters params = Parameters.get();
 		MovementProcess searchingBehavior = createDirectionalCorrelatedProcess(params.getForagerSpeedSearch(), params.getForagerAnglePersistanceSearch(),
 				memorySearch, Parameters.get().getIsMemorySetCorrelation(), createInitialVelocity(params.getForagerSpeedSearch()), 
-				params.getMinDimension(), params.getMinDimension(), params.getMaxDimensionX(), params.getMaxDimensionY(), params.getIntervalSize());
+				context.getMinDimensionX(), context.getMinDimensionY(), context.getMaxDimensionX(), context.getMaxDimensionY(), context.getIntervalSize());
 		// feed memory (aka predator memory) is null if no predators
 		MovementProcess feedingBehavior;
 		if (memoryFeeding == null)
 		{
 			feedingBehavior = createCorrelatedProcess(params.getForagerSpeedFeeding(), params.getForagerAnglePersistanceFeeding(),
 					createInitialVelocity(params.getForagerSpeedFeeding()), 
-					params.getMinDimension(), params.getMinDimension(), params.getMaxDimensionX(), params.getMaxDimensionY(), params.getIntervalSize());			
+					context.getMinDimensionX(), context.getMinDimensionY(), context.getMaxDimensionX(), context.getMaxDimensionY(), context.getIntervalSize());			
 		}
 		else
 		{
 			feedingBehavior = createDirectionalCorrelatedProcess(params.getForagerSpeedFeeding(), params.getForagerAnglePersistanceFeeding(),
 					memoryFeeding, false, createInitialVelocity(params.getForagerSpeedFeeding()), 
-					params.getMinDimension(), params.getMinDimension(), params.getMaxDimensionX(), params.getMaxDimensionY(), params.getIntervalSize());
+					context.getMinDimensionX(), context.getMinDimensionY(), context.getMaxDimensionX(), context.getMaxDimensionY(), context.getIntervalSize());
 		}
 		BehaviorSwitchingRule switchingRule = createBehaviorSwitchingRule(averageConsumtion);
 		MovementBehavior underlyingMovement = createKineticMovement(searchingBehavior, feedingBehavior, switchingRule, recorder,
@@ -461,21 +483,21 @@ public class MovementFactory
 	}
 	
 	protected static MovementBehavior createContinuousCorrelatedMemoryDirectionalMovement(MemoryAssemblage memorySearch, MemoryAssemblage memoryFeeding, double averageConsumtion, 
-			LocationManager locationManager, PredatorManager predatorManager, NdPoint startingLocation, Recorder recorder, Scheduler scheduler)
+			LocationManager locationManager, PredatorManager predatorManager, NdPoint startingLocation, Recorder recorder, Scheduler scheduler, SimulationContext context)
 	{
 		Parameters params = Parameters.get();
 		MovementProcess searchingBehavior = createDirectionalContinuousCorrelatedProcess(params.getForagerSpeedSearch(), params.getForagerTauSearch(),
-				memorySearch, recorder, scheduler);
+				memorySearch, recorder, scheduler, context);
 		// feed memory (aka predator memory) is null if no predators
 		MovementProcess feedingBehavior;
 		if (memoryFeeding == null)
 		{
-			feedingBehavior = createContinuousCorrelatedProcess(params.getForagerSpeedFeeding(), params.getForagerTauFeeding(), recorder, scheduler);			
+			feedingBehavior = createContinuousCorrelatedProcess(params.getForagerSpeedFeeding(), params.getForagerTauFeeding(), recorder, scheduler, context);			
 		}
 		else
 		{
 			feedingBehavior = createDirectionalContinuousCorrelatedProcess(params.getForagerSpeedFeeding(), params.getForagerTauFeeding(),
-					memoryFeeding, recorder, scheduler);
+					memoryFeeding, recorder, scheduler, context);
 		}
 		BehaviorSwitchingRule switchingRule = createBehaviorSwitchingRule(averageConsumtion);
 		MovementBehavior underlyingMovement = createKineticMovement(searchingBehavior, feedingBehavior, switchingRule, recorder,
@@ -485,23 +507,23 @@ public class MovementFactory
 
 	
 	protected static MovementBehavior createOUMemoryDirectionalMovement(MemoryAssemblage memorySearch, MemoryAssemblage memoryFeeding, double averageConsumtion, 
-			LocationManager locationManager, PredatorManager predatorManager, NdPoint startingLocation, Recorder recorder)
+			LocationManager locationManager, PredatorManager predatorManager, NdPoint startingLocation, Recorder recorder, SimulationContext context)
 	{
 		Parameters params = Parameters.get();
 		MovementProcess searchingBehavior = createDirectionalOUProcess(params.getForagerSpeedSearch(), params.getForagerTauSearch(), 
 				memorySearch, createInitialVelocity(params.getForagerSpeedSearch()), 
-				params.getMinDimension(), params.getMinDimension(), params.getMaxDimensionX(), params.getMaxDimensionY(), params.getIntervalSize());
+				context.getMinDimensionX(), context.getMinDimensionY(), context.getMaxDimensionX(), context.getMaxDimensionY(), context.getIntervalSize());
 		// feed memory (aka predator memory) is null if no predators
 		MovementProcess feedingBehavior;
 		if (memoryFeeding == null)
 		{
-			feedingBehavior = createOUProcess(params.getForagerSpeedFeeding(), params.getForagerTauFeeding());			
+			feedingBehavior = createOUProcess(params.getForagerSpeedFeeding(), params.getForagerTauFeeding(), context);			
 		}
 		else
 		{
 			feedingBehavior = createDirectionalOUProcess(params.getForagerSpeedFeeding(), params.getForagerTauFeeding(), 
 					memoryFeeding, createInitialVelocity(params.getForagerSpeedFeeding()), 
-					params.getMinDimension(), params.getMinDimension(), params.getMaxDimensionX(), params.getMaxDimensionY(), params.getIntervalSize());
+					context.getMinDimensionX(), context.getMinDimensionY(), context.getMaxDimensionX(), context.getMaxDimensionY(), context.getIntervalSize());
 		}
 
 		BehaviorSwitchingRule switchingRule = createBehaviorSwitchingRule(averageConsumtion);
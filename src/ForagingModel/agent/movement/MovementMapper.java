@@ -1,12 +1,16 @@
 package ForagingModel.agent.movement;
 
+import java.io.Serializable;
+
 import org.apache.commons.collections.BidiMap;
 import org.apache.commons.collections.bidimap.DualHashBidiMap;
 
 import ForagingModel.agent.Agent;
 
-public class MovementMapper 
+public class MovementMapper implements Serializable 
 {
+	private static final long serialVersionUID = 5309519328593525458L;
+
 	private BidiMap movementToAgent;
 	private BidiMap agentToMovement;
 	
@@ -1,17 +1,16 @@
 package ForagingModel.agent.movement;
 
 import ForagingModel.core.Angle;
-import ForagingModel.core.ModelEnvironment;
 import ForagingModel.core.NdPoint;
-import ForagingModel.core.NumberGenerator;
 import ForagingModel.core.Velocity;
 
 public class OUProcess extends AbstractMovementProcess implements MovementProcess 
 {
+	private static final long serialVersionUID = -2650914441230344201L;
+
 	protected double tau;
 	protected double beta;
 	protected Velocity mu;
-	private NumberGenerator generator;
 	
 	protected OUProcess(double speed, double tau, Velocity initialVelocity, 
 			double minDimensionX, double minDimensionY, double maxDimensionX, double maxDimensionY, double intervalSize)
@@ -22,7 +21,6 @@ public class OUProcess extends AbstractMovementProcess implements MovementProces
 		this.mu = Velocity.create(0, 0); // no bias unless destination is set (DestinationOUMovement)
 		this.speed = speed;
 		this.currentVelocity = initialVelocity;
-		generator = ModelEnvironment.getNumberGenerator();
 	}
 
 	@Override
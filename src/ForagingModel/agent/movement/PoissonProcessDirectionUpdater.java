@@ -7,6 +7,8 @@ import ForagingModel.core.NumberGenerator;
 
 public class PoissonProcessDirectionUpdater extends AbstractDirectionUpdater implements DirectionUpdater 
 {
+	private static final long serialVersionUID = -604520193661101451L;
+
 	private final static Logger logger = LoggerFactory.getLogger(PoissonProcessDirectionUpdater.class);
 
 	private double meanIntervalUpdate; 
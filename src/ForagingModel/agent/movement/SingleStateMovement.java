@@ -1,5 +1,6 @@
 package ForagingModel.agent.movement;
 
+import java.io.Serializable;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -9,8 +10,10 @@ import ForagingModel.core.Velocity;
 import ForagingModel.predator.PredatorEncounterBehavior;
 import ForagingModel.predator.PredatorManager;
 
-public class SingleStateMovement implements MovementBehavior 
+public class SingleStateMovement implements MovementBehavior, Serializable 
 {
+	private static final long serialVersionUID = -3014657342199742006L;
+
 	private MovementProcess movement;
 	private Recorder recorder;
 	private boolean predationEnabled;
@@ -7,6 +7,8 @@ import ForagingModel.core.Velocity;
 
 public class StraightProcess extends AbstractMovementProcess implements MovementProcess 
 {
+	private static final long serialVersionUID = -6982219106769896411L;
+
 	
 	protected StraightProcess(double speed, Velocity initialVelocity, double minDimensionX, double minDimensionY, double maxDimensionX, double maxDimensionY, 
 			double intervalSize)
@@ -2,6 +2,8 @@ package ForagingModel.agent.movement;
 
 public class TimeStepDirectionUpdater extends AbstractDirectionUpdater implements DirectionUpdater 
 {
+	private static final long serialVersionUID = 3624691763007261061L;
+
 	private int timeStepUpdateSize; // or double
 	
 	protected TimeStepDirectionUpdater(int timeStepUpdateSize, double intervalSize)
@@ -1,8 +1,11 @@
 package ForagingModel.core;
 
+import java.io.Serializable;
 
-public class Angle
+public class Angle implements Serializable
 {
+	private static final long serialVersionUID = 5456519776709937988L;
+
 	private double angle;
 	private final double p2 = 2.0 * Math.PI;
 	
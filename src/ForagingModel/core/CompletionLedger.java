@@ -0,0 +1,265 @@
+package ForagingModel.core;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.io.FilenameUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only record of the simulations that have finished, kept next to the results file so that a
+ * restarted run only executes the simulations that are missing, wherever they are in the sweep.
+ * Each line is "simulation index,parameter hash,random seed" and is synced to disk before the
+ * simulation counts as done. A simulation only counts as done if its parameters are unchanged.
+ * A partial last line left by a crash while appending is removed when the ledger is opened, so the 
+ * next line doesn't run on from it.
+ * A simulation's results are written before it is recorded, so one that crashed in between, or whose
+ * parameters changed, already has a row in the results file; see removeResults() to drop them before 
+ * running them again so each simulation has one row.
+ */
+public class CompletionLedger
+{
+	private final static Logger logger = LoggerFactory.getLogger(CompletionLedger.class);
+	public final static String LEDGER_FILE_APPENDAGE = "-ledger.csv";
+
+	private File resultsFile;
+	private File ledgerFile;
+	private Map<Integer,String> completed;
+
+	protected CompletionLedger(File resultsFile)
+	{
+		this.resultsFile = resultsFile;
+		this.ledgerFile = new File(FilenameUtils.removeExtension(resultsFile.getAbsolutePath()) + LEDGER_FILE_APPENDAGE);
+		this.completed = new HashMap<Integer,String>();
+		load();
+	}
+
+	public synchronized boolean isComplete(int simulationIndex, String parameterHash)
+	{
+		String completedHash = completed.get(simulationIndex);
+		if (completedHash != null && !completedHash.equals(parameterHash))
+		{
+			logger.warn("Parameters for simulation {} changed since it completed, running again", simulationIndex);
+		}
+		return parameterHash.equals(completedHash);
+	}
+
+	public synchronized int getNumCompleted()
+	{
+		return completed.size();
+	}
+
+	/**
+	 * Records the simulation as complete, returning only once the record is on disk.
+	 * @param simulationIndex the simulation index
+	 * @param parameterHash the hash of the parameters it ran with, see Parameters.getParameterHash()
+	 * @param seed the random seed it ran with
+	 */
+	public synchronized void recordComplete(int simulationIndex, String parameterHash, int seed)
+	{
+		String line = simulationIndex + "," + parameterHash + "," + seed + "\n";
+		FileOutputStream out = null;
+		try
+		{
+			ledgerFile.getAbsoluteFile().getParentFile().mkdirs();
+			out = new FileOutputStream(ledgerFile, true);
+			out.write(line.getBytes(Charset.forName("UTF-8")));
+			out.getFD().sync();
+			completed.put(simulationIndex, parameterHash);
+		}
+		catch (IOException e)
+		{
+			throw new ForagingModelException("Exception writing to ledger: " + ledgerFile.getAbsolutePath(), e);
+		}
+		finally
+		{
+			if (out != null)
+			{
+				try
+				{
+					out.close();
+				} catch (IOException ignored) {}
+			}
+		}
+	}
+
+	/**
+	 * Removes the rows of simulations about to run from the results file, which are left from an earlier run
+	 * that wrote them but didn't record them complete. The results file is replaced only once the rows are removed.
+	 * @param simulationIndexes the simulations that will run
+	 */
+	public synchronized void removeResults(Set<Integer> simulationIndexes)
+	{
+		if (!resultsFile.exists() || simulationIndexes.isEmpty())
+		{
+			return;
+		}
+
+		List<String> lines = new ArrayList<String>();
+		int numRemoved = 0;
+		BufferedReader reader = null;
+		try
+		{
+			reader = new BufferedReader(new FileReader(resultsFile));
+			// header first
+			String line = reader.readLine();
+			if (line != null)
+			{
+				lines.add(line);
+			}
+			while ( (line = reader.readLine()) != null )
+			{
+				// first column is the simulation index
+				int comma = line.indexOf(',');
+				String index = (comma < 0) ? line : line.substring(0, comma);
+				boolean isRunAgain = false;
+				try
+				{
+					isRunAgain = simulationIndexes.contains(Integer.parseInt(index));
+				}
+				catch (NumberFormatException e)
+				{
+					logger.warn("Keeping results line without a simulation index: {}", line);
+				}
+
+				if (isRunAgain)
+				{
+					numRemoved++;
+				}
+				else
+				{
+					lines.add(line);
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			throw new ForagingModelException("Could not read results file " + resultsFile.toString(), e);
+		}
+		finally
+		{
+			if (reader != null)
+			{
+				try
+				{
+					reader.close();
+				} catch (IOException ignored) {}
+			}
+		}
+
+		if (numRemoved > 0)
+		{
+			File replacement = new File(resultsFile.getAbsolutePath() + ".tmp");
+			try
+			{
+				org.apache.commons.io.FileUtils.writeLines(replacement, lines);
+				Files.move(replacement.toPath(), resultsFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (IOException e)
+			{
+				throw new ForagingModelException("Could not replace results file " + resultsFile.toString(), e);
+			}
+			logger.info("Removed {} results of simulations running again from {}", numRemoved, resultsFile.getName());
+		}
+	}
+
+	private void load()
+	{
+		if (!ledgerFile.exists())
+		{
+			return;
+		}
+
+		BufferedReader reader = null;
+		try
+		{
+			// that simulation just runs again
+			truncatePartialLine();
+			
+			reader = new BufferedReader(new FileReader(ledgerFile));
+			String line;
+			while ( (line = reader.readLine()) != null )
+			{
+				String[] fields = line.split(",");
+				if (fields.length == 3)
+				{
+					try
+					{
+						completed.put(Integer.parseInt(fields[0]), fields[1]);
+					}
+					catch (NumberFormatException e)
+					{
+						logger.warn("Ignoring malformed ledger line: {}", line);
+					}
+				}
+				else if (!line.isEmpty())
+				{
+					logger.warn("Ignoring malformed ledger line: {}", line);
+				}
+			}
+			logger.info("Ledger {} has {} completed simulations", ledgerFile.getName(), completed.size());
+		}
+		catch (IOException e)
+		{
+			throw new ForagingModelException("Could not read ledger " + ledgerFile.toString(), e);
+		}
+		finally
+		{
+			if (reader != null)
+			{
+				try
+				{
+					reader.close();
+				} catch (IOException ignored) {}
+			}
+		}
+	}
+
+	/**
+	 * Removes anything after the last newline, which a crash while appending can leave.
+	 */
+	private void truncatePartialLine() throws IOException
+	{
+		RandomAccessFile file = new RandomAccessFile(ledgerFile, "rw");
+		try
+		{
+			long length = file.length();
+			long end = length;
+			while (end > 0)
+			{
+				file.seek(end - 1);
+				if (file.read() == '\n')
+				{
+					break;
+				}
+				end--;
+			}
+			if (end < length)
+			{
+				file.seek(end);
+				byte[] partial = new byte[(int) (length - end)];
+				file.readFully(partial);
+				logger.warn("Removing partial ledger line: {}", new String(partial, Charset.forName("UTF-8")));
+				file.setLength(end);
+				file.getFD().sync();
+			}
+		}
+		finally
+		{
+			file.close();
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package ForagingModel.core;
 
+import java.io.File;
 
 public class CoreFactory 
 {
@@ -7,4 +8,19 @@ public class CoreFactory
 	{
 		return new ParameterManager(propertiesFile);
 	}
+	
+	protected static CompletionLedger createCompletionLedger(File resultsFile)
+	{
+		return new CompletionLedger(resultsFile);
+	}
+	
+	protected static SimulationCheckpoint createSimulationCheckpoint(File resultsFile, int simulationIndex, int checkpointIntervals)
+	{
+		return new SimulationCheckpoint(resultsFile, simulationIndex, checkpointIntervals);
+	}
+	
+	protected static SimulationServer createSimulationServer(File jobDirectory, SimulationServer.JobRunner runner)
+	{
+		return new SimulationServer(jobDirectory, runner);
+	}
 }
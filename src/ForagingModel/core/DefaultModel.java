@@ -7,18 +7,25 @@ public class DefaultModel implements Model
 	private Scheduler scheduler;
 	private double intervalSize;
 	private int numSteps;
+	private int startInterval;
 	
 	protected DefaultModel(Scheduler scheduler, double intervalSize, int numSteps)
+	{
+		this(scheduler, intervalSize, numSteps, 0);
+	}
+	
+	protected DefaultModel(Scheduler scheduler, double intervalSize, int numSteps, int startInterval)
 	{
 		this.scheduler = scheduler;
 		this.intervalSize = intervalSize;
 		this.numSteps = numSteps;
+		this.startInterval = startInterval;
 	}
 
 	@Override
 	public void run() 
 	{
-		scheduler.run(intervalSize, numSteps);
+		scheduler.run(intervalSize, numSteps, startInterval);
 	}
 
 }
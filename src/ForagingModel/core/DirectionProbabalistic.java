@@ -1,13 +1,17 @@
 package ForagingModel.core;
 
+import java.io.Serializable;
+
 import org.apache.commons.math3.linear.RealVector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import ForagingModel.space.AngularProbabilityInfo;
 
-public class DirectionProbabalistic 
+public class DirectionProbabalistic implements Serializable 
 {
+	private static final long serialVersionUID = 8010257925611700026L;
+
 	private final static Logger logger = LoggerFactory.getLogger(DirectionProbabalistic.class);
 
 	private Angle angle;
@@ -1,9 +1,13 @@
 package ForagingModel.core;
 
+import java.io.Serializable;
+
 import org.apache.commons.math3.linear.RealVector;
 
-public class DirectionProbabilityInfo 
+public class DirectionProbabilityInfo implements Serializable 
 {
+	private static final long serialVersionUID = 5888646884168618024L;
+
 	private DirectionProbabalistic direction;
 	private RealVector foragingProbabilities;
 	private RealVector attractiveScentProbabilities;
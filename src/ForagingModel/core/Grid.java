@@ -0,0 +1,443 @@
+package ForagingModel.core;
+
+import java.io.Serializable;
+
+import org.apache.commons.math3.linear.AbstractRealMatrix;
+import org.apache.commons.math3.linear.RealMatrix;
+
+/**
+ * A matrix kept in a single array, one row after another, for the spatial layers (resources, memories, scent)
+ * whose cells the model visits in its inner loops. get and set read and write a cell without the virtual call and
+ * index checks of RealMatrix.getEntry and setEntry, and the methods over many cells walk the array directly,
+ * where each row's cells are next to each other.
+ * A view is part of a grid sharing its cells, so its rows are further apart in the array than its number of columns.
+ * It is still a RealMatrix so it can be passed to and returned from code that takes those, and any other RealMatrix
+ * can be used as one, see of().
+ */
+public class Grid extends AbstractRealMatrix implements Serializable
+{
+	private static final long serialVersionUID = -3624861795236214073L;
+
+	private final double[] values;
+	private final int offset;
+	private final int rows;
+	private final int columns;
+	private final int stride;
+
+	public Grid(int rows, int columns)
+	{
+		this(new double[rows * columns], 0, rows, columns, columns);
+	}
+
+	/**
+	 * @param data the values, copied, with the same number of columns in each row
+	 */
+	public Grid(double[][] data)
+	{
+		this(data.length, (data.length == 0) ? 0 : data[0].length);
+		for (int row = 0; row < rows; row++)
+		{
+			System.arraycopy(data[row], 0, values, row * stride, columns);
+		}
+	}
+
+	/**
+	 * @param values the values one row after another, not copied, so the grid changes them
+	 */
+	public Grid(int rows, int columns, double[] values)
+	{
+		this(values, 0, rows, columns, columns);
+		if (values.length != rows * columns)
+		{
+			throw new IllegalArgumentException(String.format("%d values for a %d x %d grid", values.length, rows, columns));
+		}
+	}
+
+	private Grid(double[] values, int offset, int rows, int columns, int stride)
+	{
+		this.values = values;
+		this.offset = offset;
+		this.rows = rows;
+		this.columns = columns;
+		this.stride = stride;
+	}
+
+	/**
+	 * Gets a matrix as a grid, which is how the spatial layers take the matrices they change, so a layer always
+	 * changes the matrix it is given and sees changes made to it. A grid is used as it is. Any other matrix is
+	 * wrapped, reading and writing its cells through RealMatrix, so only a grid has the speed of one.
+	 * @param matrix the matrix
+	 * @return the grid, which is the matrix itself if it is a grid
+	 */
+	public static Grid of(RealMatrix matrix)
+	{
+		if (matrix instanceof Grid)
+		{
+			return (Grid) matrix;
+		}
+		return new WrappedGrid(matrix, 0, 0, matrix.getRowDimension(), matrix.getColumnDimension());
+	}
+
+	public double get(int row, int column)
+	{
+		return values[offset + row * stride + column];
+	}
+
+	public void set(int row, int column, double value)
+	{
+		values[offset + row * stride + column] = value;
+	}
+
+	public void add(int row, int column, double amount)
+	{
+		values[offset + row * stride + column] += amount;
+	}
+
+	/**
+	 * Creates a view of part of this grid, so changes to either are seen in both.
+	 * @param startRow the first row
+	 * @param startColumn the first column
+	 * @param numRows the number of rows
+	 * @param numColumns the number of columns
+	 * @return the view
+	 */
+	public Grid view(int startRow, int startColumn, int numRows, int numColumns)
+	{
+		checkView(startRow, startColumn, numRows, numColumns);
+		return new Grid(values, index(startRow, startColumn), numRows, numColumns, stride);
+	}
+
+	public void fill(double value)
+	{
+		for (int row = 0; row < rows; row++)
+		{
+			int start = index(row, 0);
+			for (int i = start; i < start + columns; i++)
+			{
+				values[i] = value;
+			}
+		}
+	}
+
+	public void scale(double factor)
+	{
+		for (int row = 0; row < rows; row++)
+		{
+			int start = index(row, 0);
+			for (int i = start; i < start + columns; i++)
+			{
+				values[i] *= factor;
+			}
+		}
+	}
+
+	/**
+	 * Changes each cell of some of the rows to cell * factor + shift, so rows can be changed from several threads.
+	 * @param fromRow the first row
+	 * @param toRow the row after the last
+	 */
+	public void transform(int fromRow, int toRow, double factor, double shift)
+	{
+		for (int row = fromRow; row < toRow; row++)
+		{
+			int start = index(row, 0);
+			for (int i = start; i < start + columns; i++)
+			{
+				values[i] = values[i] * factor + shift;
+			}
+		}
+	}
+
+	/**
+	 * Sums the cells, row by row in the same order as MatrixUtils.sum has for any matrix.
+	 * @return the sum
+	 */
+	public double sum()
+	{
+		double sum = 0;
+		for (int row = 0; row < rows; row++)
+		{
+			int start = index(row, 0);
+			for (int i = start; i < start + columns; i++)
+			{
+				sum += values[i];
+			}
+		}
+		return sum;
+	}
+
+	public double max()
+	{
+		double max = Double.NEGATIVE_INFINITY;
+		for (int row = 0; row < rows; row++)
+		{
+			int start = index(row, 0);
+			for (int i = start; i < start + columns; i++)
+			{
+				max = Math.max(max, values[i]);
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * Counts the cells that aren't 0.
+	 * @return the number of non-zero cells
+	 */
+	public int cardinality()
+	{
+		int nonZero = 0;
+		for (int row = 0; row < rows; row++)
+		{
+			int start = index(row, 0);
+			for (int i = start; i < start + columns; i++)
+			{
+				if (values[i] != 0)
+				{
+					nonZero++;
+				}
+			}
+		}
+		return nonZero;
+	}
+
+	@Override
+	public int getRowDimension()
+	{
+		return rows;
+	}
+
+	@Override
+	public int getColumnDimension()
+	{
+		return columns;
+	}
+
+	@Override
+	public double getEntry(int row, int column)
+	{
+		org.apache.commons.math3.linear.MatrixUtils.checkMatrixIndex(this, row, column);
+		return get(row, column);
+	}
+
+	@Override
+	public void setEntry(int row, int column, double value)
+	{
+		org.apache.commons.math3.linear.MatrixUtils.checkMatrixIndex(this, row, column);
+		set(row, column, value);
+	}
+
+	@Override
+	public void addToEntry(int row, int column, double increment)
+	{
+		org.apache.commons.math3.linear.MatrixUtils.checkMatrixIndex(this, row, column);
+		add(row, column, increment);
+	}
+
+	@Override
+	public void multiplyEntry(int row, int column, double factor)
+	{
+		org.apache.commons.math3.linear.MatrixUtils.checkMatrixIndex(this, row, column);
+		set(row, column, get(row, column) * factor);
+	}
+
+	@Override
+	public Grid createMatrix(int rowDimension, int columnDimension)
+	{
+		return new Grid(rowDimension, columnDimension);
+	}
+
+	/**
+	 * Copies the cells into a new grid, which isn't a view even if this is.
+	 */
+	@Override
+	public Grid copy()
+	{
+		Grid copy = new Grid(rows, columns);
+		for (int row = 0; row < rows; row++)
+		{
+			System.arraycopy(values, index(row, 0), copy.values, row * columns, columns);
+		}
+		return copy;
+	}
+
+	@Override
+	public double[][] getData()
+	{
+		double[][] data = new double[rows][columns];
+		for (int row = 0; row < rows; row++)
+		{
+			System.arraycopy(values, index(row, 0), data[row], 0, columns);
+		}
+		return data;
+	}
+
+	@Override
+	public Grid scalarMultiply(double factor)
+	{
+		Grid product = copy();
+		product.scale(factor);
+		return product;
+	}
+
+	private int index(int row, int column)
+	{
+		return offset + row * stride + column;
+	}
+
+	private void checkView(int startRow, int startColumn, int numRows, int numColumns)
+	{
+		if (startRow < 0 || startColumn < 0 || numRows < 0 || numColumns < 0
+				|| startRow + numRows > rows || startColumn + numColumns > columns)
+		{
+			throw new IllegalArgumentException(String.format("View of %d x %d at (%d, %d) outside %d x %d grid",
+					numRows, numColumns, startRow, startColumn, rows, columns));
+		}
+	}
+
+	/**
+	 * Part or all of a matrix that isn't a grid, whose cells it reads and writes, see of().
+	 */
+	private static final class WrappedGrid extends Grid
+	{
+		private static final long serialVersionUID = 5088113564740528227L;
+
+		private final RealMatrix matrix;
+		private final int startRow;
+		private final int startColumn;
+
+		private WrappedGrid(RealMatrix matrix, int startRow, int startColumn, int rows, int columns)
+		{
+			super(null, 0, rows, columns, 0);
+			this.matrix = matrix;
+			this.startRow = startRow;
+			this.startColumn = startColumn;
+		}
+
+		@Override
+		public double get(int row, int column)
+		{
+			return matrix.getEntry(startRow + row, startColumn + column);
+		}
+
+		@Override
+		public void set(int row, int column, double value)
+		{
+			matrix.setEntry(startRow + row, startColumn + column, value);
+		}
+
+		@Override
+		public void add(int row, int column, double amount)
+		{
+			matrix.addToEntry(startRow + row, startColumn + column, amount);
+		}
+
+		@Override
+		public Grid view(int startRow, int startColumn, int numRows, int numColumns)
+		{
+			super.checkView(startRow, startColumn, numRows, numColumns);
+			return new WrappedGrid(matrix, this.startRow + startRow, this.startColumn + startColumn, numRows, numColumns);
+		}
+
+		@Override
+		public void fill(double value)
+		{
+			for (int row = 0; row < getRowDimension(); row++)
+			{
+				for (int column = 0; column < getColumnDimension(); column++)
+				{
+					set(row, column, value);
+				}
+			}
+		}
+
+		@Override
+		public void scale(double factor)
+		{
+			for (int row = 0; row < getRowDimension(); row++)
+			{
+				for (int column = 0; column < getColumnDimension(); column++)
+				{
+					set(row, column, get(row, column) * factor);
+				}
+			}
+		}
+
+		@Override
+		public void transform(int fromRow, int toRow, double factor, double shift)
+		{
+			for (int row = fromRow; row < toRow; row++)
+			{
+				for (int column = 0; column < getColumnDimension(); column++)
+				{
+					set(row, column, get(row, column) * factor + shift);
+				}
+			}
+		}
+
+		@Override
+		public double sum()
+		{
+			double sum = 0;
+			for (int row = 0; row < getRowDimension(); row++)
+			{
+				for (int column = 0; column < getColumnDimension(); column++)
+				{
+					sum += get(row, column);
+				}
+			}
+			return sum;
+		}
+
+		@Override
+		public double max()
+		{
+			double max = Double.NEGATIVE_INFINITY;
+			for (int row = 0; row < getRowDimension(); row++)
+			{
+				for (int column = 0; column < getColumnDimension(); column++)
+				{
+					max = Math.max(max, get(row, column));
+				}
+			}
+			return max;
+		}
+
+		@Override
+		public int cardinality()
+		{
+			int nonZero = 0;
+			for (int row = 0; row < getRowDimension(); row++)
+			{
+				for (int column = 0; column < getColumnDimension(); column++)
+				{
+					if (get(row, column) != 0)
+					{
+						nonZero++;
+					}
+				}
+			}
+			return nonZero;
+		}
+
+		@Override
+		public Grid copy()
+		{
+			return new Grid(getData());
+		}
+
+		@Override
+		public double[][] getData()
+		{
+			double[][] data = new double[getRowDimension()][getColumnDimension()];
+			for (int row = 0; row < getRowDimension(); row++)
+			{
+				for (int column = 0; column < getColumnDimension(); column++)
+				{
+					data[row][column] = get(row, column);
+				}
+			}
+			return data;
+		}
+	}
+}
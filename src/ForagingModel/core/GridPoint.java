@@ -1,7 +1,11 @@
 package ForagingModel.core;
 
-public class GridPoint
+import java.io.Serializable;
+
+public class GridPoint implements Serializable
 {
+	private static final long serialVersionUID = -5763447812061169130L;
+
 	private int x;
 	private int y;
 	
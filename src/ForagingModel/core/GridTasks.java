@@ -0,0 +1,176 @@
+package ForagingModel.core;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs work over the rows of a grid on the shared fork/join pool when there are enough cells for it to pay,
+ * and on the calling thread otherwise, so the usual 50 x 50 landscapes stay serial. Rows are split into blocks
+ * fixed by the number of rows and columns alone, never by the number of threads, and sums add up the blocks in
+ * order, so results are the same however many threads there are. The work for different rows must not change
+ * anything shared other than cells of those rows. "Rows" can be any items, e.g. cells in a list, with one cell each.
+ */
+public class GridTasks
+{
+	// below this the whole range is done on the calling thread
+	public static final int MIN_PARALLEL_CELLS = 100 * 100;
+	private static final int CELLS_PER_BLOCK = 4096;
+
+	/**
+	 * Work on some rows.
+	 */
+	public interface Rows
+	{
+		/**
+		 * @param fromRow the first row
+		 * @param toRow one past the last row
+		 */
+		void run(int fromRow, int toRow);
+	}
+
+	/**
+	 * Work on some rows that sums something over them.
+	 */
+	public interface RowsSum
+	{
+		/**
+		 * @param fromRow the first row
+		 * @param toRow one past the last row
+		 * @return the sum over the rows
+		 */
+		double sum(int fromRow, int toRow);
+	}
+
+	/**
+	 * Runs work over rows, in blocks in parallel if there are enough cells.
+	 * @param fromRow the first row
+	 * @param toRow one past the last row
+	 * @param columns the number of cells in each row
+	 * @param rows the work
+	 */
+	public static void forRows(int fromRow, int toRow, int columns, final Rows rows)
+	{
+		if (isSerial(fromRow, toRow, columns))
+		{
+			// without splitting, so small grids allocate nothing
+			if (toRow > fromRow)
+			{
+				rows.run(fromRow, toRow);
+			}
+		}
+		else
+		{
+			final int[] blocks = getBlocks(fromRow, toRow, columns);
+			ForkJoinPool.commonPool().invoke(new BlocksTask(new Block()
+			{
+				@Override
+				public void run(int block)
+				{
+					rows.run(blocks[block], blocks[block + 1]);
+				}
+			}, 0, blocks.length - 1));
+		}
+	}
+
+	/**
+	 * Sums over rows, in blocks in parallel if there are enough cells, adding the blocks in order.
+	 * @param fromRow the first row
+	 * @param toRow one past the last row
+	 * @param columns the number of cells in each row
+	 * @param rowsSum the work
+	 * @return the sum
+	 */
+	public static double sumRows(int fromRow, int toRow, int columns, final RowsSum rowsSum)
+	{
+		double sum = 0;
+		if (isSerial(fromRow, toRow, columns))
+		{
+			if (toRow > fromRow)
+			{
+				sum = rowsSum.sum(fromRow, toRow);
+			}
+		}
+		else
+		{
+			final int[] blocks = getBlocks(fromRow, toRow, columns);
+			final double[] blockSums = new double[blocks.length - 1];
+			ForkJoinPool.commonPool().invoke(new BlocksTask(new Block()
+			{
+				@Override
+				public void run(int block)
+				{
+					blockSums[block] = rowsSum.sum(blocks[block], blocks[block + 1]);
+				}
+			}, 0, blocks.length - 1));
+			for (double blockSum : blockSums)
+			{
+				sum += blockSum;
+			}
+		}
+		return sum;
+	}
+
+	private static boolean isSerial(int fromRow, int toRow, int columns)
+	{
+		return (long) (toRow - fromRow) * columns < MIN_PARALLEL_CELLS;
+	}
+
+	/**
+	 * Splits rows into blocks of about CELLS_PER_BLOCK cells, or one block if there are too few cells to split.
+	 * @return the first row of each block followed by one past the last row
+	 */
+	protected static int[] getBlocks(int fromRow, int toRow, int columns)
+	{
+		int numRows = Math.max(0, toRow - fromRow);
+		int numBlocks = 1;
+		if (!isSerial(fromRow, toRow, columns))
+		{
+			int rowsPerBlock = Math.max(1, CELLS_PER_BLOCK / Math.max(1, columns));
+			numBlocks = (numRows + rowsPerBlock - 1) / rowsPerBlock;
+		}
+		int[] blocks = new int[numBlocks + 1];
+		for (int block = 0; block <= numBlocks; block++)
+		{
+			blocks[block] = fromRow + (int) ((long) numRows * block / numBlocks);
+		}
+		return blocks;
+	}
+
+	private interface Block
+	{
+		void run(int block);
+	}
+
+	/**
+	 * Runs blocks from first up to last, splitting in half until there is one block.
+	 */
+	private static class BlocksTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 2915687140625874061L;
+
+		private final Block block;
+		private final int first;
+		private final int last;
+
+		protected BlocksTask(Block block, int first, int last)
+		{
+			this.block = block;
+			this.first = first;
+			this.last = last;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if (last - first == 1)
+			{
+				block.run(first);
+			}
+			else
+			{
+				int middle = (first + last) >>> 1;
+				invokeAll(new BlocksTask(block, first, middle), new BlocksTask(block, middle, last));
+			}
+		}
+	}
+}
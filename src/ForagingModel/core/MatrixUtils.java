@@ -1,6 +1,5 @@
 package ForagingModel.core;
 
-import org.apache.commons.math3.linear.Array2DRowRealMatrix;
 import org.apache.commons.math3.linear.ArrayRealVector;
 import org.apache.commons.math3.linear.RealMatrix;
 import org.apache.commons.math3.linear.RealMatrixChangingVisitor;
@@ -10,7 +9,8 @@ import org.apache.commons.math3.util.FastMath;
 
 public class MatrixUtils 
 {
-	// note: looping through the vector/matrix is much faster than using the XxxVisitor interfaces
+	// note: looping through the vector/matrix is much faster than using the XxxVisitor interfaces,
+	// and faster still over the array of a Grid, which the spatial layers are
 
 	/**
 	 * Sets all cells in the matrix to the specified value
@@ -19,6 +19,11 @@ public class MatrixUtils
 	 */
 	public static void set(RealMatrix matrix, double value)
 	{
+		if (matrix instanceof Grid)
+		{
+			((Grid) matrix).fill(value);
+			return;
+		}
 		for (int row = 0; row < matrix.getRowDimension(); row++)
 		{
 			for (int col = 0; col < matrix.getColumnDimension(); col++)
@@ -37,8 +42,8 @@ public class MatrixUtils
 	 */
 	public static RealMatrix createMatrix(int rows, int columns, double initialValue)
 	{
-		RealMatrix matrix = new Array2DRowRealMatrix(rows, columns);
-		MatrixUtils.set(matrix, initialValue);
+		Grid matrix = new Grid(rows, columns);
+		matrix.fill(initialValue);
 		return matrix;
 	}
 	
@@ -49,6 +54,10 @@ public class MatrixUtils
 	 */
 	public static double max(RealMatrix matrix)
 	{
+		if (matrix instanceof Grid)
+		{
+			return ((Grid) matrix).max();
+		}
 		double max = Double.NEGATIVE_INFINITY;
 		
 		for (int row = 0; row < matrix.getRowDimension(); row++)
@@ -69,6 +78,11 @@ public class MatrixUtils
 	 */
 	public static void multiply(RealMatrix matrix, final double scalar)
 	{
+		if (matrix instanceof Grid)
+		{
+			((Grid) matrix).scale(scalar);
+			return;
+		}
 		matrix.walkInOptimizedOrder(new RealMatrixChangingVisitor() 
 		{
 			@Override
@@ -145,6 +159,10 @@ public class MatrixUtils
 	 */
 	public static int cardinality(RealMatrix matrix)
 	{
+		if (matrix instanceof Grid)
+		{
+			return ((Grid) matrix).cardinality();
+		}
 		int cardinality = 0;
 		
 		cardinality = (int) matrix.walkInOptimizedOrder(new RealMatrixPreservingVisitor() 
@@ -181,6 +199,10 @@ public class MatrixUtils
 	 */
 	public static double sum(RealMatrix matrix)
 	{
+		if (matrix instanceof Grid)
+		{
+			return ((Grid) matrix).sum();
+		}
 		double sum = 0;
 		
 		sum = matrix.walkInOptimizedOrder(new RealMatrixPreservingVisitor() 
@@ -234,24 +256,41 @@ public class MatrixUtils
 	public static void normalize(RealMatrix matrix)
 	{
 		// first change negative values to zero, then normalize
-		matrix.walkInOptimizedOrder(new RealMatrixChangingVisitor() 
+		if (matrix instanceof Grid)
 		{
-			@Override
-			public double visit(int row, int column, double value) 
+			Grid grid = (Grid) matrix;
+			for (int row = 0; row < grid.getRowDimension(); row++)
 			{
-				return (value < 0) ? 0 : value;
+				for (int column = 0; column < grid.getColumnDimension(); column++)
+				{
+					if (grid.get(row, column) < 0)
+					{
+						grid.set(row, column, 0);
+					}
+				}
 			}
-			
-			@Override
-			public void start(int rows, int columns, int startRow, int endRow,
-					int startColumn, int endColumn) {}
-			
-			@Override
-			public double end() 
+		}
+		else
+		{
+			matrix.walkInOptimizedOrder(new RealMatrixChangingVisitor() 
 			{
-				return 0;
-			}
-		});
+				@Override
+				public double visit(int row, int column, double value) 
+				{
+					return (value < 0) ? 0 : value;
+				}
+				
+				@Override
+				public void start(int rows, int columns, int startRow, int endRow,
+						int startColumn, int endColumn) {}
+				
+				@Override
+				public double end() 
+				{
+					return 0;
+				}
+			});
+		}
 		
 		final double sum = MatrixUtils.sum(matrix);
 		int matrixSize = matrix.getRowDimension() * matrix.getColumnDimension();
@@ -1,13 +1,11 @@
 package ForagingModel.core;
 
 import java.io.File;
-import java.util.List;
 
 import ForagingModel.agent.Agent.Sex;
 import ForagingModel.agent.AgentFactory;
-import ForagingModel.input.CellData;
-import ForagingModel.input.InputFactory;
-import ForagingModel.input.ResourceLandscapeReader;
+import ForagingModel.input.Landscape;
+import ForagingModel.input.LandscapeCache;
 import ForagingModel.output.OutputFactory;
 import ForagingModel.predator.PredatorFactory;
 import ForagingModel.predator.PredatorManager;
@@ -23,6 +21,16 @@ import ForagingModel.space.SpaceFactory;
 public class ModelBuilder 
 {
 	public Model build() 
+	{
+		return build(null);
+	}
+	
+	/**
+	 * Builds the model for the current parameters.
+	 * @param checkpoint saves the simulation while it runs, may be null
+	 * @return the model, which is an InvalidModel if the parameter combination is invalid
+	 */
+	public Model build(SimulationCheckpoint checkpoint) 
 	{
 		Model model;
 		Parameters params = Parameters.get();
@@ -33,31 +41,40 @@ public class ModelBuilder
 			
 			// create scheduler
 			Scheduler scheduler = ScheduleFactory.createScheduler();
+			if (checkpoint != null)
+			{
+				scheduler.setCheckpointer(checkpoint, checkpoint.getCheckpointIntervals());
+			}
 
-			ResourceLandscapeReader reader = InputFactory.createResourceLandscapeReader();		
+			// shared by all simulations, not read again for each one
+			LandscapeCache landscapeCache = ModelEnvironment.getLandscapeCache();
 			
 			// create predators (could be none)
 			PredatorManager predatorManager = null;			
 			if (params.getPredation())
 			{
 				// predators created first because need to use borderless resource file, and want landscape size to be correct
-				List<CellData> resourceDataForPredGeneration = reader.readLandscapeFile(params.getResourceLandscapeFile(), 0); // 0 = no border
-				ResourceAssemblage resourcesForPredGeneration = (resourceDataForPredGeneration == null) 
+				Landscape landscapeForPredGeneration = landscapeCache.getLandscape(params.getResourceLandscapeFile(), 0); // 0 = no border
+				ResourceAssemblage resourcesForPredGeneration = (landscapeForPredGeneration == null) 
 						? SpaceFactory.generateTwoPatchResource(ScheduleFactory.createNoOpScheduler()) // not possible to have empty border
-						: SpaceFactory.generateResource(resourceDataForPredGeneration, ScheduleFactory.createNoOpScheduler());
+						: SpaceFactory.generateResource(landscapeForPredGeneration, ScheduleFactory.createNoOpScheduler());
 				
-				predatorManager = PredatorFactory.createPredatorManager(resourcesForPredGeneration, scheduler);
+				// predators live on the borderless landscape, so they get their own context
+				predatorManager = PredatorFactory.createPredatorManager(resourcesForPredGeneration, scheduler, SimulationContext.create(params));
 			}
 			
-			// to track forager
-			LocationManager locationManager = SpaceFactory.createLocationManager(); 
-			
 			// load resources data from file (may be null if no file)
-			List<CellData> resourceData = reader.readLandscapeFile(params.getResourceLandscapeFile(), params.getEmptyBorderSize());
+			Landscape landscape = landscapeCache.getLandscape(params.getResourceLandscapeFile(), params.getEmptyBorderSize());
 			
 			// create resources, sets landscape size
-			ResourceAssemblage resources = (resourceData == null) ? SpaceFactory.generateTwoPatchResource(scheduler) // not possible to have empty border
-																  : SpaceFactory.generateResource(resourceData, scheduler);
+			ResourceAssemblage resources = (landscape == null) ? SpaceFactory.generateTwoPatchResource(scheduler) // not possible to have empty border
+															   : SpaceFactory.generateResource(landscape, scheduler);
+			
+			// everything else is built for the full landscape size, which is known now
+			SimulationContext context = SimulationContext.create(params);
+			
+			// to track forager
+			LocationManager locationManager = SpaceFactory.createLocationManager(context); 
 			
 			if (params.getForagerBySex())
 			{
@@ -68,13 +85,21 @@ public class ModelBuilder
 				
 				if (params.getScentTracking())
 				{
-					femaleScentManager = SpaceFactory.createScentManager(locationManager, params.getNumThreads());
+					femaleScentManager = SpaceFactory.createScentManager(locationManager, params.getNumThreads(), context);
+					if (params.getScentShared())
+					{
+						scheduler.register(femaleScentManager, SchedulePriority.MemoryDecay);
+					}
 					scheduler.register(femaleScentManager, SchedulePriority.ForagerDepositScent);
 					scheduler.registerAtEnd(femaleScentManager, SchedulePriority.Shutdown);
 					
-					allFemales = SpaceFactory.createAllFemalesScentHistory(scheduler, femaleScentManager);
+					allFemales = SpaceFactory.createAllFemalesScentHistory(scheduler, femaleScentManager, context);
 					
-					maleScentManager = SpaceFactory.createScentManager(locationManager, params.getNumThreads());
+					maleScentManager = SpaceFactory.createScentManager(locationManager, params.getNumThreads(), context);
+					if (params.getScentShared())
+					{
+						scheduler.register(maleScentManager, SchedulePriority.MemoryDecay);
+					}
 					scheduler.register(maleScentManager, SchedulePriority.ForagerDepositScent);
 					scheduler.registerAtEnd(maleScentManager, SchedulePriority.Shutdown);
 				}
@@ -86,12 +111,12 @@ public class ModelBuilder
 				// first create female foragers that only avoid each other
 				AgentFactory.createAndPlaceForagers(numFemaleForagers, locationManager, 
 						Sex.Female, resources, predatorManager, 
-						femaleScentManager, null, scheduler);
+						femaleScentManager, null, scheduler, context);
 				
 				// then create male foragers that need to be attracted to female foragers too
 				AgentFactory.createAndPlaceForagers(numMaleForagers, locationManager, 
 						Sex.Male, resources, predatorManager, 
-						maleScentManager, allFemales, scheduler);
+						maleScentManager, allFemales, scheduler, context);
 
 
 			}
@@ -101,7 +126,11 @@ public class ModelBuilder
 				ScentManager scentManager = null;
 				if (params.getScentTracking())
 				{
-					scentManager = SpaceFactory.createScentManager(locationManager, params.getNumThreads());
+					scentManager = SpaceFactory.createScentManager(locationManager, params.getNumThreads(), context);
+					if (params.getScentShared())
+					{
+						scheduler.register(scentManager, SchedulePriority.MemoryDecay);
+					}
 					scheduler.register(scentManager, SchedulePriority.ForagerDepositScent);
 					scheduler.registerAtEnd(scentManager, SchedulePriority.Shutdown);
 				}
@@ -110,7 +139,7 @@ public class ModelBuilder
 				int numForagers = params.getForagerNumber();
 				AgentFactory.createAndPlaceForagers(numForagers, locationManager, 
 						Sex.Unknown, resources, predatorManager, 
-						scentManager, null, scheduler);
+						scentManager, null, scheduler, context);
 			}
 			
 			File results = params.getResultsFile();
@@ -127,7 +156,7 @@ public class ModelBuilder
 			
 			OutputFactory.createSimulationReporter(results, locationManager.getAgents(), resources.getNumPercentileBins(), scheduler);
 			
-			model = new DefaultModel(scheduler, params.getIntervalSize(), params.getNumSteps());
+			model = new DefaultModel(scheduler, context.getIntervalSize(), params.getNumSteps());
 		}
 		else
 		{
@@ -1,82 +1,192 @@
 package ForagingModel.core;
 
 import java.io.Serializable;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import ForagingModel.agent.movement.MovementMapper;
 import ForagingModel.core.Parameters.Parameter;
+import ForagingModel.input.InputFactory;
+import ForagingModel.input.LandscapeCache;
+import ForagingModel.predator.PredatorCacheFile;
 import ForagingModel.predator.PredatorManager;
 
 public class ModelEnvironment 
 {
-	private static NumberGenerator generator = null;
-	private static MovementMapper mapper = null;
+	// the generator, mapper and index belong to the simulation running on the current thread
+	// so that several simulations can be run concurrently, see Runner
+	private static final ThreadLocal<NumberGenerator> generator = new ThreadLocal<NumberGenerator>();
+	private static final ThreadLocal<MovementMapper> mapper = new ThreadLocal<MovementMapper>()
+	{
+		@Override
+		protected MovementMapper initialValue()
+		{
+			return MovementMapper.create();
+		}
+	};
+	private static final ThreadLocal<Integer> simulationIndex = new ThreadLocal<Integer>()
+	{
+		@Override
+		protected Integer initialValue()
+		{
+			return 0;
+		}
+	};
+	
 	// this is to ensure consistency of predator location/appearance across simulations with different parameters
+	// shared by all simulations, so must be safe for concurrent access
 	private static Map<PredatorParamKey,PredatorManager> predatorCache = null;
-
-	private static int simulationIndex = 0;
+	// and kept in this so they are the same for later runs and other processes, may be null
+	private static PredatorCacheFile predatorCacheFile = null;
+	
+	// the landscapes used by any simulation, so each is only read once
+	private static LandscapeCache landscapeCache = null;
+	
+	// with CreateRandomSeed, each simulation's seed is derived from this and the simulation index
+	// so a sweep can be reproduced from it whatever order or thread its simulations run in, see Runner -seed
+	private static volatile long sweepSeed = System.currentTimeMillis();
 	
 	public static NumberGenerator getNumberGenerator()
 	{
-		if (generator == null)
+		if (generator.get() == null)
 		{
 			resetGenerator();
 		}
-		return generator;
+		return generator.get();
 	}
 	
 	public static MovementMapper getMovementMapper()
 	{
-		if (mapper == null)
-		{
-			mapper = MovementMapper.create();
-		}
-		return mapper;
+		return mapper.get();
 	}
 
-	public static Map<PredatorParamKey,PredatorManager> getPredatorCache()
+	public static synchronized Map<PredatorParamKey,PredatorManager> getPredatorCache()
 	{
 		if (predatorCache == null)
 		{
-			predatorCache = new HashMap<PredatorParamKey,PredatorManager>();
+			predatorCache = new ConcurrentHashMap<PredatorParamKey,PredatorManager>();
 		}
 		return predatorCache;
 	}
 
+	public static synchronized PredatorCacheFile getPredatorCacheFile()
+	{
+		return predatorCacheFile;
+	}
+
+	public static synchronized LandscapeCache getLandscapeCache()
+	{
+		if (landscapeCache == null)
+		{
+			// most of the memory is for the simulations themselves
+			landscapeCache = InputFactory.createLandscapeCache(Runtime.getRuntime().maxMemory() / 4);
+		}
+		return landscapeCache;
+	}
+
 	/**
 	 * Gets the simulation index, which starts at 0 and increments for each combination of parameters.
 	 * @return the simulation index
 	 */
 	public static int getSimulationIndex()
 	{
-		return simulationIndex;
+		return simulationIndex.get();
 	}
 	
 	protected static void setNumberGenerator(NumberGenerator generator)
 	{
-		ModelEnvironment.generator = generator;
+		ModelEnvironment.generator.set(generator);
+	}
+	
+	protected static void setMovementMapper(MovementMapper mapper)
+	{
+		ModelEnvironment.mapper.set(mapper);
+	}
+	
+	public static long getSweepSeed()
+	{
+		return sweepSeed;
+	}
+	
+	protected static void setSweepSeed(long seed)
+	{
+		sweepSeed = seed;
 	}
 	
 	protected static void resetGenerator()
 	{
-		// reset to new random seed, creating if necessary
+		resetGenerator(0);
+	}
+	
+	/**
+	 * Resets the generator for the current thread's simulation, creating its random seed if necessary.
+	 * @param attempt how many times the simulation has been retried, so a retry gets a different seed
+	 */
+	protected static void resetGenerator(int attempt)
+	{
 		if (Parameters.get().getCreateRandomSeed())
 		{
-			Parameters.get().set(Parameter.RandomSeed, (int) System.currentTimeMillis()); 
+			Parameters.get().set(Parameter.RandomSeed, createSimulationSeed(sweepSeed, getSimulationIndex(), attempt)); 
 		}
-		generator = RandomGenerator.create(Parameters.get().getRandomSeed());
+		generator.set(RandomGenerator.create(Parameters.get().getRandomSeed()));
+	}
+	
+	protected static int createSimulationSeed(long sweepSeed, int simulationIndex, int attempt)
+	{
+		long simulationSeed = SplitMix64.deriveSeed(sweepSeed, simulationIndex);
+		return (int) SplitMix64.deriveSeed(simulationSeed, attempt);
+	}
+	
+	/**
+	 * Creates the generator for a key's predators. Its seed depends only on the key, so the predators are
+	 * the same whichever simulation or thread generates them first, and generating them doesn't use up
+	 * any simulation's random numbers.
+	 * @param key the predator parameters
+	 * @return a new generator
+	 */
+	public static NumberGenerator createPredatorGenerator(PredatorParamKey key)
+	{
+		// String.hashCode is the same in every JVM
+		long seed = SplitMix64.deriveSeed(0, key.getResourceId().hashCode());
+		seed = SplitMix64.deriveSeed(seed, key.getPredatorDuration());
+		seed = SplitMix64.deriveSeed(seed, key.getMaxIntervals());
+		seed = SplitMix64.deriveSeed(seed, Double.doubleToLongBits(key.getPredatorRandomness()));
+		seed = SplitMix64.deriveSeed(seed, key.getTotalPredationPressure());
+		return RandomGenerator.create(seed);
+	}
+	
+	/**
+	 * Makes the given generator the current thread's, e.g. so that the movement and memory of one forager
+	 * are created drawing from the forager's own stream. Callers put back the generator that was returned.
+	 * @param forComponents the generator to use
+	 * @return the generator in use before
+	 */
+	public static NumberGenerator swapNumberGenerator(NumberGenerator forComponents)
+	{
+		NumberGenerator previous = getNumberGenerator();
+		generator.set(forComponents);
+		return previous;
 	}
 	
 	
 	protected static void setSimulationIndex(int index)
 	{
-		simulationIndex = index;
+		simulationIndex.set(index);
+	}
+	
+	protected static synchronized void setPredatorCacheFile(PredatorCacheFile predatorCacheFile)
+	{
+		ModelEnvironment.predatorCacheFile = predatorCacheFile;
 	}
 	
-	protected static void setPredatorCache( Map<PredatorParamKey,PredatorManager> predatorCache)
+	/**
+	 * Releases the simulation state (generator, movement mapper and index) held for the current thread.
+	 */
+	protected static void clearForCurrentThread()
 	{
-		ModelEnvironment.predatorCache = predatorCache;	
+		generator.remove();
+		mapper.remove();
+		simulationIndex.remove();
 	}
 	
 	public static class PredatorParamKey implements Serializable
@@ -99,6 +209,31 @@ public class ModelEnvironment
 			this.totalPredationPressure = totalPredationPressure;
 		}
 		
+		public String getResourceId()
+		{
+			return resourceId;
+		}
+
+		public int getPredatorDuration()
+		{
+			return predatorDuration;
+		}
+
+		public int getMaxIntervals()
+		{
+			return maxIntervals;
+		}
+
+		public double getPredatorRandomness()
+		{
+			return predatorRandomness;
+		}
+
+		public int getTotalPredationPressure()
+		{
+			return totalPredationPressure;
+		}
+		
 		@Override
 		public int hashCode() {
 			final int prime = 31;
@@ -84,4 +84,12 @@ public interface NumberGenerator
 	 */
 	public double nextExponential(double mean);
 
+	/**
+	 * Creates a new generator with its own stream, determined by the state of this one, e.g. for a forager
+	 * so that its draws don't depend on those of other foragers.
+	 *
+	 * @return the new generator
+	 */
+	public NumberGenerator split();
+
 }
\ No newline at end of file
@@ -0,0 +1,73 @@
+package ForagingModel.core;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+import ForagingModel.core.Parameters.Parameter;
+
+/**
+ * One combination of the parameter values being varied in a sweep, see SimulationPlan. Only holds the values
+ * that vary (including parameters that refer to them), the rest are the same for every combination.
+ */
+public final class ParameterCombination
+{
+	private final int index;
+	private final Map<Parameter, String> values;
+	private final boolean valid;
+
+	protected ParameterCombination(int index, Map<Parameter, String> values, boolean valid)
+	{
+		this.index = index;
+		this.values = Collections.unmodifiableMap(new EnumMap<Parameter, String>(values));
+		this.valid = valid;
+	}
+
+	/**
+	 * Gets the combination index, which starts at 0 and increments in the order the combinations are run.
+	 * @return the combination index
+	 */
+	public int getIndex()
+	{
+		return index;
+	}
+
+	public Map<Parameter, String> getValues()
+	{
+		return values;
+	}
+
+	/**
+	 * Whether the combination can be simulated, see Parameters.areParametersValid().
+	 * @return true if valid
+	 */
+	public boolean isValid()
+	{
+		return valid;
+	}
+
+	/**
+	 * Sets the parameters to this combination's values.
+	 * @param params the parameters to change
+	 */
+	public void apply(Parameters params)
+	{
+		for (Map.Entry<Parameter, String> entry : values.entrySet())
+		{
+			try
+			{
+				params.set(entry.getKey(), entry.getValue());
+			}
+			catch (Exception e)
+			{
+				throw new ForagingModelException(String.format("Error parsing parameter %s with value %s", entry.getKey(), entry.getValue()), e);
+			}
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		return index + ": " + values;
+	}
+}
@@ -20,13 +20,15 @@ public class ParameterManager implements Iterable<Parameters>
 	private static Logger logger = Logger.getLogger( ParameterManager.class.getName() );
 	private PropertiesConfiguration config;
 	private Iterator<Parameters> iterator;
+	private Map<Parameter,List<String>> multiValuedParameters;
+	private ReferentialParameterMap referentialParameters;
 	
 	protected ParameterManager( String propertiesFile )
 	{
 		iterator = new DefaultParameterManagerIterator();
 		Parameters parameters = Parameters.get();
-		Map<Parameter,List<String>> multiValuedParameters = new HashMap<Parameter, List<String>>();
-		ReferentialParameterMap referentialParameters = new ReferentialParameterMap();
+		multiValuedParameters = new HashMap<Parameter, List<String>>();
+		referentialParameters = new ReferentialParameterMap();
 		try
 		{
 			if ( propertiesFile != null && propertiesFile != "" )
@@ -104,6 +106,29 @@ public class ParameterManager implements Iterable<Parameters>
 		return iterator;
 	}
 	
+	/**
+	 * Plans all the simulations for the parameter combinations, in the same order as iterating, 
+	 * with each combination repeated RepeatSimulation times.
+	 * @return the simulation plan
+	 */
+	public SimulationPlan createPlan()
+	{
+		List<Parameter> keys = new ArrayList<Parameter>( multiValuedParameters.keySet() );
+		Collections.sort( keys ); // same order as MultiParameterIterator
+		
+		Map<Parameter, List<Parameter>> slaves = new HashMap<Parameter, List<Parameter>>();
+		for ( Parameter key : keys )
+		{
+			if ( referentialParameters.get( key ) != null )
+			{
+				slaves.put( key, referentialParameters.get( key ) );
+			}
+		}
+		
+		Parameters parameters = Parameters.get();
+		return new SimulationPlan( parameters, keys, multiValuedParameters, slaves, parameters.getRepeatSimulation() );
+	}
+	
 	class ParameterManagerIterator implements Iterator<Parameters>
 	{
 		Parameter parameter;
@@ -2,6 +2,9 @@ package ForagingModel.core;
 
 import java.io.File;
 import java.net.URISyntaxException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -26,6 +29,7 @@ public class Parameters
 	public enum Parameter { ResourceRegenerationRate, // beta.R
 							ConsumerConsumptionRate, // beta.C
 							ConsumerConsumptionSpatialScale, // gamma.C
+							KernelTolerance, // kernels (consumption, learning, scent) relative to their peak below which they're treated as 0, 0 for exact
 							LandscapeSizeX, // 50
 							LandscapeSizeY, // 50
 							ForagerSpeedSearch, // nu[1]
@@ -53,6 +57,8 @@ public class Parameters
 							MemoryAlpha, // alpha
 							MemorySpatialScaleForaging, // gamma.Z
 							MemorySpatialScalePredation, // gamma.Z for predators
+							MemoryFarTolerance, // fraction of the distance weighting of a direction's memory taken from means of blocks of far cells, 0 for exact
+							MemoryRefineThreshold, // probability of a coarse sector of directions above which each of its directions is sampled, 0 to sample every direction
 							MovementProcess, // straight or OU
 							MovementType, // memory, kinesis, or single state
 							MemoryIsFullyInformed, // informed
@@ -86,6 +92,7 @@ public class Parameters
 							PredatorEncounterBehavior,
 							FoodSafetyTradeoff,
 							ScentTracking,
+							ScentShared, // one scent field per scent manager rather than one per forager, overlapping scents add rather than saturate together
 							ScentDepositionRate,
 							ScentDepositionSpatialScale,
 							ScentDecayRate,
@@ -95,6 +102,8 @@ public class Parameters
 	public enum ParameterType { Integer, Long, Boolean, Double, UnitInterval, String, MovementProcess, MovementType, DirectionUpdaterType, StartPointsType, PredatorEncounterBehavior };
 	
 	private static Parameters parameters;
+	// parameters of a simulation running on its own thread, see Runner
+	private static final ThreadLocal<Parameters> simulationParameters = new ThreadLocal<Parameters>();
 	
 	private Map<Parameter, Object> values;
 	private Map<Parameter, ParameterType> types;
@@ -107,7 +116,8 @@ public class Parameters
 	private final String OUTPUT_DIR = "output";
 	private final String R_FILE = "Visualizer.R";
 	private final String R_OUTPUT_DIR = OUTPUT_DIR; // also in Visualizer.R file, same as output but could change
-	private final String PREDATOR_CACHE_FILE = "PredatorCache.ser";
+	private final String PREDATOR_CACHE_FILE = "PredatorCache.bin";
+	private final String SERIALIZED_PREDATOR_CACHE_FILE = "PredatorCache.ser"; // before PredatorCacheFile
 	
 	private Parameters() 
 	{ 
@@ -125,6 +135,9 @@ public class Parameters
 		values.put( Parameter.ConsumerConsumptionSpatialScale, 1.0 );
 		types.put( Parameter.ConsumerConsumptionSpatialScale, ParameterType.Double );
 
+		values.put( Parameter.KernelTolerance, 1e-12 );
+		types.put( Parameter.KernelTolerance, ParameterType.UnitInterval );
+
 		values.put( Parameter.LandscapeSizeX, 50 );
 		types.put( Parameter.LandscapeSizeX, ParameterType.Integer );
 
@@ -206,6 +219,12 @@ public class Parameters
 		values.put( Parameter.MemorySpatialScalePredation, 1.0 );
 		types.put( Parameter.MemorySpatialScalePredation, ParameterType.Double );
 
+		values.put( Parameter.MemoryFarTolerance, 0.0 );
+		types.put( Parameter.MemoryFarTolerance, ParameterType.UnitInterval );
+
+		values.put( Parameter.MemoryRefineThreshold, 0.0 );
+		types.put( Parameter.MemoryRefineThreshold, ParameterType.UnitInterval );
+
 		values.put( Parameter.MovementProcess, MovementProcessType.OU );
 		types.put( Parameter.MovementProcess, ParameterType.MovementProcess );
 
@@ -305,6 +324,9 @@ public class Parameters
 		values.put( Parameter.ScentTracking, false );
 		types.put( Parameter.ScentTracking, ParameterType.Boolean );
 
+		values.put( Parameter.ScentShared, false );
+		types.put( Parameter.ScentShared, ParameterType.Boolean );
+
 		values.put( Parameter.ScentDepositionRate, 10.0 );
 		types.put( Parameter.ScentDepositionRate, ParameterType.Double );
 
@@ -322,6 +344,17 @@ public class Parameters
 
 	}
 	
+	private Parameters(Parameters other)
+	{
+		values = new HashMap<Parameter, Object>(other.values);
+		types = other.types; // not changed after construction
+		
+		startPoints = other.startPoints;
+		lifespans = other.lifespans;
+		startPointIndex = other.startPointIndex;
+		lifespanIndex = other.lifespanIndex;
+	}
+	
 	protected void init()
 	{
 		initStartPoints();
@@ -333,7 +366,14 @@ public class Parameters
 		parameters = new Parameters();
 	}
 	
-	public static synchronized Parameters get() 
+	public static Parameters get() 
+	{
+		// a simulation running concurrently with others only sees its own copy
+		Parameters threadParameters = simulationParameters.get();
+		return (threadParameters == null) ? getShared() : threadParameters;
+	}
+	
+	private static synchronized Parameters getShared()
 	{
 		if (parameters == null) 
 		{
@@ -342,6 +382,49 @@ public class Parameters
 		return parameters;
 	}
 	
+	/**
+	 * Makes the specified parameters the ones returned by get() for the current thread, until cleared.
+	 * This allows several simulations to run concurrently, each with its own parameter values.
+	 * @param threadParameters the parameters of the simulation running on this thread
+	 */
+	protected static void setForCurrentThread(Parameters threadParameters)
+	{
+		simulationParameters.set(threadParameters);
+	}
+	
+	protected static void clearForCurrentThread()
+	{
+		simulationParameters.remove();
+	}
+	
+	/**
+	 * Creates an independent copy of the current parameter values, including the position in the start point 
+	 * and lifespan lists, for a simulation that will run on another thread.
+	 * @return the copy
+	 */
+	protected Parameters copy()
+	{
+		return new Parameters(this);
+	}
+	
+	/**
+	 * Advances the start point and lifespan lists as if the specified number of foragers had been created. 
+	 * Used when the foragers are created from a copy so that the next simulation gets the same values it would
+	 * have if the simulations were run one after another.
+	 * @param numForagers number of foragers created from the copy
+	 */
+	protected void skipForagers(int numForagers)
+	{
+		if (getStartPointsType() == StartPointsType.FromFile && null != startPoints)
+		{
+			startPointIndex = (startPointIndex + numForagers) % startPoints.size();
+		}
+		if (null != lifespans)
+		{
+			lifespanIndex = (lifespanIndex + numForagers) % lifespans.size();
+		}
+	}
+	
 	public String toString()
 	{
 		// these are the params that could have invalid combinations
@@ -452,6 +535,11 @@ public class Parameters
 		return (Double) values.get(Parameter.ConsumerConsumptionSpatialScale);
 	}
 
+	public double getKernelTolerance() 
+	{
+		return (Double) values.get(Parameter.KernelTolerance);
+	}
+
 	public int getLandscapeSizeX() 
 	{
 		return (Integer) values.get(Parameter.LandscapeSizeX);
@@ -593,6 +681,16 @@ public class Parameters
 		return (Double) values.get(Parameter.MemorySpatialScalePredation);
 	}
 
+	public double getMemoryFarTolerance()
+	{
+		return (Double) values.get(Parameter.MemoryFarTolerance);
+	}
+
+	public double getMemoryRefineThreshold()
+	{
+		return (Double) values.get(Parameter.MemoryRefineThreshold);
+	}
+
 	public MovementProcessType getMovementProcess()
 	{
 		return MovementProcessType.valueOf(values.get(Parameter.MovementProcess).toString());
@@ -786,6 +884,11 @@ public class Parameters
 		return (Boolean) values.get(Parameter.ScentTracking);
 	}
 
+	public boolean getScentShared() 
+	{
+		return (Boolean) values.get(Parameter.ScentShared);
+	}
+
 	public double getScentDepositionRate() 
 	{
 		return (Double) values.get(Parameter.ScentDepositionRate);
@@ -983,20 +1086,65 @@ public class Parameters
 		return new File(PREDATOR_CACHE_FILE);
 	}
 
+	public File getSerializedPredatorCacheFile()
+	{
+		return new File(SERIALIZED_PREDATOR_CACHE_FILE);
+	}
+
 	// setters
 	
 	public void setLandscapeSizeX(int size)
 	{
-		parameters.set(Parameter.LandscapeSizeX, size);
+		set(Parameter.LandscapeSizeX, size);
 	}
 
 	public void setLandscapeSizeY(int size)
 	{
-		parameters.set(Parameter.LandscapeSizeY, size);
+		set(Parameter.LandscapeSizeY, size);
+	}
+
+	protected void setResultsFileName(String fileName)
+	{
+		values.put(Parameter.ResultsFileName, fileName);
 	}
 
 	// other
 	
+	/**
+	 * Hash of the parameter values that determine a simulation's outcome, to recognize a simulation that has
+	 * already been run with the same parameters. Excludes the output file name and the landscape size (set from 
+	 * the landscape file), and the random seed when a new one is created for each simulation.
+	 * @return hex string of the hash
+	 */
+	public String getParameterHash()
+	{
+		StringBuilder builder = new StringBuilder();
+		for (Parameter parameter : Parameter.values())
+		{
+			if (parameter == Parameter.ResultsFileName || parameter == Parameter.LandscapeSizeX || parameter == Parameter.LandscapeSizeY
+				|| (parameter == Parameter.RandomSeed && getCreateRandomSeed()))
+			{
+				continue;
+			}
+			builder.append(parameter.name()).append('=').append(get(parameter)).append(';');
+		}
+		
+		try 
+		{
+			byte[] digest = MessageDigest.getInstance("SHA-1").digest(builder.toString().getBytes(Charset.forName("UTF-8")));
+			StringBuilder hex = new StringBuilder();
+			for (int i = 0; i < 8; i++) // 64 bits is plenty to tell combinations apart
+			{
+				hex.append(String.format("%02x", digest[i]));
+			}
+			return hex.toString();
+		} 
+		catch (NoSuchAlgorithmException e) 
+		{
+			throw new ForagingModelException("SHA-1 not available", e);
+		}
+	}
+	
 	/**
 	 * Checks for invalid parameter combinations. This can happen in batch mode for example, when iterating through all combinations
 	 * of multiple parameter values.
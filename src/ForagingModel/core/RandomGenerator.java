@@ -1,5 +1,7 @@
 package ForagingModel.core;
 
+import java.io.Serializable;
+
 import org.apache.commons.math3.linear.RealMatrix;
 import org.apache.commons.math3.linear.RealVector;
 import org.apache.commons.math3.random.RandomDataGenerator;
@@ -7,15 +9,18 @@ import org.apache.commons.math3.random.RandomDataGenerator;
 /**
  * An implementation of NumberGenerator that provides random values.
  */
-public class RandomGenerator implements NumberGenerator
+public class RandomGenerator implements NumberGenerator, Serializable
 {
+	private static final long serialVersionUID = 3225068677063550787L;
+
+	private SplitMix64 source;
 	private RandomDataGenerator generator;
 	
-	private RandomGenerator(int seed) 
+	private RandomGenerator(SplitMix64 source) 
 	{
-		// Default is Well19937c, was using MersenneTwister before with colt libraries, outdated?
-		 generator = new RandomDataGenerator(new org.apache.commons.math3.random.MersenneTwister(seed));	
-		 //generator.reSeed(seed);
+		// was MersenneTwister, but that can't be split into independent streams
+		this.source = source;
+		generator = new RandomDataGenerator(source);
 	}
 	
 	protected static RandomGenerator create()
@@ -25,7 +30,17 @@ public class RandomGenerator implements NumberGenerator
 	
 	protected static RandomGenerator create(int seed)
 	{
-		return new RandomGenerator(seed);
+		return new RandomGenerator(new SplitMix64(seed));
+	}
+	
+	protected static RandomGenerator create(long seed)
+	{
+		return new RandomGenerator(new SplitMix64(seed));
+	}
+	
+	public NumberGenerator split()
+	{
+		return new RandomGenerator(source.split());
 	}
 	
 	
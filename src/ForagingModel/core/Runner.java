@@ -3,13 +3,22 @@ package ForagingModel.core;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -19,14 +28,17 @@ import org.apache.commons.cli.Option;
 import org.apache.commons.cli.OptionBuilder;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
+import org.apache.commons.lang3.time.DurationFormatUtils;
 import org.apache.log4j.BasicConfigurator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import ForagingModel.core.ModelEnvironment.PredatorParamKey;
-import ForagingModel.input.CellData;
-import ForagingModel.input.InputFactory;
-import ForagingModel.input.ResourceLandscapeReader;
+import ForagingModel.core.Parameters.Parameter;
+import ForagingModel.input.Landscape;
+import ForagingModel.output.OutputFactory;
+import ForagingModel.output.ResultsMerger;
+import ForagingModel.predator.PredatorCacheFile;
 import ForagingModel.predator.PredatorFactory;
 import ForagingModel.predator.PredatorManager;
 import ForagingModel.schedule.ScheduleFactory;
@@ -44,16 +56,38 @@ public class Runner
 	private final String generatePredatorsOpt = "generatePredators";
 	private final String reportPredatorsOpt = "reportPredators";
 	private final String resumeOpt = "resume";
+	private final String parallelOpt = "parallel";
+	private final String shardOpt = "shard";
+	private final String mergeOpt = "merge";
+	private final String checkpointOpt = "checkpoint";
+	private final String seedOpt = "seed";
+	private final String serveOpt = "serve";
 	private int simulationIndex;
+	private int validSimulationIndex;
 	private int startIndex;
-	private int numSkippedSimulations;
+	private int shardIndex;
+	private int numShards;
+	private int numSimulationThreads;
+	private int checkpointIntervals;
+	private AtomicInteger numSkippedSimulations;
+	private AtomicInteger numCompletedSimulations;
+	private int numSimulationsToRun;
+	private long sweepStartTime;
+	private CompletionLedger ledger;
+	private boolean sweepSeedGiven;
 	
 	private Runner()
 	{
 		options = createOptions();
 		simulationIndex = 0;
+		validSimulationIndex = 0;
 		startIndex = 0;
-		numSkippedSimulations = 0;
+		shardIndex = 0;
+		numShards = 1;
+		numSimulationThreads = 1;
+		checkpointIntervals = 0;
+		numSkippedSimulations = new AtomicInteger();
+		numCompletedSimulations = new AtomicInteger();
 	}
 	
 	public void run(String[] args)
@@ -97,6 +131,41 @@ public class Runner
 				startIndex = Integer.parseInt(line.getOptionValue(resumeOpt));
 				logger.info("Starting at simulation {}", startIndex);
 			}
+			
+			if (line.hasOption(parallelOpt))
+			{
+				numSimulationThreads = Integer.parseInt(line.getOptionValue(parallelOpt));
+				logger.info("Running {} simulations concurrently", numSimulationThreads);
+			}
+			
+			if (line.hasOption(shardOpt))
+			{
+				parseShard(line.getOptionValue(shardOpt));
+				logger.info("Running shard {} of {}", shardIndex, numShards);
+			}
+			
+			if (line.hasOption(checkpointOpt))
+			{
+				checkpointIntervals = Integer.parseInt(line.getOptionValue(checkpointOpt));
+				if (checkpointIntervals < 1)
+				{
+					throw new ParseException("Checkpoint intervals must be positive: " + checkpointIntervals);
+				}
+				logger.info("Checkpointing simulations every {} intervals", checkpointIntervals);
+			}
+			
+			if (line.hasOption(seedOpt))
+			{
+				try
+				{
+					ModelEnvironment.setSweepSeed(Long.parseLong(line.getOptionValue(seedOpt)));
+					sweepSeedGiven = true;
+				}
+				catch (NumberFormatException e)
+				{
+					throw new ParseException("Sweep seed must be a whole number, not " + line.getOptionValue(seedOpt));
+				}
+			}
 
 			// either generate predators or run simulations
 			if (line.hasOption(generatePredatorsOpt))
@@ -108,6 +177,15 @@ public class Runner
 				String reportFile = line.getOptionValue(reportPredatorsOpt);
 				reportPredators(reportFile);
 			}
+			else if (line.hasOption(serveOpt))
+			{
+				serveJobs(line.getOptionValue(serveOpt));
+			}
+			else if (line.hasOption(mergeOpt))
+			{
+				String[] merge = line.getOptionValues(mergeOpt);
+				OutputFactory.createResultsMerger(new File(merge[0]), parseNumShards(merge)).merge();
+			}
 			else
 			{
 				runAllSimulations(propertiesFile);
@@ -127,180 +205,516 @@ public class Runner
 		new Runner().run(args);
 	}
 	
+	private void serveJobs(String jobDirectory)
+	{
+		SimulationServer server = CoreFactory.createSimulationServer(new File(jobDirectory), new SimulationServer.JobRunner()
+		{
+			@Override
+			public boolean run(File propertiesFile)
+			{
+				Runner job = createJobRunner();
+				job.runAllSimulations(propertiesFile.getPath());
+				return job.numSkippedSimulations.get() == 0;
+			}
+		});
+		server.serve();
+	}
+	
+	/**
+	 * Creates a runner for one of the jobs of a server, with the same options but nothing 
+	 * left over from the previous job other than the process-wide caches.
+	 * @return the runner for the job
+	 */
+	private Runner createJobRunner()
+	{
+		Parameters.resetToDefaults();
+		ModelEnvironment.clearForCurrentThread();
+		if (!sweepSeedGiven)
+		{
+			ModelEnvironment.setSweepSeed(System.currentTimeMillis());
+		}
+		
+		Runner job = new Runner();
+		job.shardIndex = shardIndex;
+		job.numShards = numShards;
+		job.numSimulationThreads = numSimulationThreads;
+		job.checkpointIntervals = checkpointIntervals;
+		job.sweepSeedGiven = sweepSeedGiven;
+		return job;
+	}
+	
 	private void runAllSimulations(String propertiesFile)
 	{
 		ParameterManager manager = CoreFactory.createParameterManager(propertiesFile);
-		readPredatorCache();
-		int repeatParamComboTimes = Parameters.get().getRepeatSimulation();
+		// invalid parameter combinations are found here, so no model is ever built for them
+		SimulationPlan plan = manager.createPlan();
+		logger.info("Sweep has {}", plan);
+		if (Parameters.get().getCreateRandomSeed())
+		{
+			logger.info("Simulation seeds created from sweep seed {}", ModelEnvironment.getSweepSeed());
+		}
+		openPredatorCache();
+		
+		if (numShards > 1)
+		{
+			// each shard writes its own results (and tracks folder) to be merged afterwards
+			String resultsFileName = Parameters.get().get(Parameter.ResultsFileName);
+			Parameters.get().setResultsFileName(ResultsMerger.getShardFileName(resultsFileName, shardIndex, numShards));
+		}
+		
+		// simulations finished by an earlier run (which may have crashed) are recorded here and not run again
+		ledger = CoreFactory.createCompletionLedger(Parameters.get().getResultsFile());
+		
+		if (numSimulationThreads > 1 && Parameters.get().getVisualizeSimulation())
+		{
+			logger.warn("Visualization only supported for one simulation at a time, not running concurrently");
+			numSimulationThreads = 1;
+		}
 		
-		for (@SuppressWarnings("unused") Parameters p : manager)
+		if (checkpointIntervals > 0 && (Parameters.get().getVisualizeSimulation() || Parameters.get().getVisualizeProbabilities()))
 		{
-			for (int repeatIdx = 0; repeatIdx < repeatParamComboTimes; repeatIdx++)
+			logger.warn("Checkpoints not supported with visualization, not checkpointing");
+			checkpointIntervals = 0;
+		}
+		
+		Set<Integer> simulationsToRun = getSimulationsToRun(plan);
+		numSimulationsToRun = simulationsToRun.size();
+		// any results of these are from an earlier run that crashed before recording them
+		ledger.removeResults(simulationsToRun);
+		logger.info("Running {} of {} valid simulations", numSimulationsToRun, plan.getNumValidSimulations());
+		sweepStartTime = System.currentTimeMillis();
+		
+		if (numSimulationThreads > 1)
+		{
+			runAllSimulationsConcurrently(plan);
+		}
+		else
+		{
+			Parameters p = Parameters.get();
+			for (ParameterCombination combination : plan)
 			{
-				try
+				combination.apply(p);
+				for (int repeatIdx = 0; repeatIdx < plan.getNumRepeats(); repeatIdx++)
 				{
-					runSimulation();
-				}
-				catch (Exception e)
-				{
-					logger.error("Simulation " + simulationIndex + " skipped", e);
-					numSkippedSimulations++;
-				}
-				finally
-				{
-					simulationIndex++;
+					try
+					{
+						if (!combination.isValid())
+						{
+							// left out of the sweep
+						}
+						else if (isSimulationToRun(simulationIndex, validSimulationIndex, p))
+						{
+							runSimulation(simulationIndex);
+						}
+						else
+						{
+							skipSimulation(p);
+						}
+					}
+					catch (Exception e)
+					{
+						logger.error("Simulation " + simulationIndex + " skipped", e);
+						numSkippedSimulations.incrementAndGet();
+					}
+					finally
+					{
+						if (combination.isValid())
+						{
+							validSimulationIndex++;
+						}
+						simulationIndex++;
+					}
 				}
 			}
 		}
 		
-		if (numSkippedSimulations > 0)
+		if (numShards > 1)
+		{
+			createEmptyShardResults();
+		}
+		
+		if (numSkippedSimulations.get() > 0)
 		{
-			logger.error("Skipped {} simulations total!!", numSkippedSimulations);
+			logger.error("Skipped {} simulations total!!", numSkippedSimulations.get());
 		}
 	}
 	
-	@SuppressWarnings("unchecked")
-	private void readPredatorCache() 
+	/**
+	 * Creates an empty results file for a shard that wrote no results, e.g. one with fewer simulations
+	 * than there are shards, so merging can tell it finished from a shard that never ran.
+	 */
+	private void createEmptyShardResults()
 	{
-		File predatorCacheFile = Parameters.get().getPredatorCacheFile();
+		File resultsFile = Parameters.get().getResultsFile();
+		try
+		{
+			if (resultsFile.createNewFile())
+			{
+				logger.info("Shard wrote no results, created empty {}", resultsFile.getName());
+			}
+		}
+		catch (IOException e)
+		{
+			throw new ForagingModelException("Could not create results file " + resultsFile.toString(), e);
+		}
+	}
+	
+	private void runAllSimulationsConcurrently(SimulationPlan plan)
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(numSimulationThreads);
+		List<Future<Void>> simulations = new ArrayList<Future<Void>>();
 		
-		if (predatorCacheFile.exists())
+		// the shared parameters are changed for each combination, so each simulation gets its own copy
+		Parameters p = Parameters.get();
+		for (ParameterCombination combination : plan)
+		{
+			combination.apply(p);
+			for (int repeatIdx = 0; repeatIdx < plan.getNumRepeats(); repeatIdx++)
+			{
+				if (combination.isValid())
+				{
+					if (isSimulationToRun(simulationIndex, validSimulationIndex, p))
+					{
+						simulations.add(executor.submit(new SimulationTask(p.copy(), simulationIndex)));
+					}
+					skipSimulation(p);
+					validSimulationIndex++;
+				}
+				simulationIndex++;
+			}
+		}
+		executor.shutdown();
+		
+		for (Future<Void> simulation : simulations)
 		{
-			Map<PredatorParamKey,PredatorManager> predatorCache = null;
-			
-		   FileInputStream fileIn = null;
-		   ObjectInputStream in = null;
 			try
 			{
-				   fileIn = new FileInputStream(predatorCacheFile);
-				   in = new ObjectInputStream(fileIn);
-				   
-				   predatorCache = (Map<PredatorParamKey,PredatorManager>) in.readObject();
-				   ModelEnvironment.setPredatorCache(predatorCache);
-
-				   in.close();
+				simulation.get();
 			}
-			catch (IOException e)
+			catch (InterruptedException e)
 			{
-				logger.error("Error reading predator cache", e);
+				throw new ForagingModelException("Interrupted waiting for simulations", e);
 			}
-			catch (ClassNotFoundException e)
+			catch (ExecutionException e)
 			{
-				logger.error("Error reading predator cache", e);
+				// SimulationTask handles its own errors, so shouldn't get here
+				logger.error("Simulation failed", e);
 			}
-			catch (SecurityException e)
+		}
+	}
+	
+	/**
+	 * Opens the predator cache so predators are read from it as needed and new ones added to it.
+	 */
+	private void openPredatorCache() 
+	{
+		File cacheFile = Parameters.get().getPredatorCacheFile();
+		PredatorCacheFile current = ModelEnvironment.getPredatorCacheFile();
+		if (current != null && current.getFile().equals(cacheFile))
+		{
+			// already open, e.g. by an earlier job of a server
+			return;
+		}
+		
+		PredatorCacheFile predatorCacheFile = PredatorFactory.createPredatorCacheFile(cacheFile);
+		File serializedFile = Parameters.get().getSerializedPredatorCacheFile();
+		if (!cacheFile.exists() && serializedFile.exists())
+		{
+			convertSerializedPredatorCache(serializedFile, predatorCacheFile);
+		}
+		ModelEnvironment.setPredatorCacheFile(predatorCacheFile);
+	}
+	
+	@SuppressWarnings("unchecked")
+	private void convertSerializedPredatorCache(File serializedFile, PredatorCacheFile predatorCacheFile) 
+	{
+		FileInputStream fileIn = null;
+		ObjectInputStream in = null;
+		try
+		{
+			fileIn = new FileInputStream(serializedFile);
+			in = new ObjectInputStream(fileIn);
+			Map<PredatorParamKey,PredatorManager> predatorCache = (Map<PredatorParamKey,PredatorManager>) in.readObject();
+			
+			for (Map.Entry<PredatorParamKey,PredatorManager> entry : predatorCache.entrySet())
 			{
-				logger.error("Error reading predator cache", e);
+				predatorCacheFile.append(entry.getKey(), entry.getValue().getAllPredators());
 			}
-			finally
+			logger.info("Converted {} predator parameter combinations from {} to {}", predatorCache.size(), 
+					serializedFile.getName(), predatorCacheFile.getFile().getName());
+		}
+		catch (IOException e)
+		{
+			logger.error("Error reading predator cache", e);
+		}
+		catch (ClassNotFoundException e)
+		{
+			logger.error("Error reading predator cache", e);
+		}
+		catch (SecurityException e)
+		{
+			logger.error("Error reading predator cache", e);
+		}
+		finally
+		{
+			try
 			{
-				try
+				if (in != null)
 				{
-					if (in != null)
-					{
-						   in.close();
-					}
-					if (fileIn != null)
-					{
-						   fileIn.close();
-					}
+					   in.close();
+				}
+				if (fileIn != null)
+				{
+					   fileIn.close();
 				}
-				catch (IOException ignored) {}
 			}
+			catch (IOException ignored) {}
 		}
 	}
 
 	private void generateAllPredators(String propertiesFile)
 	{
 		ParameterManager manager = CoreFactory.createParameterManager(propertiesFile);
+		// predators already in the cache are kept, new ones are added to it as they are generated
+		openPredatorCache();
+		Set<PredatorParamKey> cachedKeys = ModelEnvironment.getPredatorCacheFile().getKeys();
 		
-		for (@SuppressWarnings("unused") Parameters p : manager)
+		// many combinations share the same predators, so generate each key once, with the parameters of its first
+		// combination. no simulations are run for invalid combinations, so they don't need predators
+		Map<PredatorParamKey,Parameters> keysToGenerate = new LinkedHashMap<PredatorParamKey,Parameters>();
+		Parameters p = Parameters.get();
+		for (ParameterCombination combination : manager.createPlan())
+		{
+			if (combination.isValid())
+			{
+				combination.apply(p);
+				PredatorParamKey key = PredatorFactory.createPredatorParamKey(p);
+				if (!cachedKeys.contains(key) && !keysToGenerate.containsKey(key))
+				{
+					keysToGenerate.put(key, p.copy());
+				}
+			}
+		}
+		logger.info("Generating predators for {} parameter combinations, {} already cached", keysToGenerate.size(), cachedKeys.size());
+		
+		// each key's predators come from its own random stream, so are the same however many threads generate them
+		ExecutorService executor = Executors.newFixedThreadPool(numSimulationThreads);
+		List<Future<Void>> tasks = new ArrayList<Future<Void>>();
+		for (Parameters parameters : keysToGenerate.values())
+		{
+			tasks.add(executor.submit(new PredatorTask(parameters)));
+		}
+		executor.shutdown();
+		
+		for (Future<Void> task : tasks)
 		{
 			try
 			{
-				generatePredators();
+				task.get();
 			}
-			catch (Exception e)
+			catch (InterruptedException e)
+			{
+				throw new ForagingModelException("Interrupted waiting for predators", e);
+			}
+			catch (ExecutionException e)
 			{
+				// PredatorTask handles its own errors, so shouldn't get here
 				logger.error("Error generating predators", e);
 			}
 		}
-		
-		// serialize
-		Map<PredatorParamKey,PredatorManager> predatorCache = ModelEnvironment.getPredatorCache();
-		
-		try
+	}
+	
+	/**
+	 * Whether this process runs the valid simulation, depending on where it resumes, which shard it is and 
+	 * whether the ledger shows it already completed. Shards take every numShards-th valid simulation so each 
+	 * gets a similar number and mix of parameter combinations.
+	 * @param index simulation index, stable across shards since every shard walks the whole sweep
+	 * @param validIndex the index among the valid simulations only
+	 * @param params the parameters for the simulation
+	 * @return true to run the simulation
+	 */
+	private boolean isSimulationToRun(int index, int validIndex, Parameters params)
+	{
+		return index >= startIndex && validIndex % numShards == shardIndex 
+				&& !ledger.isComplete(index, params.getParameterHash());
+	}
+	
+	/**
+	 * Finds the simulations this process will run, for reporting progress and replacing their earlier results. 
+	 * @param plan the simulation plan
+	 * @return the indexes of the simulations to run
+	 */
+	private Set<Integer> getSimulationsToRun(SimulationPlan plan)
+	{
+		Parameters params = Parameters.get().copy();
+		Set<Integer> simulations = new HashSet<Integer>();
+		int index = 0;
+		int validIndex = 0;
+		for (ParameterCombination combination : plan)
 		{
-			FileOutputStream fileOut = new FileOutputStream(Parameters.get().getPredatorCacheFile());
-			ObjectOutputStream outStream = new ObjectOutputStream(fileOut);
-			outStream.writeObject(predatorCache);
-			outStream.close();
-			fileOut.close();
+			combination.apply(params);
+			for (int repeatIdx = 0; repeatIdx < plan.getNumRepeats(); repeatIdx++)
+			{
+				if (combination.isValid())
+				{
+					if (isSimulationToRun(index, validIndex, params))
+					{
+						simulations.add(index);
+					}
+					validIndex++;
+				}
+				index++;
+			}
 		}
-		catch(IOException e)
+		return simulations;
+	}
+	
+	private void logProgress()
+	{
+		int completed = numCompletedSimulations.incrementAndGet();
+		long elapsed = System.currentTimeMillis() - sweepStartTime;
+		long remaining = (completed < numSimulationsToRun) ? elapsed / completed * (numSimulationsToRun - completed) : 0;
+		logger.info("Completed {} of {} simulations, about {} remaining", 
+				completed, numSimulationsToRun, DurationFormatUtils.formatDuration(remaining, "HH:mm:ss"));
+	}
+	
+	/**
+	 * Moves past a simulation run elsewhere (or earlier) so that later simulations start the same way
+	 * they would if all simulations ran here.
+	 * @param params the parameters for the simulation not being run
+	 */
+	private void skipSimulation(Parameters params)
+	{
+		if (params.areParametersValid())
 		{
-			logger.error("Error writing predator cache", e);
+			params.skipForagers(params.getForagerNumber());
 		}
-
 	}
 	
-	private void runSimulation()
+	private void runSimulation(int index)
 	{
-		if (simulationIndex >= startIndex)
+		int maxRetries = 20;
+		int retries = 0;
+		for (; retries < maxRetries; retries++)
 		{
-			int maxRetries = 20;
-			int retries = 0;
-			for (; retries < maxRetries; retries++)
+			SimulationCheckpoint checkpoint = null;
+			try
 			{
-				try
+				ModelEnvironment.setSimulationIndex(index);
+				ModelEnvironment.resetGenerator(retries); // create/load random seed per simulation
+				
+				Model model = null;
+				if (checkpointIntervals > 0)
+				{
+					// continue from where an earlier run was killed, if it got far enough to checkpoint
+					checkpoint = CoreFactory.createSimulationCheckpoint(Parameters.get().getResultsFile(), index, checkpointIntervals);
+					if (checkpoint.exists())
+					{
+						model = checkpoint.restore();
+						if (model != null)
+						{
+							// the foragers aren't created again, so their start points and lifespans aren't used up
+							skipSimulation(Parameters.get());
+						}
+					}
+				}
+				if (model == null)
 				{
-					ModelEnvironment.setSimulationIndex(simulationIndex);
-					ModelEnvironment.resetGenerator(); // create/load random seed per simulation
 					ModelBuilder builder = new ModelBuilder();
-					Model model = builder.build();
-					model.run();
-					break; // finished sim successfully
+					model = builder.build(checkpoint);
 				}
-				catch (RepeatedStepsException e)
+				model.run();
+				// results are written by now, so a crash before this means running it again, replacing its results
+				ledger.recordComplete(index, Parameters.get().getParameterHash(), Parameters.get().getRandomSeed());
+				if (checkpoint != null)
 				{
-					logger.warn("Repeated steps in simulation {}, retries {}", simulationIndex, retries);
-					logger.warn("  " + e.getMessage());
-					if (!Parameters.get().getCreateRandomSeed())
-					{
-						logger.info("Not retrying since not generating random seed");
-						break;
-					}
+					checkpoint.delete();
 				}
+				logProgress();
+				break; // finished sim successfully
 			}
-			
-			if (retries == maxRetries)
+			catch (RepeatedStepsException e)
+			{
+				logger.warn("Repeated steps in simulation {}, retries {}", index, retries);
+				logger.warn("  " + e.getMessage());
+				if (checkpoint != null)
+				{
+					// a retry starts over with a new seed, it would just repeat the checkpointed steps
+					checkpoint.delete();
+				}
+				if (!Parameters.get().getCreateRandomSeed())
+				{
+					logger.info("Not retrying since not generating random seed");
+					break;
+				}
+			}
+		}
+		
+		if (retries == maxRetries)
+		{
+			logger.error("Skipped simulation {} after exceeded retries for repeated steps", index);
+			numSkippedSimulations.incrementAndGet();
+		}
+	}
+	
+	private void parseShard(String shard) throws ParseException
+	{
+		// i/n with 0 <= i < n
+		String[] parts = shard.split("/");
+		try
+		{
+			if (parts.length == 2)
 			{
-				logger.error("Skipped simulation {} after exceeded retries for repeated steps", simulationIndex);
-				numSkippedSimulations++;
+				shardIndex = Integer.parseInt(parts[0].trim());
+				numShards = Integer.parseInt(parts[1].trim());
 			}
 		}
+		catch (NumberFormatException ignored) {}
+		
+		if (parts.length != 2 || numShards < 1 || shardIndex < 0 || shardIndex >= numShards)
+		{
+			throw new ParseException("Shard must be i/n with 0 <= i < n, not " + shard);
+		}
+	}
+	
+	private int parseNumShards(String[] merge) throws ParseException
+	{
+		// file n, the n of the -shard i/n the shards were run with
+		int numShards = 0;
+		try
+		{
+			if (merge.length == 2)
+			{
+				numShards = Integer.parseInt(merge[1].trim());
+			}
+		}
+		catch (NumberFormatException ignored) {}
+		
+		if (numShards < 1)
+		{
+			throw new ParseException("Merge must be the results file and the number of shards, not " + Arrays.toString(merge));
+		}
+		return numShards;
 	}
 	
 	private void generatePredators()
 	{
-		ResourceLandscapeReader reader = InputFactory.createResourceLandscapeReader();
 		// generate predators with no border, then adjust later in PredatorManager
-		List<CellData> resourceData = reader.readLandscapeFile(Parameters.get().getResourceLandscapeFile(), 0);
-		ResourceAssemblage resources = SpaceFactory.generateResource(resourceData, ScheduleFactory.createNoOpScheduler());
+		Landscape landscape = ModelEnvironment.getLandscapeCache().getLandscape(Parameters.get().getResourceLandscapeFile(), 0);
+		ResourceAssemblage resources = SpaceFactory.generateResource(landscape, ScheduleFactory.createNoOpScheduler());
 		PredatorFactory.createPredatorManager(resources, ScheduleFactory.createNoOpScheduler());
 	}
 	
 	private void reportPredators(String fileName)
 	{
-		readPredatorCache();
-		Map<PredatorParamKey,PredatorManager> predatorCache = ModelEnvironment.getPredatorCache();
+		openPredatorCache();
 		
 		BufferedWriter writer = null;
 		try 
 		{
 			writer = new BufferedWriter(new FileWriter(fileName, false));
 			
-			for (PredatorParamKey key : predatorCache.keySet())
+			for (PredatorParamKey key : ModelEnvironment.getPredatorCacheFile().getKeys())
 			{
 				writer.write(key.toString());
 				writer.newLine();
@@ -343,8 +757,32 @@ public class Runner
 				 							  .create( reportPredatorsOpt );
 		Option resume = OptionBuilder.withArgName( "simulationIndex" )
 									 .hasArg()
-									 .withDescription(  "the index to start running simulations at" )
+									 .withDescription(  "the index to start running simulations at (completed simulations are skipped anyway)" )
 									 .create( resumeOpt );
+		Option parallel = OptionBuilder.withArgName( "numThreads" )
+									   .hasArg()
+									   .withDescription(  "the number of simulations (or with -generatePredators, predator parameter combinations) to run concurrently" )
+									   .create( parallelOpt );
+		Option shard = OptionBuilder.withArgName( "i/n" )
+									.hasArg()
+									.withDescription(  "run only shard i (0-based) of n of the simulations" )
+									.create( shardOpt );
+		Option merge = OptionBuilder.withArgName( "file n" )
+									.hasArgs(2)
+									.withDescription(  "merge the results and tracks of the n shards into the results file" )
+									.create( mergeOpt );
+		Option checkpoint = OptionBuilder.withArgName( "numIntervals" )
+										 .hasArg()
+										 .withDescription(  "save running simulations every numIntervals intervals and continue killed ones from there" )
+										 .create( checkpointOpt );
+		Option seed = OptionBuilder.withArgName( "sweepSeed" )
+								   .hasArg()
+								   .withDescription(  "the seed simulation seeds are created from with CreateRandomSeed, to repeat a sweep" )
+								   .create( seedOpt );
+		Option serve = OptionBuilder.withArgName( "jobDirectory" )
+									.hasArg()
+									.withDescription(  "keep running, running the properties files put in jobDirectory as they arrive" )
+									.create( serveOpt );
 
 	
 		Options options = new Options();
@@ -354,10 +792,84 @@ public class Runner
 		options.addOption(generatePredators);
 		options.addOption(reportPredators);
 		options.addOption(resume);
+		options.addOption(parallel);
+		options.addOption(shard);
+		options.addOption(merge);
+		options.addOption(checkpoint);
+		options.addOption(seed);
+		options.addOption(serve);
 		
 		return options;		
 	}
 	
+	/**
+	 * Runs one simulation on a worker thread with its own copy of the parameters, 
+	 * so it is isolated from the other simulations running at the same time.
+	 */
+	private class SimulationTask implements Callable<Void>
+	{
+		private Parameters parameters;
+		private int index;
+		
+		private SimulationTask(Parameters parameters, int index)
+		{
+			this.parameters = parameters;
+			this.index = index;
+		}
+
+		@Override
+		public Void call() throws Exception 
+		{
+			Parameters.setForCurrentThread(parameters);
+			try
+			{
+				runSimulation(index);
+			}
+			catch (Exception e)
+			{
+				logger.error("Simulation " + index + " skipped", e);
+				numSkippedSimulations.incrementAndGet();
+			}
+			finally
+			{
+				// worker threads are reused, so don't leave this simulation's state behind
+				ModelEnvironment.clearForCurrentThread();
+				Parameters.clearForCurrentThread();
+			}
+			return null;
+		}
+	}
+	
+	private class PredatorTask implements Callable<Void>
+	{
+		private final Parameters parameters;
+		
+		private PredatorTask(Parameters parameters)
+		{
+			this.parameters = parameters;
+		}
+		
+		@Override
+		public Void call()
+		{
+			Parameters.setForCurrentThread(parameters);
+			try
+			{
+				generatePredators();
+			}
+			catch (Exception e)
+			{
+				logger.error("Error generating predators", e);
+			}
+			finally
+			{
+				ModelEnvironment.clearForCurrentThread();
+				Parameters.clearForCurrentThread();
+			}
+			return null;
+		}
+	}
+	
 	private void showHelp()
 	{
 	    HelpFormatter formatter = new HelpFormatter();
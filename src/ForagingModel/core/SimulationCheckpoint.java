@@ -0,0 +1,185 @@
+package ForagingModel.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.FilenameUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ForagingModel.agent.movement.MovementMapper;
+import ForagingModel.core.Parameters.Parameter;
+import ForagingModel.schedule.Checkpointer;
+import ForagingModel.schedule.Scheduler;
+
+/**
+ * Saves a running simulation every few intervals so that a killed run continues where it left off
+ * instead of starting the simulation over. The scheduler, and so everything registered with it, is written
+ * together with the simulation's random number generator and movement mapper in one compressed stream,
+ * so objects shared between foragers are still shared when restored and the simulation continues exactly
+ * as it would have. A checkpoint is only used for the same simulation index and parameters, and is removed
+ * once the simulation has completed.
+ */
+public class SimulationCheckpoint implements Checkpointer
+{
+	private final static Logger logger = LoggerFactory.getLogger(SimulationCheckpoint.class);
+	public final static String CHECKPOINT_FILE_APPENDAGE = "-checkpoint";
+	private final static String CHECKPOINT_FILE_EXTENSION = ".ser";
+
+	private File checkpointFile;
+	private int simulationIndex;
+	private int checkpointIntervals;
+
+	protected SimulationCheckpoint(File resultsFile, int simulationIndex, int checkpointIntervals)
+	{
+		this.checkpointFile = new File(FilenameUtils.removeExtension(resultsFile.getAbsolutePath())
+				+ CHECKPOINT_FILE_APPENDAGE + simulationIndex + CHECKPOINT_FILE_EXTENSION);
+		this.simulationIndex = simulationIndex;
+		this.checkpointIntervals = checkpointIntervals;
+	}
+
+	public int getCheckpointIntervals()
+	{
+		return checkpointIntervals;
+	}
+
+	public boolean exists()
+	{
+		return checkpointFile.exists();
+	}
+
+	@Override
+	public void checkpoint(Scheduler scheduler, int nextInterval)
+	{
+		Parameters params = Parameters.get();
+		// write next to the checkpoint and then replace it, so a crash while writing keeps the previous one
+		File tempFile = new File(checkpointFile.getAbsolutePath() + ".tmp");
+		FileOutputStream fileOut = null;
+		try
+		{
+			checkpointFile.getAbsoluteFile().getParentFile().mkdirs();
+			fileOut = new FileOutputStream(tempFile);
+			GZIPOutputStream zipOut = new GZIPOutputStream(new BufferedOutputStream(fileOut));
+			ObjectOutputStream out = new ObjectOutputStream(zipOut);
+
+			out.writeInt(simulationIndex);
+			out.writeUTF(params.getParameterHash());
+			out.writeInt(params.getRandomSeed());
+			out.writeInt(params.getLandscapeSizeX());
+			out.writeInt(params.getLandscapeSizeY());
+			out.writeInt(nextInterval);
+			out.writeObject(ModelEnvironment.getNumberGenerator());
+			out.writeObject(ModelEnvironment.getMovementMapper());
+			out.writeObject(scheduler);
+
+			out.flush();
+			zipOut.finish();
+			zipOut.flush();
+			fileOut.getFD().sync();
+			out.close();
+			fileOut = null;
+
+			Files.move(tempFile.toPath(), checkpointFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			logger.debug("Checkpointed simulation {} before interval {}", simulationIndex, nextInterval);
+		}
+		catch (IOException e)
+		{
+			throw new ForagingModelException("Exception writing checkpoint: " + checkpointFile.getAbsolutePath(), e);
+		}
+		finally
+		{
+			if (fileOut != null)
+			{
+				try
+				{
+					fileOut.close();
+				} catch (IOException ignored) {}
+			}
+		}
+	}
+
+	/**
+	 * Restores the simulation from the checkpoint and makes its random number generator and movement mapper
+	 * the ones for the current thread. The restored simulation keeps checkpointing.
+	 * @return the model to continue running, or null if the checkpoint can't be used and the simulation
+	 * needs to start over
+	 */
+	public Model restore()
+	{
+		Model model = null;
+		ObjectInputStream in = null;
+		try
+		{
+			in = new ObjectInputStream(new GZIPInputStream(new BufferedInputStream(new FileInputStream(checkpointFile))));
+			Parameters params = Parameters.get();
+
+			int index = in.readInt();
+			String parameterHash = in.readUTF();
+			if (index != simulationIndex || !parameterHash.equals(params.getParameterHash()))
+			{
+				logger.warn("Checkpoint {} is for different parameters, starting simulation {} over",
+						checkpointFile.getName(), simulationIndex);
+				return null;
+			}
+
+			int seed = in.readInt();
+			int landscapeSizeX = in.readInt();
+			int landscapeSizeY = in.readInt();
+			int nextInterval = in.readInt();
+			NumberGenerator generator = (NumberGenerator) in.readObject();
+			MovementMapper mapper = (MovementMapper) in.readObject();
+			Scheduler scheduler = (Scheduler) in.readObject();
+
+			// these are reported with the results, so they need to be what the simulation started with
+			params.set(Parameter.RandomSeed, seed);
+			params.setLandscapeSizeX(landscapeSizeX);
+			params.setLandscapeSizeY(landscapeSizeY);
+			ModelEnvironment.setNumberGenerator(generator);
+			ModelEnvironment.setMovementMapper(mapper);
+
+			scheduler.setCheckpointer(this, checkpointIntervals);
+			model = new DefaultModel(scheduler, params.getIntervalSize(), params.getNumSteps(), nextInterval);
+			logger.info("Restored simulation {} at interval {}", simulationIndex, nextInterval);
+		}
+		catch (IOException e)
+		{
+			logger.warn("Could not read checkpoint " + checkpointFile.getName() + ", starting simulation over", e);
+		}
+		catch (ClassNotFoundException e)
+		{
+			logger.warn("Could not read checkpoint " + checkpointFile.getName() + ", starting simulation over", e);
+		}
+		finally
+		{
+			if (in != null)
+			{
+				try
+				{
+					in.close();
+				} catch (IOException ignored) {}
+			}
+		}
+		return model;
+	}
+
+	/**
+	 * Removes the checkpoint, once the simulation has completed.
+	 */
+	public void delete()
+	{
+		if (checkpointFile.exists() && !checkpointFile.delete())
+		{
+			logger.warn("Could not delete checkpoint {}", checkpointFile.getAbsolutePath());
+		}
+	}
+}
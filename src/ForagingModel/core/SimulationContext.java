@@ -0,0 +1,102 @@
+package ForagingModel.core;
+
+/**
+ * Immutable snapshot of the parameter values a single simulation needs once it is built.
+ * Created once per simulation (after the landscape is loaded, since that sets the landscape size)
+ * and passed to the factories, so objects capture plain values instead of looking them up in
+ * {@link Parameters} while the simulation runs. Safe to share between threads.
+ */
+public final class SimulationContext
+{
+	private final double minDimensionX;
+	private final double minDimensionY;
+	private final double maxDimensionX;
+	private final double maxDimensionY;
+	private final int landscapeSizeX;
+	private final int landscapeSizeY;
+	private final int emptyBorderSize;
+	private final double intervalSize;
+	private final int numIntervals;
+
+	public SimulationContext(int landscapeSizeX, int landscapeSizeY, int emptyBorderSize, double intervalSize, int numIntervals)
+	{
+		// the min dimension is always 0 and the max is the landscape size, see Parameters.getMaxDimensionX()
+		this.minDimensionX = 0;
+		this.minDimensionY = 0;
+		this.maxDimensionX = landscapeSizeX;
+		this.maxDimensionY = landscapeSizeY;
+		this.landscapeSizeX = landscapeSizeX;
+		this.landscapeSizeY = landscapeSizeY;
+		this.emptyBorderSize = emptyBorderSize;
+		this.intervalSize = intervalSize;
+		this.numIntervals = numIntervals;
+	}
+
+	public static SimulationContext create(Parameters params)
+	{
+		return new SimulationContext(params.getLandscapeSizeX(), params.getLandscapeSizeY(), params.getEmptyBorderSize(),
+				params.getIntervalSize(), params.getNumIntervals());
+	}
+
+	/**
+	 * Snapshot of the parameters for the current thread, for callers not (yet) handed a context.
+	 * @return a new context.
+	 */
+	public static SimulationContext current()
+	{
+		return create(Parameters.get());
+	}
+
+	public double getMinDimensionX()
+	{
+		return minDimensionX;
+	}
+
+	public double getMinDimensionY()
+	{
+		return minDimensionY;
+	}
+
+	public double getMaxDimensionX()
+	{
+		return maxDimensionX;
+	}
+
+	public double getMaxDimensionY()
+	{
+		return maxDimensionY;
+	}
+
+	public int getLandscapeSizeX()
+	{
+		return landscapeSizeX;
+	}
+
+	public int getLandscapeSizeY()
+	{
+		return landscapeSizeY;
+	}
+
+	public int getEmptyBorderSize()
+	{
+		return emptyBorderSize;
+	}
+
+	public double getIntervalSize()
+	{
+		return intervalSize;
+	}
+
+	public int getNumIntervals()
+	{
+		return numIntervals;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "SimulationContext [landscapeSize=" + landscapeSizeX + "x" + landscapeSizeY
+				+ ", emptyBorderSize=" + emptyBorderSize + ", intervalSize=" + intervalSize
+				+ ", numIntervals=" + numIntervals + "]";
+	}
+}
@@ -0,0 +1,170 @@
+package ForagingModel.core;
+
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import ForagingModel.core.Parameters.Parameter;
+
+/**
+ * The simulations of a parameter sweep, worked out before any of them run. The combinations of the multi-valued
+ * parameters are in the order ParameterManager iterates them (the last parameter varies fastest) and each is
+ * repeated RepeatSimulation times, which gives the simulation index: combination index * repeats + repeat.
+ * Combinations are only created when asked for, but whether each is valid is checked up front, without reading
+ * any files, so invalid combinations can be left out and the number of simulations to run is known before starting.
+ */
+public class SimulationPlan implements Iterable<ParameterCombination>
+{
+	private final List<Parameter> keys;
+	private final Map<Parameter, List<String>> multiValuedParameters;
+	private final Map<Parameter, List<Parameter>> referentialParameters;
+	private final int numCombinations;
+	private final int numRepeats;
+	private final BitSet validCombinations;
+
+	/**
+	 * @param parameters the values of the parameters that don't vary, not changed
+	 * @param keys the multi-valued parameters, in iteration order
+	 * @param multiValuedParameters the values of each multi-valued parameter
+	 * @param referentialParameters the parameters set to the same value as each multi-valued parameter, if any
+	 * @param numRepeats how many times each combination is simulated
+	 */
+	protected SimulationPlan(Parameters parameters, List<Parameter> keys, Map<Parameter, List<String>> multiValuedParameters,
+			Map<Parameter, List<Parameter>> referentialParameters, int numRepeats)
+	{
+		this.keys = keys;
+		this.multiValuedParameters = multiValuedParameters;
+		this.referentialParameters = referentialParameters;
+		this.numRepeats = numRepeats;
+
+		long combinations = 1;
+		for (Parameter key : keys)
+		{
+			combinations *= multiValuedParameters.get(key).size();
+		}
+		if (combinations * numRepeats > Integer.MAX_VALUE)
+		{
+			throw new ForagingModelException("Too many simulations in parameter sweep: " + combinations * numRepeats);
+		}
+		this.numCombinations = (int) combinations;
+
+		// only the validity is kept, the combinations are cheap to create again
+		Parameters scratch = parameters.copy();
+		validCombinations = new BitSet(numCombinations);
+		for (int i = 0; i < numCombinations; i++)
+		{
+			createCombination(i, false).apply(scratch);
+			validCombinations.set(i, scratch.areParametersValid());
+		}
+	}
+
+	public int getNumCombinations()
+	{
+		return numCombinations;
+	}
+
+	public int getNumValidCombinations()
+	{
+		return validCombinations.cardinality();
+	}
+
+	public int getNumRepeats()
+	{
+		return numRepeats;
+	}
+
+	/**
+	 * Gets the number of simulations in the sweep, including invalid ones, so simulation indexes go up to this.
+	 * @return the total number of simulations
+	 */
+	public int getNumSimulations()
+	{
+		return numCombinations * numRepeats;
+	}
+
+	public int getNumValidSimulations()
+	{
+		return getNumValidCombinations() * numRepeats;
+	}
+
+	public ParameterCombination getCombination(int combinationIndex)
+	{
+		if (combinationIndex < 0 || combinationIndex >= numCombinations)
+		{
+			throw new IndexOutOfBoundsException("No parameter combination " + combinationIndex + " of " + numCombinations);
+		}
+		return createCombination(combinationIndex, validCombinations.get(combinationIndex));
+	}
+
+	public ParameterCombination getCombinationForSimulation(int simulationIndex)
+	{
+		return getCombination(simulationIndex / numRepeats);
+	}
+
+	@Override
+	public Iterator<ParameterCombination> iterator()
+	{
+		return new Iterator<ParameterCombination>()
+		{
+			private int next = 0;
+
+			@Override
+			public boolean hasNext()
+			{
+				return next < numCombinations;
+			}
+
+			@Override
+			public ParameterCombination next()
+			{
+				if (!hasNext())
+				{
+					throw new NoSuchElementException();
+				}
+				return getCombination(next++);
+			}
+
+			@Override
+			public void remove()
+			{
+				throw new UnsupportedOperationException("Parameters are not removeable");
+			}
+		};
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("%d simulations: %d parameter combinations repeated %d times, %d combinations invalid",
+				getNumSimulations(), numCombinations, numRepeats, numCombinations - getNumValidCombinations());
+	}
+
+	private ParameterCombination createCombination(int combinationIndex, boolean valid)
+	{
+		Map<Parameter, String> values = new EnumMap<Parameter, String>(Parameter.class);
+
+		// the combination index in mixed radix, last parameter is the lowest digit
+		int remainder = combinationIndex;
+		for (int i = keys.size() - 1; i >= 0; i--)
+		{
+			Parameter key = keys.get(i);
+			List<String> keyValues = multiValuedParameters.get(key);
+			String value = keyValues.get(remainder % keyValues.size());
+			remainder /= keyValues.size();
+
+			values.put(key, value);
+			List<Parameter> slaves = referentialParameters.get(key);
+			if (slaves != null)
+			{
+				for (Parameter slave : slaves)
+				{
+					values.put(slave, value);
+				}
+			}
+		}
+		return new ParameterCombination(combinationIndex, values, valid);
+	}
+}
@@ -0,0 +1,212 @@
+package ForagingModel.core;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.time.DurationFormatUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs properties files dropped into a job directory, one after the other, in a process that stays running
+ * so each job starts with the classes loaded, the code compiled and the caches filled by earlier jobs.
+ * A job is renamed while it runs and afterwards, which is how its progress is reported:
+ * job.properties becomes job.properties.running, then job.properties.done or job.properties.failed.
+ * Jobs are run oldest first. Write a job under another name and rename it to .properties, so it isn't picked
+ * up half written. Creating a file named stop in the directory stops the server once no jobs are waiting.
+ */
+public class SimulationServer
+{
+	private final static Logger logger = LoggerFactory.getLogger(SimulationServer.class);
+	public final static String JOB_EXTENSION = ".properties";
+	public final static String RUNNING_EXTENSION = ".running";
+	public final static String DONE_EXTENSION = ".done";
+	public final static String FAILED_EXTENSION = ".failed";
+	public final static String STOP_FILE_NAME = "stop";
+	private final static long POLL_SECONDS = 5;
+
+	/**
+	 * Runs the simulations of one job.
+	 */
+	public interface JobRunner
+	{
+		/**
+		 * @param propertiesFile the job's properties file
+		 * @return true if all the simulations ran, false if any were skipped
+		 */
+		boolean run(File propertiesFile);
+	}
+
+	private File jobDirectory;
+	private JobRunner runner;
+
+	protected SimulationServer(File jobDirectory, JobRunner runner)
+	{
+		this.jobDirectory = jobDirectory;
+		this.runner = runner;
+	}
+
+	/**
+	 * Runs jobs as they arrive, until stopped.
+	 */
+	public void serve()
+	{
+		if (!jobDirectory.isDirectory())
+		{
+			throw new ForagingModelException("Job directory does not exist: " + jobDirectory.getAbsolutePath());
+		}
+		requeueInterruptedJobs();
+		logger.info("Waiting for jobs in {}", jobDirectory.getAbsolutePath());
+
+		WatchService watcher = null;
+		try
+		{
+			watcher = FileSystems.getDefault().newWatchService();
+			jobDirectory.toPath().register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+			File stopFile = new File(jobDirectory, STOP_FILE_NAME);
+			while (true)
+			{
+				File job = nextJob();
+				if (job != null)
+				{
+					runJob(job);
+				}
+				else if (stopFile.exists())
+				{
+					stopFile.delete();
+					logger.info("Stopped serving jobs");
+					break;
+				}
+				else
+				{
+					// also polls, since not every file system reports changes
+					WatchKey key = watcher.poll(POLL_SECONDS, TimeUnit.SECONDS);
+					if (key != null)
+					{
+						key.pollEvents();
+						key.reset();
+					}
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			throw new ForagingModelException("Could not watch job directory " + jobDirectory.getAbsolutePath(), e);
+		}
+		catch (InterruptedException e)
+		{
+			logger.info("Interrupted, stopped serving jobs");
+			Thread.currentThread().interrupt();
+		}
+		finally
+		{
+			if (watcher != null)
+			{
+				try
+				{
+					watcher.close();
+				} catch (IOException ignored) {}
+			}
+		}
+	}
+
+	/**
+	 * Gets the job waiting the longest.
+	 * @return the job's properties file or null if there are none
+	 */
+	protected File nextJob()
+	{
+		File[] jobs = jobDirectory.listFiles(new FileFilter()
+		{
+			@Override
+			public boolean accept(File file)
+			{
+				return file.isFile() && file.getName().endsWith(JOB_EXTENSION);
+			}
+		});
+
+		File next = null;
+		if (jobs != null && jobs.length > 0)
+		{
+			Arrays.sort(jobs, new Comparator<File>()
+			{
+				@Override
+				public int compare(File job1, File job2)
+				{
+					int compare = Long.valueOf(job1.lastModified()).compareTo(job2.lastModified());
+					return (compare != 0) ? compare : job1.getName().compareTo(job2.getName());
+				}
+			});
+			next = jobs[0];
+		}
+		return next;
+	}
+
+	private void runJob(File job)
+	{
+		File running = new File(job.getPath() + RUNNING_EXTENSION);
+		if (!job.renameTo(running))
+		{
+			throw new ForagingModelException("Could not claim job " + job.getAbsolutePath());
+		}
+		logger.info("Starting job {}", job.getName());
+		long startTime = System.currentTimeMillis();
+
+		boolean succeeded = false;
+		try
+		{
+			succeeded = runner.run(running);
+		}
+		catch (Exception e)
+		{
+			logger.error("Job " + job.getName() + " failed", e);
+		}
+
+		File finished = new File(job.getPath() + (succeeded ? DONE_EXTENSION : FAILED_EXTENSION));
+		finished.delete(); // from an earlier run of the same job
+		if (!running.renameTo(finished))
+		{
+			logger.warn("Could not rename {} to {}", running.getName(), finished.getName());
+		}
+		logger.info("Job {} {} after {}", job.getName(), succeeded ? "done" : "failed",
+				DurationFormatUtils.formatDuration(System.currentTimeMillis() - startTime, "HH:mm:ss"));
+	}
+
+	/**
+	 * Jobs still running when the server was killed are run again, which continues their simulations
+	 * where they left off (see CompletionLedger and the checkpoint option).
+	 */
+	private void requeueInterruptedJobs()
+	{
+		File[] interrupted = jobDirectory.listFiles(new FileFilter()
+		{
+			@Override
+			public boolean accept(File file)
+			{
+				return file.isFile() && file.getName().endsWith(JOB_EXTENSION + RUNNING_EXTENSION);
+			}
+		});
+
+		if (interrupted != null)
+		{
+			for (File job : interrupted)
+			{
+				String path = job.getPath();
+				File requeued = new File(path.substring(0, path.length() - RUNNING_EXTENSION.length()));
+				if (job.renameTo(requeued))
+				{
+					logger.info("Requeued interrupted job {}", requeued.getName());
+				}
+			}
+		}
+	}
+}
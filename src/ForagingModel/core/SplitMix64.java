@@ -0,0 +1,124 @@
+package ForagingModel.core;
+
+import org.apache.commons.math3.random.BitsStreamGenerator;
+
+/**
+ * The SplitMix64 generator (the algorithm behind java.util.SplittableRandom), as a source of uniform bits
+ * for the commons math distributions. It is fast, has only 128 bits of state so it is cheap to save in a
+ * checkpoint, and can be split into a new generator whose stream is statistically independent of this one,
+ * which gives each forager and component its own stream without them drawing from each other's.
+ */
+class SplitMix64 extends BitsStreamGenerator
+{
+	private static final long serialVersionUID = -6371922604817734021L;
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+	private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+	private long seed;
+	private long gamma;
+
+	protected SplitMix64(long seed)
+	{
+		this(seed, GOLDEN_GAMMA);
+	}
+
+	private SplitMix64(long seed, long gamma)
+	{
+		this.seed = seed;
+		this.gamma = gamma;
+	}
+
+	/**
+	 * Creates a new generator from the next values of this one. Splitting the same way from the same state
+	 * always gives the same generator.
+	 * @return the new generator
+	 */
+	protected SplitMix64 split()
+	{
+		return new SplitMix64(nextLong(), mixGamma(nextSeed()));
+	}
+
+	/**
+	 * Derives a seed from a parent seed and a child's index, e.g. a simulation seed from the sweep seed,
+	 * so that the child seeds don't depend on the order they are created in.
+	 * @param parentSeed the seed being derived from
+	 * @param index the child's index
+	 * @return the child seed
+	 */
+	protected static long deriveSeed(long parentSeed, long index)
+	{
+		return mix64(parentSeed + mix64(index + 1) * GOLDEN_GAMMA);
+	}
+
+	@Override
+	public void setSeed(int seed)
+	{
+		setSeed((long) seed);
+	}
+
+	@Override
+	public void setSeed(int[] seed)
+	{
+		long combined = 0;
+		for (int i = 0; i < seed.length; i++)
+		{
+			combined = deriveSeed(combined, seed[i]);
+		}
+		setSeed(combined);
+	}
+
+	@Override
+	public void setSeed(long seed)
+	{
+		this.seed = seed;
+		this.gamma = GOLDEN_GAMMA;
+		clear();
+	}
+
+	@Override
+	protected int next(int bits)
+	{
+		return mix32(nextSeed()) >>> (32 - bits);
+	}
+
+	@Override
+	public long nextLong()
+	{
+		return mix64(nextSeed());
+	}
+
+	@Override
+	public double nextDouble()
+	{
+		// one draw of 53 bits instead of the two next(26) calls the base class makes
+		return (nextLong() >>> 11) * DOUBLE_UNIT;
+	}
+
+	private long nextSeed()
+	{
+		return seed += gamma;
+	}
+
+	private static long mix64(long z)
+	{
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	private static int mix32(long z)
+	{
+		z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+		return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+	}
+
+	private static long mixGamma(long z)
+	{
+		z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+		z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		z = (z ^ (z >>> 33)) | 1L;
+		// gammas with too few bit transitions give poorly mixed streams
+		int transitions = Long.bitCount(z ^ (z >>> 1));
+		return (transitions < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+	}
+}
@@ -1,11 +1,15 @@
 package ForagingModel.core;
 
+import java.io.Serializable;
+
 import org.apache.commons.math3.util.FastMath;
 
 import ForagingModel.core.NdPoint;
 
-public class Velocity 
+public class Velocity implements Serializable 
 {
+	private static final long serialVersionUID = -7206691259673249385L;
+
 	double x;
 	double y;
 	
@@ -0,0 +1,176 @@
+package ForagingModel.input;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import org.apache.commons.io.FilenameUtils;
+
+import ForagingModel.core.ForagingModelException;
+
+/**
+ * A landscape file that is memory mapped rather than parsed. All little endian:
+ * <pre>
+ * int    magic number
+ * int    format version
+ * int    size x (rows of the CSV file)
+ * int    size y (columns of the CSV file)
+ * int    bytes per value, 8 for double or 4 for float
+ * int    number of percentiles n
+ * double n percentiles of the non-zero carrying capacities, see Landscape.getNonZeroPercentiles
+ * values x major, as double or float
+ * </pre>
+ * Floats halve the size but round the carrying capacities, so results differ slightly from the CSV file.
+ */
+public class BinaryLandscapeFormat
+{
+	public final static String EXTENSION = "bin";
+	private final static int MAGIC = 0x444C4D46; // FMLD
+	private final static int VERSION = 1;
+	// what ResourceMatrix uses
+	private final static int NUM_PERCENTILES = 4;
+
+	private BinaryLandscapeFormat() { }
+
+	public static boolean isBinary(File file)
+	{
+		return EXTENSION.equalsIgnoreCase(FilenameUtils.getExtension(file.getName()));
+	}
+
+	/**
+	 * Gets the name a landscape file has when converted, which is where it is looked for when the CSV file is read.
+	 * @param csvFile the CSV landscape file
+	 * @return the binary landscape file
+	 */
+	public static File getBinaryFile(File csvFile)
+	{
+		return new File(FilenameUtils.removeExtension(csvFile.getPath()) + "." + EXTENSION);
+	}
+
+	public static Landscape read(File input)
+	{
+		RandomAccessFile file = null;
+		try
+		{
+			file = new RandomAccessFile(input, "r");
+			FileChannel channel = file.getChannel();
+			// stays valid once the file is closed
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+			if (buffer.remaining() < 6 * 4 || buffer.getInt() != MAGIC)
+			{
+				throw new ForagingModelException("Not a binary landscape file: " + input.toString());
+			}
+			int version = buffer.getInt();
+			if (version != VERSION)
+			{
+				throw new ForagingModelException("Binary landscape file " + input.toString() + " is version " + version + " not " + VERSION);
+			}
+			int sizeX = buffer.getInt();
+			int sizeY = buffer.getInt();
+			int bytesPerValue = buffer.getInt();
+			int numPercentiles = buffer.getInt();
+			double[] percentiles = new double[numPercentiles];
+			for (int i = 0; i < numPercentiles; i++)
+			{
+				percentiles[i] = buffer.getDouble();
+			}
+
+			if ((bytesPerValue != 8 && bytesPerValue != 4) || buffer.remaining() != (long) sizeX * sizeY * bytesPerValue)
+			{
+				throw new ForagingModelException("Binary landscape file " + input.toString() + " is truncated or corrupt");
+			}
+			ByteBuffer values = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+			return (bytesPerValue == 8) ? Landscape.createMapped(sizeX, sizeY, values.asDoubleBuffer(), percentiles)
+										: Landscape.createMapped(sizeX, sizeY, values.asFloatBuffer(), percentiles);
+		}
+		catch (IOException e)
+		{
+			throw new ForagingModelException("Error reading binary landscape file " + input.toString(), e);
+		}
+		finally
+		{
+			if (file != null)
+			{
+				try
+				{
+					file.close();
+				} catch (IOException ignored) {}
+			}
+		}
+	}
+
+	/**
+	 * Writes a landscape, replacing any earlier file only once it is complete.
+	 * @param landscape the landscape to write
+	 * @param output the file to write
+	 * @param asFloat whether to write floats instead of doubles
+	 */
+	public static void write(Landscape landscape, File output, boolean asFloat)
+	{
+		int sizeX = landscape.getSizeX();
+		int sizeY = landscape.getSizeY();
+		int bytesPerValue = asFloat ? 4 : 8;
+		double[] percentiles = landscape.getNonZeroPercentiles(NUM_PERCENTILES);
+
+		ByteBuffer buffer = ByteBuffer.allocate(6 * 4 + 8 * percentiles.length + sizeX * sizeY * bytesPerValue);
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(MAGIC).putInt(VERSION).putInt(sizeX).putInt(sizeY).putInt(bytesPerValue).putInt(percentiles.length);
+		for (double percentile : percentiles)
+		{
+			buffer.putDouble(percentile);
+		}
+		for (int x = 0; x < sizeX; x++)
+		{
+			for (int y = 0; y < sizeY; y++)
+			{
+				if (asFloat)
+				{
+					buffer.putFloat((float) landscape.getCarryingCapacity(x, y));
+				}
+				else
+				{
+					buffer.putDouble(landscape.getCarryingCapacity(x, y));
+				}
+			}
+		}
+		buffer.flip();
+
+		File tempFile = new File(output.getAbsolutePath() + ".tmp");
+		FileOutputStream out = null;
+		try
+		{
+			out = new FileOutputStream(tempFile);
+			FileChannel channel = out.getChannel();
+			while (buffer.hasRemaining())
+			{
+				channel.write(buffer);
+			}
+			out.close();
+			out = null;
+			Files.move(tempFile.toPath(), output.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (IOException e)
+		{
+			throw new ForagingModelException("Error writing binary landscape file " + output.toString(), e);
+		}
+		finally
+		{
+			if (out != null)
+			{
+				try
+				{
+					out.close();
+				} catch (IOException ignored) {}
+			}
+		}
+	}
+}
@@ -7,6 +7,11 @@ public class InputFactory
 		return new ResourceLandscapeReader();
 	}
 	
+	public static LandscapeCache createLandscapeCache(long maxBytes)
+	{
+		return new LandscapeCache(createResourceLandscapeReader(), maxBytes);
+	}
+	
 	public static StartPointReader createStartPointReader()
 	{
 		return new StartPointReader();
@@ -0,0 +1,188 @@
+package ForagingModel.input;
+
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+
+import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+
+import ForagingModel.core.Grid;
+
+/**
+ * The carrying capacities of a resource landscape, as read from a landscape file. It is never changed once
+ * created, so one can be shared by all the simulations using the landscape, see LandscapeCache.
+ * x indexes the rows of the file and y the columns. The values are in memory, or mapped from a binary
+ * landscape file (see BinaryLandscapeFormat), which may hold them as floats.
+ */
+public final class Landscape
+{
+	// not counting the values
+	private static final long OVERHEAD_BYTES = 64;
+
+	private final int sizeX;
+	private final int sizeY;
+	// one of these, x major
+	private final DoubleBuffer doubleValues;
+	private final FloatBuffer floatValues;
+	private final boolean mapped;
+	// percentiles of the non-zero carrying capacities, from the file or computed when first needed
+	private volatile double[] percentiles;
+
+	protected Landscape(int sizeX, int sizeY, double[] carryingCapacities)
+	{
+		this(sizeX, sizeY, DoubleBuffer.wrap(carryingCapacities), null, false, null);
+	}
+
+	private Landscape(int sizeX, int sizeY, DoubleBuffer doubleValues, FloatBuffer floatValues, boolean mapped, double[] percentiles)
+	{
+		int numValues = (doubleValues != null) ? doubleValues.capacity() : floatValues.capacity();
+		if (numValues != sizeX * sizeY)
+		{
+			throw new IllegalArgumentException(String.format("%d carrying capacities for a %d x %d landscape",
+					numValues, sizeX, sizeY));
+		}
+		this.sizeX = sizeX;
+		this.sizeY = sizeY;
+		this.doubleValues = doubleValues;
+		this.floatValues = floatValues;
+		this.mapped = mapped;
+		this.percentiles = percentiles;
+	}
+
+	protected static Landscape createMapped(int sizeX, int sizeY, DoubleBuffer values, double[] percentiles)
+	{
+		return new Landscape(sizeX, sizeY, values, null, true, percentiles);
+	}
+
+	protected static Landscape createMapped(int sizeX, int sizeY, FloatBuffer values, double[] percentiles)
+	{
+		return new Landscape(sizeX, sizeY, null, values, true, percentiles);
+	}
+
+	public int getSizeX()
+	{
+		return sizeX;
+	}
+
+	public int getSizeY()
+	{
+		return sizeY;
+	}
+
+	/**
+	 * Gets whether the carrying capacities are held as floats, and so are rounded from those of the CSV file.
+	 */
+	public boolean isFloat()
+	{
+		return floatValues != null;
+	}
+
+	public double getCarryingCapacity(int x, int y)
+	{
+		int index = x * sizeY + y;
+		return (doubleValues != null) ? doubleValues.get(index) : floatValues.get(index);
+	}
+
+	/**
+	 * Gets the memory used, to bound how many landscapes are kept. Mapped values are not counted,
+	 * the operating system pages them in and out.
+	 * @return the approximate size in bytes
+	 */
+	public long getSizeInBytes()
+	{
+		return OVERHEAD_BYTES + (mapped ? 0 : 8L * sizeX * sizeY);
+	}
+
+	/**
+	 * Gets evenly spaced percentiles of the carrying capacities that aren't 0, which don't change with
+	 * an empty border, e.g. for 4 the 25th, 50th, 75th and 100th percentiles.
+	 * @param numPercentiles the number of percentiles, which divides 100
+	 * @return the percentiles, not to be changed
+	 */
+	public double[] getNonZeroPercentiles(int numPercentiles)
+	{
+		double[] current = percentiles;
+		if (current == null || current.length != numPercentiles)
+		{
+			current = calculateNonZeroPercentiles(numPercentiles);
+			percentiles = current;
+		}
+		return current;
+	}
+
+	/**
+	 * Creates this landscape surrounded by cells with no resources.
+	 * @param emptyBorderSize the number of empty cells on each side
+	 * @return the bordered landscape, this if the border is 0
+	 */
+	public Landscape withEmptyBorder(int emptyBorderSize)
+	{
+		if (emptyBorderSize == 0)
+		{
+			return this;
+		}
+		int borderedSizeX = sizeX + 2 * emptyBorderSize;
+		int borderedSizeY = sizeY + 2 * emptyBorderSize;
+		double[] bordered = new double[borderedSizeX * borderedSizeY];
+		for (int x = 0; x < sizeX; x++)
+		{
+			for (int y = 0; y < sizeY; y++)
+			{
+				bordered[(x + emptyBorderSize) * borderedSizeY + y + emptyBorderSize] = getCarryingCapacity(x, y);
+			}
+		}
+		return new Landscape(borderedSizeX, borderedSizeY, DoubleBuffer.wrap(bordered), null, false, percentiles);
+	}
+
+	/**
+	 * Creates a new matrix of the carrying capacities, for a simulation to consume.
+	 * @return the matrix, with a row for each x
+	 */
+	public Grid createMatrix()
+	{
+		double[] values = new double[sizeX * sizeY];
+		// the same layout, so copied in one go
+		if (doubleValues != null)
+		{
+			doubleValues.duplicate().get(values);
+		}
+		else
+		{
+			for (int i = 0; i < values.length; i++)
+			{
+				values[i] = floatValues.get(i);
+			}
+		}
+		return new Grid(sizeX, sizeY, values);
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("Landscape[%d x %d]", sizeX, sizeY);
+	}
+
+	private double[] calculateNonZeroPercentiles(int numPercentiles)
+	{
+		// same as ResourceMatrix
+		DescriptiveStatistics stats = new DescriptiveStatistics();
+		for (int x = 0; x < sizeX; x++)
+		{
+			for (int y = 0; y < sizeY; y++)
+			{
+				double value = getCarryingCapacity(x, y);
+				if (value > 0)
+				{
+					stats.addValue(value);
+				}
+			}
+		}
+
+		int increment = 100 / numPercentiles;
+		double[] nonZeroPercentiles = new double[numPercentiles];
+		for (int i = 0; i < numPercentiles; i++)
+		{
+			nonZeroPercentiles[i] = stats.getPercentile((i + 1) * increment);
+		}
+		return nonZeroPercentiles;
+	}
+}
@@ -0,0 +1,166 @@
+package ForagingModel.input;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the landscapes read from files so each is only read once however many simulations use it.
+ * Landscapes with an empty border are made from the cached landscape without one rather than read again.
+ * The least recently used landscapes are dropped once the landscapes kept take more than the memory allowed.
+ * A file changed since it was read is read again. Safe for concurrent simulations.
+ */
+public class LandscapeCache
+{
+	private final static Logger logger = LoggerFactory.getLogger(LandscapeCache.class);
+
+	private final ResourceLandscapeReader reader;
+	private final long maxBytes;
+	private long bytes;
+	private final LinkedHashMap<LandscapeKey, Landscape> landscapes;
+
+	protected LandscapeCache(ResourceLandscapeReader reader, long maxBytes)
+	{
+		this.reader = reader;
+		this.maxBytes = maxBytes;
+		this.bytes = 0;
+		this.landscapes = new LinkedHashMap<LandscapeKey, Landscape>(16, 0.75f, true); // access order
+	}
+
+	/**
+	 * Gets the landscape in a file, reading it if it isn't already cached.
+	 * @param input the landscape file
+	 * @param emptyBorderSize the number of empty cells around the landscape
+	 * @return the landscape, or null if there is no file name
+	 */
+	public Landscape getLandscape(File input, int emptyBorderSize)
+	{
+		// file can be empty string to not read data from file
+		if (input == null || input.getName().isEmpty())
+		{
+			return null;
+		}
+
+		LandscapeKey key = new LandscapeKey(input, emptyBorderSize);
+		Landscape landscape = get(key);
+		if (landscape == null)
+		{
+			// not read while holding the lock so other simulations can use other landscapes meanwhile,
+			// two simulations may both read a new landscape but only one copy is kept
+			if (emptyBorderSize == 0)
+			{
+				logger.debug("Reading landscape {}", input.getName());
+				landscape = reader.readLandscape(input);
+			}
+			else
+			{
+				landscape = getLandscape(input, 0).withEmptyBorder(emptyBorderSize);
+			}
+			landscape = put(key, landscape);
+		}
+		return landscape;
+	}
+
+	public synchronized int getNumLandscapes()
+	{
+		return landscapes.size();
+	}
+
+	public synchronized long getSizeInBytes()
+	{
+		return bytes;
+	}
+
+	public synchronized void clear()
+	{
+		landscapes.clear();
+		bytes = 0;
+	}
+
+	private synchronized Landscape get(LandscapeKey key)
+	{
+		return landscapes.get(key);
+	}
+
+	private synchronized Landscape put(LandscapeKey key, Landscape landscape)
+	{
+		Landscape existing = landscapes.get(key);
+		if (existing != null)
+		{
+			return existing;
+		}
+
+		landscapes.put(key, landscape);
+		bytes += landscape.getSizeInBytes();
+
+		// always keep the one just added, even if it is bigger than allowed on its own
+		Iterator<Map.Entry<LandscapeKey, Landscape>> leastRecentlyUsed = landscapes.entrySet().iterator();
+		while (bytes > maxBytes && landscapes.size() > 1)
+		{
+			Map.Entry<LandscapeKey, Landscape> eldest = leastRecentlyUsed.next();
+			bytes -= eldest.getValue().getSizeInBytes();
+			leastRecentlyUsed.remove();
+			logger.debug("Dropped landscape {} from cache", eldest.getKey());
+		}
+		return landscape;
+	}
+
+	private static class LandscapeKey
+	{
+		private final String path;
+		private final long lastModified;
+		private final int emptyBorderSize;
+
+		private LandscapeKey(File file, int emptyBorderSize)
+		{
+			String canonicalPath;
+			try
+			{
+				canonicalPath = file.getCanonicalPath();
+			}
+			catch (IOException e)
+			{
+				canonicalPath = file.getAbsolutePath();
+			}
+			this.path = canonicalPath;
+			this.lastModified = file.lastModified();
+			this.emptyBorderSize = emptyBorderSize;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + emptyBorderSize;
+			result = prime * result + (int) (lastModified ^ (lastModified >>> 32));
+			result = prime * result + path.hashCode();
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (this == obj)
+				return true;
+			if (obj == null)
+				return false;
+			if (getClass() != obj.getClass())
+				return false;
+			LandscapeKey other = (LandscapeKey) obj;
+			return emptyBorderSize == other.emptyBorderSize && lastModified == other.lastModified
+					&& path.equals(other.path);
+		}
+
+		@Override
+		public String toString()
+		{
+			return path + " (border " + emptyBorderSize + ")";
+		}
+	}
+}
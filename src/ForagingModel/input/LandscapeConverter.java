@@ -0,0 +1,143 @@
+package ForagingModel.input;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.GnuParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.log4j.BasicConfigurator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Converts CSV landscape files to binary landscape files next to them (see BinaryLandscapeFormat),
+ * which are then read instead of the CSV files, unless converted to floats, which are only read when named.
+ * Takes landscape files and directories of them, e.g.
+ * java ForagingModel.input.LandscapeConverter land
+ */
+public class LandscapeConverter
+{
+	private final static Logger logger = LoggerFactory.getLogger(LandscapeConverter.class);
+
+	private final String helpOpt = "help";
+	private final String floatOpt = "float";
+	private final String forceOpt = "force";
+	private boolean asFloat;
+	private boolean force;
+
+	protected LandscapeConverter(boolean asFloat, boolean force)
+	{
+		this.asFloat = asFloat;
+		this.force = force;
+	}
+
+	public static void main(String[] args)
+	{
+		BasicConfigurator.configure();
+		new LandscapeConverter(false, false).run(args);
+	}
+
+	public void run(String[] args)
+	{
+		Options options = createOptions();
+		try
+		{
+			CommandLineParser parser = new GnuParser();
+			CommandLine line = parser.parse(options, args);
+			if (line.hasOption(helpOpt) || line.getArgs().length == 0)
+			{
+				new HelpFormatter().printHelp("LandscapeConverter [options] landscapeFileOrDirectory...", options);
+				return;
+			}
+			asFloat = line.hasOption(floatOpt);
+			force = line.hasOption(forceOpt);
+
+			List<File> csvFiles = new ArrayList<File>();
+			for (String arg : line.getArgs())
+			{
+				csvFiles.addAll(findCsvFiles(new File(arg)));
+			}
+
+			int numConverted = 0;
+			for (File csvFile : csvFiles)
+			{
+				if (convert(csvFile))
+				{
+					numConverted++;
+				}
+			}
+			logger.info("Converted {} of {} landscape files", numConverted, csvFiles.size());
+		}
+		catch (ParseException e)
+		{
+			logger.error("Error parsing command line parameters", e);
+		}
+	}
+
+	/**
+	 * Converts one landscape file, unless it has already been converted since it last changed.
+	 * @param csvFile the CSV landscape file
+	 * @return true if converted
+	 */
+	public boolean convert(File csvFile)
+	{
+		File binaryFile = BinaryLandscapeFormat.getBinaryFile(csvFile);
+		boolean convert = force || !binaryFile.exists() || binaryFile.lastModified() < csvFile.lastModified();
+		if (convert)
+		{
+			Landscape landscape = InputFactory.createResourceLandscapeReader().readCsvLandscape(csvFile);
+			BinaryLandscapeFormat.write(landscape, binaryFile, asFloat);
+			logger.debug("Converted {}", csvFile.getName());
+		}
+		return convert;
+	}
+
+	private List<File> findCsvFiles(File fileOrDirectory)
+	{
+		List<File> csvFiles = new ArrayList<File>();
+		if (fileOrDirectory.isDirectory())
+		{
+			File[] files = fileOrDirectory.listFiles(new FileFilter()
+			{
+				@Override
+				public boolean accept(File file)
+				{
+					return file.isFile() && "csv".equalsIgnoreCase(FilenameUtils.getExtension(file.getName()));
+				}
+			});
+			if (files != null)
+			{
+				csvFiles.addAll(Arrays.asList(files));
+				Collections.sort(csvFiles);
+			}
+		}
+		else if (fileOrDirectory.isFile())
+		{
+			csvFiles.add(fileOrDirectory);
+		}
+		else
+		{
+			logger.warn("No landscape file or directory {}", fileOrDirectory.getPath());
+		}
+		return csvFiles;
+	}
+
+	private Options createOptions()
+	{
+		Options options = new Options();
+		options.addOption(new Option(helpOpt, "print this message"));
+		options.addOption(new Option(floatOpt, "store carrying capacities as floats, half the size but rounded, only read when the .bin file is named"));
+		options.addOption(new Option(forceOpt, "convert even if already converted"));
+		return options;
+	}
+}
@@ -8,13 +8,46 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import ForagingModel.core.ForagingModelException;
 
 public class ResourceLandscapeReader 
 {
+	private final static Logger logger = LoggerFactory.getLogger(ResourceLandscapeReader.class);
+
 	protected ResourceLandscapeReader() { }
 	
 	public List<CellData> readLandscapeFile(File input, int emptyBorderSize)
+	{
+		Landscape landscape = readLandscape(input);
+		if (landscape == null)
+		{
+			return null;
+		}
+		landscape = landscape.withEmptyBorder(emptyBorderSize);
+		
+		List<CellData> resourceCells = new ArrayList<CellData>(landscape.getSizeX() * landscape.getSizeY());
+		for (int x = 0; x < landscape.getSizeX(); x++)
+		{
+			for (int y = 0; y < landscape.getSizeY(); y++)
+			{
+				resourceCells.add(CellData.create(x, y, landscape.getCarryingCapacity(x, y)));
+			}
+		}
+		return resourceCells;
+	}
+	
+	/**
+	 * Reads the carrying capacities in a landscape file, without any border. A binary landscape file 
+	 * (see BinaryLandscapeFormat) is mapped instead of parsed, and is used instead of a CSV file 
+	 * converted to it if it holds the same values: doubles, the same size, and not older than the CSV file.
+	 * A binary file of floats is only used when named.
+	 * @param input the landscape file, CSV with a header row and then a row for each x, or binary
+	 * @return the landscape, or null if there is no file name
+	 */
+	public Landscape readLandscape(File input)
 	{
 		// file can be empty string to not read data from file
 		if (input == null || input.getName().isEmpty())
@@ -22,10 +55,93 @@ public class ResourceLandscapeReader
 			return null;
 		}
 		
-		List<CellData> resourceCells = new ArrayList<CellData>();
-		
+		Landscape landscape;
+		File binaryFile = BinaryLandscapeFormat.getBinaryFile(input);
+		if (BinaryLandscapeFormat.isBinary(input))
+		{
+			landscape = readBinaryLandscape(input);
+		}
+		else if (binaryFile.exists() && binaryFile.lastModified() >= input.lastModified())
+		{
+			landscape = readConvertedLandscape(input, binaryFile);
+		}
+		else
+		{
+			landscape = readCsvLandscape(input);
+		}
+		return landscape;
+	}
+	
+	private Landscape readBinaryLandscape(File input)
+	{
+		Landscape landscape = BinaryLandscapeFormat.read(input);
+		logger.info("Read landscape {} as {}", input.getName(), landscape.isFloat() ? "floats" : "doubles");
+		return landscape;
+	}
+	
+	/**
+	 * Reads the binary file a CSV file was converted to, unless it holds different values, in which case the CSV file.
+	 */
+	private Landscape readConvertedLandscape(File csvFile, File binaryFile)
+	{
+		Landscape landscape = BinaryLandscapeFormat.read(binaryFile);
+		if (landscape.isFloat())
+		{
+			// the results would be for rounded carrying capacities without saying so
+			logger.info("Not reading {} in place of {} as it holds floats, name it to use it", binaryFile.getName(), csvFile.getName());
+			return readCsvLandscape(csvFile);
+		}
+		int[] csvSize = readCsvSize(csvFile);
+		if (landscape.getSizeX() != csvSize[0] || landscape.getSizeY() != csvSize[1])
+		{
+			logger.warn("Not reading {} in place of {} as it is {} x {} not {} x {}", binaryFile.getName(), csvFile.getName(), 
+					landscape.getSizeX(), landscape.getSizeY(), csvSize[0], csvSize[1]);
+			return readCsvLandscape(csvFile);
+		}
+		return readBinaryLandscape(binaryFile);
+	}
+	
+	/**
+	 * Gets the size of a CSV landscape without parsing its values.
+	 * @return the number of rows and of columns
+	 */
+	protected int[] readCsvSize(File input)
+	{
+		BufferedReader reader = null;
+		try 
+		{
+			reader = new BufferedReader(new FileReader(input));
+			String line = reader.readLine();
+			int nFileCols = (line == null) ? 0 : line.split(",").length;
+			int nFileRows = 0;
+			while (reader.readLine() != null)
+			{
+				nFileRows++;
+			}
+			return new int[] { nFileRows, nFileCols };
+		} 
+		catch (FileNotFoundException e) 
+		{
+			throw new ForagingModelException("Could not open resource file " + input.toString(), e);
+		} 
+		catch (IOException e) 
+		{
+			throw new ForagingModelException("Error reading resource file " + input.toString(), e);
+		}
+		finally
+		{
+			if (reader != null)
+			{
+				try { reader.close(); }
+				catch (Exception ignored) { }
+			}
+		}
+	}
+	
+	protected Landscape readCsvLandscape(File input)
+	{
+		List<double[]> rows = new ArrayList<double[]>();
 		BufferedReader reader = null;
-		int nFileRows = 0;
 		int nFileCols = 0;
 		
 		try 
@@ -34,15 +150,6 @@ public class ResourceLandscapeReader
 			String line =  reader.readLine(); // skip first line
 			nFileCols = line.split(",").length;
 			
-			// add empty top border now that we know number of columns
-			for (int row = 0; row < emptyBorderSize; row++)
-			{
-				for (int col = 0; col < nFileCols + 2 * emptyBorderSize; col++) // empty columns on each side
-				{
-					resourceCells.add(CellData.create(row, col, 0));
-				}
-			}
-			
 			while ( (line = reader.readLine()) != null )
 			{
 				String[] fields = line.split(",");
@@ -50,27 +157,13 @@ public class ResourceLandscapeReader
 				// each line should have same number of values
 				assert(fields.length == nFileCols);
 				
-				// left empty column
-				for (int col = 0; col < emptyBorderSize; col++)
-				{
-					resourceCells.add(CellData.create(nFileRows + emptyBorderSize, col, 0));
-				}
-				
 				// nRows indexes x and col indexes y
+				double[] row = new double[nFileCols];
 				for (int col = 0; col < fields.length; col++)
 				{
-					double data = Double.parseDouble(fields[col]);
-					resourceCells.add(CellData.create(nFileRows + emptyBorderSize, col + emptyBorderSize, data));
+					row[col] = Double.parseDouble(fields[col]);
 				}
-				
-				// right empty column
-				for (int col = fields.length + emptyBorderSize; col < fields.length + 2 * emptyBorderSize; col++)
-				{
-					resourceCells.add(CellData.create(nFileRows + emptyBorderSize, col, 0));
-				}
-
-				nFileRows++;
-
+				rows.add(row);
 			}
 		} 
 		catch (FileNotFoundException e) 
@@ -90,19 +183,15 @@ public class ResourceLandscapeReader
 			}
 		}
 		
-		// now add empty bottom border 
-		for (int row = nFileRows + emptyBorderSize; row < nFileRows + 2 * emptyBorderSize; row++)
-		{
-			for (int col = 0; col < nFileCols + 2 * emptyBorderSize; col++) // empty columns on each side
-			{
-				resourceCells.add(CellData.create(row, col, 0));
-			}
-		}
-
-		
+		int nFileRows = rows.size();
 		assert(nFileRows == nFileCols);
 		
-		return resourceCells;
+		double[] carryingCapacities = new double[nFileRows * nFileCols];
+		for (int row = 0; row < nFileRows; row++)
+		{
+			System.arraycopy(rows.get(row), 0, carryingCapacities, row * nFileCols, nFileCols);
+		}
+		return new Landscape(nFileRows, nFileCols, carryingCapacities);
 	}
 	
 }
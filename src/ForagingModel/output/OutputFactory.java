@@ -52,5 +52,10 @@ public class OutputFactory
 		return new MovieCreator();
 	}
 
+	public static ResultsMerger createResultsMerger(File mergedResults, int numShards)
+	{
+		return new ResultsMerger(mergedResults, numShards);
+	}
+
 
 }
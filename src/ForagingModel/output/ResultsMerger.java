@@ -0,0 +1,199 @@
+package ForagingModel.output;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.commons.io.FilenameUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ForagingModel.core.ForagingModelException;
+
+/**
+ * Combines the results of a sweep that was split into shards (see {@link #getShardFileName(String, int, int)})
+ * back into the results file and tracks folder a single unsharded run would have written.
+ * Result rows are ordered by simulation index. Track files already have the simulation index in their
+ * names, so they are copied into one folder as is. Only the shards of the given number of shards are merged,
+ * so shards left from a sweep split differently are not, and every one of them must be there. A shard that ran
+ * no simulations leaves an empty results file, which adds nothing.
+ */
+public class ResultsMerger
+{
+	private final static Logger logger = LoggerFactory.getLogger(ResultsMerger.class);
+	private final static String SHARD_TAG = "-shard";
+
+	private File resultsFile;
+	private int numShards;
+
+	protected ResultsMerger(File resultsFile, int numShards)
+	{
+		this.resultsFile = resultsFile;
+		this.numShards = numShards;
+	}
+
+	/**
+	 * The results file name used by one shard, e.g. results.csv becomes results-shard2of4.csv.
+	 * @param resultsFileName the results file name for the whole sweep
+	 * @param shardIndex the 0-based shard index
+	 * @param numShards total number of shards
+	 * @return the shard's results file name
+	 */
+	public static String getShardFileName(String resultsFileName, int shardIndex, int numShards)
+	{
+		String extension = FilenameUtils.getExtension(resultsFileName);
+		return FilenameUtils.removeExtension(resultsFileName) + SHARD_TAG + shardIndex + "of" + numShards
+				+ (extension.isEmpty() ? "" : "." + extension);
+	}
+
+	public void merge()
+	{
+		if (resultsFile.exists())
+		{
+			throw new ForagingModelException("Merged results file already exists: " + resultsFile.getAbsolutePath());
+		}
+
+		List<File> shardFiles = findShardFiles();
+
+		String[] header = null;
+		File headerFile = null;
+		List<String[]> rows = new ArrayList<String[]>();
+		for (File shardFile : shardFiles)
+		{
+			logger.info("Merging {}", shardFile.getName());
+			String[] shardHeader = readResults(shardFile, rows);
+			if (shardHeader == null)
+			{
+				logger.info("{} is empty, shard ran no simulations", shardFile.getName());
+			}
+			else if (header == null)
+			{
+				header = shardHeader;
+				headerFile = shardFile;
+			}
+			else if (header.length != shardHeader.length)
+			{
+				throw new ForagingModelException("Columns of " + shardFile.getName() + " do not match " + headerFile.getName());
+			}
+			else if (!Arrays.equals(header, shardHeader))
+			{
+				// forager columns are named by forager id, which depends on which simulation wrote the header
+				logger.warn("Header of {} differs from {}, using the first", shardFile.getName(), headerFile.getName());
+			}
+
+			mergeTracks(shardFile);
+		}
+
+		// first column is the simulation index
+		Collections.sort(rows, new Comparator<String[]>()
+		{
+			@Override
+			public int compare(String[] row1, String[] row2)
+			{
+				return Integer.valueOf(row1[0]).compareTo(Integer.valueOf(row2[0]));
+			}
+		});
+		int numSimulations = rows.size();
+		if (header != null)
+		{
+			rows.add(0, header);
+		}
+		FileUtils.writeToFile(rows, resultsFile, false);
+
+		logger.info("Merged {} simulations from {} shards into {}", numSimulations, shardFiles.size(), resultsFile.getName());
+	}
+
+	protected List<File> findShardFiles()
+	{
+		File folder = resultsFile.getAbsoluteFile().getParentFile();
+		List<File> shardFiles = new ArrayList<File>(numShards);
+		for (int shardIndex = 0; shardIndex < numShards; shardIndex++)
+		{
+			File shardFile = new File(folder, getShardFileName(resultsFile.getName(), shardIndex, numShards));
+			if (!shardFile.isFile())
+			{
+				throw new ForagingModelException("Missing results of shard " + shardIndex + " of " + numShards + ": " 
+						+ shardFile.getAbsolutePath());
+			}
+			shardFiles.add(shardFile);
+		}
+		return shardFiles;
+	}
+
+	private String[] readResults(File shardFile, List<String[]> rows)
+	{
+		String[] header = null;
+		BufferedReader reader = null;
+		try
+		{
+			reader = new BufferedReader(new FileReader(shardFile));
+			String line = reader.readLine();
+			if (line != null)
+			{
+				header = line.split(",", -1);
+			}
+
+			while ( (line = reader.readLine()) != null )
+			{
+				if (!line.isEmpty())
+				{
+					rows.add(line.split(",", -1));
+				}
+			}
+		}
+		catch (FileNotFoundException e)
+		{
+			throw new ForagingModelException("Could not open results file " + shardFile.toString(), e);
+		}
+		catch (IOException e)
+		{
+			throw new ForagingModelException("Could not read results file " + shardFile.toString(), e);
+		}
+		finally
+		{
+			if (reader != null)
+			{
+				try
+				{
+					reader.close();
+				} catch (IOException ignored) {}
+			}
+		}
+		return header;
+	}
+
+	private void mergeTracks(File shardFile)
+	{
+		File shardTracksFolder = new File(FilenameUtils.removeExtension(shardFile.getAbsolutePath()));
+		File tracksFolder = new File(FilenameUtils.removeExtension(resultsFile.getAbsolutePath()));
+
+		File[] trackFiles = shardTracksFolder.listFiles();
+		if (trackFiles != null)
+		{
+			tracksFolder.mkdirs();
+			for (File trackFile : trackFiles)
+			{
+				File target = new File(tracksFolder, trackFile.getName());
+				if (target.exists())
+				{
+					throw new ForagingModelException("Track file from more than one shard: " + trackFile.getName());
+				}
+				try
+				{
+					org.apache.commons.io.FileUtils.copyFile(trackFile, target);
+				}
+				catch (IOException e)
+				{
+					throw new ForagingModelException("Could not copy track file " + trackFile.toString(), e);
+				}
+			}
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package ForagingModel.output;
 
 import java.io.File;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -27,10 +28,15 @@ import ForagingModel.predator.Predator;
 import ForagingModel.space.MemoryAssemblage;
 import ForagingModel.space.MemoryAssemblage.State;
 
-public class SimulationFileWriter implements SimulationReporter 
+public class SimulationFileWriter implements SimulationReporter, Serializable 
 {
+	private static final long serialVersionUID = -2645106935722482807L;
+
 	public final static String TOTAL_CONSUMPTION_FILE_APPENDAGE = "-TotalConsumption.txt";
 	
+	// simulations running concurrently all append to the same results file
+	private final static Object resultsFileLock = new Object();
+	
 	private File resultsFile;
 //	private File totalConsumptionFile;
 	private File tracksFolder;
@@ -71,6 +77,7 @@ public class SimulationFileWriter implements SimulationReporter
 				Parameter.LandscapeSizeY,
 				Parameter.ResultsFileName,
 				Parameter.SaveTracks,
+				Parameter.KernelTolerance,
 				Parameter.StartPointsFileName,
 				Parameter.VisualizeSimulation,
 				Parameter.VisualizeProbabilities,
@@ -168,7 +175,10 @@ public class SimulationFileWriter implements SimulationReporter
 			}
 		}
 		
-		FileUtils.writeToFile(results, resultsFile, true);
+		synchronized (resultsFileLock)
+		{
+			FileUtils.writeToFile(results, resultsFile, true);
+		}
 		
 		if (Parameters.get().getSaveTracks())
 		{
@@ -300,40 +310,45 @@ public class SimulationFileWriter implements SimulationReporter
 	
 	private void init()
 	{
-		if (!resultsFile.exists())
+		// check and write header together so only one simulation writes it
+		synchronized (resultsFileLock)
 		{
-			String[] header = new String[numColumns];
-			int i = 0;
-			
-			header[0] = "SimulationIndex";
-			i++;
-			
-			for (Parameter param : paramsToReport)
+			// empty if left by a shard that ran nothing before
+			if (!resultsFile.exists() || resultsFile.length() == 0)
 			{
-				header[i] = param.name();
+				String[] header = new String[numColumns];
+				int i = 0;
+			
+				header[0] = "SimulationIndex";
 				i++;
-			}
-			for (Agent agent : agents)
-			{
-				if (agent instanceof Forager)
+			
+				for (Parameter param : paramsToReport)
+				{
+					header[i] = param.name();
+					i++;
+				}
+				for (Agent agent : agents)
 				{
-					Forager forager = (Forager) agent;
-					for (SummaryMetric metric : metricsToReport)
+					if (agent instanceof Forager)
 					{
-						header[i] = String.format("%s%d", metric.name(), forager.getId());
-						i++;
-					}
+						Forager forager = (Forager) agent;
+						for (SummaryMetric metric : metricsToReport)
+						{
+							header[i] = String.format("%s%d", metric.name(), forager.getId());
+							i++;
+						}
 					
-					for (int b = 0; b < numQualityBins; b++)
-					{
-						header[i] = String.format("%dBin%d", forager.getId(), b);
-						i++;
-					}
+						for (int b = 0; b < numQualityBins; b++)
+						{
+							header[i] = String.format("%dBin%d", forager.getId(), b);
+							i++;
+						}
 
+					}
 				}
-			}
 			
-			FileUtils.writeToFile(header, resultsFile, false);
+				FileUtils.writeToFile(header, resultsFile, false);
+			}
 		}
 	}
 
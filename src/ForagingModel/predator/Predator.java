@@ -36,6 +36,16 @@ public class Predator implements Serializable
 		return location;
 	}
 	
+	public int getStartInterval()
+	{
+		return startInterval;
+	}
+	
+	public int getStopInterval()
+	{
+		return stopInterval;
+	}
+	
 	// these 2 report methods need to be kept in sync
 	public static String[] reportColumns()
 	{
@@ -0,0 +1,319 @@
+package ForagingModel.predator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ForagingModel.core.ForagingModelException;
+import ForagingModel.core.ModelEnvironment.PredatorParamKey;
+import ForagingModel.core.NdPoint;
+
+/**
+ * Predators generated for each PredatorParamKey, kept in a file so every simulation (and every process)
+ * with the same key has the same predators. Predators are only read for the keys used, from a memory map
+ * of the file, and new keys are appended without rewriting the file. Several processes can read and append
+ * at the same time: appending locks the file and checks the key wasn't added meanwhile, and readers only
+ * use records that are complete.
+ * <pre>
+ * int    magic number
+ * int    format version
+ * then records, each:
+ * int    length of what follows up to the checksum
+ * key    resource id (int length, UTF-8 bytes), predator duration, max intervals (ints),
+ *        predator randomness (double), total predation pressure (int)
+ * int    number of predators
+ *        for each predator: start interval, stop interval (ints), x, y (doubles)
+ * int    CRC32 of the above, so a record still being written isn't used
+ * </pre>
+ */
+public class PredatorCacheFile
+{
+	private final static Logger logger = LoggerFactory.getLogger(PredatorCacheFile.class);
+	private final static int MAGIC = 0x43504D46; // FMPC
+	private final static int VERSION = 1;
+	private final static int HEADER_BYTES = 8;
+	private final static Charset UTF8 = Charset.forName("UTF-8");
+
+	private final File file;
+	// offset of each key's record, for the part of the file read so far
+	private final Map<PredatorParamKey, Integer> index;
+	private MappedByteBuffer mapped;
+	private long indexedLength;
+
+	protected PredatorCacheFile(File file)
+	{
+		this.file = file;
+		this.index = new HashMap<PredatorParamKey, Integer>();
+		this.mapped = null;
+		this.indexedLength = 0;
+	}
+
+	public File getFile()
+	{
+		return file;
+	}
+
+	/**
+	 * Reads the predators for a key.
+	 * @param key the predator parameters
+	 * @return the predators, or null if none have been generated for the key
+	 */
+	public synchronized List<Predator> read(PredatorParamKey key)
+	{
+		if (!index.containsKey(key))
+		{
+			// may have been added by another process
+			refresh();
+		}
+		Integer offset = index.get(key);
+		return (offset == null) ? null : readPredators(offset);
+	}
+
+	/**
+	 * Adds the predators for a key, unless another simulation or process added some first.
+	 * @param key the predator parameters
+	 * @param predators the predators generated for them
+	 * @return the predators stored for the key, which are those of whoever added them first
+	 */
+	public synchronized List<Predator> append(PredatorParamKey key, List<Predator> predators)
+	{
+		byte[] record = createRecord(key, predators);
+		RandomAccessFile raf = null;
+		FileLock lock = null;
+		try
+		{
+			raf = new RandomAccessFile(file, "rw");
+			FileChannel channel = raf.getChannel();
+			lock = channel.lock();
+
+			if (channel.size() == 0)
+			{
+				ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+				header.putInt(MAGIC).putInt(VERSION).flip();
+				writeFully(channel, header, 0);
+			}
+			refresh();
+			Integer offset = index.get(key);
+			if (offset != null)
+			{
+				return readPredators(offset);
+			}
+
+			if (channel.size() > indexedLength)
+			{
+				// only a process that died while appending leaves an incomplete record, as appending holds the lock
+				logger.warn("Removing incomplete predators at the end of {}", file.getName());
+				channel.truncate(indexedLength);
+			}
+			writeFully(channel, ByteBuffer.wrap(record), indexedLength);
+			channel.force(false);
+		}
+		catch (IOException e)
+		{
+			throw new ForagingModelException("Error writing predator cache " + file.getAbsolutePath(), e);
+		}
+		finally
+		{
+			if (lock != null)
+			{
+				try
+				{
+					lock.release();
+				} catch (IOException ignored) {}
+			}
+			if (raf != null)
+			{
+				try
+				{
+					raf.close();
+				} catch (IOException ignored) {}
+			}
+		}
+		return predators;
+	}
+
+	public synchronized Set<PredatorParamKey> getKeys()
+	{
+		refresh();
+		return Collections.unmodifiableSet(new HashSet<PredatorParamKey>(index.keySet()));
+	}
+
+	/**
+	 * Indexes the records added to the file since it was last read.
+	 */
+	private void refresh()
+	{
+		long length = file.length();
+		if (length <= indexedLength)
+		{
+			return;
+		}
+		if (length > Integer.MAX_VALUE)
+		{
+			throw new ForagingModelException("Predator cache too big to map: " + file.getAbsolutePath());
+		}
+
+		RandomAccessFile raf = null;
+		try
+		{
+			raf = new RandomAccessFile(file, "r");
+			FileChannel channel = raf.getChannel();
+			length = channel.size();
+			mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+		}
+		catch (IOException e)
+		{
+			throw new ForagingModelException("Error reading predator cache " + file.getAbsolutePath(), e);
+		}
+		finally
+		{
+			if (raf != null)
+			{
+				try
+				{
+					raf.close();
+				} catch (IOException ignored) {}
+			}
+		}
+
+		if (indexedLength == 0)
+		{
+			if (length < HEADER_BYTES || mapped.getInt(0) != MAGIC)
+			{
+				throw new ForagingModelException("Not a predator cache: " + file.getAbsolutePath());
+			}
+			if (mapped.getInt(4) != VERSION)
+			{
+				throw new ForagingModelException("Predator cache " + file.getAbsolutePath() + " is version " + mapped.getInt(4) + " not " + VERSION);
+			}
+			indexedLength = HEADER_BYTES;
+		}
+
+		// only the keys are read here
+		int offset = (int) indexedLength;
+		while (offset + 4 <= length)
+		{
+			int recordLength = mapped.getInt(offset);
+			long end = (long) offset + 4 + recordLength + 4;
+			if (recordLength <= 0 || end > length || !isChecksumValid(offset, recordLength))
+			{
+				break; // still being written
+			}
+			ByteBuffer record = recordBuffer(offset);
+			index.put(readKey(record), offset);
+			offset = (int) end;
+		}
+		indexedLength = offset;
+	}
+
+	private boolean isChecksumValid(int offset, int recordLength)
+	{
+		ByteBuffer contents = mapped.duplicate();
+		contents.position(offset + 4);
+		contents.limit(offset + 4 + recordLength);
+		CRC32 crc = new CRC32();
+		while (contents.hasRemaining())
+		{
+			crc.update(contents.get());
+		}
+		return (int) crc.getValue() == mapped.getInt(offset + 4 + recordLength);
+	}
+
+	private ByteBuffer recordBuffer(int offset)
+	{
+		ByteBuffer record = mapped.duplicate();
+		record.position(offset + 4);
+		return record;
+	}
+
+	private List<Predator> readPredators(int offset)
+	{
+		ByteBuffer record = recordBuffer(offset);
+		readKey(record); // skip
+		int numPredators = record.getInt();
+		List<Predator> predators = new ArrayList<Predator>(numPredators);
+		for (int i = 0; i < numPredators; i++)
+		{
+			int startInterval = record.getInt();
+			int stopInterval = record.getInt();
+			double x = record.getDouble();
+			double y = record.getDouble();
+			predators.add(Predator.create(startInterval, stopInterval - startInterval, new NdPoint(x, y)));
+		}
+		return predators;
+	}
+
+	private PredatorParamKey readKey(ByteBuffer record)
+	{
+		byte[] resourceId = new byte[record.getInt()];
+		record.get(resourceId);
+		int predatorDuration = record.getInt();
+		int maxIntervals = record.getInt();
+		double predatorRandomness = record.getDouble();
+		int totalPredationPressure = record.getInt();
+		return new PredatorParamKey(new String(resourceId, UTF8), predatorDuration, maxIntervals, predatorRandomness, totalPredationPressure);
+	}
+
+	private byte[] createRecord(PredatorParamKey key, List<Predator> predators)
+	{
+		try
+		{
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			byte[] resourceId = key.getResourceId().getBytes(UTF8);
+			out.writeInt(resourceId.length);
+			out.write(resourceId);
+			out.writeInt(key.getPredatorDuration());
+			out.writeInt(key.getMaxIntervals());
+			out.writeDouble(key.getPredatorRandomness());
+			out.writeInt(key.getTotalPredationPressure());
+			out.writeInt(predators.size());
+			for (Predator predator : predators)
+			{
+				out.writeInt(predator.getStartInterval());
+				out.writeInt(predator.getStopInterval());
+				out.writeDouble(predator.getLocation().getX());
+				out.writeDouble(predator.getLocation().getY());
+			}
+			out.close();
+			byte[] contents = bytes.toByteArray();
+
+			CRC32 crc = new CRC32();
+			crc.update(contents);
+			ByteBuffer record = ByteBuffer.allocate(4 + contents.length + 4);
+			record.putInt(contents.length).put(contents).putInt((int) crc.getValue());
+			return record.array();
+		}
+		catch (IOException e)
+		{
+			// writing to memory
+			throw new ForagingModelException("Error creating predator cache record", e);
+		}
+	}
+
+	private void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException
+	{
+		while (buffer.hasRemaining())
+		{
+			position += channel.write(buffer, position);
+		}
+	}
+}
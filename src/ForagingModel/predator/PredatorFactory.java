@@ -1,8 +1,11 @@
 package ForagingModel.predator;
 
+import java.io.File;
 import java.util.List;
 
+import ForagingModel.core.ModelEnvironment.PredatorParamKey;
 import ForagingModel.core.Parameters;
+import ForagingModel.core.SimulationContext;
 import ForagingModel.schedule.Scheduler;
 import ForagingModel.space.ResourceAssemblage;
 
@@ -10,7 +13,13 @@ public class PredatorFactory
 {
 	public static PredatorManager createPredatorManager(ResourceAssemblage unboarderedResources, Scheduler scheduler)
 	{
-		PredatorGenerator generator = PredatorFactory.createPredatorGenerator(unboarderedResources);
+		return createPredatorManager(unboarderedResources, scheduler, SimulationContext.current());
+	}
+	
+	public static PredatorManager createPredatorManager(ResourceAssemblage unboarderedResources, Scheduler scheduler, 
+			SimulationContext unborderedContext)
+	{
+		PredatorGenerator generator = PredatorFactory.createPredatorGenerator(unboarderedResources, unborderedContext);
 		PredatorManager manager = generator.generatePredators();
 		scheduler.register(manager);
 		return manager;
@@ -21,14 +30,37 @@ public class PredatorFactory
 		return new PredatorManagerImpl(predators);
 	}
 	
-	protected static PredatorGenerator createPredatorGenerator(ResourceAssemblage unboarderedResources)
+	public static PredatorManager createPredatorManager(List<Predator> predators, int emptyBorderSize)
+	{
+		return new PredatorManagerImpl(predators, emptyBorderSize);
+	}
+	
+	/**
+	 * Creates the key of the predators simulations with the given parameters use.
+	 * @param params the parameters
+	 * @return the key, the same as PredatorGenerator uses
+	 */
+	public static PredatorParamKey createPredatorParamKey(Parameters params)
+	{
+		int predatorDuration = params.getPredatorDuration();
+		return new PredatorParamKey(params.getResourceId(), predatorDuration, params.getNumIntervals() - predatorDuration, 
+				params.getPredatorRandomness(), params.getTotalPredationPressure());
+	}
+	
+	public static PredatorCacheFile createPredatorCacheFile(File file)
+	{
+		return new PredatorCacheFile(file);
+	}
+	
+	protected static PredatorGenerator createPredatorGenerator(ResourceAssemblage unboarderedResources, SimulationContext unborderedContext)
 	{
 		Parameters params = Parameters.get();
 		String resourceId = params.getResourceId();
 		int predatorDuration = params.getPredatorDuration();
 		double predatorRandomness = params.getPredatorRandomness();
 		int totalPredationPressure = params.getTotalPredationPressure();
-		return new PredatorGenerator(unboarderedResources, resourceId, predatorDuration, predatorRandomness, totalPredationPressure);
+		return new PredatorGenerator(unboarderedResources, resourceId, predatorDuration, predatorRandomness, totalPredationPressure, 
+				unborderedContext);
 	}
 
 	protected static PredatorGenerator createPredatorGenerator(ResourceAssemblage unboarderedResources, String resourceId,
@@ -2,6 +2,9 @@ package ForagingModel.predator;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,95 +15,129 @@ import ForagingModel.core.ModelEnvironment.PredatorParamKey;
 import ForagingModel.core.NdPoint;
 import ForagingModel.core.NumberGenerator;
 import ForagingModel.core.Parameters;
+import ForagingModel.core.SimulationContext;
 import ForagingModel.space.ResourceAssemblage;
 import ForagingModel.space.SpaceUtils;
 
 public class PredatorGenerator 
 {
 	private final static Logger logger = LoggerFactory.getLogger(PredatorGenerator.class);
+	// one per key, so predators for different keys can be generated at the same time
+	private final static ConcurrentMap<PredatorParamKey,Object> generationLocks = new ConcurrentHashMap<PredatorParamKey,Object>();
 	
-	private NumberGenerator generator;
 	private ResourceAssemblage resources; 
 	private String resourceId;
 	private int predatorDuration;
 	private double predatorRandomness;
 	private int totalPredationPressure;
 	private boolean introducedScenario;
+	private int numIntervals;
 	private int maxIntervals;
+	private int emptyBorderSize;
 	private double minDimX;
 	private double minDimY;
 	private double maxDimX;
 	private double maxDimY;
+	private double averageQuality;
 	
 	
 	protected PredatorGenerator(ResourceAssemblage unboarderedResources, String resourceId,
 			int predatorDuration, double predatorRandomness, int totalPredationPressure)
+	{
+		this(unboarderedResources, resourceId, predatorDuration, predatorRandomness, totalPredationPressure, 
+				SimulationContext.current());
+	}
+
+	protected PredatorGenerator(ResourceAssemblage unboarderedResources, String resourceId,
+			int predatorDuration, double predatorRandomness, int totalPredationPressure, SimulationContext unborderedContext)
 	{
 		this.resources = unboarderedResources;
 		this.resourceId = resourceId;
 		this.predatorDuration = predatorDuration; // assume in units of intervals, not time step?
 		this.predatorRandomness = predatorRandomness;
 		this.totalPredationPressure = totalPredationPressure;
-		generator = ModelEnvironment.getNumberGenerator();
 		
-		Parameters params = Parameters.get();
-		maxIntervals = params.getNumIntervals() - predatorDuration; 
+		numIntervals = unborderedContext.getNumIntervals();
+		maxIntervals = numIntervals - predatorDuration; 
 		if (maxIntervals < 0)
 		{
-			throw new ForagingModelException(String.format("Number of intervals %d too short for predator duration %d", params.getNumIntervals(), predatorDuration));
+			throw new ForagingModelException(String.format("Number of intervals %d too short for predator duration %d", numIntervals, predatorDuration));
 		}
-		minDimX = params.getMinDimension();
-		minDimY = params.getMinDimension();
-		maxDimX = params.getMaxDimensionX();
-		maxDimY = params.getMaxDimensionY();
+		minDimX = unborderedContext.getMinDimensionX();
+		minDimY = unborderedContext.getMinDimensionY();
+		maxDimX = unborderedContext.getMaxDimensionX();
+		maxDimY = unborderedContext.getMaxDimensionY();
+		emptyBorderSize = unborderedContext.getEmptyBorderSize();
 		introducedScenario = Parameters.get().getPredatorIntroduction();
+		averageQuality = Double.NaN;
 
 	}
 	
 	public PredatorManager generatePredators()
 	{
-		PredatorManager predManager = null;
+		PredatorManager cachedManager = null;
 		PredatorParamKey key = new PredatorParamKey(resourceId, predatorDuration, maxIntervals, predatorRandomness, totalPredationPressure);
+		Map<PredatorParamKey,PredatorManager> predatorCache = ModelEnvironment.getPredatorCache();
+		PredatorCacheFile predatorCacheFile = ModelEnvironment.getPredatorCacheFile();
 		
-		if (ModelEnvironment.getPredatorCache().containsKey(key))
-		{
-			// get from cache
-			predManager = ModelEnvironment.getPredatorCache().get(key);
-		}
-		else
+		// simulations running concurrently must see the same predators for the same key, so only one generates them
+		synchronized (getGenerationLock(key))
 		{
-			if (totalPredationPressure > 0)
+			List<Predator> storedPredators = null;
+			if (predatorCache.containsKey(key))
+			{
+				// get from cache
+				cachedManager = predatorCache.get(key);
+			}
+			else if (predatorCacheFile != null && (storedPredators = predatorCacheFile.read(key)) != null)
 			{
-				logger.info("Predators not in cache: " + key.toString());
+				cachedManager = PredatorFactory.createPredatorManager(storedPredators);
+				predatorCache.put(key, cachedManager);
 			}
-			int numPredators = totalPredationPressure / predatorDuration;
-			List<Predator> predators = new ArrayList<Predator>(numPredators);
-			
-			for (int i = 0; i < numPredators; i++)
+			else
 			{
-				if (introducedScenario)
+				if (totalPredationPressure > 0)
+				{
+					logger.info("Predators not in cache: " + key.toString());
+				}
+				// drawn from the key's own stream, so the predators don't depend on which simulation generates them
+				NumberGenerator generator = ModelEnvironment.createPredatorGenerator(key);
+				int numPredators = totalPredationPressure / predatorDuration;
+				List<Predator> predators = new ArrayList<Predator>(numPredators);
+				
+				for (int i = 0; i < numPredators; i++)
 				{
-					// hard code predators to second half and upper right
-					predators.add(createPredator(Parameters.get().getNumIntervals() / 2, maxDimX * 0.5, maxDimY * 0.5, maxDimX, maxDimY));
+					if (introducedScenario)
+					{
+						// hard code predators to second half and upper right
+						predators.add(createPredator(generator, numIntervals / 2, maxDimX * 0.5, maxDimY * 0.5, maxDimX, maxDimY));
+					}
+					else
+					{
+						predators.add(createPredator(generator));
+					}
 				}
-				else
+				
+				if (predatorCacheFile != null)
 				{
-					predators.add(createPredator());
+					// another process may have stored predators for the key first, which all then use
+					predators = predatorCacheFile.append(key, predators);
 				}
+				cachedManager = PredatorFactory.createPredatorManager(predators);
+				predatorCache.put(key, cachedManager);
 			}
-			
-			predManager = PredatorFactory.createPredatorManager(predators);
-			ModelEnvironment.getPredatorCache().put(key, predManager);
 		}
-		return predManager;
+		
+		// the predators themselves don't change, but each simulation needs its own manager to track the current interval
+		return PredatorFactory.createPredatorManager(cachedManager.getAllPredators(), emptyBorderSize);
 	}
 	
-	protected Predator createPredator()
+	protected Predator createPredator(NumberGenerator generator)
 	{
-		return createPredator(0, minDimX, minDimY, maxDimX, maxDimY);
+		return createPredator(generator, 0, minDimX, minDimY, maxDimX, maxDimY);
 	}
 	
-	protected Predator createPredator(int minTime, double minBoxX, double minBoxY, double maxBoxX, double maxBoxY)
+	protected Predator createPredator(NumberGenerator generator, int minTime, double minBoxX, double minBoxY, double maxBoxX, double maxBoxY)
 	{
 		int start = (maxIntervals == minTime) ? minTime : (int)generator.nextIntFromTo(minTime, maxIntervals);
 		
@@ -122,7 +159,7 @@ public class PredatorGenerator
 		{
 			loc = new NdPoint(generator.nextDoubleFromTo(minBoxX, maxBoxX), generator.nextDoubleFromTo(minBoxY, maxBoxY));
 			double randomValue = generator.nextDouble();
-			double quality = predatorRandomness * resources.getAverageQuality() 
+			double quality = predatorRandomness * getAverageQuality() 
 					+ (1 - predatorRandomness) * resources.getIntrinsicQuality(SpaceUtils.getGridPoint(loc));
 			double probability = quality / qualityMax;
 
@@ -135,5 +172,22 @@ public class PredatorGenerator
 		return new Predator(start, predatorDuration, loc);
 	}
 	
+	private double getAverageQuality()
+	{
+		// sums the whole landscape, so only once rather than for every location tried
+		if (Double.isNaN(averageQuality))
+		{
+			averageQuality = resources.getAverageQuality();
+		}
+		return averageQuality;
+	}
+	
+	private static Object getGenerationLock(PredatorParamKey key)
+	{
+		Object lock = new Object();
+		Object existing = generationLocks.putIfAbsent(key, lock);
+		return (existing == null) ? lock : existing;
+	}
+	
 
 }
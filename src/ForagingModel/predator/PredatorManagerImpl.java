@@ -17,11 +17,19 @@ public class PredatorManagerImpl implements PredatorManager, Serializable
 
 	private List<Predator> predators;
 	private int currentInterval;
+	private transient int emptyBorderSize;
 	
 	
 	protected PredatorManagerImpl(List<Predator> predators)
 	{
+		this(predators, Parameters.get().getEmptyBorderSize());
+	}
+	
+	protected PredatorManagerImpl(List<Predator> predators, int emptyBorderSize)
+	{
+		// predators are generated without the border, so locations are shifted by it when reported
 		this.predators = predators;
+		this.emptyBorderSize = emptyBorderSize;
 		initialize();
 	}
 
@@ -30,10 +38,6 @@ public class PredatorManagerImpl implements PredatorManager, Serializable
 	{
 		Set<NdPoint> activePredators = new HashSet<NdPoint>();
 
-		// dynamically adjust for border
-		// note: reading directly from parameters instead of constructor since PredatorManager cached
-		int emptyBorderSize = Parameters.get().getEmptyBorderSize();
-
 		for (Predator predator : predators)
 		{
 			if (predator.isActive(currentInterval))
@@ -50,10 +54,6 @@ public class PredatorManagerImpl implements PredatorManager, Serializable
 	{
 		Set<NdPoint> predatorLocs = new HashSet<NdPoint>();
 		
-		// dynamically adjust for border
-		// note: reading directly from parameters instead of constructor since PredatorManager cached
-		int emptyBorderSize = Parameters.get().getEmptyBorderSize();
-		
 		for (Predator predator : predators)
 		{
 			NdPoint adjustedPredLoc = new NdPoint(predator.getLocation().getX() + emptyBorderSize, predator.getLocation().getY() + emptyBorderSize);
@@ -88,6 +88,7 @@ public class PredatorManagerImpl implements PredatorManager, Serializable
 	private void readObject(ObjectInputStream in) throws ClassNotFoundException, IOException 
 	{
 		in.defaultReadObject();
+		emptyBorderSize = Parameters.get().getEmptyBorderSize();
 		initialize();
 	}
 	
@@ -101,4 +102,31 @@ public class PredatorManagerImpl implements PredatorManager, Serializable
 	{
 		// do nothing
 	}
+
+	// managers are equal if they manage the same predators, regardless of the current interval
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result
+				+ ((predators == null) ? 0 : predators.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		PredatorManagerImpl other = (PredatorManagerImpl) obj;
+		if (predators == null) {
+			if (other.predators != null)
+				return false;
+		} else if (!predators.equals(other.predators))
+			return false;
+		return true;
+	}
 }
@@ -0,0 +1,14 @@
+package ForagingModel.schedule;
+
+/**
+ * Saves the state of a running simulation so it can be continued later, see Scheduler.setCheckpointer().
+ */
+public interface Checkpointer 
+{
+	/**
+	 * Called between intervals, after everything scheduled for the previous interval has executed.
+	 * @param scheduler the scheduler, which holds everything registered for the simulation
+	 * @param nextInterval the interval the simulation continues with
+	 */
+	void checkpoint(Scheduler scheduler, int nextInterval);
+}
@@ -21,6 +21,12 @@ public class NoOpScheduler implements Scheduler
 	@Override
 	public void run(double intervalSize, int numSteps) {}
 
+	@Override
+	public void run(double intervalSize, int numSteps, int startInterval) {}
+
+	@Override
+	public void setCheckpointer(Checkpointer checkpointer, int checkpointIntervals) {}
+
 	@Override
 	public void abortRun() {}
 
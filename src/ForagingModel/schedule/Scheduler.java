@@ -16,6 +16,21 @@ public interface Scheduler {
 
 	public abstract void run(double intervalSize, int numSteps);
 
+	/**
+	 * Runs the remaining intervals of a simulation restored from a checkpoint.
+	 * @param intervalSize the interval size
+	 * @param numSteps the number of steps of the whole simulation
+	 * @param startInterval the first interval to run
+	 */
+	public abstract void run(double intervalSize, int numSteps, int startInterval);
+
+	/**
+	 * Has the checkpointer save the simulation every checkpointIntervals intervals while running.
+	 * @param checkpointer the checkpointer, or null to stop checkpointing
+	 * @param checkpointIntervals number of intervals between checkpoints
+	 */
+	public abstract void setCheckpointer(Checkpointer checkpointer, int checkpointIntervals);
+
 	public abstract void abortRun();
 
 }
\ No newline at end of file
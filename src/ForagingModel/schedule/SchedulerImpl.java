@@ -1,19 +1,37 @@
 package ForagingModel.schedule;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 
-public class SchedulerImpl implements Scheduler
+import ForagingModel.core.ModelEnvironment;
+import ForagingModel.core.NumberGenerator;
+
+public class SchedulerImpl implements Scheduler, Serializable
 {
+	private static final long serialVersionUID = -2053744593372668160L;
+
 	private List<Notifiable> registeredNotifiables;
 	private Map<Integer, List<Schedulable>> registeredSchedulables;
 	private Map<Integer, List<Schedulable>> registeredAtEndSchedulables;
+	// part of the saved state so that a simulation restored from a checkpoint is shuffled the same way
+	private NumberGenerator shuffleGenerator;
+	
+	private transient Checkpointer checkpointer;
+	private int checkpointIntervals;
 
 	protected SchedulerImpl()
 	{
+		// its own stream from the simulation's, so the order doesn't depend on what else draws numbers
+		this(ModelEnvironment.getNumberGenerator().split());
+	}
+	
+	protected SchedulerImpl(NumberGenerator shuffleGenerator)
+	{
+		this.shuffleGenerator = shuffleGenerator;
 		reset();
 	}
 	
@@ -67,12 +85,21 @@ public class SchedulerImpl implements Scheduler
 	 */
 	@Override
 	public void run(double intervalSize, int numSteps)
+	{
+		run(intervalSize, numSteps, 0);
+	}
+
+	/* (non-Javadoc)
+	 * @see ForagingModel.schedule.Scheduler#run(double, int, int)
+	 */
+	@Override
+	public void run(double intervalSize, int numSteps, int startInterval)
 	{
 		int intervals = (int) ((double) numSteps / intervalSize);
 		boolean intervalBiggerThanStep = (intervals < numSteps);
 		int intervalsPerStep = (intervals < numSteps) ? 0 : intervals / numSteps; // if fewer intervals than steps, each interval is multiple steps
 		int stepsPerInterval = (intervals < numSteps) ? numSteps / intervals : 0;
-		for (int interval = 0; interval < intervals; interval++)
+		for (int interval = startInterval; interval < intervals; interval++)
 		{
 			// first notify new interval about to start
 			for (Notifiable notifiable : registeredNotifiables)
@@ -100,6 +127,11 @@ public class SchedulerImpl implements Scheduler
 			
 
 			runInterval(registeredSchedulables, interval);
+			
+			if (checkpointer != null && (interval + 1) % checkpointIntervals == 0 && interval + 1 < intervals)
+			{
+				checkpointer.checkpoint(this, interval + 1);
+			}
 		}
 		// intervals is greater than last interval
 		runInterval(registeredAtEndSchedulables, intervals);
@@ -107,6 +139,20 @@ public class SchedulerImpl implements Scheduler
 		reset();
 	}
 
+	/* (non-Javadoc)
+	 * @see ForagingModel.schedule.Scheduler#setCheckpointer(ForagingModel.schedule.Checkpointer, int)
+	 */
+	@Override
+	public void setCheckpointer(Checkpointer checkpointer, int checkpointIntervals)
+	{
+		if (checkpointer != null && checkpointIntervals < 1)
+		{
+			throw new IllegalArgumentException("Checkpoint intervals must be positive: " + checkpointIntervals);
+		}
+		this.checkpointer = checkpointer;
+		this.checkpointIntervals = checkpointIntervals;
+	}
+
 	/* (non-Javadoc)
 	 * @see ForagingModel.schedule.Scheduler#abortRun()
 	 */
@@ -134,7 +180,7 @@ public class SchedulerImpl implements Scheduler
 		{
 			List<Schedulable> schedulablesAtPriority = schedulables.get(priority);
 			// now randomize subset schedulablesAtPriority
-			Collections.shuffle(schedulablesAtPriority);
+			shuffle(schedulablesAtPriority);
 			
 			for (Schedulable schedulable : schedulablesAtPriority)
 			{
@@ -143,6 +189,15 @@ public class SchedulerImpl implements Scheduler
 		}
 	}
 
+	private void shuffle(List<Schedulable> schedulables)
+	{
+		// Fisher-Yates, as Collections.shuffle but drawing from the simulation's generator
+		for (int i = schedulables.size() - 1; i > 0; i--)
+		{
+			Collections.swap(schedulables, i, (int) shuffleGenerator.nextIntFromTo(0, i));
+		}
+	}
+
 	private void reset()
 	{
 		registeredSchedulables = new TreeMap<Integer, List<Schedulable>>();
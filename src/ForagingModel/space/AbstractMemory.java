@@ -1,5 +1,7 @@
 package ForagingModel.space;
 
+import java.io.Serializable;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.commons.lang3.builder.ToStringBuilder;
@@ -20,19 +22,28 @@ import ForagingModel.core.MatrixUtils;
 import ForagingModel.core.ModelEnvironment;
 import ForagingModel.core.NdPoint;
 import ForagingModel.core.NumberGenerator;
+import ForagingModel.core.Parameters;
 
-public abstract class AbstractMemory implements MemoryAssemblage
+public abstract class AbstractMemory implements MemoryAssemblage, Serializable
 {
+	private static final long serialVersionUID = -2545933005946709676L;
+
 	// large value to avoid infinities in probabilities which turn into NaN when normalized
 	protected final double MAX_PROBABILITY_VALUE = 1e300;
 	// difference in detectable angle when creating Angle object vs. raw double value (due to modulus arithmetic?)
 	private final double ANGLE_TOLERANCE = 1e-6;
+	// sectors of angles sampled first when only likely sectors are sampled at every angle
+	private final int NUM_COARSE_SECTORS = 36;
 	protected NumberGenerator generator;
 	protected AngularProbabilityInfo angProbInfo;
 	
 	// this tracks the current probabilities and selected direction
 	// need to be careful since direction is set from abstract class but probabilities from inheriting concrete classes
 	protected DirectionProbabilityInfo probabilityCache;
+	// the last angular sums, made when first needed
+	private transient AngularSums angularSums;
+	// probability of a coarse sector above which its every angle is sampled, 0 to sample every angle
+	private double refineThreshold;
 
 	
 	public AbstractMemory(AngularProbabilityInfo angProbInfo)
@@ -40,6 +51,7 @@ public abstract class AbstractMemory implements MemoryAssemblage
 		generator = ModelEnvironment.getNumberGenerator();
 		probabilityCache = new DirectionProbabilityInfo();
 		this.angProbInfo = angProbInfo;
+		refineThreshold = Parameters.get().getMemoryRefineThreshold();
 	}
 	
 	public DirectionProbabilityInfo reportCurrentProbabilities()
@@ -256,6 +268,209 @@ public abstract class AbstractMemory implements MemoryAssemblage
 	 */
 	protected abstract RealVector getAngularProbabilities(NdPoint currentLocation);
 	
+	/**
+	 * Sums samples of one or more layers along every angle, see AngularSums. 
+	 * @param currentLocation the animal's location
+	 * @param layers what to sum
+	 * @return a vector of sums by angle for each layer, in the same order
+	 */
+	protected RealVector[] getAngularSums(NdPoint currentLocation, SampleSum... layers)
+	{
+		if (angularSums == null)
+		{
+			angularSums = new AngularSums();
+		}
+		return angularSums.get(currentLocation, layers);
+	}
+	
+	/**
+	 * Gets the probabilities of angles from the sums of samples of one or more layers. Unless the refine threshold
+	 * is 0, this samples coarse sectors of angles first, the middle angle of each standing for the whole sector, 
+	 * and then only samples every angle of the sectors whose coarse probability is above the threshold. The other
+	 * sectors keep the same probability for each of their angles, so a direction is picked from them as from any
+	 * sector. Where the probabilities are nearly uniform, or taken up by a few sectors, most angles aren't sampled.
+	 * These sums aren't kept, see getAngularSums(). 
+	 * @param currentLocation the animal's location
+	 * @param probabilities the probabilities of sums, which can be found more than once
+	 * @param layers what to sum
+	 * @return vector of probabilities for angles
+	 */
+	protected RealVector getAngularProbabilities(NdPoint currentLocation, ProbabilitiesOfSums probabilities, SampleSum... layers)
+	{
+		AngularProbabilityInfo samples = layers[0].getSamples();
+		int numAngles = samples.getAngles().size();
+		boolean sameSamples = true;
+		for (SampleSum layer : layers)
+		{
+			sameSamples &= samples.hasSameSamples(layer.getSamples());
+		}
+		if (refineThreshold <= 0 || !sameSamples || numAngles <= NUM_COARSE_SECTORS)
+		{
+			return probabilities.get(getAngularSums(currentLocation, layers));
+		}
+		
+		// the middle angle of each sector for all of it
+		int sectorSize = (numAngles + NUM_COARSE_SECTORS - 1) / NUM_COARSE_SECTORS;
+		RealVector[] sums = new RealVector[layers.length];
+		for (int layer = 0; layer < layers.length; layer++)
+		{
+			sums[layer] = new ArrayRealVector(numAngles);
+		}
+		boolean[] toSum = new boolean[numAngles];
+		for (int from = 0; from < numAngles; from += sectorSize)
+		{
+			toSum[(from + Math.min(from + sectorSize, numAngles)) / 2] = true;
+		}
+		AngularSums.sum(currentLocation, toSum, sums, layers);
+		
+		RealVector[] coarseSums = new RealVector[layers.length];
+		for (int layer = 0; layer < layers.length; layer++)
+		{
+			for (int from = 0; from < numAngles; from += sectorSize)
+			{
+				int to = Math.min(from + sectorSize, numAngles);
+				double sum = sums[layer].getEntry((from + to) / 2);
+				for (int angleIdx = from; angleIdx < to; angleIdx++)
+				{
+					sums[layer].setEntry(angleIdx, sum);
+				}
+			}
+			coarseSums[layer] = sums[layer].copy();
+		}
+		RealVector coarse = probabilities.get(coarseSums);
+		
+		// then every angle of the likely sectors
+		Arrays.fill(toSum, false);
+		boolean refine = false;
+		for (int from = 0; from < numAngles; from += sectorSize)
+		{
+			int to = Math.min(from + sectorSize, numAngles);
+			if (coarse.getSubVector(from, to - from).getL1Norm() > refineThreshold)
+			{
+				for (int angleIdx = from; angleIdx < to; angleIdx++)
+				{
+					toSum[angleIdx] = angleIdx != (from + to) / 2;
+				}
+				refine = true;
+			}
+		}
+		if (!refine)
+		{
+			return coarse;
+		}
+		AngularSums.sum(currentLocation, toSum, sums, layers);
+		return probabilities.get(sums);
+	}
+	
+	/**
+	 * The probabilities of angles from the sums of samples of one or more layers by angle.
+	 */
+	protected abstract static class ProbabilitiesOfSums
+	{
+		/**
+		 * @param sums a vector of sums by angle for each layer, which can be changed
+		 * @return vector of probabilities for angles
+		 */
+		protected abstract RealVector get(RealVector[] sums);
+	}
+	
+	/**
+	 * The sum of a layer's samples along one angle, weighted by distance.
+	 */
+	protected abstract static class SampleSum
+	{
+		private final AngularProbabilityInfo samples;
+		private final DecayingGrid[] grids;
+		
+		/**
+		 * @param grids every grid the sum reads, so it is only summed again when they change
+		 */
+		protected SampleSum(AngularProbabilityInfo samples, DecayingGrid... grids)
+		{
+			this.samples = samples;
+			this.grids = grids;
+		}
+		
+		protected AngularProbabilityInfo getSamples()
+		{
+			return samples;
+		}
+		
+		protected DecayingGrid[] getGrids()
+		{
+			return grids;
+		}
+		
+		/**
+		 * Gets how the far samples are summed from blocks, or null as every sample is summed (see FarSampleSum).
+		 */
+		protected FarSamples getFarSamples()
+		{
+			return null;
+		}
+		
+		/**
+		 * Gets the number of samples to sum, the rest are summed from blocks.
+		 */
+		protected int getNumNear()
+		{
+			FarSamples far = getFarSamples();
+			return far == null ? samples.getNumPoints() : far.getNumNear();
+		}
+		
+		/**
+		 * Sums the far samples along an angle, of which there are none unless this is a FarSampleSum.
+		 * @param samples where the samples are, the same points as getSamples()
+		 */
+		protected double sumFar(AngularProbabilityInfo samples, NdPoint location, int angleIdx)
+		{
+			return 0;
+		}
+		
+		/**
+		 * @param xs the x coordinate of each sample point, in order of distance
+		 * @param ys their y coordinates
+		 * @param numSamples the number of sample points, the rest of the arrays are ignored
+		 */
+		protected abstract double sum(int[] xs, int[] ys, int numSamples);
+	}
+	
+	/**
+	 * A sample sum whose far samples can be summed from the means of blocks of cells, see FarSamples.
+	 */
+	protected abstract static class FarSampleSum extends SampleSum
+	{
+		private final FarSamples far;
+		
+		/**
+		 * @param far how to sum the far samples from blocks, or null to sum every sample
+		 * @param grids every grid the sum reads, so it is only summed again when they change
+		 */
+		protected FarSampleSum(AngularProbabilityInfo samples, FarSamples far, DecayingGrid... grids)
+		{
+			super(samples, grids);
+			this.far = far;
+		}
+		
+		@Override
+		protected FarSamples getFarSamples()
+		{
+			return far;
+		}
+		
+		@Override
+		protected double sumFar(AngularProbabilityInfo samples, NdPoint location, int angleIdx)
+		{
+			return far == null ? 0 : far.sum(samples, location, angleIdx, this);
+		}
+		
+		/**
+		 * Gets the value of a block of cells 2^level on a side, in the same way as a sample without its distance 
+		 * weighting.
+		 */
+		protected abstract double getBlockValue(int level, int blockRow, int blockColumn);
+	}
+	
 	/**
 	 * Normalizes matrix so that it sums to one. Checks for no memory (i.e. if all memory values are 0 or negative,
 	 * then exponentiating gives 1 or smaller, so sum is less than number of cells.
@@ -9,6 +9,8 @@ import ForagingModel.core.NdPoint;
 
 public class AggregateMemory extends AbstractMemory implements MemoryAssemblage 
 {
+	private static final long serialVersionUID = -1737673341160230022L;
+
 	private ResourceMemory resourceMemory;
 	private PredatorMemory predatorMemory;
 	
@@ -77,8 +79,24 @@ public class AggregateMemory extends AbstractMemory implements MemoryAssemblage
 	@Override
 	protected RealVector getAngularProbabilities(NdPoint currentLocation) 
 	{
-		RealVector resourceProbs = resourceMemory.getAngularProbabilities(currentLocation);
-		RealVector predatorSafety = predatorMemory.getPredatorSafety(currentLocation);
+		// find the sample points of each angle once for both memories
+		return getAngularProbabilities(currentLocation, new ProbabilitiesOfSums()
+		{
+			@Override
+			protected RealVector get(RealVector[] sums)
+			{
+				return getAngularProbabilities(sums);
+			}
+		}, resourceMemory.getSampleSum(), predatorMemory.getSampleSum());
+	}
+	
+	/**
+	 * Combines resource probabilities and predator safety from the sums of each memory's samples.
+	 */
+	private RealVector getAngularProbabilities(RealVector[] sums)
+	{
+		RealVector resourceProbs = resourceMemory.getAngularProbabilities(sums[0]);
+		RealVector predatorSafety = predatorMemory.getPredatorSafety(sums[1]);
 
 		// food-safety tradeoff: add probability to resource so that there are more direction options
 		// currently as percentage of uniform distribution, so t = 1 would add an equal amount of probability uniformly distributed
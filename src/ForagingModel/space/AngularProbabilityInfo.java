@@ -1,5 +1,6 @@
 package ForagingModel.space;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -10,31 +11,37 @@ import org.apache.commons.math3.util.FastMath;
 import ForagingModel.core.Angle;
 import ForagingModel.core.GridPoint;
 import ForagingModel.core.NdPoint;
-import ForagingModel.core.Parameters;
+import ForagingModel.core.SimulationContext;
 import ForagingModel.core.Velocity;
 
-public class AngularProbabilityInfo 
+public class AngularProbabilityInfo implements Serializable 
 {
+	private static final long serialVersionUID = -659699558983015495L;
+	private static final double SLAB_TOLERANCE = 1e-6;
+
 	private List<Double> angles;
 	private int numPoints;
 	private double spacing;
 	private RealVector distances;
+	// step between sample points along each angle, so sampling doesn't recompute it every update
+	private double[] stepXs;
+	private double[] stepYs;
 	
 	private double minDimensionX;
 	private double minDimensionY;
 	private double maxDimensionX;
 	private double maxDimensionY;
 	
-	private AngularProbabilityInfo( int numPoints, double spacing, int numAngles )
+	private AngularProbabilityInfo( int numPoints, double spacing, int numAngles, SimulationContext context )
 	{
 		// make these parameters?
 		this.numPoints = numPoints;
 		this.spacing = spacing;
 		
-		this.minDimensionX = Parameters.get().getMinDimension();
-		this.minDimensionY = Parameters.get().getMinDimension();
-		this.maxDimensionX = Parameters.get().getMaxDimensionX();
-		this.maxDimensionY = Parameters.get().getMaxDimensionY();
+		this.minDimensionX = context.getMinDimensionX();
+		this.minDimensionY = context.getMinDimensionY();
+		this.maxDimensionX = context.getMaxDimensionX();
+		this.maxDimensionY = context.getMaxDimensionY();
 		
 		angles = new ArrayList<Double>(numAngles);
 		for (int i = 0; i < numAngles; i++)
@@ -50,17 +57,36 @@ public class AngularProbabilityInfo
 			// first point is distance spacing from location, so multiply by i + 1
 			distances.setEntry(i, spacing * (i + 1));
 		}
+		
+		stepXs = new double[numAngles];
+		stepYs = new double[numAngles];
+		for (int i = 0; i < numAngles; i++)
+		{
+			Velocity delta = Velocity.createPolar(spacing, angles.get(i));
+			stepXs[i] = delta.x();
+			stepYs[i] = delta.y();
+		}
 	}
 	
 	protected static AngularProbabilityInfo create(int numPoints, double spacing, int numAngles)
 	{
-		return new AngularProbabilityInfo(numPoints, spacing, numAngles);
+		return create(numPoints, spacing, numAngles, SimulationContext.current());
+	}
+	
+	protected static AngularProbabilityInfo create(int numPoints, double spacing, int numAngles, SimulationContext context)
+	{
+		return new AngularProbabilityInfo(numPoints, spacing, numAngles, context);
 	}
 	
 	public static AngularProbabilityInfo create()
+	{
+		return create(SimulationContext.current());
+	}
+	
+	public static AngularProbabilityInfo create(SimulationContext context)
 	{
 		// make these parameters?
-		return create(350, 0.333, 360); // need to span long diagonal
+		return create(350, 0.333, 360, context); // need to span long diagonal
 	}
 	
 	public List<Double> getAngles()
@@ -80,32 +106,161 @@ public class AngularProbabilityInfo
 
 	public List<GridPoint> getSamplePoints(NdPoint location, double angle) 
 	{
-		List<GridPoint> points = new ArrayList<GridPoint>(numPoints);
 		Velocity delta = Velocity.createPolar(distances.getEntry(0), angle);
-		double deltaX = delta.x();
-		double deltaY = delta.y();
-		
-		double currentX = location.getX();
-		double currentY = location.getY();
+		int[] xs = new int[numPoints];
+		int[] ys = new int[numPoints];
+		int numSamples = getSampleCells(location.getX(), location.getY(), delta.x(), delta.y(), xs, ys);
 		
-		for (int i = 0; i < numPoints; i++)
+		List<GridPoint> points = new ArrayList<GridPoint>(numSamples);
+		for (int i = 0; i < numSamples; i++)
+		{
+			points.add( new GridPoint(xs[i], ys[i]) );
+		}
+		return points;
+	}
+	
+	/**
+	 * Gets the same points as getSamplePoints for one of the angles, without creating any objects, 
+	 * so they can be sampled for every angle every update.
+	 * @param location where the samples start from
+	 * @param angleIdx the index of the angle in getAngles()
+	 * @param xs filled with the x coordinate of each point, must hold getNumPoints()
+	 * @param ys filled with the y coordinate of each point, must hold getNumPoints()
+	 * @return the number of points filled, the rest are out of bounds
+	 */
+	public int getSampleCells(NdPoint location, int angleIdx, int[] xs, int[] ys)
+	{
+		return getSampleCells(location, angleIdx, xs, ys, numPoints);
+	}
+	
+	/**
+	 * Gets the first points along an angle, as getSampleCells() does all of them.
+	 * @param maxPoints the most points to get
+	 */
+	public int getSampleCells(NdPoint location, int angleIdx, int[] xs, int[] ys, int maxPoints)
+	{
+		return getSampleCells(location.getX(), location.getY(), stepXs[angleIdx], stepYs[angleIdx], xs, ys, maxPoints);
+	}
+	
+	private int getSampleCells(double currentX, double currentY, double deltaX, double deltaY, int[] xs, int[] ys)
+	{
+		return getSampleCells(currentX, currentY, deltaX, deltaY, xs, ys, numPoints);
+	}
+	
+	private int getSampleCells(double currentX, double currentY, double deltaX, double deltaY, int[] xs, int[] ys, int maxPoints)
+	{
+		int numSamples = 0;
+		for (int i = 0; i < maxPoints; i++)
 		{
 			currentX += deltaX;
 			currentY += deltaY;
 			
-			GridPoint point = new GridPoint((int)currentX, (int)currentY);
-			if (SpaceUtils.inBounds(point, minDimensionX, minDimensionY, maxDimensionX, maxDimensionY))
+			int x = (int)currentX;
+			int y = (int)currentY;
+			// for grid points, ok to equal min but must be strictly less than max, as in SpaceUtils.inBounds()
+			if (x < minDimensionX || x >= maxDimensionX || y < minDimensionY || y >= maxDimensionY)
+			{
+				// rest of points will be out of bounds too
+				break; 
+			}
+			xs[numSamples] = x;
+			ys[numSamples] = y;
+			numSamples++;
+		}
+		return numSamples;
+	}
+	
+	/**
+	 * Gets the number of points along an angle that are in bounds, without finding them, so it can be off by one
+	 * where a point is at the edge.
+	 */
+	public int getNumSamplesInBounds(NdPoint location, int angleIdx)
+	{
+		// points are the location plus 1 to numPoints steps, and out of bounds at max, or below min where
+		// cell 0 also has the points in (-1, 0)
+		double last = numPoints + 1;
+		for (int axis = 0; axis < 2; axis++)
+		{
+			double start = axis == 0 ? location.getX() : location.getY();
+			double step = axis == 0 ? stepXs[angleIdx] : stepYs[angleIdx];
+			double min = axis == 0 ? minDimensionX : minDimensionY;
+			double max = axis == 0 ? maxDimensionX : maxDimensionY;
+			if (step > 0)
+			{
+				last = FastMath.min(last, (max - start) / step);
+			}
+			else if (step < 0)
+			{
+				last = FastMath.min(last, ((min > 0 ? min : min - 1) - start) / step);
+			}
+		}
+		return (int) FastMath.max(0, FastMath.min(numPoints, FastMath.ceil(last) - 1));
+	}
+	
+	public double getStepX(int angleIdx)
+	{
+		return stepXs[angleIdx];
+	}
+	
+	public double getStepY(int angleIdx)
+	{
+		return stepYs[angleIdx];
+	}
+	
+	/**
+	 * Whether any of the points sampled along an angle may be in a block of cells. It errs toward yes, 
+	 * so a no means none of them are.
+	 * @param location where the samples start from
+	 * @param angleIdx the index of the angle in getAngles()
+	 * @param minX the block's min x, rows of a grid
+	 * @param minY its min y, columns of a grid
+	 * @param maxX its max x
+	 * @param maxY its max y
+	 */
+	public boolean samplesMayBeIn(NdPoint location, int angleIdx, int minX, int minY, int maxX, int maxY)
+	{
+		// points are the location plus 1 to numPoints steps, so find the steps the line through them is in the block
+		// cells are [x, x + 1), except cell 0 also has the points in (-1, 0), and allow for the rounding of adding up steps
+		double from = 0;
+		double to = numPoints;
+		for (int axis = 0; axis < 2; axis++)
+		{
+			double start = axis == 0 ? location.getX() : location.getY();
+			double step = axis == 0 ? stepXs[angleIdx] : stepYs[angleIdx];
+			double lower = (double) (axis == 0 ? minX : minY) - SLAB_TOLERANCE;
+			double upper = (double) (axis == 0 ? maxX : maxY) + 1 + SLAB_TOLERANCE;
+			if (lower < SLAB_TOLERANCE)
+			{
+				lower -= 1;
+			}
+			
+			if (step == 0)
 			{
-				points.add( point );
+				if (start < lower || start > upper)
+				{
+					return false;
+				}
 			}
 			else
 			{
-				// rest of points will be out of bounds too
-				break; 
+				double first = (lower - start) / step;
+				double second = (upper - start) / step;
+				from = FastMath.max(from, FastMath.min(first, second));
+				to = FastMath.min(to, FastMath.max(first, second));
 			}
 		}
-		
-		return points;
+		return from <= to;
+	}
+	
+	/**
+	 * Whether this samples the same points as another, so sample points found with one can be used for both.
+	 */
+	public boolean hasSameSamples(AngularProbabilityInfo other)
+	{
+		return other == this ||
+				(numPoints == other.numPoints && spacing == other.spacing && angles.equals(other.angles)
+				&& minDimensionX == other.minDimensionX && minDimensionY == other.minDimensionY
+				&& maxDimensionX == other.maxDimensionX && maxDimensionY == other.maxDimensionY);
 	}
 	
 	public RealVector getSampleDistances()
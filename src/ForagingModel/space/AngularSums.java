@@ -0,0 +1,279 @@
+package ForagingModel.space;
+
+import java.util.Arrays;
+
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.RealVector;
+
+import ForagingModel.core.NdPoint;
+import ForagingModel.space.AbstractMemory.SampleSum;
+
+/**
+ * Sums samples of a memory's layers along every angle, finding each angle's sample points once for all the layers
+ * sampled at them. The sums are kept for the last location, as movement often picks a direction again from the
+ * same place, and summed again there only where the layers' grids changed since. A layer that hasn't changed is
+ * reused, one that changed in a block of cells, from learning or scent, is summed again along the angles that may
+ * sample the block, and one that decayed is summed again along every angle. Only the exact same location is
+ * reused, since the samples depend on where in its cell the forager is.
+ */
+class AngularSums
+{
+	// a block of changed cells covering the whole grid, with room to grow it
+	private static final int ANYWHERE = Integer.MAX_VALUE / 2;
+
+	private double x;
+	private double y;
+	private SampleSum[] layers;
+	private RealVector[] sums;
+	private long[][] versions;
+
+	private int[] xs;
+	private int[] ys;
+	private int[][] changed;
+
+	/**
+	 * Gets the sums of each layer for every angle.
+	 * @param location where the samples start from
+	 * @param layers what to sum
+	 * @return a vector of sums by angle for each layer, in the same order, which can be changed
+	 */
+	protected RealVector[] get(NdPoint location, SampleSum... layers)
+	{
+		AngularProbabilityInfo samples = layers[0].getSamples();
+		for (SampleSum layer : layers)
+		{
+			if (layer.getSamples() != samples && !samples.hasSameSamples(layer.getSamples()))
+			{
+				// not worth keeping
+				this.layers = null;
+				return sum(location, layers);
+			}
+		}
+
+		if (!isSameAs(location, layers))
+		{
+			x = location.getX();
+			y = location.getY();
+			this.layers = layers;
+			sums = new RealVector[layers.length];
+			versions = new long[layers.length][];
+			changed = new int[layers.length][];
+			for (int layer = 0; layer < layers.length; layer++)
+			{
+				sums[layer] = new ArrayRealVector(samples.getAngles().size());
+				versions[layer] = new long[layers[layer].getGrids().length];
+				Arrays.fill(versions[layer], -1);
+				changed[layer] = new int[4];
+			}
+			xs = new int[samples.getNumPoints()];
+			ys = new int[samples.getNumPoints()];
+		}
+		update(location, layers);
+
+		RealVector[] copies = new RealVector[sums.length];
+		for (int layer = 0; layer < sums.length; layer++)
+		{
+			copies[layer] = sums[layer].copy();
+		}
+		return copies;
+	}
+
+	private boolean isSameAs(NdPoint location, SampleSum[] layers)
+	{
+		if (this.layers == null || this.layers.length != layers.length
+				|| x != location.getX() || y != location.getY())
+		{
+			return false;
+		}
+		for (int layer = 0; layer < layers.length; layer++)
+		{
+			// the same sum of the same grids, as the sums are made anew each time
+			if (layers[layer].getClass() != this.layers[layer].getClass()
+					|| layers[layer].getSamples() != this.layers[layer].getSamples()
+					|| !Arrays.equals(layers[layer].getGrids(), this.layers[layer].getGrids()))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void update(NdPoint location, SampleSum[] layers)
+	{
+		AngularProbabilityInfo samples = layers[0].getSamples();
+		boolean[] isChanged = new boolean[layers.length];
+		boolean anyChanged = false;
+		for (int layer = 0; layer < layers.length; layer++)
+		{
+			isChanged[layer] = getChanged(layers[layer].getGrids(), versions[layer], changed[layer]);
+			anyChanged |= isChanged[layer];
+		}
+		if (!anyChanged)
+		{
+			return;
+		}
+
+		boolean[] inAngle = new boolean[layers.length];
+		for (int angleIdx = 0; angleIdx < sums[0].getDimension(); angleIdx++)
+		{
+			boolean any = false;
+			for (int layer = 0; layer < layers.length; layer++)
+			{
+				// far samples are means of blocks that may be bigger than the changed cells
+				int[] block = changed[layer];
+				int reach = layers[layer].getFarSamples() == null ? 0 : layers[layer].getFarSamples().getReach();
+				inAngle[layer] = isChanged[layer] && samples.samplesMayBeIn(location, angleIdx, 
+						block[0] - reach, block[1] - reach, block[2] + reach, block[3] + reach);
+				any |= inAngle[layer];
+			}
+			if (any)
+			{
+				sumAngle(samples, location, angleIdx, layers, inAngle, sums, xs, ys);
+			}
+		}
+	}
+	
+	/**
+	 * Sums some of the layers along an angle, finding the sample points once for all of them.
+	 * @param inAngle which layers to sum
+	 */
+	private static void sumAngle(AngularProbabilityInfo samples, NdPoint location, int angleIdx, 
+			SampleSum[] layers, boolean[] inAngle, RealVector[] sums, int[] xs, int[] ys)
+	{
+		int maxNear = 0;
+		for (int layer = 0; layer < layers.length; layer++)
+		{
+			if (inAngle[layer])
+			{
+				maxNear = Math.max(maxNear, layers[layer].getNumNear());
+			}
+		}
+		
+		int numSamples = samples.getSampleCells(location, angleIdx, xs, ys, maxNear);
+		for (int layer = 0; layer < layers.length; layer++)
+		{
+			if (inAngle[layer])
+			{
+				int numNear = layers[layer].getNumNear();
+				double value = layers[layer].sum(xs, ys, Math.min(numSamples, numNear));
+				if (numSamples >= numNear)
+				{
+					value += layers[layer].sumFar(samples, location, angleIdx);
+				}
+				sums[layer].setEntry(angleIdx, value);
+			}
+		}
+	}
+
+	/**
+	 * Gets the block of cells changed in any of the grids since their versions, and updates the versions.
+	 */
+	private boolean getChanged(DecayingGrid[] grids, long[] versions, int[] block)
+	{
+		if (grids.length == 0)
+		{
+			// can't tell, so always sum it
+			block[0] = -ANYWHERE;
+			block[1] = -ANYWHERE;
+			block[2] = ANYWHERE;
+			block[3] = ANYWHERE;
+			return true;
+		}
+		
+		boolean isChanged = false;
+		int[] gridBlock = new int[4];
+		for (int grid = 0; grid < grids.length; grid++)
+		{
+			if (versions[grid] < 0)
+			{
+				// not summed yet
+				gridBlock[0] = -ANYWHERE;
+				gridBlock[1] = -ANYWHERE;
+				gridBlock[2] = ANYWHERE;
+				gridBlock[3] = ANYWHERE;
+			}
+			else if (!grids[grid].getChangedSince(versions[grid], gridBlock))
+			{
+				continue;
+			}
+
+			if (isChanged)
+			{
+				block[0] = Math.min(block[0], gridBlock[0]);
+				block[1] = Math.min(block[1], gridBlock[1]);
+				block[2] = Math.max(block[2], gridBlock[2]);
+				block[3] = Math.max(block[3], gridBlock[3]);
+			}
+			else
+			{
+				System.arraycopy(gridBlock, 0, block, 0, 4);
+				isChanged = true;
+			}
+			versions[grid] = grids[grid].getVersion();
+		}
+		return isChanged;
+	}
+
+	/**
+	 * Sums samples of layers that all sample the same points along some of the angles, without keeping them.
+	 * @param location where the samples start from
+	 * @param angles which angles to sum
+	 * @param sums a vector of sums by angle for each layer, in the same order, set at those angles
+	 * @param layers what to sum
+	 */
+	protected static void sum(NdPoint location, boolean[] angles, RealVector[] sums, SampleSum... layers)
+	{
+		AngularProbabilityInfo samples = layers[0].getSamples();
+		boolean[] inAngle = new boolean[layers.length];
+		Arrays.fill(inAngle, true);
+		int[] xs = new int[samples.getNumPoints()];
+		int[] ys = new int[samples.getNumPoints()];
+		for (int angleIdx = 0; angleIdx < angles.length; angleIdx++)
+		{
+			if (angles[angleIdx])
+			{
+				sumAngle(samples, location, angleIdx, layers, inAngle, sums, xs, ys);
+			}
+		}
+	}
+
+	/**
+	 * Sums samples of one or more layers along every angle without keeping them. Layers that sample the same points
+	 * are summed together, finding each angle's sample points once for all of them.
+	 * @param location where the samples start from
+	 * @param layers what to sum
+	 * @return a vector of sums by angle for each layer, in the same order
+	 */
+	protected static RealVector[] sum(NdPoint location, SampleSum... layers)
+	{
+		RealVector[] sums = new RealVector[layers.length];
+		boolean[] inPass = new boolean[layers.length];
+
+		for (int first = 0; first < layers.length; first++)
+		{
+			if (sums[first] != null)
+			{
+				continue;
+			}
+			AngularProbabilityInfo samples = layers[first].getSamples();
+			int numAngles = samples.getAngles().size();
+			Arrays.fill(inPass, false);
+			for (int layer = first; layer < layers.length; layer++)
+			{
+				inPass[layer] = sums[layer] == null && (layer == first || samples.hasSameSamples(layers[layer].getSamples()));
+				if (inPass[layer])
+				{
+					sums[layer] = new ArrayRealVector(numAngles);
+				}
+			}
+
+			int[] xs = new int[samples.getNumPoints()];
+			int[] ys = new int[samples.getNumPoints()];
+			for (int angleIdx = 0; angleIdx < numAngles; angleIdx++)
+			{
+				sumAngle(samples, location, angleIdx, layers, inPass, sums, xs, ys);
+			}
+		}
+		return sums;
+	}
+}
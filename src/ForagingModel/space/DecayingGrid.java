@@ -0,0 +1,264 @@
+package ForagingModel.space;
+
+import java.io.Serializable;
+
+import ForagingModel.core.Grid;
+import ForagingModel.core.GridTasks;
+
+/**
+ * A memory or scent layer that decays toward a value every interval, new = old - rate * (old - target) * intervalSize,
+ * without visiting every cell. Decay is linear and the same everywhere, so it is kept as a scale and offset for the
+ * whole layer, value = stored * scale + offset, which decay updates once per interval. Cells are converted as they are
+ * read and written, and the scale is folded into the stored cells when it gets small, before they can lose precision
+ * or underflow, and whenever the grid itself is needed.
+ * Changes are counted, along with the block of cells changed since the last decay, so whoever uses the values can 
+ * tell what changed since they last did. Whoever sets cells marks them changed, once for a block of cells rather
+ * than for each so the cells can be set from several threads.
+ * For sampling far from a forager, the means of blocks of cells are kept in a pyramid of block sums of the stored 
+ * cells, which decay doesn't change, updated where cells were marked changed when a mean is next needed.
+ */
+class DecayingGrid implements Serializable
+{
+	private static final long serialVersionUID = 2748613017442338925L;
+	// small enough to fold rarely, far from where stored values could overflow
+	private static final double MIN_SCALE = 1e-20;
+
+	private final Grid stored;
+	private double scale;
+	private double inverseScale;
+	private double offset;
+	
+	private long version;
+	// changes since blockVersion are all in the block
+	private long blockVersion;
+	private int changedMinRow;
+	private int changedMinColumn;
+	private int changedMaxRow;
+	private int changedMaxColumn;
+	
+	// sums of blocks of stored cells 2^level on a side, the first level the cells, made when first needed
+	private transient Grid[] pyramid;
+	// block of cells changed since the pyramid was updated
+	private transient int pyramidMinRow;
+	private transient int pyramidMinColumn;
+	private transient int pyramidMaxRow;
+	private transient int pyramidMaxColumn;
+
+	protected DecayingGrid(Grid grid)
+	{
+		this.stored = grid;
+		this.scale = 1;
+		this.inverseScale = 1;
+		this.offset = 0;
+		changedEverywhere();
+	}
+
+	protected double get(int row, int column)
+	{
+		return stored.get(row, column) * scale + offset;
+	}
+
+	protected void set(int row, int column, double value)
+	{
+		stored.set(row, column, (value - offset) * inverseScale);
+	}
+
+	/**
+	 * Marks a block of cells as changed, before or after setting them.
+	 */
+	protected void markChanged(int minRow, int minColumn, int maxRow, int maxColumn)
+	{
+		version++;
+		changedMinRow = Math.min(changedMinRow, minRow);
+		changedMinColumn = Math.min(changedMinColumn, minColumn);
+		changedMaxRow = Math.max(changedMaxRow, maxRow);
+		changedMaxColumn = Math.max(changedMaxColumn, maxColumn);
+		if (pyramid != null)
+		{
+			pyramidMinRow = Math.min(pyramidMinRow, minRow);
+			pyramidMinColumn = Math.min(pyramidMinColumn, minColumn);
+			pyramidMaxRow = Math.max(pyramidMaxRow, maxRow);
+			pyramidMaxColumn = Math.max(pyramidMaxColumn, maxColumn);
+		}
+	}
+	
+	/**
+	 * Gets the number of levels of block means, from single cells to one block of the whole grid.
+	 */
+	protected int getNumLevels()
+	{
+		int numLevels = 1;
+		while ((1 << (numLevels - 1)) < Math.max(stored.getRowDimension(), stored.getColumnDimension()))
+		{
+			numLevels++;
+		}
+		return numLevels;
+	}
+	
+	/**
+	 * Gets the mean of a block of cells, 2^level on a side, smaller at the far edges of the grid.
+	 * @param level the level of the block, limited to the number of levels
+	 * @param blockRow the block's row, the row of a cell in it divided by 2^level, limited to the grid
+	 * @param blockColumn the block's column
+	 */
+	protected double getBlockMean(int level, int blockRow, int blockColumn)
+	{
+		updatePyramid();
+		Grid sums = pyramid[Math.min(level, pyramid.length - 1)];
+		int size = 1 << Math.min(level, pyramid.length - 1);
+		blockRow = Math.max(0, Math.min(blockRow, sums.getRowDimension() - 1));
+		blockColumn = Math.max(0, Math.min(blockColumn, sums.getColumnDimension() - 1));
+		int numCells = Math.min(size, stored.getRowDimension() - blockRow * size) 
+				* Math.min(size, stored.getColumnDimension() - blockColumn * size);
+		return sums.get(blockRow, blockColumn) / numCells * scale + offset;
+	}
+	
+	/**
+	 * Gets the number of changes so far, to pass to getChangedSince() later.
+	 */
+	protected long getVersion()
+	{
+		return version;
+	}
+	
+	/**
+	 * Gets the cells changed since a version.
+	 * @param since what getVersion() returned
+	 * @param block filled with the min row, min column, max row and max column of a block holding every changed cell, 
+	 * if any changed
+	 * @return whether any cells changed
+	 */
+	protected boolean getChangedSince(long since, int[] block)
+	{
+		if (since == version)
+		{
+			return false;
+		}
+		if (since >= blockVersion)
+		{
+			block[0] = changedMinRow;
+			block[1] = changedMinColumn;
+			block[2] = changedMaxRow;
+			block[3] = changedMaxColumn;
+		}
+		else
+		{
+			block[0] = 0;
+			block[1] = 0;
+			block[2] = stored.getRowDimension() - 1;
+			block[3] = stored.getColumnDimension() - 1;
+		}
+		return true;
+	}
+	
+	/**
+	 * Decays every cell toward a value, new = old * factor + (1 - factor) * target.
+	 * @param factor what is left after decay, 1 - decayRate * intervalSize
+	 * @param target the value decayed toward
+	 */
+	protected void decay(double factor, double target)
+	{
+		scale *= factor;
+		offset = offset * factor + (1 - factor) * target;
+		changedEverywhere();
+		if (Math.abs(scale) < MIN_SCALE)
+		{
+			fold();
+		}
+		else
+		{
+			inverseScale = 1 / scale;
+		}
+	}
+
+	/**
+	 * Gets the grid of values, up to date with any decay.
+	 * @return the grid, which later decay changes
+	 */
+	protected Grid getGrid()
+	{
+		fold();
+		// it can be changed without marking it
+		changedEverywhere();
+		pyramid = null;
+		return stored;
+	}
+	
+	private void updatePyramid()
+	{
+		if (pyramid == null)
+		{
+			pyramid = new Grid[getNumLevels()];
+			pyramid[0] = stored;
+			for (int level = 1; level < pyramid.length; level++)
+			{
+				pyramid[level] = new Grid((pyramid[level - 1].getRowDimension() + 1) / 2, (pyramid[level - 1].getColumnDimension() + 1) / 2);
+			}
+			pyramidMinRow = 0;
+			pyramidMinColumn = 0;
+			pyramidMaxRow = stored.getRowDimension() - 1;
+			pyramidMaxColumn = stored.getColumnDimension() - 1;
+		}
+		else if (pyramidMaxRow < pyramidMinRow)
+		{
+			return;
+		}
+		
+		for (int level = 1; level < pyramid.length; level++)
+		{
+			Grid cells = pyramid[level - 1];
+			Grid sums = pyramid[level];
+			for (int row = pyramidMinRow >> level; row <= pyramidMaxRow >> level; row++)
+			{
+				for (int column = pyramidMinColumn >> level; column <= pyramidMaxColumn >> level; column++)
+				{
+					double sum = 0;
+					for (int cellRow = 2 * row; cellRow < Math.min(2 * row + 2, cells.getRowDimension()); cellRow++)
+					{
+						for (int cellColumn = 2 * column; cellColumn < Math.min(2 * column + 2, cells.getColumnDimension()); cellColumn++)
+						{
+							sum += cells.get(cellRow, cellColumn);
+						}
+					}
+					sums.set(row, column, sum);
+				}
+			}
+		}
+		pyramidMinRow = Integer.MAX_VALUE;
+		pyramidMinColumn = Integer.MAX_VALUE;
+		pyramidMaxRow = -1;
+		pyramidMaxColumn = -1;
+	}
+	
+	private void changedEverywhere()
+	{
+		version++;
+		blockVersion = version;
+		changedMinRow = Integer.MAX_VALUE;
+		changedMinColumn = Integer.MAX_VALUE;
+		changedMaxRow = -1;
+		changedMaxColumn = -1;
+	}
+
+	private void fold()
+	{
+		if (scale != 1 || offset != 0)
+		{
+			final double foldScale = scale;
+			final double foldOffset = offset;
+			GridTasks.forRows(0, stored.getRowDimension(), stored.getColumnDimension(), new GridTasks.Rows()
+			{
+				@Override
+				public void run(int fromRow, int toRow)
+				{
+					stored.transform(fromRow, toRow, foldScale, foldOffset);
+				}
+			});
+			// the stored cells changed
+			pyramid = null;
+			scale = 1;
+			inverseScale = 1;
+			offset = 0;
+		}
+	}
+}
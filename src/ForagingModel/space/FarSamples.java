@@ -0,0 +1,148 @@
+package ForagingModel.space;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.math3.linear.RealVector;
+import org.apache.commons.math3.util.FastMath;
+
+import ForagingModel.core.NdPoint;
+import ForagingModel.space.AbstractMemory.FarSampleSum;
+
+/**
+ * Sums the far samples along an angle from means of blocks of cells rather than each sample, so an angular sum needs
+ * the near samples and a few blocks. The distance weighting falls off with distance, so the near samples, those
+ * holding all but a tolerance of the weight, are summed exactly. The rest are summed in groups that double in size,
+ * each as the mean of the block of cells about as long as the group, where the middle of the group is, times the
+ * group's weight. The mean of a block is within the range of the layer's values, as are the samples it replaces,
+ * so a sum is off by at most the far weight, at most the tolerance of the total, times the range of the values.
+ */
+class FarSamples implements Serializable
+{
+	private static final long serialVersionUID = -3427765125283160594L;
+
+	private int numNear;
+	// weight of the first i samples
+	private double[] cumulativeWeights;
+	// first sample of each group, then the number of samples
+	private int[] groupStarts;
+	private int[] groupLevels;
+	private double farWeight;
+
+	private FarSamples(RealVector distanceFactor, double spacing, int numNear)
+	{
+		int numPoints = distanceFactor.getDimension();
+		this.numNear = numNear;
+		cumulativeWeights = new double[numPoints + 1];
+		for (int i = 0; i < numPoints; i++)
+		{
+			cumulativeWeights[i + 1] = cumulativeWeights[i] + distanceFactor.getEntry(i);
+		}
+		farWeight = 0;
+		for (int i = numNear; i < numPoints; i++)
+		{
+			farWeight += FastMath.abs(distanceFactor.getEntry(i));
+		}
+
+		List<Integer> starts = new ArrayList<Integer>();
+		List<Integer> levels = new ArrayList<Integer>();
+		int size = 2;
+		for (int start = numNear; start < numPoints; start += size, size *= 2)
+		{
+			starts.add(start);
+			// blocks no longer than the group
+			levels.add((int) FastMath.max(0, FastMath.floor(FastMath.log(2, size * spacing))));
+		}
+		groupStarts = new int[starts.size() + 1];
+		groupLevels = new int[levels.size()];
+		for (int group = 0; group < starts.size(); group++)
+		{
+			groupStarts[group] = starts.get(group);
+			groupLevels[group] = levels.get(group);
+		}
+		groupStarts[starts.size()] = numPoints;
+	}
+
+	/**
+	 * Creates the far samples for a distance weighting.
+	 * @param distanceFactor the weight of each sample
+	 * @param spacing the distance between samples
+	 * @param tolerance the fraction of the total weight that can be summed from blocks
+	 * @return the far samples, or null if every sample is near, as with a tolerance of 0
+	 */
+	protected static FarSamples create(RealVector distanceFactor, double spacing, double tolerance)
+	{
+		if (tolerance <= 0)
+		{
+			return null;
+		}
+		double totalWeight = 0;
+		for (int i = 0; i < distanceFactor.getDimension(); i++)
+		{
+			totalWeight += FastMath.abs(distanceFactor.getEntry(i));
+		}
+
+		int numNear = distanceFactor.getDimension();
+		double farWeight = 0;
+		while (numNear > 0 && farWeight + FastMath.abs(distanceFactor.getEntry(numNear - 1)) <= tolerance * totalWeight)
+		{
+			numNear--;
+			farWeight += FastMath.abs(distanceFactor.getEntry(numNear));
+		}
+		return numNear == distanceFactor.getDimension() ? null : new FarSamples(distanceFactor, spacing, numNear);
+	}
+
+	/**
+	 * Gets the number of samples summed exactly.
+	 */
+	protected int getNumNear()
+	{
+		return numNear;
+	}
+
+	/**
+	 * Gets the weight of the samples summed from blocks, which times the range of values bounds the error.
+	 */
+	protected double getFarWeight()
+	{
+		return farWeight;
+	}
+
+	/**
+	 * Gets the size of the biggest block, so a block of changed cells can be grown to where blocks with them are.
+	 */
+	protected int getReach()
+	{
+		return groupLevels.length == 0 ? 0 : 1 << groupLevels[groupLevels.length - 1];
+	}
+
+	/**
+	 * Sums the far samples along an angle.
+	 * @param samples where the samples are
+	 * @param location where the samples start from
+	 * @param angleIdx the index of the angle
+	 * @param layer what to sum, from the means of its blocks
+	 */
+	protected double sum(AngularProbabilityInfo samples, NdPoint location, int angleIdx, FarSampleSum layer)
+	{
+		int numInBounds = samples.getNumSamplesInBounds(location, angleIdx);
+		double value = 0;
+		for (int group = 0; group < groupLevels.length && groupStarts[group] < numInBounds; group++)
+		{
+			int from = groupStarts[group];
+			int to = FastMath.min(groupStarts[group + 1], numInBounds);
+			double weight = cumulativeWeights[to] - cumulativeWeights[from];
+			if (weight != 0)
+			{
+				// sample i is i + 1 steps from the location
+				double steps = (from + to - 1) / 2.0 + 1;
+				int row = (int) (location.getX() + steps * samples.getStepX(angleIdx));
+				int column = (int) (location.getY() + steps * samples.getStepY(angleIdx));
+				int level = groupLevels[group];
+				value += layer.getBlockValue(level, row >> level, column >> level) * weight;
+			}
+		}
+		return value;
+	}
+}
@@ -0,0 +1,122 @@
+package ForagingModel.space;
+
+import ForagingModel.core.NdPoint;
+
+/**
+ * The cells a Gaussian kernel exp(-d^2 / gamma) centered on a point reaches, with the kernel's value at each,
+ * where d is the distance from the point to the cell center (see SpaceUtils.getDistance). Cells further away
+ * than where the kernel falls below the tolerance times its peak are left out, so applying the kernel costs its
+ * footprint rather than the whole landscape. The kernel is separable, exp(-(dx^2 + dy^2) / gamma) =
+ * exp(-dx^2 / gamma) * exp(-dy^2 / gamma), so the values are products of weights worked out once per row and
+ * column of the footprint rather than an exp and sqrt for every cell. Holds the footprint of the point it was
+ * last moved to, so each memory or scent map has its own.
+ */
+class KernelStencil
+{
+	private final double spatialScale;
+	private final double radius;
+	private final int rows;
+	private final int columns;
+	// for the rows and columns of the footprint, indexed by row and column
+	private final double[] rowWeights;
+	private final double[] columnWeights;
+
+	private int minRow;
+	private int maxRow;
+	private int minColumn;
+	private int maxColumn;
+
+	/**
+	 * @param spatialScale gamma
+	 * @param tolerance the kernel relative to its peak below which it is treated as 0, or 0 to cover the whole landscape
+	 * @param rows the number of rows of the landscape
+	 * @param columns the number of columns of the landscape
+	 */
+	protected KernelStencil(double spatialScale, double tolerance, int rows, int columns)
+	{
+		this.spatialScale = spatialScale;
+		this.radius = getRadius(spatialScale, tolerance);
+		this.rows = rows;
+		this.columns = columns;
+		this.rowWeights = new double[rows];
+		this.columnWeights = new double[columns];
+	}
+
+	/**
+	 * Gets the distance beyond which the kernel exp(-d^2 / gamma) is below the tolerance times its peak.
+	 * @param spatialScale gamma
+	 * @param tolerance the kernel relative to its peak, 0 for no limit
+	 * @return the distance, infinite if the tolerance is 0
+	 */
+	protected static double getRadius(double spatialScale, double tolerance)
+	{
+		return (tolerance > 0) ? Math.sqrt(-spatialScale * Math.log(tolerance)) : Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Centers the kernel on a point, which may be outside the landscape, leaving an empty footprint if it is too far away.
+	 * @param center the point
+	 */
+	protected void moveTo(NdPoint center)
+	{
+		moveTo(center.getX(), center.getY());
+	}
+	
+	/**
+	 * Centers the kernel on a point, see moveTo(NdPoint).
+	 * @param centerX the point's x coordinate
+	 * @param centerY the point's y coordinate
+	 */
+	protected void moveTo(double centerX, double centerY)
+	{
+		// distances are to cell centers, so the footprint is offset by half a cell
+		double x = centerX - 0.5;
+		double y = centerY - 0.5;
+		minRow = (int) Math.max(0, Math.floor(x - radius));
+		maxRow = (int) Math.min(rows - 1, Math.ceil(x + radius));
+		minColumn = (int) Math.max(0, Math.floor(y - radius));
+		maxColumn = (int) Math.min(columns - 1, Math.ceil(y + radius));
+
+		for (int row = minRow; row <= maxRow; row++)
+		{
+			double distanceX = x - row;
+			rowWeights[row] = Math.exp(-distanceX * distanceX / spatialScale);
+		}
+		for (int column = minColumn; column <= maxColumn; column++)
+		{
+			double distanceY = y - column;
+			columnWeights[column] = Math.exp(-distanceY * distanceY / spatialScale);
+		}
+	}
+
+	protected int getMinRow()
+	{
+		return minRow;
+	}
+
+	protected int getMaxRow()
+	{
+		return maxRow;
+	}
+
+	protected int getMinColumn()
+	{
+		return minColumn;
+	}
+
+	protected int getMaxColumn()
+	{
+		return maxColumn;
+	}
+
+	/**
+	 * Gets the kernel at a cell of the footprint.
+	 * @param row the cell's row, between getMinRow() and getMaxRow()
+	 * @param column the cell's column, between getMinColumn() and getMaxColumn()
+	 * @return exp(-d^2 / gamma)
+	 */
+	protected double getWeight(int row, int column)
+	{
+		return rowWeights[row] * columnWeights[column];
+	}
+}
@@ -1,8 +1,9 @@
 
 package ForagingModel.space;
 
+import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -13,8 +14,10 @@ import ForagingModel.core.ModelEnvironment;
 import ForagingModel.core.NdPoint;
 import ForagingModel.core.Velocity;
 
-public class LocationMangerImpl implements LocationManager 
+public class LocationMangerImpl implements LocationManager, Serializable 
 {
+	private static final long serialVersionUID = 5059491929455130731L;
+
 	private double minDimensionX;
 	private double minDimensionY;
 	private double maxDimensionX;
@@ -30,8 +33,9 @@ public class LocationMangerImpl implements LocationManager
 		this.minDimensionY = minDimensionY;
 		this.maxDimensionX = maxDimensionX;
 		this.maxDimensionY = maxDimensionY;
-		agents = new HashMap<Agent, NdPoint>();
-		destinations = new HashMap<Agent, NdPoint>();
+		// insertion ordered so the agents are reported in the same order after a checkpoint restore
+		agents = new LinkedHashMap<Agent, NdPoint>();
+		destinations = new LinkedHashMap<Agent, NdPoint>();
 	}
 	
 	public void moveByVector(Agent agent, Velocity velocity) 
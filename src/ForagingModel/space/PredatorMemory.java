@@ -1,6 +1,5 @@
 package ForagingModel.space;
 
-import java.util.List;
 import java.util.Set;
 
 import org.apache.commons.math3.linear.ArrayRealVector;
@@ -8,14 +7,19 @@ import org.apache.commons.math3.linear.RealMatrix;
 import org.apache.commons.math3.linear.RealVector;
 import org.apache.commons.math3.util.FastMath;
 
+import ForagingModel.core.Grid;
 import ForagingModel.core.GridPoint;
+import ForagingModel.core.GridTasks;
 import ForagingModel.core.MatrixUtils;
 import ForagingModel.core.NdPoint;
+import ForagingModel.core.Parameters;
 import ForagingModel.predator.PredatorManager;
 
 public class PredatorMemory extends AbstractMemory implements MemoryAssemblage 
 {
-	private RealMatrix memories;
+	private static final long serialVersionUID = -5273058122176140663L;
+
+	private DecayingGrid memories;
 	private PredatorManager predatorManager;
 
 	private double learningRate;
@@ -28,6 +32,8 @@ public class PredatorMemory extends AbstractMemory implements MemoryAssemblage
 	private int rows; 
 	private int columns;
 	private RealVector distanceFactor;
+	// null to sum every sample
+	private FarSamples farSamples;
 	
 	private final double MAX_PREDATOR_VALUE = 1.0;
 
@@ -37,7 +43,7 @@ public class PredatorMemory extends AbstractMemory implements MemoryAssemblage
             double encounterRadius, double memorySpatialScale, double intervalSize)
 	{
 		super(angularProbabilityInfo);
-		this.memories = memories;
+		this.memories = new DecayingGrid(Grid.of(memories));
 		this.predatorManager = predators;
 		
 		this.learningRate = learningRate;
@@ -54,6 +60,7 @@ public class PredatorMemory extends AbstractMemory implements MemoryAssemblage
 		columns = memories.getColumnDimension();
 		
 		distanceFactor = getExponentialDistanceFactor(memorySpatialScale);//, encounterRadius);
+		farSamples = FarSamples.create(distanceFactor, angularProbabilityInfo.getSpacing(), Parameters.get().getMemoryFarTolerance());
 
 	}
 
@@ -63,38 +70,46 @@ public class PredatorMemory extends AbstractMemory implements MemoryAssemblage
 	{
 		Set<NdPoint> predators = predatorManager.getActivePredators(consumerLocation, encounterRadius);
 		
-		for (int row = 0; row < rows; row++)
+		// each cell learns about the predators in the same order whichever the outer loop is
+		for (NdPoint predatorLocation : predators)
 		{
-			for(int column = 0; column < columns; column++)
+			// the kernel is a top hat, so only cells with centers inside the encounter radius learn
+			double x = predatorLocation.getX() - 0.5;
+			double y = predatorLocation.getY() - 0.5;
+			int minRow = (int) Math.max(0, Math.floor(x - encounterRadius));
+			int maxRow = (int) Math.min(rows - 1, Math.ceil(x + encounterRadius));
+			int minColumn = (int) Math.max(0, Math.floor(y - encounterRadius));
+			int maxColumn = (int) Math.min(columns - 1, Math.ceil(y + encounterRadius));
+			
+			for (int row = minRow; row <= maxRow; row++)
 			{
-				GridPoint location = new GridPoint(row, column);
-				
-				for (NdPoint predatorLocation : predators)
+				double distanceX = x - row;
+				for(int column = minColumn; column <= maxColumn; column++)
 				{
-					double distance = SpaceUtils.getDistance(predatorLocation, location);
-					learn(row, column, distance);
+					double distanceY = y - column;
+					if (distanceX * distanceX + distanceY * distanceY < encounterRadius * encounterRadius)
+					{
+						learn(row, column);
+					}
 				}
 			}
 		}
 
 	}
 	
-	protected void learn(int row, int column, double distance) 
+	protected void learn(int row, int column) 
 	{
-		double memory = memories.getEntry(row, column);
+		double memory = memories.get(row, column);
 		
 		// old learn amount, normal kernel (but adjusted so distance = 0 inside encounter radius)
 //		if (distance < encounterRadius) {distance = 0;}
 //		double learnAmount = learningRate * Math.exp(-distance * distance / spatialScale) / (2 * Math.PI * spatialScale) * (MAX_PREDATOR_VALUE - memory) * intervalSize;
 
-		// new learn amount, top hat kernel (normalize by pi r^2)
-		double learnAmount = 0;
-		if (distance < encounterRadius)
-		{
-			learnAmount = learningRate * (MAX_PREDATOR_VALUE - memory) / (Math.PI * encounterRadius * encounterRadius) * intervalSize;
-		}
+		// new learn amount, top hat kernel (normalize by pi r^2), for cells within the encounter radius
+		double learnAmount = learningRate * (MAX_PREDATOR_VALUE - memory) / (Math.PI * encounterRadius * encounterRadius) * intervalSize;
 		
-		memories.setEntry(row, column, memory + learnAmount);
+		memories.set(row, column, memory + learnAmount);
+		memories.markChanged(row, column, row, column);
 	}
 	
 	@Override
@@ -104,7 +119,7 @@ public class PredatorMemory extends AbstractMemory implements MemoryAssemblage
 		switch (state)
 		{
 		case Predators:
-			data = memories.getData();
+			data = memories.getGrid().getData();
 			break;
 		case Resource:
 		case Scent:
@@ -117,7 +132,7 @@ public class PredatorMemory extends AbstractMemory implements MemoryAssemblage
 	
 	protected RealMatrix getMemory()
 	{
-		return memories;
+		return memories.getGrid();
 	}
 
 
@@ -134,35 +149,41 @@ public class PredatorMemory extends AbstractMemory implements MemoryAssemblage
 		
 		// for now, just take 1 - values and weight by distance
 
-		RealMatrix probabilities = memories.scalarMultiply(-1).scalarAdd(1);
-		GridPoint currentPoint = SpaceUtils.getGridPoint(currentLocation);
+		final Grid probabilities = new Grid(rows, columns);
+		final NdPoint location = currentLocation;
+		final GridPoint currentPoint = SpaceUtils.getGridPoint(currentLocation);
 		 
-		for (int row = 0; row < rows; row++)
+		GridTasks.forRows(0, rows, columns, new GridTasks.Rows()
 		{
-			for(int column = 0; column < columns; column++)
+			@Override
+			public void run(int fromRow, int toRow)
 			{
-				double dist = SpaceUtils.getDistance(currentLocation, new GridPoint(row, column));
-				// TODO: need to scale by alpha??
-				double prob = Math.exp(probabilities.getEntry(row, column) * Math.exp(-dist / memorySpatialScale) / memorySpatialScale);
-				if ( currentPoint.getX() == row && currentPoint.getY() == column )
+				for (int row = fromRow; row < toRow; row++)
 				{
-					// make current grid square 0, otherwise it will have high prob due to being close and direction of center is arbitrary
-					// note that this is 1 not 0 since R code sets to 0 before multiplying by alpha and exp(0)=1
-					prob = 1;
+					for(int column = 0; column < columns; column++)
+					{
+						double dist = SpaceUtils.getDistance(location, new GridPoint(row, column));
+						// TODO: need to scale by alpha??
+						double prob = Math.exp((1 - memories.get(row, column)) * Math.exp(-dist / memorySpatialScale) / memorySpatialScale);
+						if ( currentPoint.getX() == row && currentPoint.getY() == column )
+						{
+							// make current grid square 0, otherwise it will have high prob due to being close and direction of center is arbitrary
+							// note that this is 1 not 0 since R code sets to 0 before multiplying by alpha and exp(0)=1
+							prob = 1;
+						}
+						if (prob > MAX_PROBABILITY_VALUE) // e.g. infinity
+						{
+							// if memory is large (i.e. for example very concentrated patch) and nearby, the exponential can overflow and return infinity
+							prob = MAX_PROBABILITY_VALUE;
+						}
+						probabilities.set(row, column, prob);
+					}
 				}
-				if (prob > MAX_PROBABILITY_VALUE) // e.g. infinity
-				{
-					// if memory is large (i.e. for example very concentrated patch) and nearby, the exponential can overflow and return infinity
-					prob = MAX_PROBABILITY_VALUE;
-				}
-				probabilities.setEntry(row, column, prob);
 			}
-		}
+		});
 		
 		// can be set to null to avoid choosing a destination
-		probabilities = normalizeMatrix(probabilities);
-		
-		return probabilities;
+		return normalizeMatrix(probabilities);
 	}
 	
 	
@@ -171,41 +192,61 @@ public class PredatorMemory extends AbstractMemory implements MemoryAssemblage
 	@Override
 	protected RealVector getAngularProbabilities(NdPoint currentLocation) 
 	{
-		// TODO this call updates probability cache, copying or else don't plot well but inefficient
-		RealVector probs = getPredatorSafety(currentLocation).copy();
-		MatrixUtils.normalize(probs);
-		return probs;
+		return getAngularProbabilities(currentLocation, new ProbabilitiesOfSums()
+		{
+			@Override
+			protected RealVector get(RealVector[] sums)
+			{
+				// TODO this call updates probability cache, copying or else don't plot well but inefficient
+				RealVector probs = getPredatorSafety(sums[0]).copy();
+				MatrixUtils.normalize(probs);
+				return probs;
+			}
+		}, getSampleSum());
 	}
 	
 	// This is called by AggregateMemory to get the safety values to multiply resource memory
 	protected RealVector getPredatorSafety(NdPoint currentLocation) 
 	{
-		// TODO: lots of duplicated code from ResourceMemory, what to do??
-		List<Double> angles = angProbInfo.getAngles();
-		RealVector probs = new ArrayRealVector(angles.size());
-		RealVector probsUntruncated = new ArrayRealVector(angles.size());
-		double maxValue = 0;
-		
-		for (int angleIdx = 0; angleIdx < angles.size(); angleIdx++)
+		return getPredatorSafety(getAngularSums(currentLocation, getSampleSum())[0]);
+	}
+	
+	protected SampleSum getSampleSum()
+	{
+		return new FarSampleSum(angProbInfo, farSamples, memories)
 		{
-			List<GridPoint> samplePoints = angProbInfo.getSamplePoints(currentLocation, angles.get(angleIdx));
-			RealVector sampleValues = new ArrayRealVector(samplePoints.size());
-			
-			// value at location z = P(z) * exp(-distance(z, loc) * gamma.Z)
-			
-			// now multiply by memory value by distance factor (exponential part)
-			for (int pointIdx = 0; pointIdx < samplePoints.size(); pointIdx++)
+			@Override
+			protected double sum(int[] xs, int[] ys, int numSamples)
 			{
-				GridPoint point = samplePoints.get(pointIdx);
-				sampleValues.setEntry(pointIdx, 
-						memories.getEntry(point.getX(), point.getY()) * distanceFactor.getEntry(pointIdx) * predatorMemoryFactor);
+				double value = 0;
+				
+				// value at location z = P(z) * exp(-distance(z, loc) * gamma.Z)
+				
+				// now multiply by memory value by distance factor (exponential part)
+				for (int pointIdx = 0; pointIdx < numSamples; pointIdx++)
+				{
+					value += memories.get(xs[pointIdx], ys[pointIdx]) * distanceFactor.getEntry(pointIdx) * predatorMemoryFactor;
+				}
+				return value;
 			}
 			
-			double value = MatrixUtils.sum(sampleValues); 
-			maxValue = FastMath.max(maxValue, value);
-			
-			probsUntruncated.setEntry(angleIdx, value);
-			probs.setEntry(angleIdx, FastMath.min(value, MAX_PREDATOR_VALUE)); // TODO: or explicitly max at 1
+			@Override
+			protected double getBlockValue(int level, int blockRow, int blockColumn)
+			{
+				return memories.getBlockMean(level, blockRow, blockColumn) * predatorMemoryFactor;
+			}
+		};
+	}
+	
+	/**
+	 * Gets the safety values from the sums of getSampleSum() for each angle.
+	 */
+	protected RealVector getPredatorSafety(RealVector values)
+	{
+		RealVector probs = new ArrayRealVector(values.getDimension());
+		for (int angleIdx = 0; angleIdx < values.getDimension(); angleIdx++)
+		{
+			probs.setEntry(angleIdx, FastMath.min(values.getEntry(angleIdx), MAX_PREDATOR_VALUE)); // TODO: or explicitly max at 1
 		}
 		
 		// if all sum to one, replace with untruncated values divided by max so go in less bad direction
@@ -213,7 +254,7 @@ public class PredatorMemory extends AbstractMemory implements MemoryAssemblage
 		// Note: disabling this because harder to document and smaller memory spatial scales don't perform well anyway
 //		if (sum >= MAX_PREDATOR_VALUE * probs.getDimension())
 //		{
-//			probs = probsUntruncated.mapDivideToSelf(maxValue);
+//			probs = values.mapDivideToSelf(values.getMaxValue());
 //		}
 		
 		// this gives safety = 1 - threat (no longer a probability distribution)
@@ -227,14 +268,7 @@ public class PredatorMemory extends AbstractMemory implements MemoryAssemblage
 	protected void decay()
 	{
 		// new = old - old * decayRate * intervalSize
-		double factor = 1.0 - decayRate * intervalSize;
-		for (int row = 0; row < rows; row++)
-		{
-			for (int column = 0; column < columns; column++)
-			{
-				memories.setEntry(row, column, memories.getEntry(row, column) * factor );
-			}
-		}
+		memories.decay(1.0 - decayRate * intervalSize, 0);
 	}
 
 }
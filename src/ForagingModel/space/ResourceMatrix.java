@@ -1,39 +1,61 @@
 package ForagingModel.space;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.commons.math3.linear.RealMatrix;
 import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 
+import ForagingModel.core.Grid;
 import ForagingModel.core.GridPoint;
+import ForagingModel.core.GridTasks;
 import ForagingModel.core.MatrixUtils;
 import ForagingModel.core.NdPoint;
 import ForagingModel.core.Parameters;
 
-public class ResourceMatrix implements ResourceAssemblage 
+public class ResourceMatrix implements ResourceAssemblage, Serializable 
 {
-	private RealMatrix resources;
+	private static final long serialVersionUID = 2110725415894531141L;
+
+	private Grid resources;
 	
-	private RealMatrix carryingCapacities; 
+	private Grid carryingCapacities; 
 	private double regenerationRate;
 	private double intervalSize;
+	private double kernelTolerance;
 
 	
 	private int rows; 
 	private int columns;
+	// cells (row * columns + column) that may still grow, the rest are where growth no longer changes them
+	private int[] growingCells;
+	private int numGrowingCells;
+	private boolean[] isGrowing;
 	private List<Double> percentiles;
 	private final int numPercentiles; 
+	protected static final int NUM_PERCENTILES = 4;
 
 	// very small amount so doesn't get depleted to 0 and not able to regenerate
 	private final double MIN_DEPLETED_STATE = 1e-100;
 
 	protected ResourceMatrix(RealMatrix resources, RealMatrix carryingCapacity, double regenerationRate, double intervalSize)
 	{
-		this.resources = resources;
-		this.carryingCapacities = carryingCapacity;
+		this(resources, carryingCapacity, regenerationRate, intervalSize, null);
+	}
+	
+	/**
+	 * @param nonZeroPercentiles the percentiles of the non-zero carrying capacities if already known 
+	 * (see Landscape.getNonZeroPercentiles), otherwise null
+	 */
+	protected ResourceMatrix(RealMatrix resources, RealMatrix carryingCapacity, double regenerationRate, double intervalSize,
+			double[] nonZeroPercentiles)
+	{
+		this.resources = Grid.of(resources);
+		this.carryingCapacities = Grid.of(carryingCapacity);
 		this.regenerationRate = regenerationRate;
 		this.intervalSize = intervalSize;
+		this.kernelTolerance = Parameters.get().getKernelTolerance();
 		
 		rows =  resources.getRowDimension();
 		columns = resources.getColumnDimension();
@@ -41,9 +63,32 @@ public class ResourceMatrix implements ResourceAssemblage
 		Parameters.get().setLandscapeSizeX(rows);
 		Parameters.get().setLandscapeSizeY(columns);
 		
+		growingCells = new int[rows * columns];
+		numGrowingCells = 0;
+		isGrowing = new boolean[rows * columns];
+		for (int row = 0; row < rows; row++)
+		{
+			for (int column = 0; column < columns; column++)
+			{
+				markGrowing(row, column);
+			}
+		}
+		
 		// hard coded here!!
-		numPercentiles = 4;
-		calculatePercentiles();
+		numPercentiles = NUM_PERCENTILES;
+		if (nonZeroPercentiles != null && nonZeroPercentiles.length == numPercentiles)
+		{
+			percentiles = new ArrayList<Double>(numPercentiles + 1);
+			percentiles.add(0.0);
+			for (double percentile : nonZeroPercentiles)
+			{
+				percentiles.add(percentile);
+			}
+		}
+		else
+		{
+			calculatePercentiles();
+		}
 	}
 	
 	protected ResourceMatrix(RealMatrix resources, double regenerationRate, double intervalSize)
@@ -55,20 +100,58 @@ public class ResourceMatrix implements ResourceAssemblage
 	@Override
 	public double consumeResource(NdPoint consumerLocation,	double consumptionRate, double consumptionSpatialScale) 
 	{
-		double totalConsumed = 0;
-		for (int row = 0; row < rows; row++)
+		int minRow = 0;
+		int maxRow = rows - 1;
+		int minColumn = 0;
+		int maxColumn = columns - 1;
+		if (kernelTolerance > 0)
 		{
-			for(int column = 0; column < columns; column++)
+			// only the cells near enough for the kernel to be above the tolerance lose a noticeable amount, 
+			// distances are to cell centers (see SpaceUtils.getDistance) so the box is offset by half a cell
+			double radius = KernelStencil.getRadius(consumptionSpatialScale, kernelTolerance);
+			minRow = Math.max(minRow, (int) Math.floor(consumerLocation.getX() - 0.5 - radius));
+			maxRow = Math.min(maxRow, (int) Math.ceil(consumerLocation.getX() - 0.5 + radius));
+			minColumn = Math.max(minColumn, (int) Math.floor(consumerLocation.getY() - 0.5 - radius));
+			maxColumn = Math.min(maxColumn, (int) Math.ceil(consumerLocation.getY() - 0.5 + radius));
+		}
+		
+		final int firstColumn = minColumn;
+		final int lastColumn = maxColumn;
+		final NdPoint location = consumerLocation;
+		final double rate = consumptionRate;
+		final double spatialScale = consumptionSpatialScale;
+		double totalConsumed = GridTasks.sumRows(minRow, maxRow + 1, maxColumn - minColumn + 1, new GridTasks.RowsSum()
+		{
+			@Override
+			public double sum(int fromRow, int toRow)
 			{
-				double currentQuality = resources.getEntry(row, column);
-				double carryingCapacity = carryingCapacities.getEntry(row, column);
-				GridPoint location = new GridPoint(row, column);
-				double distance = SpaceUtils.getDistance(consumerLocation, location);
-				double amount = depleteResource(currentQuality, carryingCapacity, distance, consumptionRate, consumptionSpatialScale);
-				
-				double newQuality = currentQuality - amount;
-				resources.setEntry(row, column, newQuality);
-				totalConsumed += amount;
+				double consumed = 0;
+				for (int row = fromRow; row < toRow; row++)
+				{
+					double distanceX = location.getX() - row - 0.5;
+					for(int column = firstColumn; column <= lastColumn; column++)
+					{
+						double currentQuality = resources.get(row, column);
+						double carryingCapacity = carryingCapacities.get(row, column);
+						double distanceY = location.getY() - column - 0.5;
+						double distance = Math.sqrt(distanceX * distanceX + distanceY * distanceY);
+						double amount = depleteResource(currentQuality, carryingCapacity, distance, rate, spatialScale);
+						
+						double newQuality = currentQuality - amount;
+						resources.set(row, column, newQuality);
+						consumed += amount;
+					}
+				}
+				return consumed;
+			}
+		});
+		
+		// cells the kernel didn't change are left as they were, so growth still leaves them the same
+		for (int row = minRow; row <= maxRow; row++)
+		{
+			for(int column = minColumn; column <= maxColumn; column++)
+			{
+				markGrowing(row, column);
 			}
 		}
 		
@@ -90,7 +173,7 @@ public class ResourceMatrix implements ResourceAssemblage
 			{
 				GridPoint point = new GridPoint(row, column);
 				double distance = SpaceUtils.getDistance(location, point);
-				avgConsumption += depleteResource(averageQuality, carryingCapacities.getEntry(row, column), distance, consumptionRate, consumptionSpatialScale); 
+				avgConsumption += depleteResource(averageQuality, carryingCapacities.get(row, column), distance, consumptionRate, consumptionSpatialScale); 
 			}
 		}
 		return avgConsumption;
@@ -99,7 +182,7 @@ public class ResourceMatrix implements ResourceAssemblage
 	@Override
 	public double getIntrinsicQuality(GridPoint location)
 	{
-		return carryingCapacities.getEntry(location.getX(), location.getY());
+		return carryingCapacities.get(location.getX(), location.getY());
 	}
 
 	@Override
@@ -132,42 +215,84 @@ public class ResourceMatrix implements ResourceAssemblage
 	@Override
 	public double getMaxQuality() 
 	{
-		return MatrixUtils.max(resources);
+		return resources.max();
 	}
 	
 	@Override
 	public double getMaxQuality(int minDimX, int minDimY, int maxDimX, int maxDimY)
 	{
-		return MatrixUtils.max(resources.getSubMatrix(minDimX, maxDimX, minDimY, maxDimY));
+		return resources.view(minDimX, minDimY, maxDimX - minDimX + 1, maxDimY - minDimY + 1).max();
 	}
 	
 	@Override
 	public double getAverageQuality() 
 	{
-		return MatrixUtils.sum(carryingCapacities) / (rows * columns);
+		return carryingCapacities.sum() / (rows * columns);
 	}
 
+	/**
+	 * Grows the cells that were consumed or haven't stopped growing, which are the only ones growth changes. 
+	 * Once growth leaves a cell the same, e.g. at its carrying capacity, it stays the same until consumed again.
+	 */
 	public void growResource()
 	{
-		for (int row = 0; row < rows; row++)
+		GridTasks.forRows(0, numGrowingCells, 1, new GridTasks.Rows()
 		{
-			for(int column = 0; column < columns; column++)
+			@Override
+			public void run(int from, int to)
 			{
-				double carryingCapacity = carryingCapacities.getEntry(row, column);
-				// logistic growth
-				// dQ <- beta.R * (Q0-Q) / Q0 * Q
-				if (carryingCapacity != 0)
+				for (int i = from; i < to; i++)
 				{
-					double currentQuality = resources.getEntry(row, column);
-					double growthAmount = regenerationRate * (carryingCapacity - currentQuality) / carryingCapacity * currentQuality * intervalSize;
-					
-					double newQuality = currentQuality + growthAmount;
-					resources.setEntry(row, column, newQuality);
+					int cell = growingCells[i];
+					int row = cell / columns;
+					int column = cell - row * columns;
+					double carryingCapacity = carryingCapacities.get(row, column);
+					// logistic growth
+					// dQ <- beta.R * (Q0-Q) / Q0 * Q
+					if (carryingCapacity != 0)
+					{
+						double currentQuality = resources.get(row, column);
+						double growthAmount = regenerationRate * (carryingCapacity - currentQuality) / carryingCapacity * currentQuality * intervalSize;
+						double newQuality = currentQuality + growthAmount;
+						
+						resources.set(row, column, newQuality);
+						isGrowing[cell] = (newQuality != currentQuality);
+					}
+					else
+					{
+						isGrowing[cell] = false;
+					}
 				}
 			}
+		});
+		
+		int numStillGrowing = 0;
+		for (int i = 0; i < numGrowingCells; i++)
+		{
+			if (isGrowing[growingCells[i]])
+			{
+				growingCells[numStillGrowing++] = growingCells[i];
+			}
+		}
+		numGrowingCells = numStillGrowing;
+	}
+	
+	private void markGrowing(int row, int column)
+	{
+		int cell = row * columns + column;
+		if (!isGrowing[cell])
+		{
+			isGrowing[cell] = true;
+			growingCells[numGrowingCells++] = cell;
 		}
 	}
 	
+	// for testing
+	protected int getNumGrowingCells()
+	{
+		return numGrowingCells;
+	}
+	
 	// for testing
 	protected RealMatrix getResourceMatrix()
 	{
@@ -186,7 +311,7 @@ public class ResourceMatrix implements ResourceAssemblage
 		{
 			for (int col = 0; col < carryingCapacities.getColumnDimension(); col++)
 			{
-				double value = carryingCapacities.getEntry(row, col);
+				double value = carryingCapacities.get(row, col);
 				// only add non-zero, track zeros separately
 				if (value > 0)
 				{
@@ -1,21 +1,24 @@
 package ForagingModel.space;
 
-import java.util.List;
 
-import org.apache.commons.math3.linear.Array2DRowRealMatrix;
 import org.apache.commons.math3.linear.ArrayRealVector;
 import org.apache.commons.math3.linear.RealMatrix;
 import org.apache.commons.math3.linear.RealVector;
 
 import ForagingModel.core.EnsurePositive;
+import ForagingModel.core.Grid;
 import ForagingModel.core.GridPoint;
+import ForagingModel.core.GridTasks;
 import ForagingModel.core.MatrixUtils;
 import ForagingModel.core.NdPoint;
+import ForagingModel.core.Parameters;
 
 public class ResourceMemory extends AbstractMemory implements MemoryAssemblage
 {
-	private RealMatrix shortMemories;
-	private RealMatrix longMemories;
+	private static final long serialVersionUID = -5418637607602947239L;
+
+	private DecayingGrid shortMemories;
+	private DecayingGrid longMemories;
 	private ResourceAssemblage resourceAssemblage;
 	
 	private double shortLearningRate;
@@ -29,11 +32,17 @@ public class ResourceMemory extends AbstractMemory implements MemoryAssemblage
 	private double memorySpatialScale;
 	private double memoryValueUninformed;
 	private double intervalSize;
+	private double kernelTolerance;
 	
 	private int rows; 
 	private int columns;
 	private RealVector distanceFactor;
+	// null to sum every sample
+	private FarSamples farSamples;
 	private double avgAngularProbTransect;
+	// made when first learning
+	private transient KernelStencil shortStencil;
+	private transient KernelStencil longStencil;
 
 	protected ResourceMemory(RealMatrix shortMemories, RealMatrix longMemories, 
 						   ResourceAssemblage resources, AngularProbabilityInfo angularProbabilityInfo,
@@ -42,8 +51,8 @@ public class ResourceMemory extends AbstractMemory implements MemoryAssemblage
 	                       double alpha, double memorySpatialScale, double memoryValueUninformed, double intervalSize)
 	{
 		super(angularProbabilityInfo);
-		this.shortMemories = shortMemories;
-		this.longMemories = longMemories;
+		this.shortMemories = new DecayingGrid(Grid.of(shortMemories));
+		this.longMemories = new DecayingGrid(Grid.of(longMemories));
 		this.resourceAssemblage = resources;
 		
 		this.shortLearningRate = shortLearningRate;
@@ -57,6 +66,7 @@ public class ResourceMemory extends AbstractMemory implements MemoryAssemblage
 		this.memorySpatialScale = memorySpatialScale;
 		this.memoryValueUninformed = memoryValueUninformed;
 		this.intervalSize = intervalSize;
+		this.kernelTolerance = Parameters.get().getKernelTolerance();
 		
 		rows =  longMemories.getRowDimension();
 		columns = longMemories.getColumnDimension();
@@ -64,6 +74,7 @@ public class ResourceMemory extends AbstractMemory implements MemoryAssemblage
 		assert(shortMemories.getColumnDimension() == columns);
 		
 		distanceFactor = getExponentialDistanceFactor(memorySpatialScale);
+		farSamples = FarSamples.create(distanceFactor, angularProbabilityInfo.getSpacing(), Parameters.get().getMemoryFarTolerance());
 		avgAngularProbTransect = getAverageAngularProbabilityTransect();
 	}
 	
@@ -72,7 +83,7 @@ public class ResourceMemory extends AbstractMemory implements MemoryAssemblage
             double shortDecayRate, double longDecayRate, double shortMemoryFactor, 
             double alpha, double memorySpatialScale, double memoryValueUninformed, double intervalSize)
 	{
-		this(new Array2DRowRealMatrix(longMemories.getRowDimension(), longMemories.getColumnDimension()), 
+		this(new Grid(longMemories.getRowDimension(), longMemories.getColumnDimension()), 
 				longMemories, resources, angularProbabilityInfo,
 				shortLearningRate, longLearningRate, shortSpatialScale, longSpatialScale, 
 				shortDecayRate, longDecayRate, shortMemoryFactor, alpha, memorySpatialScale, 
@@ -82,82 +93,131 @@ public class ResourceMemory extends AbstractMemory implements MemoryAssemblage
 	@Override
 	public void learn(NdPoint consumerLocation)
 	{
-		for (int row = 0; row < rows; row++)
+		if (shortStencil == null)
 		{
-			for(int column = 0; column < columns; column++)
+			shortStencil = new KernelStencil(shortSpatialScale, kernelTolerance, rows, columns);
+			longStencil = new KernelStencil(longSpatialScale, kernelTolerance, rows, columns);
+		}
+		// same as learn(row, column, distance, quality) for every cell, but only where the kernels reach
+		learn(shortMemories, shortStencil, consumerLocation, shortLearningRate / (2 * Math.PI * shortSpatialScale) * intervalSize);
+		learn(longMemories, longStencil, consumerLocation, longLearningRate / (2 * Math.PI * longSpatialScale) * intervalSize);
+	}
+	
+	private void learn(final DecayingGrid memories, final KernelStencil stencil, NdPoint consumerLocation, final double learningFactor)
+	{
+		stencil.moveTo(consumerLocation);
+		memories.markChanged(stencil.getMinRow(), stencil.getMinColumn(), stencil.getMaxRow(), stencil.getMaxColumn());
+		GridTasks.forRows(stencil.getMinRow(), stencil.getMaxRow() + 1, stencil.getMaxColumn() - stencil.getMinColumn() + 1, new GridTasks.Rows()
+		{
+			@Override
+			public void run(int fromRow, int toRow)
 			{
-				GridPoint location = new GridPoint(row, column);
-				double distance = SpaceUtils.getDistance(consumerLocation, location);
-				double quality = resourceAssemblage.getIntrinsicQuality(location);
-				learn(row, column, distance, quality);
+				for (int row = fromRow; row < toRow; row++)
+				{
+					for (int column = stencil.getMinColumn(); column <= stencil.getMaxColumn(); column++)
+					{
+						double memory = memories.get(row, column);
+						double quality = resourceAssemblage.getIntrinsicQuality(new GridPoint(row, column));
+						memories.set(row, column, memory + learningFactor * stencil.getWeight(row, column) * (quality - memory));
+					}
+				}
 			}
-		}
+		});
 	}
 
 	@Override
 	protected RealMatrix getProbabilities(NdPoint currentLocation)
 	{
-		RealMatrix probabilities = new Array2DRowRealMatrix(rows, columns);
-		GridPoint currentPoint = SpaceUtils.getGridPoint(currentLocation);
+		final Grid probabilities = new Grid(rows, columns);
+		final NdPoint location = currentLocation;
+		final GridPoint currentPoint = SpaceUtils.getGridPoint(currentLocation);
 		 
-		for (int row = 0; row < rows; row++)
+		GridTasks.forRows(0, rows, columns, new GridTasks.Rows()
 		{
-			for(int column = 0; column < columns; column++)
+			@Override
+			public void run(int fromRow, int toRow)
 			{
-				// myMods <- M*exp(-Dmatrix/gamma.Z)
-				// myMods <- exp(alpha * myMods)
-				double memory = getMemoryValue(row, column);
-				double dist = SpaceUtils.getDistance(currentLocation, new GridPoint(row, column));
-				double prob = Math.exp(alpha * memory * Math.exp(-dist / memorySpatialScale));
-				if ( currentPoint.getX() == row && currentPoint.getY() == column )
+				for (int row = fromRow; row < toRow; row++)
 				{
-					// make current grid square 0, otherwise it will have high prob due to being close and direction of center is arbitrary
-					// note that this is 1 not 0 since R code sets to 0 before multiplying by alpha and exp(0)=1
-					prob = 1;
+					for(int column = 0; column < columns; column++)
+					{
+						// myMods <- M*exp(-Dmatrix/gamma.Z)
+						// myMods <- exp(alpha * myMods)
+						double memory = getMemoryValue(row, column);
+						double dist = SpaceUtils.getDistance(location, new GridPoint(row, column));
+						double prob = Math.exp(alpha * memory * Math.exp(-dist / memorySpatialScale));
+						if ( currentPoint.getX() == row && currentPoint.getY() == column )
+						{
+							// make current grid square 0, otherwise it will have high prob due to being close and direction of center is arbitrary
+							// note that this is 1 not 0 since R code sets to 0 before multiplying by alpha and exp(0)=1
+							prob = 1;
+						}
+						if (prob > MAX_PROBABILITY_VALUE) // e.g. infinity
+						{
+							// if memory is large (i.e. for example very concentrated patch) and nearby, the exponential can overflow and return infinity
+							prob = MAX_PROBABILITY_VALUE;
+						}
+						probabilities.set(row, column, prob);
+					}
 				}
-				if (prob > MAX_PROBABILITY_VALUE) // e.g. infinity
-				{
-					// if memory is large (i.e. for example very concentrated patch) and nearby, the exponential can overflow and return infinity
-					prob = MAX_PROBABILITY_VALUE;
-				}
-				probabilities.setEntry(row, column, prob);
 			}
-		}
+		});
 
 		// can be set to null to avoid choosing a destination
-		probabilities = normalizeMatrix(probabilities);
-
-		return probabilities;
+		return normalizeMatrix(probabilities);
 	}
 	
 	@Override
 	protected RealVector getAngularProbabilities(NdPoint currentLocation) 
 	{
-		List<Double> angles = angProbInfo.getAngles();
-		RealVector probs = new ArrayRealVector(angles.size());
-
-		for (int angleIdx = 0; angleIdx < angles.size(); angleIdx++)
+		return getAngularProbabilities(currentLocation, new ProbabilitiesOfSums()
 		{
-			List<GridPoint> samplePoints = angProbInfo.getSamplePoints(currentLocation, angles.get(angleIdx));
-			RealVector sampleValues = new ArrayRealVector(samplePoints.size());
-			
-			// *** WARNING: formula is also used in getAverageAngularProbabilityTransect() ***
-			// *** make sure to change in both places ***
-			// WAS: // value at location z = M(z) * exp(-distance(z, loc) * gamma.Z) 
-			// but this is wrong, should be  z = M(z) * exp(-distance(z, loc) / gamma.Z) / gamma.Z
-			// now multiply by memory value, M(z) * distanceFactor
-			for (int pointIdx = 0; pointIdx < samplePoints.size(); pointIdx++)
+			@Override
+			protected RealVector get(RealVector[] sums)
+			{
+				return getAngularProbabilities(sums[0]);
+			}
+		}, getSampleSum());
+	}
+	
+	protected SampleSum getSampleSum()
+	{
+		return new FarSampleSum(angProbInfo, farSamples, shortMemories, longMemories)
+		{
+			@Override
+			protected double sum(int[] xs, int[] ys, int numSamples)
 			{
-				GridPoint point = samplePoints.get(pointIdx);
-				sampleValues.setEntry(pointIdx, 
-						getMemoryValue(point.getX(), point.getY()) * distanceFactor.getEntry(pointIdx));
+				double value = 0;
+				
+				// *** WARNING: formula is also used in getAverageAngularProbabilityTransect() ***
+				// *** make sure to change in both places ***
+				// WAS: // value at location z = M(z) * exp(-distance(z, loc) * gamma.Z) 
+				// but this is wrong, should be  z = M(z) * exp(-distance(z, loc) / gamma.Z) / gamma.Z
+				// now multiply by memory value, M(z) * distanceFactor
+				for (int pointIdx = 0; pointIdx < numSamples; pointIdx++)
+				{
+					value += getMemoryValue(xs[pointIdx], ys[pointIdx]) * distanceFactor.getEntry(pointIdx);
+				}
+				return value;
 			}
 			
-			// subtract average quality transect, 
-			// so values will be positive if better than average and negative if worse than average
-			// try not doing this
-			probs.setEntry(angleIdx, MatrixUtils.sum(sampleValues)); // - avgAngularProbTransect);
-		}
+			@Override
+			protected double getBlockValue(int level, int blockRow, int blockColumn)
+			{
+				return longMemories.getBlockMean(level, blockRow, blockColumn) 
+						- shortMemoryFactor * shortMemories.getBlockMean(level, blockRow, blockColumn);
+			}
+		};
+	}
+	
+	/**
+	 * Gets the angular probabilities from the sums of getSampleSum() for each angle.
+	 */
+	protected RealVector getAngularProbabilities(RealVector probs)
+	{
+		// subtract average quality transect, 
+		// so values will be positive if better than average and negative if worse than average
+		// try not doing this
 
 		// ensure positive and not all 0
 		probs.mapToSelf(new EnsurePositive());
@@ -171,58 +231,56 @@ public class ResourceMemory extends AbstractMemory implements MemoryAssemblage
 
 	protected void learn(int row, int column, double distance, double quality) 
 	{
-		double shortMemory = shortMemories.getEntry(row, column);
-		double longMemory = longMemories.getEntry(row, column);
+		double shortMemory = shortMemories.get(row, column);
+		double longMemory = longMemories.get(row, column);
 		
 		// dL <- beta.L * exp(-Dmatrix^2/gamma.L) / (2 * pi * gamma.L)*(Q-L) 
 		// dS <- beta.S * exp(-Dmatrix^2/gamma.S) / (2 * pi * gamma.S)*(Q-S) 
 		double shortLearnAmount = shortLearningRate * Math.exp(-distance * distance / shortSpatialScale) / (2 * Math.PI * shortSpatialScale) * (quality - shortMemory) * intervalSize;
 		double longLearnAmount = longLearningRate * Math.exp(-distance * distance / longSpatialScale) / (2 * Math.PI * longSpatialScale) * (quality - longMemory) * intervalSize;
 		
-		shortMemories.setEntry(row, column, shortMemory + shortLearnAmount);
-		longMemories.setEntry(row, column, longMemory + longLearnAmount);
+		shortMemories.set(row, column, shortMemory + shortLearnAmount);
+		longMemories.set(row, column, longMemory + longLearnAmount);
+		shortMemories.markChanged(row, column, row, column);
+		longMemories.markChanged(row, column, row, column);
 	}
 	
 	protected double getMemoryValue(int row, int column)
 	{
-		return longMemories.getEntry(row, column) - shortMemoryFactor * shortMemories.getEntry(row, column);
+		return longMemories.get(row, column) - shortMemoryFactor * shortMemories.get(row, column);
 	}
 	
 	protected RealMatrix getLongMemory()
 	{
-		return longMemories;
+		return longMemories.getGrid();
 	}
 
 	protected RealMatrix getShortMemory()
 	{
-		return shortMemories;
+		return shortMemories.getGrid();
 	}
 
 	protected RealMatrix getMemory()
 	{
 		// longMemories - shortMemoryFactor * shortMemories
-		RealMatrix memory = longMemories.subtract(shortMemories.scalarMultiply(shortMemoryFactor));
-		return memory;
-	}
-
-	protected void decay() 
-	{
+		Grid memory = new Grid(rows, columns);
 		for (int row = 0; row < rows; row++)
 		{
 			for (int column = 0; column < columns; column++)
 			{
-				double shortMemory = shortMemories.getEntry(row, column);
-				double longMemory = longMemories.getEntry(row, column);
-
-				// + phi.L*(Q.bar-L)
-				// + phi.S*(Q.bar-S)
-				double shortDecayAmount = shortDecayRate * shortMemory * intervalSize;
-				double longDecayAmount = longDecayRate * (longMemory - memoryValueUninformed) * intervalSize;
-				
-				shortMemories.setEntry(row, column, shortMemory - shortDecayAmount);
-				longMemories.setEntry(row, column, longMemory - longDecayAmount);
+				memory.set(row, column, getMemoryValue(row, column));
 			}
 		}
+		return memory;
+	}
+
+	protected void decay() 
+	{
+		// + phi.L*(Q.bar-L)
+		// + phi.S*(Q.bar-S)
+		// short decays toward 0 and long toward the uninformed value, for every cell at once
+		shortMemories.decay(1.0 - shortDecayRate * intervalSize, 0);
+		longMemories.decay(1.0 - longDecayRate * intervalSize, memoryValueUninformed);
 	}
 	
 	@Override
@@ -14,6 +14,8 @@ import ForagingModel.core.NdPoint;
 public class ScentAggregateMemory extends AbstractMemory implements
 		MemoryAssemblage 
 {
+	private static final long serialVersionUID = -8046930126973530160L;
+
 	private ResourceMemory resourceMemory;
 	private ScentHistory scentHistory;
 	
@@ -76,8 +78,24 @@ public class ScentAggregateMemory extends AbstractMemory implements
 	@Override
 	protected RealVector getAngularProbabilities(NdPoint currentLocation) 
 	{
-		RealVector resourceProbs = resourceMemory.getAngularProbabilities(currentLocation);
-		RealVector conspecificSafety = scentHistory.getConspecificSafety(currentLocation);
+		// find the sample points of each angle once for both memories
+		return getAngularProbabilities(currentLocation, new ProbabilitiesOfSums()
+		{
+			@Override
+			protected RealVector get(RealVector[] sums)
+			{
+				return getAngularProbabilities(sums);
+			}
+		}, resourceMemory.getSampleSum(), scentHistory.getSafetySampleSum());
+	}
+	
+	/**
+	 * Combines resource probabilities and conspecific safety from the sums of their samples.
+	 */
+	private RealVector getAngularProbabilities(RealVector[] sums)
+	{
+		RealVector resourceProbs = resourceMemory.getAngularProbabilities(sums[0]);
+		RealVector conspecificSafety = scentHistory.getConspecificSafety(sums[1]);
 		
 		// multiply resource prob by conspecific safety which ranges [0,1] but doesn't sum to 1
 		RealVector aggregateProbs = MatrixUtils.multiply(resourceProbs, conspecificSafety);
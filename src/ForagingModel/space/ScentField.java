@@ -0,0 +1,48 @@
+package ForagingModel.space;
+
+import java.io.Serializable;
+
+import ForagingModel.core.Grid;
+
+/**
+ * The scent left by all the foragers of a ScentManager, kept once rather than by each forager for all the others.
+ * Each forager's ScentHistory keeps only the scent it left itself, and what it smells of the others is this total
+ * less its own. Scent decays linearly, so the total decays along with each forager's own scent.
+ */
+class ScentField implements Serializable
+{
+	private static final long serialVersionUID = -1948306251327645810L;
+
+	private DecayingGrid total;
+	private double decayRate;
+	private double intervalSize;
+
+	protected ScentField(Grid total, double decayRate, double intervalSize)
+	{
+		this.total = new DecayingGrid(total);
+		this.decayRate = decayRate;
+		this.intervalSize = intervalSize;
+	}
+
+	protected double get(int row, int column)
+	{
+		return total.get(row, column);
+	}
+
+	protected void add(int row, int column, double amount)
+	{
+		total.set(row, column, total.get(row, column) + amount);
+		total.markChanged(row, column, row, column);
+	}
+
+	protected DecayingGrid getTotal()
+	{
+		return total;
+	}
+
+	protected void decay()
+	{
+		// same as ScentHistory
+		total.decay(1.0 - decayRate * intervalSize, 0);
+	}
+}
@@ -1,37 +1,50 @@
 package ForagingModel.space;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Set;
 
-import org.apache.commons.math3.linear.ArrayRealVector;
 import org.apache.commons.math3.linear.RealMatrix;
 import org.apache.commons.math3.linear.RealVector;
 import org.apache.commons.math3.util.FastMath;
 
-import ForagingModel.core.GridPoint;
+import ForagingModel.core.Grid;
+import ForagingModel.core.GridTasks;
 import ForagingModel.core.MatrixUtils;
 import ForagingModel.core.NdPoint;
+import ForagingModel.core.Parameters;
 
 /**
  * This class implements a scent map. That is, a record of scent-leaving by all other
  * foragers that is repulsive. It is thus more of a physical memory than a cognitive
  * memory of the individual, but can take advantage of the existing memory machinery.
  * It is modeled closely on PredatorMemory.
+ * With a shared ScentField, the map only holds the scent this forager left, and the 
+ * scent of the others is the field less that.
  */
 public class ScentHistory extends AbstractMemory implements MemoryAssemblage
 {
-	private RealMatrix scentMatrix;
+	private static final long serialVersionUID = 339099708480770694L;
+
+	private DecayingGrid scentMatrix;
+	// null unless scent is shared, see ScentField
+	private ScentField scentField;
 
 	private double depositionRate; 
 	private double depositionSpatialScale;
 	private double decayRate;
 	private double scentResponseFactor; // what to multiply each angular value by so that threat is ~1 near predator and ~0 far away
 	private double intervalSize;
+	private double kernelTolerance;
 	
 	private int rows; 
 	private int columns;
 	private RealVector distanceFactor;
+	// null to sum every sample
+	private FarSamples farSamples;
+	// new deposit amount, D = beta.D / (2 * pi * gamma.D) * exp(-dist^2/gamma.D) 
+	private double depositionFactor;
+	// made when first depositing, along with what deposits the scent of a conspecific over the stencil's footprint
+	private transient KernelStencil depositionStencil;
+	private transient GridTasks.Rows depositRows;
 	
 	private final double MAX_SCENT_VALUE = 1.0;
 
@@ -40,19 +53,36 @@ public class ScentHistory extends AbstractMemory implements MemoryAssemblage
 			double depositionRate, double depositionSpatialScale, double decayRate, 
 			double scentSpatialScale, double scentResponseFactor,
             double intervalSize)
+	{
+		this(scentMatrix, null, angularProbabilityInfo, depositionRate, depositionSpatialScale, decayRate, 
+				scentSpatialScale, scentResponseFactor, intervalSize);
+	}
+
+	/**
+	 * @param scentField the scent of all the foragers, in which case scentMatrix is this forager's own, or null
+	 */
+	protected ScentHistory(RealMatrix scentMatrix, ScentField scentField,
+			AngularProbabilityInfo angularProbabilityInfo,
+			double depositionRate, double depositionSpatialScale, double decayRate, 
+			double scentSpatialScale, double scentResponseFactor,
+            double intervalSize)
 	{
 		super(angularProbabilityInfo);
-		this.scentMatrix = scentMatrix;
+		this.scentMatrix = new DecayingGrid(Grid.of(scentMatrix));
+		this.scentField = scentField;
 		this.depositionRate = depositionRate;
 		this.depositionSpatialScale = depositionSpatialScale;
 		this.decayRate = decayRate;
 		this.scentResponseFactor = scentResponseFactor;
 		this.intervalSize = intervalSize;
+		this.kernelTolerance = Parameters.get().getKernelTolerance();
+		this.depositionFactor = depositionRate / (2 * Math.PI * depositionSpatialScale) * intervalSize;
 		
 		rows =  scentMatrix.getRowDimension();
 		columns = scentMatrix.getColumnDimension();
 
 		distanceFactor = getExponentialDistanceFactor(scentSpatialScale);
+		farSamples = FarSamples.create(distanceFactor, angularProbabilityInfo.getSpacing(), Parameters.get().getMemoryFarTolerance());
 	}
 
 	@Override
@@ -69,40 +99,141 @@ public class ScentHistory extends AbstractMemory implements MemoryAssemblage
 	
 	public void depositScent(Set<NdPoint> conspecificLocations)
 	{
-		for (int row = 0; row < rows; row++)
+		double[] conspecificXs = new double[conspecificLocations.size()];
+		double[] conspecificYs = new double[conspecificLocations.size()];
+		int numConspecifics = 0;
+		for (NdPoint conspecific : conspecificLocations)
+		{
+			conspecificXs[numConspecifics] = conspecific.getX();
+			conspecificYs[numConspecifics] = conspecific.getY();
+			numConspecifics++;
+		}
+		depositScent(conspecificXs, conspecificYs, numConspecifics);
+	}
+	
+	/**
+	 * Leaves the scent of other foragers, allocating nothing so it can be called every interval for every forager.
+	 * @param conspecificXs the x coordinates of the other foragers
+	 * @param conspecificYs their y coordinates
+	 * @param numConspecifics the number of other foragers, the rest of the arrays are ignored
+	 */
+	public void depositScent(double[] conspecificXs, double[] conspecificYs, int numConspecifics)
+	{
+		if (scentField != null)
+		{
+			throw new UnsupportedOperationException("Shared scent is deposited by each forager with depositOwnScent().");
+		}
+		KernelStencil stencil = getDepositionStencil();
+		
+		// new deposit amount,D,  normal kernel, for each conspecific dist away 
+		// dDL <- beta.D * exp(-dist^2/gamma.D) / (2 * pi * gamma.D)
+		// each cell gets the conspecifics' deposits in the same order whichever the outer loop is
+		for (int i = 0; i < numConspecifics; i++)
 		{
-			for(int column = 0; column < columns; column++)
+			stencil.moveTo(conspecificXs[i], conspecificYs[i]);
+			scentMatrix.markChanged(stencil.getMinRow(), stencil.getMinColumn(), stencil.getMaxRow(), stencil.getMaxColumn());
+			GridTasks.forRows(stencil.getMinRow(), stencil.getMaxRow() + 1, stencil.getMaxColumn() - stencil.getMinColumn() + 1, depositRows);
+		}
+		
+		// a deposit adds at most depositionFactor of what is left below the maximum, so only goes over it if that is more than 1
+		if (depositionFactor > 1)
+		{
+			for (int i = 0; i < numConspecifics; i++)
 			{
-				GridPoint location = new GridPoint(row, column);
-				List<Double> distances = new ArrayList<Double>(conspecificLocations.size());
-				
-				for (NdPoint conspecific : conspecificLocations)
+				stencil.moveTo(conspecificXs[i], conspecificYs[i]);
+				for (int row = stencil.getMinRow(); row <= stencil.getMaxRow(); row++)
 				{
-					distances.add(SpaceUtils.getDistance(conspecific, location));
-					
+					for (int column = stencil.getMinColumn(); column <= stencil.getMaxColumn(); column++)
+					{
+						scentMatrix.set(row, column, FastMath.min(scentMatrix.get(row, column), MAX_SCENT_VALUE));
+					}
 				}
-				depositScent(row, column, distances);
 			}
 		}
+	}
 
+	/**
+	 * Leaves this forager's scent where it is, with a shared ScentField, in the same way as depositScent 
+	 * leaves it in the other foragers' maps.
+	 * @param location where the forager is
+	 */
+	public void depositOwnScent(NdPoint location)
+	{
+		KernelStencil stencil = getDepositionStencil();
+		stencil.moveTo(location);
+		scentMatrix.markChanged(stencil.getMinRow(), stencil.getMinColumn(), stencil.getMaxRow(), stencil.getMaxColumn());
+		for (int row = stencil.getMinRow(); row <= stencil.getMaxRow(); row++)
+		{
+			for (int column = stencil.getMinColumn(); column <= stencil.getMaxColumn(); column++)
+			{
+				double scent = scentMatrix.get(row, column);
+				double amount = depositionFactor * stencil.getWeight(row, column) * (MAX_SCENT_VALUE - scent);
+				if (scent + amount > MAX_SCENT_VALUE)
+				{
+					amount = MAX_SCENT_VALUE - scent;
+				}
+				scentMatrix.set(row, column, scent + amount);
+				scentField.add(row, column, amount);
+			}
+		}
 	}
 	
-	private void depositScent(int row, int column, List<Double> distances) 
+	private KernelStencil getDepositionStencil()
 	{
-		double scent = scentMatrix.getEntry(row, column);
-		
-
-		// new deposit amount,D,  normal kernel, for each conspecific dist away 
-		// dDL <- beta.D * exp(-dist^2/gamma.D) / (2 * pi * gamma.D)
-		for(Double distance : distances)
+		if (depositionStencil == null)
+		{
+			depositionStencil = new KernelStencil(depositionSpatialScale, kernelTolerance, rows, columns);
+			depositRows = new GridTasks.Rows()
+			{
+				@Override
+				public void run(int fromRow, int toRow)
+				{
+					for (int row = fromRow; row < toRow; row++)
+					{
+						for (int column = depositionStencil.getMinColumn(); column <= depositionStencil.getMaxColumn(); column++)
+						{
+							double scent = scentMatrix.get(row, column);
+							scent += depositionFactor * depositionStencil.getWeight(row, column) * (MAX_SCENT_VALUE - scent);
+							scentMatrix.set(row, column, scent);
+						}
+					}
+				}
+			};
+		}
+		return depositionStencil;
+	}
+	
+	/**
+	 * Gets the scent of the other foragers at a cell.
+	 */
+	protected double getScent(int row, int column)
+	{
+		double scent = scentMatrix.get(row, column);
+		if (scentField != null)
 		{
-			scent += depositionRate * Math.exp(-distance * distance / depositionSpatialScale) / 
-					(2 * Math.PI * depositionSpatialScale) * (MAX_SCENT_VALUE - scent) * intervalSize;
+			// the total less this forager's own, which can be a rounding error below 0
+			scent = FastMath.max(0, FastMath.min(scentField.get(row, column) - scent, MAX_SCENT_VALUE));
 		}
-		scent = (scent > MAX_SCENT_VALUE) ? MAX_SCENT_VALUE : scent;
-		scentMatrix.setEntry(row, column, scent);
+		return scent;
 	}
 
+	/**
+	 * Gets the mean scent of the other foragers over a block of cells, in the same way as getScent().
+	 */
+	private double getBlockScent(int level, int blockRow, int blockColumn)
+	{
+		double scent = scentMatrix.getBlockMean(level, blockRow, blockColumn);
+		if (scentField != null)
+		{
+			scent = FastMath.max(0, FastMath.min(scentField.getTotal().getBlockMean(level, blockRow, blockColumn) - scent, MAX_SCENT_VALUE));
+		}
+		return scent;
+	}
+	
+	private DecayingGrid[] getScentGrids()
+	{
+		return scentField == null ? new DecayingGrid[] { scentMatrix } : new DecayingGrid[] { scentMatrix, scentField.getTotal() };
+	}
 
 	@Override
 	public double[][] reportCurrentState(State state) 
@@ -111,7 +242,21 @@ public class ScentHistory extends AbstractMemory implements MemoryAssemblage
 		switch (state)
 		{
 		case Scent:
-			data = scentMatrix.getData();
+			if (scentField == null)
+			{
+				data = scentMatrix.getGrid().getData();
+			}
+			else
+			{
+				data = new double[rows][columns];
+				for (int row = 0; row < rows; row++)
+				{
+					for (int column = 0; column < columns; column++)
+					{
+						data[row][column] = getScent(row, column);
+					}
+				}
+			}
 			break;
 		case Resource:
 		case Predators:
@@ -135,67 +280,103 @@ public class ScentHistory extends AbstractMemory implements MemoryAssemblage
 	@Override
 	protected RealVector getAngularProbabilities(NdPoint currentLocation) 
 	{
-		// TODO this call updates probability cache, copying or else don't plot well but inefficient
-		RealVector probs = getConspecificSafety(currentLocation).copy();
-		MatrixUtils.normalize(probs);
-		return probs;
+		return getAngularProbabilities(currentLocation, new ProbabilitiesOfSums()
+		{
+			@Override
+			protected RealVector get(RealVector[] sums)
+			{
+				// TODO this call updates probability cache, copying or else don't plot well but inefficient
+				RealVector probs = getConspecificSafety(sums[0]).copy();
+				MatrixUtils.normalize(probs);
+				return probs;
+			}
+		}, getSafetySampleSum());
 	}
 
 	// this is called by ScentSexAggregateMemory for male attraction to females
 	protected RealVector getScentAttractionProbabilities(NdPoint currentLocation) 
 	{
-		// Needed for the case of males attracted to females
-		List<Double> angles = angProbInfo.getAngles();
-		RealVector probs = new ArrayRealVector(angles.size());
-
-		for (int angleIdx = 0; angleIdx < angles.size(); angleIdx++)
+		return getScentAttractionProbabilities(getAngularSums(currentLocation, getAttractionSampleSum())[0]);
+	}
+	
+	protected SampleSum getAttractionSampleSum()
+	{
+		return new FarSampleSum(angProbInfo, farSamples, getScentGrids())
 		{
-			List<GridPoint> samplePoints = angProbInfo.getSamplePoints(currentLocation, angles.get(angleIdx));
-			RealVector sampleValues = new ArrayRealVector(samplePoints.size());
-			
-			for (int pointIdx = 0; pointIdx < samplePoints.size(); pointIdx++)
+			@Override
+			protected double sum(int[] xs, int[] ys, int numSamples)
 			{
-				GridPoint point = samplePoints.get(pointIdx);
-				sampleValues.setEntry(pointIdx, 
-						scentMatrix.getEntry(point.getX(), point.getY()) * distanceFactor.getEntry(pointIdx));
+				double value = 0;
+				for (int pointIdx = 0; pointIdx < numSamples; pointIdx++)
+				{
+					value += getScent(xs[pointIdx], ys[pointIdx]) * distanceFactor.getEntry(pointIdx);
+				}
+				return value;
 			}
 			
-			probs.setEntry(angleIdx, MatrixUtils.sum(sampleValues)); 
-		}
-
+			@Override
+			protected double getBlockValue(int level, int blockRow, int blockColumn)
+			{
+				return getBlockScent(level, blockRow, blockColumn);
+			}
+		};
+	}
+	
+	/**
+	 * Gets the attraction probabilities from the sums of getAttractionSampleSum() for each angle.
+	 */
+	protected RealVector getScentAttractionProbabilities(RealVector probs)
+	{
+		// Needed for the case of males attracted to females
 		normalizeVector(probs);
 		// because this ScentHistory is shared amongst all males, the probability cache
 		// update takes place at the aggregate level
 		
 		return probs;
-
 	}
 	
 	// This is called by AggregateScentMemory to get the safety values to multiply resource memory
 	protected RealVector getConspecificSafety(NdPoint currentLocation) 
 	{
-		// TODO: could improve duplicated code from ResourceMemory and PredatorMemory?
-		List<Double> angles = angProbInfo.getAngles();
-		RealVector safety = new ArrayRealVector(angles.size());
-		
-		for (int angleIdx = 0; angleIdx < angles.size(); angleIdx++)
+		return getConspecificSafety(getAngularSums(currentLocation, getSafetySampleSum())[0]);
+	}
+	
+	protected SampleSum getSafetySampleSum()
+	{
+		return new FarSampleSum(angProbInfo, farSamples, getScentGrids())
 		{
-			List<GridPoint> samplePoints = angProbInfo.getSamplePoints(currentLocation, angles.get(angleIdx));
-			RealVector sampleValues = new ArrayRealVector(samplePoints.size());
-			
-			// value at location z = P(z) * exp(-distance(z, loc) * gamma.Z)
-			
-			// now multiply by memory value by distance factor (exponential part)
-			for (int pointIdx = 0; pointIdx < samplePoints.size(); pointIdx++)
+			@Override
+			protected double sum(int[] xs, int[] ys, int numSamples)
 			{
-				GridPoint point = samplePoints.get(pointIdx);
-				sampleValues.setEntry(pointIdx, 
-						scentMatrix.getEntry(point.getX(), point.getY()) * 
-							distanceFactor.getEntry(pointIdx) * scentResponseFactor);
+				double value = 0;
+				
+				// value at location z = P(z) * exp(-distance(z, loc) * gamma.Z)
+				
+				// now multiply by memory value by distance factor (exponential part)
+				for (int pointIdx = 0; pointIdx < numSamples; pointIdx++)
+				{
+					value += getScent(xs[pointIdx], ys[pointIdx]) * 
+								distanceFactor.getEntry(pointIdx) * scentResponseFactor;
+				}
+				return value;
 			}
 			
-			double value = MatrixUtils.sum(sampleValues); 			
-			safety.setEntry(angleIdx, FastMath.min(value, MAX_SCENT_VALUE)); 
+			@Override
+			protected double getBlockValue(int level, int blockRow, int blockColumn)
+			{
+				return getBlockScent(level, blockRow, blockColumn) * scentResponseFactor;
+			}
+		};
+	}
+	
+	/**
+	 * Gets the safety values from the sums of getSafetySampleSum() for each angle.
+	 */
+	protected RealVector getConspecificSafety(RealVector safety)
+	{
+		for (int angleIdx = 0; angleIdx < safety.getDimension(); angleIdx++)
+		{
+			safety.setEntry(angleIdx, FastMath.min(safety.getEntry(angleIdx), MAX_SCENT_VALUE)); 
 		}
 		
 		// this gives safety = 1 - threat (no longer a probability distribution)
@@ -208,14 +389,8 @@ public class ScentHistory extends AbstractMemory implements MemoryAssemblage
 	protected void decay()
 	{
 		// new = old - old * decayRate * intervalSize
-		double factor = 1.0 - decayRate * intervalSize;
-		for (int row = 0; row < rows; row++)
-		{
-			for (int column = 0; column < columns; column++)
-			{
-				scentMatrix.setEntry(row, column, scentMatrix.getEntry(row, column) * factor );
-			}
-		}
+		// a shared ScentField is decayed by its ScentManager
+		scentMatrix.decay(1.0 - decayRate * intervalSize, 0);
 	}
 
 
@@ -1,5 +1,7 @@
 package ForagingModel.space;
 
+import java.io.Serializable;
+
 import ForagingModel.schedule.Schedulable;
 
 /**
@@ -7,8 +9,10 @@ import ForagingModel.schedule.Schedulable;
  * specific forager. For example, the shared ScentHistory of all females used
  * jointly by all males.
  */
-public class ScentHistoryContainer implements Schedulable 
+public class ScentHistoryContainer implements Schedulable, Serializable 
 {
+	private static final long serialVersionUID = -7463031669180103498L;
+
 	private ScentHistory scentHistory;
 	
 	protected ScentHistoryContainer(ScentHistory scentHistory)
@@ -1,32 +1,62 @@
 package ForagingModel.space;
 
-import java.util.Set;
 import java.util.concurrent.Callable;
 
-import ForagingModel.core.NdPoint;
-
+/**
+ * Deposits the scent of the other foragers in a ScentHistory. Made once for each ScentHistory and given 
+ * the foragers' locations every interval, so depositing scent allocates nothing.
+ */
 public class ScentHistoryUpdater implements Callable<Void> 
 {
 	private ScentHistory scentHistoryToUpdate;
-	private Set<NdPoint> conspecificLocations;
+	private double[] conspecificXs;
+	private double[] conspecificYs;
+	private int numConspecifics;
 	
-	private ScentHistoryUpdater(ScentHistory scentHistoryToUpdate, Set<NdPoint> conspecificLocations)
+	private ScentHistoryUpdater(ScentHistory scentHistoryToUpdate)
 	{
 		this.scentHistoryToUpdate = scentHistoryToUpdate;
-		this.conspecificLocations = conspecificLocations;
+		this.conspecificXs = new double[0];
+		this.conspecificYs = new double[0];
+		this.numConspecifics = 0;
 	}
 	
-	protected static ScentHistoryUpdater create(ScentHistory scentHistoryToUpdate, Set<NdPoint> conspecificLocations)
+	protected static ScentHistoryUpdater create(ScentHistory scentHistoryToUpdate)
 	{
-		return new ScentHistoryUpdater(scentHistoryToUpdate, conspecificLocations);
+		return new ScentHistoryUpdater(scentHistoryToUpdate);
+	}
+	
+	/**
+	 * Sets the conspecifics to the foragers, except one.
+	 * @param xs the x coordinates of the foragers
+	 * @param ys their y coordinates
+	 * @param numForagers the number of foragers, the rest of the arrays are ignored
+	 * @param self the index of the forager whose scent this is, which isn't a conspecific, or -1 for none
+	 */
+	protected void setConspecifics(double[] xs, double[] ys, int numForagers, int self)
+	{
+		if (conspecificXs.length < numForagers)
+		{
+			conspecificXs = new double[numForagers];
+			conspecificYs = new double[numForagers];
+		}
+		numConspecifics = 0;
+		for (int i = 0; i < numForagers; i++)
+		{
+			if (i != self)
+			{
+				conspecificXs[numConspecifics] = xs[i];
+				conspecificYs[numConspecifics] = ys[i];
+				numConspecifics++;
+			}
+		}
 	}
 
 	@Override
-	public Void call() throws Exception 
+	public Void call()
 	{
-		scentHistoryToUpdate.depositScent(conspecificLocations);
+		scentHistoryToUpdate.depositScent(conspecificXs, conspecificYs, numConspecifics);
 		return null;
 	}
 
 }
-
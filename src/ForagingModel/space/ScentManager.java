@@ -1,12 +1,12 @@
 package ForagingModel.space;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -16,22 +16,53 @@ import ForagingModel.core.NdPoint;
 import ForagingModel.schedule.Schedulable;
 import ForagingModel.schedule.SchedulePriority;
 
-public class ScentManager implements Schedulable 
+public class ScentManager implements Schedulable, Serializable 
 {
+	private static final long serialVersionUID = 8664132713835157319L;
+
 	private LocationManager locManager;
 	private Map<Agent,ScentHistory> scentHistories;
-	private ExecutorService executor;
+	// null unless scent is shared, see ScentField
+	private ScentField scentField;
+	private int numThreads;
+	private transient ExecutorService executor;
+	// reused for depositing scent, in the order of scentHistories
+	private transient Agent[] agents;
+	private transient List<ScentHistoryUpdater> updaters;
+	private transient double[] foragerXs;
+	private transient double[] foragerYs;
+	private transient int[] foragerIndexes;
 	
 	private ScentHistory scentHistoryToAdd;
 	
 	protected ScentManager(LocationManager locationManager, int numThreads)
+	{
+		this(locationManager, null, numThreads);
+	}
+	
+	/**
+	 * @param scentField the scent of all the foragers, see ScentField, or null for each forager to keep the others' scent
+	 */
+	protected ScentManager(LocationManager locationManager, ScentField scentField, int numThreads)
 	{
 		this.locManager = locationManager;
-		this.scentHistories = new HashMap<Agent, ScentHistory>();
+		this.scentField = scentField;
+		this.scentHistories = new LinkedHashMap<Agent, ScentHistory>();
 		this.scentHistoryToAdd = null;
-		
-        this.executor = (ExecutorService) Executors.newFixedThreadPool(numThreads);
+		this.numThreads = numThreads;
+		this.executor = createExecutor();
+	}
 
+	private void readObject(ObjectInputStream in) throws ClassNotFoundException, IOException 
+	{
+		// restored from a checkpoint, threads are not part of the saved state
+		in.defaultReadObject();
+		executor = createExecutor();
+	}
+	
+	private ExecutorService createExecutor()
+	{
+		return Executors.newFixedThreadPool(numThreads);
 	}
 
 	@Override
@@ -40,7 +71,17 @@ public class ScentManager implements Schedulable
 		switch (SchedulePriority.fromValue(priority))
 		{
 		case ForagerDepositScent:
-			depositScent();
+			if (scentField == null)
+			{
+				depositScent();
+			}
+			else
+			{
+				depositSharedScent();
+			}
+			break;
+		case MemoryDecay:
+			scentField.decay();
 			break;
 		case Shutdown:
 			shutdown();
@@ -58,42 +99,84 @@ public class ScentManager implements Schedulable
 		// same ScentManager should deposit scent
 		// if there is a null key as well, this is where the "allFemales" ScentHistory
 		// is stored and should be updated by all females
+		if (updaters == null)
+		{
+			createUpdaters();
+		}
 
-		Set<Agent> keys = scentHistories.keySet();
-		Set<Agent> agents = scentHistories.keySet();
-		
-		// here is the list of tasks to give the thread pool
-		List<Callable<Void>> taskList = new ArrayList<Callable<Void>>();
-		
-		// first we're going to iterate the 
-		for (Agent key : keys)
+		// skip removed foragers (lifespan over), also skip null key
+		int numForagers = 0;
+		for (int i = 0; i < agents.length; i++)
 		{
-			ScentHistory scentsToUpdate = scentHistories.get(key);
-			Set<NdPoint> conspecifics = new HashSet<NdPoint>();
-			
-			for (Agent agent : agents)
+			foragerIndexes[i] = -1;
+			if (agents[i] != null && agents[i].isAlive())
 			{
-				// forager doesn't avoid own scent, also skip null key
-				// skip removed foragers (lifespan over)
-				if (agent != key && agent != null && agent.isAlive())
-				{
-					conspecifics.add(locManager.getLocation(agent));
-				}
+				NdPoint location = locManager.getLocation(agents[i]);
+				foragerXs[numForagers] = location.getX();
+				foragerYs[numForagers] = location.getY();
+				foragerIndexes[i] = numForagers;
+				numForagers++;
 			}
-			
-			taskList.add(ScentHistoryUpdater.create(scentsToUpdate, conspecifics));
-			//scentsToUpdate.depositScent(conspecifics);			
 		}
 		
+		// forager doesn't avoid own scent
+		for (int i = 0; i < agents.length; i++)
+		{
+			updaters.get(i).setConspecifics(foragerXs, foragerYs, numForagers, foragerIndexes[i]);
+		}
 		
-		try 
+		if (numThreads <= 1)
 		{
-            executor.invokeAll(taskList);
-        } catch (InterruptedException e) 
-        {
-            throw new ForagingModelException("Threading problems, oh no :|", e);
-        }
-
+			for (int i = 0; i < agents.length; i++)
+			{
+				updaters.get(i).call();
+			}
+		}
+		else
+		{
+			try 
+			{
+	            executor.invokeAll(updaters);
+	        } catch (InterruptedException e) 
+	        {
+	            throw new ForagingModelException("Threading problems, oh no :|", e);
+	        }
+		}
+	}
+	
+	/**
+	 * Makes what depositing scent reuses every interval, once all the foragers have been added.
+	 */
+	private void createUpdaters()
+	{
+		int numAgents = scentHistories.size();
+		agents = scentHistories.keySet().toArray(new Agent[numAgents]);
+		updaters = new ArrayList<ScentHistoryUpdater>(numAgents);
+		for (Agent agent : agents)
+		{
+			updaters.add(ScentHistoryUpdater.create(scentHistories.get(agent)));
+		}
+		foragerXs = new double[numAgents];
+		foragerYs = new double[numAgents];
+		foragerIndexes = new int[numAgents];
+	}
+	
+	private void depositSharedScent()
+	{
+		// each forager leaves its scent once, in its own map and the shared field,
+		// the null key ("allFemales") leaves none so smells all of it
+		for (Agent agent : scentHistories.keySet())
+		{
+			if (agent != null && agent.isAlive())
+			{
+				scentHistories.get(agent).depositOwnScent(locManager.getLocation(agent));
+			}
+		}
+	}
+	
+	protected ScentField getScentField()
+	{
+		return scentField;
 	}
 	
 	private void shutdown()
@@ -128,7 +211,8 @@ public class ScentManager implements Schedulable
 		}
 		
 		scentHistories.put(agent, scentHistoryToAdd);
-		scentHistoryToAdd = null;	
+		scentHistoryToAdd = null;
+		updaters = null;	
 	}
 	
 }
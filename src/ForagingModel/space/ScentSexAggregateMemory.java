@@ -16,6 +16,8 @@ import ForagingModel.core.NdPoint;
 public class ScentSexAggregateMemory extends AbstractMemory implements
 		MemoryAssemblage 
 {
+	private static final long serialVersionUID = 6488406069277146109L;
+
 	private ResourceMemory resourceMemory;
 	private ScentHistory scentHistory;
 	private ScentHistory femaleHistory;
@@ -82,9 +84,26 @@ public class ScentSexAggregateMemory extends AbstractMemory implements
 	@Override
 	protected RealVector getAngularProbabilities(NdPoint currentLocation) 
 	{
-		RealVector resourceProbs = resourceMemory.getAngularProbabilities(currentLocation);
-		RealVector conspecificSafety = scentHistory.getConspecificSafety(currentLocation);
-		RealVector femalesProbs = femaleHistory.getScentAttractionProbabilities(currentLocation);
+		// find the sample points of each angle once for all the memories
+		return getAngularProbabilities(currentLocation, new ProbabilitiesOfSums()
+		{
+			@Override
+			protected RealVector get(RealVector[] sums)
+			{
+				return getAngularProbabilities(sums);
+			}
+		}, resourceMemory.getSampleSum(), 
+				scentHistory.getSafetySampleSum(), femaleHistory.getAttractionSampleSum());
+	}
+	
+	/**
+	 * Combines resource, female scent and conspecific safety from the sums, in the order summed.
+	 */
+	private RealVector getAngularProbabilities(RealVector[] sums)
+	{
+		RealVector resourceProbs = resourceMemory.getAngularProbabilities(sums[0]);
+		RealVector conspecificSafety = scentHistory.getConspecificSafety(sums[1]);
+		RealVector femalesProbs = femaleHistory.getScentAttractionProbabilities(sums[2]);
 
 		// resource and scent already use same probCache, but need to save femaleProbs
 		probabilityCache.updateAttractiveScent(femalesProbs);
@@ -8,6 +8,8 @@ import ForagingModel.core.NdPoint;
 
 public class ScentSexHistory extends AbstractMemory implements MemoryAssemblage 
 {
+	private static final long serialVersionUID = -4688009705239118586L;
+
 	private ScentHistory scentHistory;
 	private ScentHistory femaleHistory;
 	
@@ -62,8 +64,24 @@ public class ScentSexHistory extends AbstractMemory implements MemoryAssemblage
 	@Override
 	protected RealVector getAngularProbabilities(NdPoint currentLocation) 
 	{
-		RealVector conspecificSafety = scentHistory.getConspecificSafety(currentLocation);
-		RealVector femalesProbs = femaleHistory.getScentAttractionProbabilities(currentLocation);
+		// find the sample points of each angle once for both scents
+		return getAngularProbabilities(currentLocation, new ProbabilitiesOfSums()
+		{
+			@Override
+			protected RealVector get(RealVector[] sums)
+			{
+				return getAngularProbabilities(sums);
+			}
+		}, scentHistory.getSafetySampleSum(), femaleHistory.getAttractionSampleSum());
+	}
+	
+	/**
+	 * Combines female attraction and conspecific safety from the sums of both scents.
+	 */
+	private RealVector getAngularProbabilities(RealVector[] sums)
+	{
+		RealVector conspecificSafety = scentHistory.getConspecificSafety(sums[0]);
+		RealVector femalesProbs = femaleHistory.getScentAttractionProbabilities(sums[1]);
 
 		// resource and scent already use same probCache, but need to save femaleProbs
 		probabilityCache.updateAttractiveScent(femalesProbs);
@@ -5,18 +5,20 @@ import java.util.Arrays;
 import java.util.List;
 
 import org.apache.commons.math3.distribution.NormalDistribution;
-import org.apache.commons.math3.linear.Array2DRowRealMatrix;
 import org.apache.commons.math3.linear.RealMatrix;
 
 import ForagingModel.agent.Agent;
 import ForagingModel.core.ForagingModelException;
+import ForagingModel.core.Grid;
 import ForagingModel.core.GridPoint;
 import ForagingModel.core.MatrixUtils;
 import ForagingModel.core.ModelEnvironment;
 import ForagingModel.core.NdPoint;
 import ForagingModel.core.NumberGenerator;
 import ForagingModel.core.Parameters;
+import ForagingModel.core.SimulationContext;
 import ForagingModel.input.CellData;
+import ForagingModel.input.Landscape;
 import ForagingModel.predator.PredatorManager;
 import ForagingModel.schedule.SchedulePriority;
 import ForagingModel.schedule.Scheduler;
@@ -25,8 +27,13 @@ public class SpaceFactory
 {
 	public static LocationManager createLocationManager()
 	{
-		return new LocationMangerImpl(Parameters.get().getMinDimension(), Parameters.get().getMinDimension(), 
-									  Parameters.get().getMaxDimensionX(), Parameters.get().getMaxDimensionY());
+		return createLocationManager(SimulationContext.current());
+	}
+
+	public static LocationManager createLocationManager(SimulationContext context)
+	{
+		return new LocationMangerImpl(context.getMinDimensionX(), context.getMinDimensionY(), 
+									  context.getMaxDimensionX(), context.getMaxDimensionY());
 	}
 
 	public static LocationManager createLocationManager(int landscapeSizeX, int landscapeSizeY)
@@ -44,12 +51,33 @@ public class SpaceFactory
 		return new ScentManager(locationManager, numThreads);
 	}
 
+	/**
+	 * Creates a scent manager, sharing one scent field between its foragers if ScentShared is set, 
+	 * in which case it also needs registering for MemoryDecay.
+	 */
+	public static ScentManager createScentManager(LocationManager locationManager, int numThreads, SimulationContext context)
+	{
+		ScentField scentField = null;
+		if (Parameters.get().getScentShared())
+		{
+			scentField = new ScentField(new Grid(context.getLandscapeSizeX(), context.getLandscapeSizeY()), 
+					Parameters.get().getScentDecayRate(), context.getIntervalSize());
+		}
+		return new ScentManager(locationManager, scentField, numThreads);
+	}
+
 	public static ResourceAssemblage generateResource(List<CellData> resourceData, Scheduler scheduler) 
 	{
 		RealMatrix resources = generateResourceMatrix(resourceData);
 		return createResourceAssemblage(resources, scheduler);
 	}
 
+	public static ResourceAssemblage generateResource(Landscape landscape, Scheduler scheduler) 
+	{
+		// percentiles are the same for every simulation, so are only worked out once per landscape
+		return createResourceAssemblage(landscape.createMatrix(), landscape.getNonZeroPercentiles(ResourceMatrix.NUM_PERCENTILES), scheduler);
+	}
+
 	public static ResourceAssemblage generateTwoPatchResource(Scheduler scheduler)
 	{
 		return SpaceFactory.generateTwoPatchResource(Parameters.get().getLandscapeSizeX(), Parameters.get().getLandscapeSizeY(), scheduler);
@@ -92,7 +120,16 @@ public class SpaceFactory
 	
 	protected static ResourceAssemblage createResourceAssemblage(RealMatrix resources, Scheduler scheduler)
 	{
-		ResourceAssemblage resourceAssemblage = new ResourceMatrix(resources, Parameters.get().getResourceRegenerationRate(), Parameters.get().getIntervalSize());
+		return createResourceAssemblage(resources, null, scheduler);
+	}
+
+	/**
+	 * @param nonZeroPercentiles the percentiles of the non-zero carrying capacities if already known, otherwise null
+	 */
+	protected static ResourceAssemblage createResourceAssemblage(RealMatrix resources, double[] nonZeroPercentiles, Scheduler scheduler)
+	{
+		ResourceAssemblage resourceAssemblage = new ResourceMatrix(resources, resources.copy(), Parameters.get().getResourceRegenerationRate(), 
+				Parameters.get().getIntervalSize(), nonZeroPercentiles);
 		scheduler.register(resourceAssemblage, SchedulePriority.ResourceGrow);
 		return resourceAssemblage;
 	}
@@ -147,11 +184,11 @@ public class SpaceFactory
 		}
 		
 		// now create the resource quality for each grid point
-		RealMatrix resources = new Array2DRowRealMatrix(maxXIdx + 1, maxYIdx + 1);
+		Grid resources = new Grid(maxXIdx + 1, maxYIdx + 1);
 		for (CellData data : resourceQuality)
 		{
 			double value = data.getCarryingCapacity();
-			resources.setEntry(data.getX(), data.getY(), value);
+			resources.set(data.getX(), data.getY(), value);
 		}
 		return resources;
 	}
@@ -167,6 +204,13 @@ public class SpaceFactory
 	public static MemoryAssemblage createMemoryAssemblage(ResourceAssemblage resources, 
 			PredatorManager predatorManager, ScentManager scentManager, ScentHistory femalesHistory,
 			Scheduler scheduler)
+	{
+		return createMemoryAssemblage(resources, predatorManager, scentManager, femalesHistory, scheduler, SimulationContext.current());
+	}
+
+	public static MemoryAssemblage createMemoryAssemblage(ResourceAssemblage resources, 
+			PredatorManager predatorManager, ScentManager scentManager, ScentHistory femalesHistory,
+			Scheduler scheduler, SimulationContext context)
 	{
 		// note that this might eventually get more complicated with different decision rules
 		// for now, no predators ==> create resource memory
@@ -174,24 +218,24 @@ public class SpaceFactory
 		// but no predators & scents ==> create scent aggregate memory for scent and resource
 		
 		MemoryAssemblage memory;
-		ResourceMemory resourceMemory = createResourceMemory(resources);
+		ResourceMemory resourceMemory = createResourceMemory(resources, context);
 		
 		if (Parameters.get().getPredation() && null != predatorManager && null == scentManager)
 		{
-			PredatorMemory predatorMemory = createPredatorMemory(predatorManager);
+			PredatorMemory predatorMemory = createPredatorMemory(predatorManager, context);
 			memory = createAggregateMemory(resourceMemory, predatorMemory);
 		}
 		else if (null != scentManager && null == femalesHistory && 
 				null == predatorManager && !Parameters.get().getPredation())
 		{
-			ScentHistory scentHistory = createScentHistory();
+			ScentHistory scentHistory = createScentHistory(context, scentManager.getScentField());
 			scentManager.add(scentHistory);
 			memory = createScentAggregateMemory(resourceMemory, scentHistory);
 		}
 		else if (null != scentManager && null != femalesHistory && 
 				null == predatorManager && !Parameters.get().getPredation())
 		{
-			ScentHistory scentHistory = createScentHistory();
+			ScentHistory scentHistory = createScentHistory(context, scentManager.getScentField());
 			scentManager.add(scentHistory);
 			memory = createScentSexAggregateMemory(resourceMemory, scentHistory, femalesHistory);
 		}
@@ -213,18 +257,25 @@ public class SpaceFactory
 	public static MemoryAssemblage createScentHistory(
 			ScentManager scentManager, ScentHistory femalesHistory,
 			Scheduler scheduler) 
+	{
+		return createScentHistory(scentManager, femalesHistory, scheduler, SimulationContext.current());
+	}
+
+	public static MemoryAssemblage createScentHistory(
+			ScentManager scentManager, ScentHistory femalesHistory,
+			Scheduler scheduler, SimulationContext context) 
 	{
 		MemoryAssemblage scent;
 		
 		if (null != scentManager && null == femalesHistory)
 		{
-			ScentHistory scentHistory = createScentHistory();
+			ScentHistory scentHistory = createScentHistory(context, scentManager.getScentField());
 			scentManager.add(scentHistory);
 			scent = scentHistory;
 		}
 		else if (null != scentManager && null != femalesHistory)
 		{
-			ScentHistory scentHistory = createScentHistory();
+			ScentHistory scentHistory = createScentHistory(context, scentManager.getScentField());
 			scentManager.add(scentHistory);
 			scent = createScentSexHistory(scentHistory, femalesHistory);
 		} 
@@ -243,22 +294,32 @@ public class SpaceFactory
 	
 	protected static ResourceMemory createResourceMemory(ResourceAssemblage resources)
 	{
-		return createResourceMemory(resources, Parameters.get().getIsFullyInformed());
+		return createResourceMemory(resources, SimulationContext.current());
+	}
+
+	protected static ResourceMemory createResourceMemory(ResourceAssemblage resources, SimulationContext context)
+	{
+		return createResourceMemory(resources, Parameters.get().getIsFullyInformed(), context);
 	}
 
 	protected static ResourceMemory createResourceMemory(ResourceAssemblage resources, boolean fullyInformed)
+	{
+		return createResourceMemory(resources, fullyInformed, SimulationContext.current());
+	}
+
+	protected static ResourceMemory createResourceMemory(ResourceAssemblage resources, boolean fullyInformed, SimulationContext context)
 	{
 		Parameters params = Parameters.get();
 		
 		RealMatrix initialMemoryValues = resources.getInitialMemory(fullyInformed, params.getMemoryValueUninformed());
 		ResourceMemory memory = (ResourceMemory) createResourceMemory(initialMemoryValues, resources, 
-				AngularProbabilityInfo.create(),
+				AngularProbabilityInfo.create(context),
 				params.getShortLearningRate(), params.getLongLearningRate(), 
 				params.getShortSpatialScale(), params.getLongSpatialScale(), 
 				params.getShortDecayRate(), params.getLongDecayRate(), 
 				params.getShortMemoryFactor(), params.getMemoryAlpha(), 
 				params.getMemorySpatialScaleForaging(), params.getMemoryValueUninformed(),
-				params.getIntervalSize());
+				context.getIntervalSize());
 		return memory;
 	}
 
@@ -274,13 +335,18 @@ public class SpaceFactory
 	}
 
 	protected static PredatorMemory createPredatorMemory(PredatorManager predators)
+	{
+		return createPredatorMemory(predators, SimulationContext.current());
+	}
+
+	protected static PredatorMemory createPredatorMemory(PredatorManager predators, SimulationContext context)
 	{
 		Parameters params = Parameters.get();
-		RealMatrix memories = new Array2DRowRealMatrix(params.getLandscapeSizeX(), params.getLandscapeSizeY());
-		PredatorMemory memory = createPredatorMemory(memories, predators, AngularProbabilityInfo.create(),
+		Grid memories = new Grid(context.getLandscapeSizeX(), context.getLandscapeSizeY());
+		PredatorMemory memory = createPredatorMemory(memories, predators, AngularProbabilityInfo.create(context),
 				params.getPredatorLearningRate(), params.getPredatorMemoryFactor(), 
 				params.getPredatorDecayRate(), params.getPredatorEncounterRadius(), 
-				params.getMemorySpatialScalePredation(), params.getIntervalSize());
+				params.getMemorySpatialScalePredation(), context.getIntervalSize());
 		return memory;
 	}
 	
@@ -295,13 +361,23 @@ public class SpaceFactory
 	}
 	
 	protected static ScentHistory createScentHistory()
+	{
+		return createScentHistory(SimulationContext.current());
+	}
+
+	protected static ScentHistory createScentHistory(SimulationContext context)
+	{
+		return createScentHistory(context, null);
+	}
+
+	protected static ScentHistory createScentHistory(SimulationContext context, ScentField scentField)
 	{
 		Parameters params = Parameters.get();
-		RealMatrix scentMatrix = new Array2DRowRealMatrix(params.getLandscapeSizeX(), params.getLandscapeSizeY());
-		ScentHistory scentHistory = createScentHistory(scentMatrix, 
-				AngularProbabilityInfo.create(), params.getScentDepositionRate(), params.getScentDepositionSpatialScale(),
+		Grid scentMatrix = new Grid(context.getLandscapeSizeX(), context.getLandscapeSizeY());
+		ScentHistory scentHistory = new ScentHistory(scentMatrix, scentField,
+				AngularProbabilityInfo.create(context), params.getScentDepositionRate(), params.getScentDepositionSpatialScale(),
 				params.getScentDecayRate(), params.getScentResponseSpatialScale(), 
-				params.getScentResponseFactor(), params.getIntervalSize());
+				params.getScentResponseFactor(), context.getIntervalSize());
 		return scentHistory;
 	}
 	
@@ -322,7 +398,12 @@ public class SpaceFactory
 	
 	public static ScentHistory createAllFemalesScentHistory(Scheduler scheduler, ScentManager manager)
 	{
-		ScentHistory allFemalesHistory = createScentHistory();
+		return createAllFemalesScentHistory(scheduler, manager, SimulationContext.current());
+	}
+	
+	public static ScentHistory createAllFemalesScentHistory(Scheduler scheduler, ScentManager manager, SimulationContext context)
+	{
+		ScentHistory allFemalesHistory = createScentHistory(context, manager.getScentField());
 		ScentHistoryContainer container = createScentHistoryContainer(allFemalesHistory);
 		manager.add(allFemalesHistory);
 		manager.add((Agent)null); // so will record all females
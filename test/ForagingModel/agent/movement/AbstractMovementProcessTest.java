@@ -10,10 +10,65 @@ import org.testng.annotations.Test;
 import ForagingModel.agent.movement.AbstractMovementProcess.AngleBounds;
 import ForagingModel.agent.movement.AbstractMovementProcess.Bounds;
 import ForagingModel.core.Angle;
+import ForagingModel.core.ModelEnvironment;
 import ForagingModel.core.NdPoint;
+import ForagingModel.core.NumberGenerator;
+import ForagingModel.core.TestUtilities;
+import ForagingModel.core.Velocity;
 
 public class AbstractMovementProcessTest 
 {
+	@Test
+	public void testOtherForagerDoesNotChangeAngles()
+	{
+		double[] alone = getFirstForagerAngles(false);
+		double[] withOther = getFirstForagerAngles(true);
+		for (int i = 0; i < alone.length; i++)
+		{
+			Assert.assertEquals(withOther[i], alone[i], "angle " + i);
+		}
+	}
+	
+	private double[] getFirstForagerAngles(boolean withOther)
+	{
+		NumberGenerator simulation = TestUtilities.createGenerator(7);
+		NumberGenerator previous = ModelEnvironment.swapNumberGenerator(simulation);
+		try
+		{
+			// each forager's movement is made with its own stream current, as AgentFactory does
+			ModelEnvironment.swapNumberGenerator(simulation.split());
+			AbstractMovementProcessHelper first = new AbstractMovementProcessHelper();
+			DestinationStraightProcess firstStraight = new DestinationStraightProcess(1, 1, Velocity.create(1, 0), 0, 0, 50, 50, 1);
+			AbstractMovementProcessHelper other = null;
+			DestinationStraightProcess otherStraight = null;
+			if (withOther)
+			{
+				ModelEnvironment.swapNumberGenerator(simulation.split());
+				other = new AbstractMovementProcessHelper();
+				otherStraight = new DestinationStraightProcess(1, 1, Velocity.create(1, 0), 0, 0, 50, 50, 1);
+			}
+			ModelEnvironment.swapNumberGenerator(simulation);
+			
+			double[] angles = new double[100];
+			for (int i = 0; i < angles.length; i += 2)
+			{
+				if (withOther)
+				{
+					other.getNewRandomAngle(Bounds.Top);
+					otherStraight.setDestination(null, new NdPoint(25, 25));
+				}
+				angles[i] = first.getNewRandomAngle(Bounds.Bottom).get();
+				firstStraight.setDestination(null, new NdPoint(25, 25));
+				angles[i + 1] = firstStraight.currentVelocity.arg();
+			}
+			return angles;
+		}
+		finally
+		{
+			ModelEnvironment.swapNumberGenerator(previous);
+		}
+	}
+	
 	@Test
 	public void testGetNewRandomAngleRegular()
 	{
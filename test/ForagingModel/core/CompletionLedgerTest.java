@@ -0,0 +1,73 @@
+package ForagingModel.core;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class CompletionLedgerTest
+{
+	@Test
+	public void testRecordAndReload() throws IOException
+	{
+		File results = File.createTempFile("CompletionLedgerTest", ".csv");
+		File ledgerFile = new File(results.getAbsolutePath().replace(".csv", CompletionLedger.LEDGER_FILE_APPENDAGE));
+		
+		CompletionLedger ledger = CoreFactory.createCompletionLedger(results);
+		Assert.assertFalse(ledger.isComplete(3, "abc"), "nothing complete yet");
+		ledger.recordComplete(3, "abc", 42);
+		ledger.recordComplete(7, "def", 43);
+		Assert.assertTrue(ledger.isComplete(3, "abc"), "recorded");
+		
+		// crash while writing leaves a partial line
+		FileWriter writer = new FileWriter(ledgerFile, true);
+		writer.write("9,gh");
+		writer.close();
+		
+		CompletionLedger reloaded = CoreFactory.createCompletionLedger(results);
+		Assert.assertEquals(reloaded.getNumCompleted(), 2, "partial line ignored");
+		Assert.assertTrue(reloaded.isComplete(3, "abc"), "complete after reload");
+		Assert.assertTrue(reloaded.isComplete(7, "def"), "complete after reload");
+		Assert.assertFalse(reloaded.isComplete(7, "xyz"), "parameters changed");
+		Assert.assertFalse(reloaded.isComplete(9, "gh"), "partial line not complete");
+		
+		reloaded.recordComplete(10, "ijk", 44);
+		reloaded = CoreFactory.createCompletionLedger(results);
+		Assert.assertTrue(reloaded.isComplete(10, "ijk"), "recorded after partial line");
+		
+		// a partial index mustn't run on into the next line's index
+		writer = new FileWriter(ledgerFile, true);
+		writer.write("9");
+		writer.close();
+		reloaded = CoreFactory.createCompletionLedger(results);
+		reloaded.recordComplete(11, "lmn", 45);
+		reloaded = CoreFactory.createCompletionLedger(results);
+		Assert.assertEquals(reloaded.getNumCompleted(), 4, "partial lines removed");
+		Assert.assertTrue(reloaded.isComplete(11, "lmn"), "recorded after partial index");
+		Assert.assertFalse(reloaded.isComplete(911, "lmn"), "not run on from partial index");
+		
+		ledgerFile.delete();
+		results.delete();
+	}
+
+	@Test
+	public void testRemoveResultsOfSimulationsToRun() throws IOException
+	{
+		File results = File.createTempFile("CompletionLedgerTest", ".csv");
+		FileWriter writer = new FileWriter(results);
+		// 2 crashed after writing its results, 5 ran with other parameters
+		writer.write("SimulationIndex,A\n0,a\n2,c\n5,e\n");
+		writer.close();
+		
+		CompletionLedger ledger = CoreFactory.createCompletionLedger(results);
+		ledger.removeResults(new HashSet<Integer>(Arrays.asList(2, 5, 6)));
+		Assert.assertEquals(org.apache.commons.io.FileUtils.readLines(results), Arrays.asList("SimulationIndex,A", "0,a"), 
+				"rows of simulations to run removed");
+		
+		results.delete();
+	}
+}
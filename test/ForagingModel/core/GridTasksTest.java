@@ -0,0 +1,92 @@
+package ForagingModel.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class GridTasksTest
+{
+	@Test
+	public void testSmallGridSerial()
+	{
+		final Thread caller = Thread.currentThread();
+		final AtomicInteger numCalls = new AtomicInteger();
+		GridTasks.forRows(0, 50, 50, new GridTasks.Rows()
+		{
+			@Override
+			public void run(int fromRow, int toRow)
+			{
+				Assert.assertEquals(Thread.currentThread(), caller, "calling thread");
+				Assert.assertEquals(fromRow, 0, "all rows");
+				Assert.assertEquals(toRow, 50, "all rows");
+				numCalls.incrementAndGet();
+			}
+		});
+		Assert.assertEquals(numCalls.get(), 1, "one call");
+		Assert.assertEquals(GridTasks.getBlocks(0, 50, 50).length, 2, "one block");
+	}
+
+	@Test
+	public void testEveryRowOnce()
+	{
+		final int[] timesRun = new int[1000];
+		GridTasks.forRows(0, 1000, 1000, new GridTasks.Rows()
+		{
+			@Override
+			public void run(int fromRow, int toRow)
+			{
+				for (int row = fromRow; row < toRow; row++)
+				{
+					timesRun[row]++;
+				}
+			}
+		});
+		for (int row = 0; row < 1000; row++)
+		{
+			Assert.assertEquals(timesRun[row], 1, "row " + row);
+		}
+	}
+
+	@Test
+	public void testBlocks()
+	{
+		int[] blocks = GridTasks.getBlocks(10, 510, 500);
+		Assert.assertEquals(blocks[0], 10, "first row");
+		Assert.assertEquals(blocks[blocks.length - 1], 510, "past last row");
+		Assert.assertTrue(blocks.length > 2, "split");
+		for (int block = 0; block < blocks.length - 1; block++)
+		{
+			Assert.assertTrue(blocks[block + 1] > blocks[block], "block " + block + " not empty");
+		}
+
+		Assert.assertEquals(GridTasks.getBlocks(5, 5, 500).length, 2, "no rows");
+	}
+
+	@Test
+	public void testSumInBlockOrder()
+	{
+		final Grid grid = Grid.of(TestUtilities.createRandomMatrix(500, 300));
+		GridTasks.RowsSum rowsSum = new GridTasks.RowsSum()
+		{
+			@Override
+			public double sum(int fromRow, int toRow)
+			{
+				return grid.view(fromRow, 0, toRow - fromRow, grid.getColumnDimension()).sum();
+			}
+		};
+
+		int[] blocks = GridTasks.getBlocks(0, 500, 300);
+		double expected = 0;
+		for (int block = 0; block < blocks.length - 1; block++)
+		{
+			expected += rowsSum.sum(blocks[block], blocks[block + 1]);
+		}
+
+		for (int i = 0; i < 10; i++)
+		{
+			Assert.assertEquals(GridTasks.sumRows(0, 500, 300, rowsSum), expected, "same sum every time");
+		}
+		Assert.assertEquals(expected, grid.sum(), 1e-9, "sum of grid");
+	}
+}
@@ -0,0 +1,120 @@
+package ForagingModel.core;
+
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class GridTest
+{
+	@Test
+	public void testSameAsMatrix()
+	{
+		RealMatrix matrix = TestUtilities.createRandomMatrix(7, 11);
+		Array2DRowRealMatrix expected = new Array2DRowRealMatrix(matrix.getData());
+		Grid grid = new Grid(matrix.getData());
+
+		Assert.assertEquals(grid.getRowDimension(), 7, "rows");
+		Assert.assertEquals(grid.getColumnDimension(), 11, "columns");
+		Assert.assertEquals(grid, expected, "same cells");
+		Assert.assertEquals(grid.sum(), MatrixUtils.sum(expected), "same sum, summed in the same order");
+		Assert.assertEquals(grid.max(), MatrixUtils.max(expected), "same max");
+		Assert.assertEquals(grid.cardinality(), MatrixUtils.cardinality(expected), "same cardinality");
+
+		double[] values = new double[7 * 11];
+		Grid rowMajor = new Grid(7, 11, values);
+		values[11 * 2 + 3] = 5;
+		Assert.assertEquals(rowMajor.get(2, 3), 5.0, "row major");
+		rowMajor.set(6, 10, 7);
+		Assert.assertEquals(values[7 * 11 - 1], 7.0, "values not copied");
+	}
+
+	@Test
+	public void testOf()
+	{
+		Grid grid = new Grid(3, 4);
+		Assert.assertSame(Grid.of(grid), grid, "grid not copied");
+
+		RealMatrix matrix = new Array2DRowRealMatrix(TestUtilities.createRandomMatrix(3, 4).getData());
+		Grid wrapped = Grid.of(matrix);
+		Assert.assertEquals(wrapped, matrix, "same cells");
+		Assert.assertEquals(wrapped.sum(), MatrixUtils.sum(matrix), "same sum");
+		wrapped.set(0, 0, 100);
+		Assert.assertEquals(matrix.getEntry(0, 0), 100.0, "matrix changed");
+		matrix.setEntry(2, 3, 50);
+		Assert.assertEquals(wrapped.get(2, 3), 50.0, "matrix changes seen");
+		Assert.assertEquals(Grid.of(matrix).get(0, 0), 100.0, "each wrapping shares the cells");
+
+		Grid view = wrapped.view(1, 1, 2, 3);
+		view.fill(0);
+		Assert.assertEquals(matrix.getEntry(1, 1), 0.0, "view of matrix changes it");
+		Assert.assertEquals(matrix.getEntry(0, 0), 100.0, "outside view unchanged");
+		Assert.assertEquals(view.get(1, 2), 0.0, "view cells");
+		Grid copy = wrapped.copy();
+		copy.set(0, 0, 1);
+		Assert.assertEquals(matrix.getEntry(0, 0), 100.0, "copy is separate");
+	}
+
+	@Test
+	public void testView()
+	{
+		Grid grid = new Grid(5, 6);
+		grid.fill(1);
+		Grid view = grid.view(1, 2, 3, 2);
+
+		Assert.assertEquals(view.getRowDimension(), 3, "view rows");
+		Assert.assertEquals(view.getColumnDimension(), 2, "view columns");
+
+		view.fill(2);
+		Assert.assertEquals(grid.get(1, 2), 2.0, "view shares cells");
+		Assert.assertEquals(grid.get(3, 3), 2.0, "view shares cells");
+		Assert.assertEquals(grid.get(0, 2), 1.0, "outside view unchanged");
+		Assert.assertEquals(grid.get(1, 4), 1.0, "outside view unchanged");
+		Assert.assertEquals(grid.sum(), 36.0, "sum of grid");
+		Assert.assertEquals(view.sum(), 12.0, "sum of view");
+
+		grid.set(2, 3, 5);
+		Assert.assertEquals(view.get(1, 1), 5.0, "grid changes seen in view");
+		Assert.assertEquals(view.max(), 5.0, "max of view");
+
+		Grid copy = view.copy();
+		Assert.assertEquals(copy, view, "copy has same cells");
+		copy.set(0, 0, 9);
+		Assert.assertEquals(grid.get(1, 2), 2.0, "copy not a view");
+	}
+
+	@Test
+	public void testViewOutside()
+	{
+		try
+		{
+			new Grid(5, 6).view(3, 0, 3, 6);
+			Assert.fail("view outside grid");
+		}
+		catch (IllegalArgumentException expected) {}
+	}
+
+	@Test
+	public void testEntryChecked()
+	{
+		Grid grid = new Grid(2, 2);
+		try
+		{
+			grid.getEntry(0, 2);
+			Assert.fail("column outside grid");
+		}
+		catch (OutOfRangeException expected) {}
+	}
+
+	@Test
+	public void testScale()
+	{
+		Grid grid = new Grid(new double[][] {{ 1, 2 }, { 3, 4 }});
+		Grid product = grid.scalarMultiply(2);
+		grid.scale(0.5);
+
+		Assert.assertEquals(product, new Grid(new double[][] {{ 2, 4 }, { 6, 8 }}), "scalar multiply");
+		Assert.assertEquals(grid, new Grid(new double[][] {{ 0.5, 1 }, { 1.5, 2 }}), "scaled in place");
+	}
+}
@@ -128,5 +128,46 @@ public class ParameterManagerTest
 		}
 	}
 	
+	@Test
+	public void testPlanMatchesIteration() throws Exception
+	{
+		URI fileName = ClassLoader.getSystemResource( "ForagingModel/core/referencemulti.properties" ).toURI();
+		ParameterManager pm = CoreFactory.createParameterManager( fileName.getPath() );
+		SimulationPlan plan = pm.createPlan();
+		Parameters planned = Parameters.get().copy();
+		
+		Assert.assertEquals( plan.getNumCombinations(), 4 );
+		int i = 0;
+		for ( Parameters parameters : pm )
+		{
+			plan.getCombination( i ).apply( planned );
+			Assert.assertEquals( planned.getShortSpatialScale(), parameters.getShortSpatialScale() );
+			Assert.assertEquals( planned.getLongSpatialScale(), parameters.getLongSpatialScale() );
+			Assert.assertEquals( planned.getMovementType(), parameters.getMovementType() );
+			i++;
+		}
+		Assert.assertEquals( i, plan.getNumCombinations() );
+	}
+	
+	@Test
+	public void testPlanLeavesOutInvalid() throws Exception
+	{
+		URI fileName = ClassLoader.getSystemResource( "ForagingModel/core/test2multi.properties" ).toURI();
+		ParameterManager pm = CoreFactory.createParameterManager( fileName.getPath() );
+		Parameters.get().set( Parameters.Parameter.RepeatSimulation, 2 );
+		SimulationPlan plan = pm.createPlan();
+		
+		// short decay has to be more than long decay: 0.1 > 0.05, 0.005 and 0.01 > 0.005
+		Assert.assertEquals( plan.getNumCombinations(), 9 );
+		Assert.assertEquals( plan.getNumSimulations(), 18 );
+		Assert.assertEquals( plan.getNumValidCombinations(), 3 );
+		Assert.assertEquals( plan.getNumValidSimulations(), 6 );
+		
+		Assert.assertFalse( plan.getCombination( 0 ).isValid(), "0.1 and 0.5" );
+		Assert.assertTrue( plan.getCombination( 1 ).isValid(), "0.1 and 0.05" );
+		Assert.assertTrue( plan.getCombinationForSimulation( 11 ).isValid(), "0.01 and 0.005" );
+		Assert.assertEquals( plan.getCombinationForSimulation( 11 ).getValues().get( Parameters.Parameter.ShortDecayRate ), "0.01" );
+	}
+	
 	
 }
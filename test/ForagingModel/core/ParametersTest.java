@@ -12,6 +12,7 @@ public class ParametersTest
 	@AfterMethod
 	public void resetParameters()
 	{
+		Parameters.clearForCurrentThread();
 		Parameters.resetToDefaults();
 	}
 	
@@ -65,4 +66,35 @@ public class ParametersTest
 		
 		Assert.assertTrue(parameters.areParametersValid(), "Short equal to long but both 1 (no memory)");
 }
+	
+	@Test
+	public void testCopyForCurrentThread()
+	{
+		Parameters shared = Parameters.get();
+		shared.set( Parameter.IntervalSize, 2.0 );
+		
+		Parameters copy = shared.copy();
+		Parameters.setForCurrentThread(copy);
+		Assert.assertSame(Parameters.get(), copy, "thread uses its copy");
+		Assert.assertEquals(Parameters.get().getIntervalSize(), 2.0, "copy has shared values");
+		
+		Parameters.get().set( Parameter.IntervalSize, 3.0 );
+		Assert.assertEquals(shared.getIntervalSize(), 2.0, "shared not changed by copy");
+		
+		Parameters.clearForCurrentThread();
+		Assert.assertSame(Parameters.get(), shared, "back to shared after clear");
+	}
+	
+	@Test
+	public void testParameterHash()
+	{
+		Parameters parameters = Parameters.get();
+		String hash = parameters.getParameterHash();
+		
+		parameters.setResultsFileName("other.csv");
+		Assert.assertEquals(parameters.getParameterHash(), hash, "output file doesn't matter");
+		
+		parameters.set( Parameter.IntervalSize, 2.0 );
+		Assert.assertNotEquals(parameters.getParameterHash(), hash, "parameter changed");
+	}
 }
@@ -1,5 +1,8 @@
 package ForagingModel.core;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import org.apache.commons.math3.linear.ArrayRealVector;
 import org.apache.commons.math3.linear.RealVector;
 import org.testng.Assert;
@@ -50,4 +53,37 @@ public class RandomGeneratorTest
 
 	}
 
+	@Test
+	public void testSplitIsReproducible()
+	{
+		NumberGenerator split1 = RandomGenerator.create(42).split();
+		NumberGenerator split2 = RandomGenerator.create(42).split();
+		NumberGenerator unsplit = RandomGenerator.create(42);
+		
+		boolean differsFromParent = false;
+		for (int i = 0; i < 100; i++)
+		{
+			double value = split1.nextDouble();
+			Assert.assertEquals(split2.nextDouble(), value, "same seed splits the same stream");
+			differsFromParent |= (value != unsplit.nextDouble());
+		}
+		Assert.assertTrue(differsFromParent, "split stream is not the parent's");
+	}
+	
+	@Test
+	public void testSimulationSeedsDependOnlyOnIndex()
+	{
+		Set<Integer> seeds = new HashSet<Integer>();
+		for (int index = 0; index < 100; index++)
+		{
+			for (int attempt = 0; attempt < 3; attempt++)
+			{
+				seeds.add(ModelEnvironment.createSimulationSeed(1234L, index, attempt));
+			}
+		}
+		Assert.assertEquals(seeds.size(), 300, "seed for every simulation and retry distinct");
+		Assert.assertEquals(ModelEnvironment.createSimulationSeed(1234L, 57, 1), ModelEnvironment.createSimulationSeed(1234L, 57, 1), "same seed however it's run");
+		Assert.assertNotEquals(ModelEnvironment.createSimulationSeed(1235L, 57, 1), ModelEnvironment.createSimulationSeed(1234L, 57, 1), "sweep seed changes simulation seeds");
+	}
+
 }
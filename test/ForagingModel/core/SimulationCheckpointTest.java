@@ -0,0 +1,98 @@
+package ForagingModel.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.List;
+
+import org.apache.commons.io.FilenameUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import ForagingModel.agent.Reporter.SummaryMetric;
+import ForagingModel.core.Parameters.Parameter;
+
+public class SimulationCheckpointTest
+{
+	private final String RESULTS_FILE_NAME = "SimulationCheckpointTest.csv";
+
+	@BeforeMethod
+	public void setDefaultParameters()
+	{
+		ModelEnvironment.clearForCurrentThread();
+		Parameters.clearForCurrentThread();
+		Parameters.resetToDefaults();
+	}
+
+	@AfterMethod
+	public void resetParameters() throws IOException
+	{
+		File results = Parameters.get().getResultsFile();
+		results.delete();
+		org.apache.commons.io.FileUtils.deleteDirectory(new File(FilenameUtils.removeExtension(results.getAbsolutePath())));
+
+		ModelEnvironment.clearForCurrentThread();
+		Parameters.resetToDefaults();
+	}
+
+	@Test
+	public void testRestoreContinuesIdentically() throws IOException, ParseException
+	{
+		Parameters params = Parameters.get();
+		params.setResultsFileName(RESULTS_FILE_NAME);
+		params.set(Parameter.NumSteps, 60);
+		params.set(Parameter.ForagerNumber, 2);
+		params.set(Parameter.StartPointsType, "Random");
+		params.set(Parameter.ScentTracking, "true");
+		params.set(Parameter.CreateRandomSeed, "false");
+
+		ModelEnvironment.setSimulationIndex(0);
+		ModelEnvironment.resetGenerator();
+		SimulationCheckpoint checkpoint = CoreFactory.createSimulationCheckpoint(params.getResultsFile(), 0, 25);
+		new ModelBuilder().build(checkpoint).run();
+		Assert.assertTrue(checkpoint.exists(), "checkpoint written at interval 50");
+
+		// as if killed after the checkpoint
+		ModelEnvironment.clearForCurrentThread();
+		ModelEnvironment.setSimulationIndex(0);
+		Model restored = CoreFactory.createSimulationCheckpoint(params.getResultsFile(), 0, 25).restore();
+		Assert.assertNotNull(restored, "checkpoint for the same parameters");
+		restored.run();
+
+		// header, then a row for the uninterrupted and the restored simulation
+		List<String> results = org.apache.commons.io.FileUtils.readLines(params.getResultsFile());
+		Assert.assertEquals(results.size(), 3);
+		String[] header = results.get(0).split(",");
+		String[] uninterrupted = results.get(1).split(",");
+		String[] restoredResults = results.get(2).split(",");
+		for (int i = 0; i < header.length; i++)
+		{
+			if (!header[i].contains(SummaryMetric.ExecutionTime.name()))
+			{
+				Assert.assertEquals(restoredResults[i], uninterrupted[i], "restored simulation continues exactly the same: " + header[i]);
+			}
+		}
+
+		checkpoint.delete();
+		Assert.assertFalse(checkpoint.exists(), "deleted");
+	}
+
+	@Test
+	public void testRestoreWithOtherParameters() throws IOException
+	{
+		Parameters params = Parameters.get();
+		params.setResultsFileName(RESULTS_FILE_NAME);
+		params.set(Parameter.NumSteps, 20);
+
+		ModelEnvironment.resetGenerator();
+		SimulationCheckpoint checkpoint = CoreFactory.createSimulationCheckpoint(params.getResultsFile(), 0, 10);
+		new ModelBuilder().build(checkpoint).run();
+
+		params.set(Parameter.ShortDecayRate, 0.5);
+		Assert.assertNull(checkpoint.restore(), "parameters changed");
+
+		checkpoint.delete();
+	}
+}
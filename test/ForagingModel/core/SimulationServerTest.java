@@ -0,0 +1,55 @@
+package ForagingModel.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class SimulationServerTest
+{
+	@Test
+	public void testRunsQueuedJobsThenStops() throws IOException
+	{
+		File jobDirectory = Files.createTempDirectory("SimulationServerTest").toFile();
+		File first = new File(jobDirectory, "first" + SimulationServer.JOB_EXTENSION);
+		File second = new File(jobDirectory, "second" + SimulationServer.JOB_EXTENSION);
+		File interrupted = new File(jobDirectory, "interrupted" + SimulationServer.JOB_EXTENSION + SimulationServer.RUNNING_EXTENSION);
+		first.createNewFile();
+		second.createNewFile();
+		interrupted.createNewFile();
+		first.setLastModified(1000);
+		second.setLastModified(2000);
+		interrupted.setLastModified(3000);
+		new File(jobDirectory, SimulationServer.STOP_FILE_NAME).createNewFile();
+		
+		final List<String> jobsRun = new ArrayList<String>();
+		SimulationServer server = CoreFactory.createSimulationServer(jobDirectory, new SimulationServer.JobRunner()
+		{
+			@Override
+			public boolean run(File propertiesFile)
+			{
+				Assert.assertTrue(propertiesFile.exists(), "job renamed while running");
+				jobsRun.add(propertiesFile.getName());
+				if (propertiesFile.getName().startsWith("second"))
+				{
+					throw new ForagingModelException("bad job");
+				}
+				return true;
+			}
+		});
+		server.serve();
+		
+		Assert.assertEquals(jobsRun.size(), 3, "all jobs run before stopping");
+		Assert.assertEquals(jobsRun.get(0), "first.properties.running", "oldest first");
+		Assert.assertEquals(jobsRun.get(2), "interrupted.properties.running", "interrupted job run again");
+		Assert.assertTrue(new File(first.getPath() + SimulationServer.DONE_EXTENSION).exists(), "first done");
+		Assert.assertTrue(new File(second.getPath() + SimulationServer.FAILED_EXTENSION).exists(), "second failed");
+		Assert.assertFalse(new File(jobDirectory, SimulationServer.STOP_FILE_NAME).exists(), "stop removed");
+		
+		org.apache.commons.io.FileUtils.deleteDirectory(jobDirectory);
+	}
+}
@@ -30,6 +30,8 @@ public class TestUtilities
 
 	public static void injectMockGenerator(NumberGenerator generator)
 	{
+		// streams split off for foragers and the scheduler come from the mock too
+		Mockito.when(generator.split()).thenReturn(generator);
 		ModelEnvironment.setNumberGenerator(generator);
 	}
 	
@@ -38,6 +40,12 @@ public class TestUtilities
 		ModelEnvironment.resetGenerator();
 	}
 	
+	public static NumberGenerator createGenerator(long seed)
+	{
+		// a stream of its own, so a test doesn't depend on what ran before it
+		return ForagingModel.core.RandomGenerator.create(seed);
+	}
+	
 	public static void setGeneratorToNormalAlwaysReturnsZero()
 	{
 		NumberGenerator generator = Mockito.mock(NumberGenerator.class);
@@ -0,0 +1,74 @@
+package ForagingModel.input;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class BinaryLandscapeFormatTest 
+{
+	@Test
+	public void testWriteAndRead() throws URISyntaxException, IOException
+	{
+		File csvFile = new File(ClassLoader.getSystemResource("ForagingModel/input/testResource.csv").toURI());
+		Landscape csvLandscape = InputFactory.createResourceLandscapeReader().readCsvLandscape(csvFile);
+		
+		File binaryFile = File.createTempFile("BinaryLandscapeFormatTest", "." + BinaryLandscapeFormat.EXTENSION);
+		BinaryLandscapeFormat.write(csvLandscape, binaryFile, false);
+		Landscape binaryLandscape = InputFactory.createResourceLandscapeReader().readLandscape(binaryFile);
+		
+		Assert.assertEquals(binaryLandscape.getSizeX(), 2, "Landscape size");
+		Assert.assertEquals(binaryLandscape.getSizeY(), 2, "Landscape size");
+		for (int x = 0; x < 2; x++)
+		{
+			for (int y = 0; y < 2; y++)
+			{
+				Assert.assertEquals(binaryLandscape.getCarryingCapacity(x, y), csvLandscape.getCarryingCapacity(x, y), "same as CSV");
+			}
+		}
+		Assert.assertEquals(binaryLandscape.getNonZeroPercentiles(4), csvLandscape.getNonZeroPercentiles(4), "percentiles from header");
+		Assert.assertEquals(binaryLandscape.withEmptyBorder(1).getCarryingCapacity(2, 2), 0.699, "bordered");
+		
+		BinaryLandscapeFormat.write(csvLandscape, binaryFile, true);
+		Landscape floatLandscape = BinaryLandscapeFormat.read(binaryFile);
+		Assert.assertEquals(floatLandscape.getCarryingCapacity(1, 0), 0.001, 1e-9, "float close to CSV");
+		Assert.assertEquals(binaryFile.length(), 6 * 4 + 4 * 8 + 4 * 4, "floats take 4 bytes");
+		
+		binaryFile.delete();
+	}
+	
+	@Test
+	public void testConvertedFileReadInstead() throws URISyntaxException, IOException
+	{
+		File csvFile = File.createTempFile("BinaryLandscapeFormatTest", ".csv");
+		org.apache.commons.io.FileUtils.copyFile(new File(ClassLoader.getSystemResource("ForagingModel/input/testResource.csv").toURI()), csvFile);
+		File binaryFile = BinaryLandscapeFormat.getBinaryFile(csvFile);
+		
+		Assert.assertTrue(new LandscapeConverter(false, false).convert(csvFile), "converted");
+		Assert.assertTrue(binaryFile.exists(), "next to CSV file");
+		Assert.assertFalse(new LandscapeConverter(false, false).convert(csvFile), "already converted");
+		
+		// prove the binary file is read by making it differ from the CSV file
+		Landscape changed = new Landscape(2, 2, new double[] { 1, 2, 3, 4 });
+		BinaryLandscapeFormat.write(changed, binaryFile, false);
+		Assert.assertEquals(InputFactory.createResourceLandscapeReader().readLandscape(csvFile).getCarryingCapacity(1, 1), 4.0, "binary read");
+		
+		BinaryLandscapeFormat.write(changed, binaryFile, true);
+		Assert.assertEquals(InputFactory.createResourceLandscapeReader().readLandscape(csvFile).getCarryingCapacity(1, 1), 0.699, "floats not read in place of CSV");
+		Landscape floatLandscape = InputFactory.createResourceLandscapeReader().readLandscape(binaryFile);
+		Assert.assertTrue(floatLandscape.isFloat(), "floats read when named");
+		Assert.assertEquals(floatLandscape.getCarryingCapacity(1, 1), 4.0, "floats read when named");
+		
+		BinaryLandscapeFormat.write(new Landscape(1, 4, new double[] { 1, 2, 3, 4 }), binaryFile, false);
+		Assert.assertEquals(InputFactory.createResourceLandscapeReader().readLandscape(csvFile).getCarryingCapacity(1, 1), 0.699, "different size not read in place of CSV");
+		
+		BinaryLandscapeFormat.write(changed, binaryFile, false);
+		csvFile.setLastModified(binaryFile.lastModified() + 2000);
+		Assert.assertEquals(InputFactory.createResourceLandscapeReader().readLandscape(csvFile).getCarryingCapacity(1, 1), 0.699, "CSV changed since converted");
+		
+		csvFile.delete();
+		binaryFile.delete();
+	}
+}
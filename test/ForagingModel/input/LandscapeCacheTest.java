@@ -0,0 +1,83 @@
+package ForagingModel.input;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.net.URISyntaxException;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class LandscapeCacheTest 
+{
+	@Test
+	public void testReadOnce() throws URISyntaxException
+	{
+		File inputFile = new File(ClassLoader.getSystemResource("ForagingModel/input/testResource.csv").toURI());
+		LandscapeCache cache = InputFactory.createLandscapeCache(Long.MAX_VALUE);
+		
+		Landscape landscape = cache.getLandscape(inputFile, 0);
+		Assert.assertEquals(landscape.getSizeX(), 2, "Landscape size");
+		Assert.assertEquals(landscape.getCarryingCapacity(1, 0), 0.001, "x=1, y=0, K=0.001");
+		Assert.assertSame(cache.getLandscape(inputFile, 0), landscape, "not read again");
+		
+		Landscape bordered = cache.getLandscape(inputFile, 1);
+		Assert.assertEquals(bordered.getSizeX(), 4, "Landscape size with border");
+		Assert.assertEquals(bordered.getSizeY(), 4, "Landscape size with border");
+		Assert.assertEquals(bordered.getCarryingCapacity(0, 0), 0.0, "border");
+		Assert.assertEquals(bordered.getCarryingCapacity(2, 2), 0.699, "file x=1, y=1, K=0.699");
+		Assert.assertEquals(bordered.getCarryingCapacity(3, 2), 0.0, "border");
+		Assert.assertSame(cache.getLandscape(inputFile, 1), bordered, "bordered kept too");
+		Assert.assertEquals(cache.getNumLandscapes(), 2, "with and without border");
+		
+		Assert.assertNull(cache.getLandscape(new File(""), 0), "no file");
+	}
+	
+	@Test
+	public void testLeastRecentlyUsedDropped() throws IOException
+	{
+		File first = writeLandscape("1,2\n0.1,0.2\n0.3,0.4\n");
+		File second = writeLandscape("1,2\n0.5,0.6\n0.7,0.8\n");
+		Landscape firstLandscape = InputFactory.createResourceLandscapeReader().readLandscape(first);
+		
+		// room for three of these, or one of these and one with a border
+		long maxBytes = 3 * firstLandscape.getSizeInBytes();
+		LandscapeCache cache = InputFactory.createLandscapeCache(maxBytes);
+		Landscape cachedFirst = cache.getLandscape(first, 0);
+		cache.getLandscape(second, 0);
+		Assert.assertSame(cache.getLandscape(first, 0), cachedFirst, "both fit");
+		
+		cache.getLandscape(second, 1);
+		Assert.assertEquals(cache.getNumLandscapes(), 2, "one dropped");
+		Assert.assertNotSame(cache.getLandscape(first, 0), cachedFirst, "least recently used was dropped");
+		Assert.assertTrue(cache.getSizeInBytes() <= maxBytes, "within bound");
+		
+		first.delete();
+		second.delete();
+	}
+	
+	@Test
+	public void testChangedFileReadAgain() throws IOException
+	{
+		File file = writeLandscape("1,2\n0.1,0.2\n0.3,0.4\n");
+		LandscapeCache cache = InputFactory.createLandscapeCache(Long.MAX_VALUE);
+		Assert.assertEquals(cache.getLandscape(file, 0).getCarryingCapacity(0, 0), 0.1, "original");
+
+		FileWriter writer = new FileWriter(file);
+		writer.write("1,2\n0.9,0.2\n0.3,0.4\n");
+		writer.close();
+		file.setLastModified(file.lastModified() + 2000);
+		Assert.assertEquals(cache.getLandscape(file, 0).getCarryingCapacity(0, 0), 0.9, "changed");
+		
+		file.delete();
+	}
+	
+	private File writeLandscape(String contents) throws IOException
+	{
+		File file = File.createTempFile("LandscapeCacheTest", ".csv");
+		FileWriter writer = new FileWriter(file);
+		writer.write(contents);
+		writer.close();
+		return file;
+	}
+}
@@ -0,0 +1,121 @@
+package ForagingModel.output;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import ForagingModel.core.ForagingModelException;
+
+public class ResultsMergerTest
+{
+	@Test
+	public void testGetShardFileName()
+	{
+		Assert.assertEquals(ResultsMerger.getShardFileName("results.csv", 0, 4), "results-shard0of4.csv");
+		Assert.assertEquals(ResultsMerger.getShardFileName("results", 3, 4), "results-shard3of4");
+	}
+
+	@Test
+	public void testMerge() throws IOException
+	{
+		File folder = createTempFolder();
+		File results = new File(folder, "results.csv");
+		String[] header = new String[] { "SimulationIndex", "A" };
+
+		// shard 0 of 2 runs the even simulations, shard 1 the odd
+		FileUtils.writeToFile(Arrays.asList(header, new String[] { "0", "a" }, new String[] { "2", "c" }, new String[] { "10", "k" }),
+				new File(folder, ResultsMerger.getShardFileName("results.csv", 0, 2)), false);
+		FileUtils.writeToFile(Arrays.asList(header, new String[] { "1", "b" }, new String[] { "3", "d" }),
+				new File(folder, ResultsMerger.getShardFileName("results.csv", 1, 2)), false);
+		// not a shard of this sweep
+		FileUtils.writeToFile(Arrays.asList(header, new String[] { "5", "x" }), new File(folder, "other-shard0of2.csv"), false);
+		// left from the sweep split differently
+		FileUtils.writeToFile(Arrays.asList(header, new String[] { "7", "y" }), 
+				new File(folder, ResultsMerger.getShardFileName("results.csv", 2, 3)), false);
+
+		File shardTracks = new File(folder, "results-shard1of2");
+		shardTracks.mkdirs();
+		FileUtils.writeToFile(new String[] { "id" }, new File(shardTracks, "Tracks1.csv"), false);
+
+		OutputFactory.createResultsMerger(results, 2).merge();
+
+		List<String> lines = org.apache.commons.io.FileUtils.readLines(results);
+		Assert.assertEquals(lines, Arrays.asList("SimulationIndex,A", "0,a", "1,b", "2,c", "3,d", "10,k"), "ordered by simulation index");
+		Assert.assertTrue(new File(new File(folder, "results"), "Tracks1.csv").exists(), "tracks copied");
+
+		org.apache.commons.io.FileUtils.deleteDirectory(folder);
+	}
+
+	@Test
+	public void testMissingShard() throws IOException
+	{
+		File folder = createTempFolder();
+		File results = new File(folder, "results.csv");
+		String[] header = new String[] { "SimulationIndex", "A" };
+		FileUtils.writeToFile(Arrays.asList(header, new String[] { "0", "a" }),
+				new File(folder, ResultsMerger.getShardFileName("results.csv", 0, 3)), false);
+		FileUtils.writeToFile(Arrays.asList(header, new String[] { "2", "c" }),
+				new File(folder, ResultsMerger.getShardFileName("results.csv", 2, 3)), false);
+
+		try
+		{
+			OutputFactory.createResultsMerger(results, 3).merge();
+			Assert.fail("shard 1 missing");
+		}
+		catch (ForagingModelException expected)
+		{
+			Assert.assertTrue(expected.getMessage().contains("shard 1 of 3"), expected.getMessage());
+		}
+		Assert.assertFalse(results.exists(), "nothing merged");
+
+		org.apache.commons.io.FileUtils.deleteDirectory(folder);
+	}
+
+	@Test
+	public void testMergeEmptyShards() throws IOException
+	{
+		File folder = createTempFolder();
+		File results = new File(folder, "results.csv");
+		String[] header = new String[] { "SimulationIndex", "A" };
+		// shard 0 ran nothing, so its results file is empty, and shard 2's simulations were all skipped
+		new File(folder, ResultsMerger.getShardFileName("results.csv", 0, 3)).createNewFile();
+		FileUtils.writeToFile(Arrays.asList(header, new String[] { "1", "b" }),
+				new File(folder, ResultsMerger.getShardFileName("results.csv", 1, 3)), false);
+		FileUtils.writeToFile(header, new File(folder, ResultsMerger.getShardFileName("results.csv", 2, 3)), false);
+
+		OutputFactory.createResultsMerger(results, 3).merge();
+
+		List<String> lines = org.apache.commons.io.FileUtils.readLines(results);
+		Assert.assertEquals(lines, Arrays.asList("SimulationIndex,A", "1,b"), "empty shards add nothing");
+
+		org.apache.commons.io.FileUtils.deleteDirectory(folder);
+	}
+
+	@Test
+	public void testMergeAllShardsEmpty() throws IOException
+	{
+		File folder = createTempFolder();
+		File results = new File(folder, "results.csv");
+		new File(folder, ResultsMerger.getShardFileName("results.csv", 0, 2)).createNewFile();
+		new File(folder, ResultsMerger.getShardFileName("results.csv", 1, 2)).createNewFile();
+
+		OutputFactory.createResultsMerger(results, 2).merge();
+
+		Assert.assertTrue(results.exists(), "merged");
+		Assert.assertEquals(results.length(), 0L, "no results");
+
+		org.apache.commons.io.FileUtils.deleteDirectory(folder);
+	}
+
+	private File createTempFolder() throws IOException
+	{
+		File folder = File.createTempFile("ResultsMergerTest", "");
+		folder.delete();
+		folder.mkdirs();
+		return folder;
+	}
+}
@@ -0,0 +1,73 @@
+package ForagingModel.predator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import ForagingModel.core.ModelEnvironment.PredatorParamKey;
+import ForagingModel.core.NdPoint;
+
+public class PredatorCacheFileTest 
+{
+	private final PredatorParamKey keyA = new PredatorParamKey("land A", 10, 90, 0.5, 100);
+	private final PredatorParamKey keyB = new PredatorParamKey("land B", 10, 90, 0.5, 100);
+	private final List<Predator> predatorsA = Arrays.asList(Predator.create(3, 10, new NdPoint(1.5, 2.5)), Predator.create(40, 10, new NdPoint(7, 8)));
+	private final List<Predator> predatorsB = Arrays.asList(Predator.create(0, 10, new NdPoint(0.25, 0.75)));
+
+	@Test
+	public void testAppendAndRead() throws IOException
+	{
+		File file = createEmptyFile();
+		PredatorCacheFile cache = PredatorFactory.createPredatorCacheFile(file);
+		Assert.assertNull(cache.read(keyA), "nothing yet");
+		
+		Assert.assertEquals(cache.append(keyA, predatorsA), predatorsA, "appended");
+		Assert.assertEquals(cache.read(keyA), predatorsA, "read back");
+		Assert.assertNull(cache.read(keyB), "other key");
+		
+		// another process appending is seen
+		PredatorCacheFile otherProcess = PredatorFactory.createPredatorCacheFile(file);
+		Assert.assertEquals(otherProcess.append(keyA, predatorsB), predatorsA, "first predators for a key are kept");
+		otherProcess.append(keyB, predatorsB);
+		Assert.assertEquals(cache.read(keyB), predatorsB, "appended by other");
+		Assert.assertEquals(cache.getKeys().size(), 2, "both keys");
+		
+		file.delete();
+	}
+	
+	@Test
+	public void testIncompleteRecordIgnored() throws IOException
+	{
+		File file = createEmptyFile();
+		PredatorFactory.createPredatorCacheFile(file).append(keyA, predatorsA);
+		PredatorFactory.createPredatorCacheFile(file).append(keyB, predatorsB);
+		long withB = file.length();
+		
+		// as if the process appending B died part way
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		raf.setLength(file.length() - 3);
+		raf.close();
+		
+		PredatorCacheFile cache = PredatorFactory.createPredatorCacheFile(file);
+		Assert.assertEquals(cache.read(keyA), predatorsA, "complete record");
+		Assert.assertNull(cache.read(keyB), "incomplete record");
+		
+		cache.append(keyB, predatorsB);
+		Assert.assertEquals(PredatorFactory.createPredatorCacheFile(file).read(keyB), predatorsB, "appended again after incomplete removed");
+		Assert.assertEquals(file.length(), withB, "one record each");
+		
+		file.delete();
+	}
+	
+	private File createEmptyFile() throws IOException
+	{
+		File file = File.createTempFile("PredatorCacheFileTest", ".bin");
+		file.delete();
+		return file;
+	}
+}
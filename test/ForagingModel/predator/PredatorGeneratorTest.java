@@ -6,8 +6,11 @@ import org.testng.annotations.AfterMethod;
 import org.testng.annotations.Test;
 
 import ForagingModel.core.GridPoint;
+import ForagingModel.core.ModelEnvironment;
+import ForagingModel.core.ModelEnvironment.PredatorParamKey;
 import ForagingModel.core.NdPoint;
 import ForagingModel.core.NumberGenerator;
+import ForagingModel.core.Parameters;
 import ForagingModel.core.TestUtilities;
 import ForagingModel.space.ResourceAssemblage;
 
@@ -29,7 +32,6 @@ public class PredatorGeneratorTest
 		Mockito.when(numGenerator.nextIntFromTo(Mockito.anyInt(), Mockito.anyInt())).thenReturn((long) 0);
 		// prob
 		Mockito.when(numGenerator.nextDouble()).thenReturn(0.6);
-		TestUtilities.injectMockGenerator(numGenerator);
 
 		ResourceAssemblage resources = Mockito.mock(ResourceAssemblage.class);
 		Mockito.when(resources.getAverageQuality()).thenReturn(0.2);
@@ -39,7 +41,7 @@ public class PredatorGeneratorTest
 		int total = 100;
 		
 		PredatorGenerator generator = new PredatorGenerator(resources, "testCreatePredator", duration, tradeoff, total);
-		Predator predator = generator.createPredator();
+		Predator predator = generator.createPredator(numGenerator);
 		
 		Assert.assertEquals(predator.isActive(0), true, "start is 0");
 		Assert.assertEquals(predator.isActive(duration - 1), true, "stop is 10");
@@ -83,4 +85,23 @@ public class PredatorGeneratorTest
 		Assert.assertEquals(manager2, new PredatorGenerator(resources, "PredatorCache land B", 10, 0, 100).generatePredators(), "same 2");
 		Assert.assertEquals(manager3, new PredatorGenerator(resources, "PredatorCache land A", 100, 0, 100).generatePredators(), "same 3");
 	}
+	
+	@Test
+	public void testPredatorsDependOnlyOnKey()
+	{
+		ResourceAssemblage resources = Mockito.mock(ResourceAssemblage.class);
+		Mockito.when(resources.getAverageQuality()).thenReturn(0.2);
+		Mockito.when(resources.getIntrinsicQuality(Mockito.any(GridPoint.class))).thenReturn(0.4);
+		int duration = 10;
+		PredatorParamKey key = new PredatorParamKey("DependOnlyOnKey land", duration, Parameters.get().getNumIntervals() - duration, 0.5, 100);
+
+		PredatorManager manager = new PredatorGenerator(resources, "DependOnlyOnKey land", duration, 0.5, 100).generatePredators();
+		
+		// generate again, as if by another process after its simulations used some random numbers
+		ModelEnvironment.getPredatorCache().remove(key);
+		ModelEnvironment.getNumberGenerator().nextDouble();
+		PredatorManager regenerated = new PredatorGenerator(resources, "DependOnlyOnKey land", duration, 0.5, 100).generatePredators();
+		
+		Assert.assertEquals(regenerated.getAllPredators(), manager.getAllPredators(), "same predators");
+	}
 }
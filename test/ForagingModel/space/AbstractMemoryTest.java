@@ -1,11 +1,15 @@
 package ForagingModel.space;
 
+import java.text.ParseException;
+
+import org.apache.commons.math3.analysis.function.Exp;
 import org.apache.commons.math3.linear.Array2DRowRealMatrix;
 import org.apache.commons.math3.linear.ArrayRealVector;
 import org.apache.commons.math3.linear.RealMatrix;
 import org.apache.commons.math3.linear.RealVector;
 import org.mockito.Mockito;
 import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
@@ -14,12 +18,20 @@ import ForagingModel.agent.movement.MovementFactoryTestHelper;
 import ForagingModel.core.Angle;
 import ForagingModel.core.DirectionProbabalistic;
 import ForagingModel.core.DirectionProbabilityInfo;
+import ForagingModel.core.Grid;
 import ForagingModel.core.MatrixUtils;
 import ForagingModel.core.NdPoint;
+import ForagingModel.core.Parameters;
+import ForagingModel.core.Parameters.Parameter;
 import ForagingModel.predator.PredatorManager;
 
 public class AbstractMemoryTest 
 {
+	@AfterMethod
+	public void resetParameters()
+	{
+		Parameters.resetToDefaults();
+	}
 
 	@Test(dataProvider = "angles")
 	public void testGetRandomAngleInSector(int sectorIdx, int numSectors, double lowerLim, double upperLim)
@@ -230,6 +242,96 @@ public class AbstractMemoryTest
 
  	}
 	
+	@Test
+	public void testAngularSumsOncePerAngle()
+	{
+		AngularProbabilityInfo angProbInfo = Mockito.spy(AngularProbabilityInfo.create());
+		AngularProbabilityInfo sameInfo = AngularProbabilityInfo.create();
+		AngularProbabilityInfo otherInfo = AngularProbabilityInfo.create(10, 1, 8);
+		NdPoint location = new NdPoint(20.3, 31.6);
+		int numAngles = angProbInfo.getAngles().size();
+
+		RealVector[] sums = AngularSums.sum(location, 
+				createSampleSum(angProbInfo, 1), createSampleSum(otherInfo, 2), createSampleSum(sameInfo, 3));
+		
+		Mockito.verify(angProbInfo, Mockito.times(numAngles)).getSampleCells(Mockito.eq(location), Mockito.anyInt(), 
+				Mockito.any(int[].class), Mockito.any(int[].class), Mockito.anyInt());
+		Assert.assertEquals(sums[0], AngularSums.sum(location, createSampleSum(sameInfo, 1))[0], "first layer");
+		Assert.assertEquals(sums[1], AngularSums.sum(location, createSampleSum(otherInfo, 2))[0], "layer sampled differently");
+		Assert.assertEquals(sums[2], AngularSums.sum(location, createSampleSum(sameInfo, 3))[0], "layer sampled the same");
+		Assert.assertEquals(sums[1].getDimension(), 8, "angles of layer sampled differently");
+	}
+	
+	@Test
+	public void testRefineLikelySectors() throws ParseException
+	{
+		Parameters.get().set(Parameter.MemoryRefineThreshold, "0.05");
+		AngularProbabilityInfo angProbInfo = AngularProbabilityInfo.create();
+		AbstractMemory memory = new AbstractMemoryHelper(angProbInfo);
+		DecayingGrid grid = new DecayingGrid(new Grid(50, 50));
+		NdPoint location = new NdPoint(25.5, 25.5);
+		AbstractMemory.ProbabilitiesOfSums exponential = new AbstractMemory.ProbabilitiesOfSums()
+		{
+			@Override
+			protected RealVector get(RealVector[] sums)
+			{
+				RealVector probs = sums[0].map(new Exp());
+				MatrixUtils.normalize(probs);
+				return probs;
+			}
+		};
+		
+		CountingSum sum = new CountingSum(angProbInfo, grid);
+		RealVector probs = memory.getAngularProbabilities(location, exponential, sum);
+		Assert.assertEquals(sum.getNumSums(), 36, "flat, only coarse sectors");
+		Assert.assertEquals(probs, new ArrayRealVector(360, 1.0 / 360), "flat, uniform");
+		
+		// a patch to the east, angles near 0
+		for (int row = 40; row < 45; row++)
+		{
+			for (int column = 20; column < 31; column++)
+			{
+				grid.set(row, column, 10);
+			}
+		}
+		sum = new CountingSum(angProbInfo, grid);
+		probs = memory.getAngularProbabilities(location, exponential, sum);
+		RealVector exact = exponential.get(AngularSums.sum(location, new CountingSum(angProbInfo, grid)));
+		Assert.assertTrue(sum.getNumSums() > 36 && sum.getNumSums() < 100, "only likely sectors refined: " + sum.getNumSums());
+		Assert.assertEquals(probs.getL1Norm(), 1, 1e-12, "probabilities");
+		Assert.assertEquals(probs.getMaxIndex(), exact.getMaxIndex(), "most likely angle");
+		for (int angleIdx = 0; angleIdx < 10; angleIdx++)
+		{
+			// the same up to the normalization in a refined sector
+			Assert.assertEquals(probs.getEntry(angleIdx) / probs.getEntry(5), exact.getEntry(angleIdx) / exact.getEntry(5), 1e-9, 
+					"refined angle " + angleIdx);
+			Assert.assertEquals(probs.getEntry(180 + angleIdx), probs.getEntry(185), "unrefined angle " + angleIdx);
+		}
+		
+		Parameters.get().set(Parameter.MemoryRefineThreshold, "0");
+		sum = new CountingSum(angProbInfo, grid);
+		probs = new AbstractMemoryHelper(angProbInfo).getAngularProbabilities(location, exponential, sum);
+		Assert.assertEquals(sum.getNumSums(), 360, "every angle");
+		Assert.assertEquals(probs, exact, "exact");
+	}
+	
+	private AbstractMemory.SampleSum createSampleSum(AngularProbabilityInfo angProbInfo, final double weight)
+	{
+		return new AbstractMemory.SampleSum(angProbInfo)
+		{
+			@Override
+			protected double sum(int[] xs, int[] ys, int numSamples)
+			{
+				double value = 0;
+				for (int pointIdx = 0; pointIdx < numSamples; pointIdx++)
+				{
+					value += (xs[pointIdx] + 100 * ys[pointIdx]) * weight / (pointIdx + 1);
+				}
+				return value;
+			}
+		};
+	}
+	
 	private void verifyDirectionProbabilityInfo(DirectionProbabilityInfo info, Angle angle, RealVector resourceProb, RealVector predProb, RealVector aggProb)
 	{
 		Assert.assertEquals(info.angle(), angle, "angle");
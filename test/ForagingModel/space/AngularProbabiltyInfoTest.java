@@ -144,6 +144,67 @@ public class AngularProbabiltyInfoTest
 
 	}
 	
+	@Test
+	public void testGetSampleCellsSameAsSamplePoints()
+	{
+		AngularProbabilityInfo apInfo = AngularProbabilityInfo.create();
+		List<Double> angles = apInfo.getAngles();
+		int[] xs = new int[apInfo.getNumPoints()];
+		int[] ys = new int[apInfo.getNumPoints()];
+
+		for (NdPoint location : Arrays.asList(new NdPoint(25.1, 25.2), new NdPoint(0.3, 49.9), new NdPoint(10, 40.5)))
+		{
+			for (int i = 0; i < angles.size(); i++)
+			{
+				List<GridPoint> expected = apInfo.getSamplePoints(location, angles.get(i));
+				int numSamples = apInfo.getSampleCells(location, i, xs, ys);
+
+				Assert.assertEquals(numSamples, expected.size(), "number of points, angle " + i);
+				for (int j = 0; j < numSamples; j++)
+				{
+					Assert.assertEquals(new GridPoint(xs[j], ys[j]), expected.get(j), "point " + j + ", angle " + i);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testSamplesMayBeInBlock()
+	{
+		AngularProbabilityInfo apInfo = AngularProbabilityInfo.create();
+		int numAngles = apInfo.getAngles().size();
+		int[] xs = new int[apInfo.getNumPoints()];
+		int[] ys = new int[apInfo.getNumPoints()];
+		NumberGenerator generator = TestUtilities.createGenerator(172);
+		
+		for (int i = 0; i < 200; i++)
+		{
+			NdPoint location = new NdPoint(generator.nextDoubleFromTo(0, 50), generator.nextDoubleFromTo(0, 50));
+			int minX = (int) generator.nextIntFromTo(0, 49);
+			int minY = (int) generator.nextIntFromTo(0, 49);
+			int maxX = minX + (int) generator.nextIntFromTo(0, 3);
+			int maxY = minY + (int) generator.nextIntFromTo(0, 3);
+			int numMaybe = 0;
+			
+			for (int angleIdx = 0; angleIdx < numAngles; angleIdx++)
+			{
+				boolean inBlock = false;
+				int numSamples = apInfo.getSampleCells(location, angleIdx, xs, ys);
+				for (int j = 0; j < numSamples; j++)
+				{
+					inBlock |= xs[j] >= minX && xs[j] <= maxX && ys[j] >= minY && ys[j] <= maxY;
+				}
+				boolean mayBeIn = apInfo.samplesMayBeIn(location, angleIdx, minX, minY, maxX, maxY);
+				Assert.assertTrue(mayBeIn || !inBlock, "samples in block missed, angle " + angleIdx + " from " + location);
+				numMaybe += mayBeIn ? 1 : 0;
+			}
+			// from in or right by the block every angle may be in it
+			boolean near = location.getX() >= minX - 1 && location.getX() <= maxX + 2 
+					&& location.getY() >= minY - 1 && location.getY() <= maxY + 2;
+			Assert.assertTrue(near || numMaybe < numAngles, "not every angle");
+		}
+	}
+
 	// this is the old version of get sample points to comparison test with that created too many NdPoints
 	private List<GridPoint> getSamplePoints(NdPoint location, double angle, int numPoints, RealVector distances) 
 	{
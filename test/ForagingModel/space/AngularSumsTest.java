@@ -0,0 +1,173 @@
+package ForagingModel.space;
+
+import org.apache.commons.math3.analysis.function.Exp;
+import org.apache.commons.math3.linear.RealVector;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import ForagingModel.core.Grid;
+import ForagingModel.core.NdPoint;
+import ForagingModel.core.NumberGenerator;
+import ForagingModel.core.TestUtilities;
+
+public class AngularSumsTest
+{
+	private final int size = 50;
+
+	@Test
+	public void testSameAsSummingAgain()
+	{
+		AngularProbabilityInfo angProbInfo = AngularProbabilityInfo.create();
+		DecayingGrid grid = new DecayingGrid(Grid.of(TestUtilities.createRandomMatrix(size, size)));
+		AngularSums cache = new AngularSums();
+		NumberGenerator generator = TestUtilities.createGenerator(23);
+		NdPoint location = new NdPoint(20.3, 31.6);
+
+		for (int step = 0; step < 20; step++)
+		{
+			if (step % 7 == 6)
+			{
+				grid.decay(0.9, 0.1);
+			}
+			else if (step % 3 == 2)
+			{
+				location = new NdPoint(generator.nextDoubleFromTo(0, size), generator.nextDoubleFromTo(0, size));
+			}
+			else
+			{
+				// learning a block of cells
+				int row = (int) generator.nextIntFromTo(0, size - 5);
+				int column = (int) generator.nextIntFromTo(0, size - 5);
+				grid.markChanged(row, column, row + 4, column + 4);
+				for (int i = row; i < row + 5; i++)
+				{
+					for (int j = column; j < column + 5; j++)
+					{
+						grid.set(i, j, grid.get(i, j) + 1);
+					}
+				}
+			}
+			
+			RealVector kept = cache.get(location, new CountingSum(angProbInfo, grid))[0];
+			RealVector summed = AngularSums.sum(location, new CountingSum(angProbInfo, grid))[0];
+			Assert.assertEquals(kept, summed, "step " + step);
+		}
+	}
+
+	@Test
+	public void testOnlyChangedAnglesSummed()
+	{
+		AngularProbabilityInfo angProbInfo = AngularProbabilityInfo.create();
+		DecayingGrid grid = new DecayingGrid(Grid.of(TestUtilities.createRandomMatrix(size, size)));
+		AngularSums cache = new AngularSums();
+		NdPoint location = new NdPoint(25.5, 25.5);
+		
+		CountingSum sum = new CountingSum(angProbInfo, grid);
+		cache.get(location, sum);
+		Assert.assertEquals(sum.getNumSums(), 360, "summed every angle");
+		
+		sum = new CountingSum(angProbInfo, grid);
+		RealVector kept = cache.get(location, sum)[0];
+		Assert.assertEquals(sum.getNumSums(), 0, "nothing changed");
+		kept.setEntry(0, -1);
+		Assert.assertTrue(cache.get(location, sum)[0].getEntry(0) != -1, "copy returned");
+
+		// a cell straight up from the location
+		grid.markChanged(25, 40, 25, 40);
+		grid.set(25, 40, 100);
+		sum = new CountingSum(angProbInfo, grid);
+		RealVector sums = cache.get(location, sum)[0];
+		Assert.assertTrue(sum.getNumSums() > 0 && sum.getNumSums() < 10, "only angles near pi/2 summed: " + sum.getNumSums());
+		Assert.assertEquals(sums, AngularSums.sum(location, new CountingSum(angProbInfo, grid))[0], "sums up to date");
+
+		grid.decay(0.5, 0);
+		sum = new CountingSum(angProbInfo, grid);
+		cache.get(location, sum);
+		Assert.assertEquals(sum.getNumSums(), 360, "decay changes every angle");
+		
+		sum = new CountingSum(angProbInfo, grid);
+		cache.get(new NdPoint(25.5, 25.50001), sum);
+		Assert.assertEquals(sum.getNumSums(), 360, "new location");
+	}
+
+	@Test
+	public void testDifferentSamplesNotKept()
+	{
+		AngularProbabilityInfo angProbInfo = AngularProbabilityInfo.create(10, 1, 8);
+		DecayingGrid grid = new DecayingGrid(new Grid(size, size));
+		AngularSums cache = new AngularSums();
+		NdPoint location = new NdPoint(25.5, 25.5);
+		
+		cache.get(location, new CountingSum(AngularProbabilityInfo.create(), grid), new CountingSum(angProbInfo, grid));
+		CountingSum sum = new CountingSum(angProbInfo, grid);
+		cache.get(location, new CountingSum(AngularProbabilityInfo.create(), grid), sum);
+		Assert.assertEquals(sum.getNumSums(), 8, "summed again");
+	}
+
+	@Test
+	public void testFarSamplesWithinBound()
+	{
+		AngularProbabilityInfo angProbInfo = AngularProbabilityInfo.create();
+		RealVector distanceFactor = angProbInfo.getSampleDistances().mapMultiply(-0.2).mapToSelf(new Exp());
+		DecayingGrid grid = new DecayingGrid(Grid.of(TestUtilities.createRandomMatrix(size, size)));
+		NdPoint location = new NdPoint(12.3, 30.8);
+
+		Assert.assertNull(FarSamples.create(distanceFactor, angProbInfo.getSpacing(), 0), "exact");
+		FarSamples far = FarSamples.create(distanceFactor, angProbInfo.getSpacing(), 0.01);
+		FarSamples farther = FarSamples.create(distanceFactor, angProbInfo.getSpacing(), 0.1);
+		Assert.assertTrue(far.getNumNear() < distanceFactor.getDimension(), "some far samples");
+		Assert.assertTrue(farther.getNumNear() < far.getNumNear(), "fewer near samples");
+		Assert.assertTrue(far.getFarWeight() <= 0.01 * distanceFactor.getL1Norm(), "far weight within tolerance");
+
+		RealVector exact = AngularSums.sum(location, new WeightedSum(angProbInfo, null, distanceFactor, grid))[0];
+		AngularSums cache = new AngularSums();
+		for (int step = 0; step < 3; step++)
+		{
+			RealVector approximate = AngularSums.sum(location, new WeightedSum(angProbInfo, far, distanceFactor, grid))[0];
+			RealVector kept = cache.get(location, new WeightedSum(angProbInfo, far, distanceFactor, grid))[0];
+			Assert.assertEquals(kept, approximate, "kept same as summed, step " + step);
+
+			// values between 0 and 1
+			for (int angleIdx = 0; angleIdx < exact.getDimension(); angleIdx++)
+			{
+				Assert.assertEquals(approximate.getEntry(angleIdx), exact.getEntry(angleIdx), far.getFarWeight() + 1e-12, 
+						"within bound at angle " + angleIdx + ", step " + step);
+			}
+
+			// changing a cell far away changes its block
+			grid.markChanged(45, 30, 45, 30);
+			grid.set(45, 30, 1 - grid.get(45, 30));
+			exact = AngularSums.sum(location, new WeightedSum(angProbInfo, null, distanceFactor, grid))[0];
+		}
+	}
+
+	private static class WeightedSum extends AbstractMemory.FarSampleSum
+	{
+		private final DecayingGrid grid;
+		private final RealVector weights;
+
+		private WeightedSum(AngularProbabilityInfo samples, FarSamples far, RealVector weights, DecayingGrid grid)
+		{
+			super(samples, far, grid);
+			this.grid = grid;
+			this.weights = weights;
+		}
+
+		@Override
+		protected double sum(int[] xs, int[] ys, int numSamples)
+		{
+			double value = 0;
+			for (int pointIdx = 0; pointIdx < numSamples; pointIdx++)
+			{
+				value += grid.get(xs[pointIdx], ys[pointIdx]) * weights.getEntry(pointIdx);
+			}
+			return value;
+		}
+
+		@Override
+		protected double getBlockValue(int level, int blockRow, int blockColumn)
+		{
+			return grid.getBlockMean(level, blockRow, blockColumn);
+		}
+	}
+}
@@ -0,0 +1,33 @@
+package ForagingModel.space;
+
+/**
+ * A sum of a grid's samples, each weighted by one over its step from the location, that counts how often it sums.
+ */
+class CountingSum extends AbstractMemory.SampleSum
+{
+	private final DecayingGrid grid;
+	private int numSums;
+
+	protected CountingSum(AngularProbabilityInfo samples, DecayingGrid grid)
+	{
+		super(samples, grid);
+		this.grid = grid;
+	}
+
+	protected int getNumSums()
+	{
+		return numSums;
+	}
+
+	@Override
+	protected double sum(int[] xs, int[] ys, int numSamples)
+	{
+		numSums++;
+		double value = 0;
+		for (int pointIdx = 0; pointIdx < numSamples; pointIdx++)
+		{
+			value += grid.get(xs[pointIdx], ys[pointIdx]) / (pointIdx + 1);
+		}
+		return value;
+	}
+}
@@ -0,0 +1,116 @@
+package ForagingModel.space;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import ForagingModel.core.Grid;
+import ForagingModel.core.TestUtilities;
+
+public class DecayingGridTest
+{
+	@Test
+	public void testMatchesDecayingEveryCell()
+	{
+		double decayRate = 0.3;
+		double target = 0.25;
+		Grid expected = Grid.of(TestUtilities.createRandomMatrix(6, 8));
+		DecayingGrid grid = new DecayingGrid(expected.copy());
+
+		// long enough for the scale to be folded in several times
+		for (int interval = 0; interval < 500; interval++)
+		{
+			for (int row = 0; row < 6; row++)
+			{
+				for (int column = 0; column < 8; column++)
+				{
+					double value = expected.get(row, column);
+					expected.set(row, column, value - decayRate * (value - target));
+				}
+			}
+			grid.decay(1 - decayRate, target);
+
+			// learning at one cell each interval
+			int row = interval % 6;
+			int column = interval % 8;
+			double learned = grid.get(row, column) + 0.1 * (1 - grid.get(row, column));
+			expected.set(row, column, expected.get(row, column) + 0.1 * (1 - expected.get(row, column)));
+			grid.set(row, column, learned);
+
+			Assert.assertEquals(grid.get(row, column), expected.get(row, column), 1e-12, "learned at interval " + interval);
+		}
+		TestUtilities.compareMatrix(grid.getGrid(), expected, 1e-12);
+	}
+
+	@Test
+	public void testDecayToTarget()
+	{
+		Grid values = new Grid(new double[][] {{ 2, 4 }, { 6, 8 }});
+		DecayingGrid grid = new DecayingGrid(values);
+
+		grid.decay(0.5, 0);
+		Assert.assertEquals(grid.get(1, 0), 3.0, "decay toward 0");
+		Assert.assertEquals(values.get(1, 0), 6.0, "stored values unchanged");
+
+		grid.decay(0, 1);
+		Assert.assertEquals(grid.get(1, 0), 1.0, "all decayed");
+		Assert.assertEquals(values.get(0, 1), 1.0, "folded in when nothing left");
+	}
+
+	@Test
+	public void testGetGridUpToDate()
+	{
+		Grid values = new Grid(new double[][] {{ 2, 4 }, { 6, 8 }});
+		DecayingGrid grid = new DecayingGrid(values);
+
+		grid.decay(0.5, 2);
+		Assert.assertSame(grid.getGrid(), values, "same grid");
+		Assert.assertEquals(values, new Grid(new double[][] {{ 2, 3 }, { 4, 5 }}), "decayed values");
+		Assert.assertEquals(grid.get(1, 1), 5.0, "still decayed");
+	}
+
+	@Test
+	public void testBlockMeans()
+	{
+		Grid values = Grid.of(TestUtilities.createRandomMatrix(7, 5));
+		DecayingGrid grid = new DecayingGrid(values);
+		Assert.assertEquals(grid.getNumLevels(), 4, "levels up to 8 cells");
+		compareBlockMeans(grid, "new");
+
+		grid.markChanged(2, 1, 3, 1);
+		grid.set(2, 1, 5);
+		grid.set(3, 1, -2);
+		compareBlockMeans(grid, "learned");
+
+		grid.decay(0.5, 1);
+		compareBlockMeans(grid, "decayed");
+
+		grid.getGrid().set(6, 4, 3);
+		compareBlockMeans(grid, "grid changed");
+	}
+
+	private void compareBlockMeans(DecayingGrid grid, String message)
+	{
+		for (int level = 0; level < grid.getNumLevels(); level++)
+		{
+			int size = 1 << level;
+			for (int blockRow = 0; blockRow * size < 7; blockRow++)
+			{
+				for (int blockColumn = 0; blockColumn * size < 5; blockColumn++)
+				{
+					double sum = 0;
+					int numCells = 0;
+					for (int row = blockRow * size; row < Math.min((blockRow + 1) * size, 7); row++)
+					{
+						for (int column = blockColumn * size; column < Math.min((blockColumn + 1) * size, 5); column++)
+						{
+							sum += grid.get(row, column);
+							numCells++;
+						}
+					}
+					Assert.assertEquals(grid.getBlockMean(level, blockRow, blockColumn), sum / numCells, 1e-12, 
+							String.format("%s: level %d (%d, %d)", message, level, blockRow, blockColumn));
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package ForagingModel.space;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import ForagingModel.core.GridPoint;
+import ForagingModel.core.NdPoint;
+
+public class KernelStencilTest 
+{
+	@Test
+	public void testWeightsMatchKernel()
+	{
+		double spatialScale = 2.5;
+		KernelStencil stencil = new KernelStencil(spatialScale, 0, 20, 30);
+		NdPoint center = new NdPoint(7.3, 21.8);
+		stencil.moveTo(center);
+		
+		Assert.assertEquals(stencil.getMinRow(), 0, "min row");
+		Assert.assertEquals(stencil.getMaxRow(), 19, "max row");
+		Assert.assertEquals(stencil.getMinColumn(), 0, "min column");
+		Assert.assertEquals(stencil.getMaxColumn(), 29, "max column");
+		for (int row = 0; row < 20; row++)
+		{
+			for (int column = 0; column < 30; column++)
+			{
+				double distance = SpaceUtils.getDistance(center, new GridPoint(row, column));
+				double expected = Math.exp(-distance * distance / spatialScale);
+				Assert.assertEquals(stencil.getWeight(row, column), expected, 1e-14, "weight at " + row + ", " + column);
+			}
+		}
+	}
+	
+	@Test
+	public void testFootprintCoversKernelAboveTolerance()
+	{
+		double spatialScale = 1;
+		double tolerance = 1e-6;
+		KernelStencil stencil = new KernelStencil(spatialScale, tolerance, 50, 50);
+		NdPoint center = new NdPoint(25.5, 3.2);
+		stencil.moveTo(center);
+		
+		for (int row = 0; row < 50; row++)
+		{
+			for (int column = 0; column < 50; column++)
+			{
+				double distance = SpaceUtils.getDistance(center, new GridPoint(row, column));
+				boolean inFootprint = row >= stencil.getMinRow() && row <= stencil.getMaxRow() 
+						&& column >= stencil.getMinColumn() && column <= stencil.getMaxColumn();
+				if (Math.exp(-distance * distance / spatialScale) >= tolerance)
+				{
+					Assert.assertTrue(inFootprint, "above tolerance at " + row + ", " + column);
+				}
+			}
+		}
+		// clipped at the edge, and much smaller than the landscape
+		Assert.assertEquals(stencil.getMinColumn(), 0, "clipped");
+		Assert.assertTrue(stencil.getMaxRow() - stencil.getMinRow() < 10, "truncated");
+	}
+	
+	@Test
+	public void testOutsideLandscape()
+	{
+		KernelStencil stencil = new KernelStencil(1, 1e-12, 10, 10);
+		stencil.moveTo(new NdPoint(100, 5));
+		Assert.assertTrue(stencil.getMinRow() > stencil.getMaxRow(), "empty footprint");
+	}
+}
@@ -2,18 +2,23 @@ package ForagingModel.space;
 
 import java.io.File;
 import java.net.URISyntaxException;
+import java.text.ParseException;
 import java.util.List;
 
 import org.apache.commons.math3.linear.Array2DRowRealMatrix;
 import org.apache.commons.math3.linear.RealMatrix;
 import org.mockito.Mockito;
 import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import ForagingModel.core.Grid;
 import ForagingModel.core.GridPoint;
 import ForagingModel.core.MatrixUtils;
 import ForagingModel.core.NdPoint;
+import ForagingModel.core.Parameters;
+import ForagingModel.core.Parameters.Parameter;
 import ForagingModel.core.TestUtilities;
 import ForagingModel.input.CellData;
 import ForagingModel.input.InputFactory;
@@ -175,6 +180,46 @@ public class ResourceMatrixTest
 		Assert.assertTrue(resourceValues.getEntry(0,  0) <= K, "Regeneration should never exceen max quality Q0");
 	}
 
+	@Test
+	public void testRegenerationOnlyWhereConsumed()
+	{
+		double rate = 0.3;
+		Grid carryingCapacity = Grid.of(TestUtilities.createRandomMatrix(30, 40));
+		for (int row = 0; row < 30; row++)
+		{
+			for (int column = 0; column < 40; column++)
+			{
+				carryingCapacity.set(row, column, Math.abs(carryingCapacity.get(row, column)));
+			}
+		}
+		Grid resourceValues = carryingCapacity.copy();
+		ResourceMatrix resources = new ResourceMatrix(resourceValues, carryingCapacity, rate, 1);
+
+		resources.growResource();
+		Assert.assertEquals(resources.getNumGrowingCells(), 0, "nothing grows at carrying capacity");
+
+		resources.consumeResource(new NdPoint(10.3, 20.8), 5, 2);
+		Grid expected = resourceValues.copy();
+		int numConsumed = resources.getNumGrowingCells();
+		Assert.assertTrue(numConsumed > 0 && numConsumed < 30 * 40, "only consumed cells grow");
+
+		for (int interval = 0; interval < 200; interval++)
+		{
+			resources.growResource();
+			for (int row = 0; row < 30; row++)
+			{
+				for (int column = 0; column < 40; column++)
+				{
+					double K = carryingCapacity.get(row, column);
+					double quality = expected.get(row, column);
+					expected.set(row, column, quality + rate * (K - quality) / K * quality);
+				}
+			}
+			Assert.assertEquals(resourceValues, expected, "same as growing every cell, interval " + interval);
+		}
+		Assert.assertTrue(resources.getNumGrowingCells() < numConsumed, "cells stop growing");
+	}
+
 	@Test
 	public void testDepletion()
 	{
@@ -311,4 +356,39 @@ public class ResourceMatrixTest
 		  resourceMatrix.reportCurrentState();
 	  }
 	  
+	  @Test
+	  public void testTruncatedConsumptionMatchesExact() throws ParseException
+	  {
+		  RealMatrix truncatedResource = TestUtilities.createRandomMatrix(60, 40);
+		  RealMatrix exactResource = truncatedResource.copy();
+		  ResourceMatrix truncated = new ResourceMatrix(truncatedResource, truncatedResource.copy(), 0.2, 1);
+		  TestUtilities.setParameter(Parameter.KernelTolerance, 0.0);
+		  ResourceMatrix exact = new ResourceMatrix(exactResource, exactResource.copy(), 0.2, 1);
+		  
+		  // including near the edge, where the box is clipped to the landscape
+		  NdPoint[] locations = new NdPoint[] { new NdPoint(30.3, 20.7), new NdPoint(0.1, 39.9), new NdPoint(59.5, 2.2) };
+		  for (NdPoint location : locations)
+		  {
+			  double truncatedAmount = truncated.consumeResource(location, 5, 1);
+			  double exactAmount = exact.consumeResource(location, 5, 1);
+			  Assert.assertEquals(truncatedAmount, exactAmount, Math.abs(exactAmount) * 1e-10, "Consumption at " + location);
+		  }
+		  for (int row = 0; row < 60; row++)
+		  {
+			  for (int column = 0; column < 40; column++)
+			  {
+				  Assert.assertEquals(truncatedResource.getEntry(row, column), exactResource.getEntry(row, column), 
+						  Math.abs(exactResource.getEntry(row, column)) * 1e-10, "Resource at " + row + ", " + column);
+			  }
+		  }
+		  // far from any consumer
+		  Assert.assertEquals(truncatedResource.getEntry(30, 39), truncated.getIntrinsicQuality(new GridPoint(30, 39)), "Not consumed");
+	  }
+	  
+	  @AfterMethod
+	  public void resetParameters()
+	  {
+		  Parameters.resetToDefaults();
+	  }
+	  
 }
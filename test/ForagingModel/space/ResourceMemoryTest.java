@@ -16,6 +16,7 @@ import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import ForagingModel.core.GridPoint;
 import ForagingModel.core.MatrixUtils;
 import ForagingModel.core.NdPoint;
 import ForagingModel.core.Parameters;
@@ -727,4 +728,33 @@ public class ResourceMemoryTest
 		
 		Assert.assertEquals(MatrixUtils.sum(probabilities), 1.0, 1e-10, "probabilities sum to 1");
 	}
+	
+	@Test
+	public void testLearnOnlyWhereKernelReaches()
+	{
+		int rows = 30;
+		int columns = 20;
+		RealMatrix carryingCapacities = TestUtilities.createRandomMatrix(rows, columns);
+		ResourceAssemblage resources = new ResourceMatrix(carryingCapacities, 0.2, 1);
+		ResourceMemory memory = new ResourceMemory(new Array2DRowRealMatrix(rows, columns), resources, mockAngInfo,
+				0.7, 0.5, 1, 4, 0.1, 0.1, 1, 1, 1, 0, 1);
+		ResourceMemory expected = new ResourceMemory(new Array2DRowRealMatrix(rows, columns), resources, mockAngInfo,
+				0.7, 0.5, 1, 4, 0.1, 0.1, 1, 1, 1, 0, 1);
+		
+		NdPoint[] locations = new NdPoint[] { new NdPoint(12.3, 8.9), new NdPoint(12.8, 9.1), new NdPoint(0.2, 19.5) };
+		for (NdPoint location : locations)
+		{
+			memory.learn(location);
+			for (int row = 0; row < rows; row++)
+			{
+				for (int column = 0; column < columns; column++)
+				{
+					GridPoint point = new GridPoint(row, column);
+					expected.learn(row, column, SpaceUtils.getDistance(location, point), resources.getIntrinsicQuality(point));
+				}
+			}
+		}
+		TestUtilities.compareMatrix(memory.getShortMemory(), expected.getShortMemory(), 1e-10);
+		TestUtilities.compareMatrix(memory.getLongMemory(), expected.getLongMemory(), 1e-10);
+	}
 }
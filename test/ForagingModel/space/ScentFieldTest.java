@@ -0,0 +1,122 @@
+package ForagingModel.space;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import ForagingModel.core.Grid;
+import ForagingModel.core.NdPoint;
+import ForagingModel.space.MemoryAssemblage.State;
+
+public class ScentFieldTest
+{
+	private final int size = 30;
+	private final double decayRate = 0.05;
+
+	@Test
+	public void testTwoForagersSameAsEachKeepingOther()
+	{
+		ScentHistory otherOfA = createScentHistory(null);
+		ScentHistory otherOfB = createScentHistory(null);
+
+		ScentField field = new ScentField(new Grid(size, size), decayRate, 1);
+		ScentHistory sharedA = createScentHistory(field);
+		ScentHistory sharedB = createScentHistory(field);
+
+		for (int interval = 0; interval < 50; interval++)
+		{
+			// paths crossing so the scents overlap
+			NdPoint locationA = new NdPoint(5 + 0.4 * interval, 10.2);
+			NdPoint locationB = new NdPoint(14.7, 3 + 0.5 * interval);
+
+			otherOfA.depositScent(Collections.singleton(locationB));
+			otherOfB.depositScent(Collections.singleton(locationA));
+			sharedA.depositOwnScent(locationA);
+			sharedB.depositOwnScent(locationB);
+
+			compare(sharedA.reportCurrentState(State.Scent), otherOfA.reportCurrentState(State.Scent), 1e-12, "A, interval " + interval);
+			compare(sharedB.reportCurrentState(State.Scent), otherOfB.reportCurrentState(State.Scent), 1e-12, "B, interval " + interval);
+
+			otherOfA.decay();
+			otherOfB.decay();
+			field.decay();
+			sharedA.decay();
+			sharedB.decay();
+		}
+	}
+
+	@Test
+	public void testSeparateScentsSameAsEachKeepingOthers()
+	{
+		NdPoint[] locations = new NdPoint[] { new NdPoint(4.5, 4.5), new NdPoint(25.5, 5.5), new NdPoint(15.5, 25.5) };
+		ScentField field = new ScentField(new Grid(size, size), decayRate, 1);
+		ScentHistory[] others = new ScentHistory[locations.length];
+		ScentHistory[] shared = new ScentHistory[locations.length];
+		for (int i = 0; i < locations.length; i++)
+		{
+			others[i] = createScentHistory(null);
+			shared[i] = createScentHistory(field);
+		}
+		ScentHistory all = createScentHistory(field);
+
+		for (int interval = 0; interval < 10; interval++)
+		{
+			for (int i = 0; i < locations.length; i++)
+			{
+				Set<NdPoint> conspecifics = new HashSet<NdPoint>();
+				for (int j = 0; j < locations.length; j++)
+				{
+					if (j != i)
+					{
+						conspecifics.add(locations[j]);
+					}
+				}
+				others[i].depositScent(conspecifics);
+				shared[i].depositOwnScent(locations[i]);
+			}
+			field.decay();
+			for (int i = 0; i < locations.length; i++)
+			{
+				others[i].decay();
+				shared[i].decay();
+			}
+		}
+
+		// far enough apart that the scents don't noticeably overlap
+		for (int i = 0; i < locations.length; i++)
+		{
+			compare(shared[i].reportCurrentState(State.Scent), others[i].reportCurrentState(State.Scent), 1e-6, "forager " + i);
+		}
+
+		// one that leaves no scent smells all of it
+		double[][] allScent = all.reportCurrentState(State.Scent);
+		double[][] scentOfOthers = shared[0].reportCurrentState(State.Scent);
+		Assert.assertEquals(allScent[4][4], shared[1].reportCurrentState(State.Scent)[4][4], 1e-12, "scent of 0");
+		Assert.assertEquals(allScent[25][5], scentOfOthers[25][5], 1e-12, "scent of 1");
+		Assert.assertTrue(allScent[4][4] > 0, "scent left");
+	}
+
+	private ScentHistory createScentHistory(ScentField field)
+	{
+		AngularProbabilityInfo angInfo = Mockito.mock(AngularProbabilityInfo.class);
+		Mockito.when(angInfo.getSampleDistances()).thenReturn(new ArrayRealVector(new double[] { 1, 2, 3 }));
+		return new ScentHistory(new Grid(size, size), field, angInfo, 10, 2, decayRate, 5, 1, 1);
+	}
+
+	private void compare(double[][] actual, double[][] expected, double tolerance, String message)
+	{
+		for (int row = 0; row < size; row++)
+		{
+			for (int column = 0; column < size; column++)
+			{
+				Assert.assertEquals(actual[row][column], expected[row][column], tolerance,
+						String.format("%s: (%d, %d)", message, row, column));
+			}
+		}
+	}
+}